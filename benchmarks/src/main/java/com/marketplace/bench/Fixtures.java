@@ -0,0 +1,142 @@
+package com.marketplace.bench;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.ssm.SsmClient;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic items and a no-op Lambda context shared by the benchmarks.
+ */
+public final class Fixtures {
+
+    /** Plaintext returned by the stub KMS client. */
+    public static final String SUPPLIER_EMAIL = "supplier@example.com";
+    /** Ciphertext blob of roughly the size KMS returns for a short plaintext. */
+    static final byte[] CIPHERTEXT = new byte[184];
+
+    static {
+        new Random(42).nextBytes(CIPHERTEXT);
+    }
+
+    private static final String ENCODED_CIPHERTEXT = Base64.getEncoder().encodeToString(CIPHERTEXT);
+    private static final String[] CATEGORIES = {"Electronics", "Books", "Garden", "Toys"};
+
+    private Fixtures() {}
+
+    /**
+     * Builds a product item as written by {@code CreateProductHandler}, including an encrypted supplier email.
+     *
+     * @param index The item number, used to derive unique values.
+     * @return The DynamoDB item.
+     */
+    public static Map<String, AttributeValue> productItem(int index) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        String id = "prod-" + index;
+        item.put("PK", AttributeValue.builder().s("PROD#" + id).build());
+        item.put("SK", AttributeValue.builder().s("METADATA").build());
+        item.put("id", AttributeValue.builder().s(id).build());
+        item.put("name", AttributeValue.builder().s("Product " + index).build());
+        item.put("price", AttributeValue.builder().n(String.valueOf(10.0 + index % 100)).build());
+        item.put("category", AttributeValue.builder().s(CATEGORIES[index % CATEGORIES.length]).build());
+        item.put("version", AttributeValue.builder().n("1").build());
+        item.put("stockQuantity", AttributeValue.builder().n(String.valueOf(index % 50)).build());
+        item.put("supplierEmail", AttributeValue.builder().s(ENCODED_CIPHERTEXT).build());
+        return item;
+    }
+
+    /**
+     * Builds a catalog of product items.
+     *
+     * @param size The number of items.
+     * @return The items.
+     */
+    public static List<Map<String, AttributeValue>> productItems(int size) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(productItem(i));
+        }
+        return items;
+    }
+
+    /**
+     * Builds order items as written by {@code CreateOrderHandler}.
+     *
+     * @param size The number of items.
+     * @return The items.
+     */
+    public static List<Map<String, AttributeValue>> orderItems(int size) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("PK", AttributeValue.builder().s("PROD#prod-" + i).build());
+            item.put("SK", AttributeValue.builder().s("ORDER#order-" + i).build());
+            item.put("orderId", AttributeValue.builder().s("order-" + i).build());
+            item.put("productId", AttributeValue.builder().s("prod-" + i).build());
+            item.put("userId", AttributeValue.builder().s("bench-user").build());
+            item.put("quantity", AttributeValue.builder().n(String.valueOf(1 + i % 5)).build());
+            item.put("timestamp", AttributeValue.builder().n(String.valueOf(1_700_000_000L + i)).build());
+            item.put("GSI_PK", AttributeValue.builder().s("USER#bench-user").build());
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Returns an SSM client that must never be called; handlers get their table name injected.
+     *
+     * @return The SSM client.
+     */
+    public static SsmClient unusedSsmClient() {
+        return new SsmClient() {
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Returns a Lambda context whose logger discards output.
+     *
+     * @return The context.
+     */
+    public static Context context() {
+        return new BenchmarkContext();
+    }
+
+    /**
+     * Minimal Lambda context for running handlers inside a benchmark.
+     */
+    private static final class BenchmarkContext implements Context {
+        private static final LambdaLogger DISCARDING_LOGGER = new LambdaLogger() {
+            @Override public void log(String message) { }
+            @Override public void log(byte[] message) { }
+        };
+
+        @Override public String getAwsRequestId() { return "benchmark"; }
+        @Override public String getLogGroupName() { return "benchmark"; }
+        @Override public String getLogStreamName() { return "benchmark"; }
+        @Override public String getFunctionName() { return "benchmark"; }
+        @Override public String getFunctionVersion() { return "$LATEST"; }
+        @Override public String getInvokedFunctionArn() { return "arn:aws:lambda:us-east-1:000000000000:function:benchmark"; }
+        @Override public CognitoIdentity getIdentity() { return null; }
+        @Override public ClientContext getClientContext() { return null; }
+        @Override public int getRemainingTimeInMillis() { return 30_000; }
+        @Override public int getMemoryLimitInMB() { return 512; }
+        @Override public LambdaLogger getLogger() { return DISCARDING_LOGGER; }
+    }
+}
@@ -0,0 +1,69 @@
+package com.marketplace.bench;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DynamoDB client that answers from canned items without any network or marshalling cost,
+ * so a benchmark measures only the handler's own work. Unstubbed operations throw.
+ */
+public final class StubDynamoDbClient implements DynamoDbClient {
+
+    private static final TransactWriteItemsResponse TRANSACT_RESPONSE = TransactWriteItemsResponse.builder().build();
+
+    private final GetItemResponse getItemResponse;
+    private final ScanResponse scanResponse;
+    private final QueryResponse queryResponse;
+
+    /**
+     * Creates a stub that returns the given item for GetItem and the given items for Scan and Query.
+     *
+     * @param item  The item returned by GetItem, or null for a miss.
+     * @param items The items returned by Scan and Query.
+     */
+    public StubDynamoDbClient(Map<String, AttributeValue> item, List<Map<String, AttributeValue>> items) {
+        this.getItemResponse = GetItemResponse.builder().item(item).build();
+        this.scanResponse = ScanResponse.builder().items(items).count(items.size()).build();
+        this.queryResponse = QueryResponse.builder().items(items).count(items.size()).build();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        return getItemResponse;
+    }
+
+    @Override
+    public ScanResponse scan(ScanRequest request) {
+        return scanResponse;
+    }
+
+    @Override
+    public QueryResponse query(QueryRequest request) {
+        return queryResponse;
+    }
+
+    @Override
+    public TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+        return TRANSACT_RESPONSE;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
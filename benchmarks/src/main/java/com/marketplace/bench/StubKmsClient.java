@@ -0,0 +1,41 @@
+package com.marketplace.bench;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+
+/**
+ * KMS client that returns a fixed plaintext and ciphertext. The Base64 handling around the
+ * call stays in the handler and is what the benchmarks measure.
+ */
+public final class StubKmsClient implements KmsClient {
+
+    private static final DecryptResponse DECRYPT_RESPONSE = DecryptResponse.builder()
+            .plaintext(SdkBytes.fromUtf8String(Fixtures.SUPPLIER_EMAIL))
+            .build();
+    private static final EncryptResponse ENCRYPT_RESPONSE = EncryptResponse.builder()
+            .ciphertextBlob(SdkBytes.fromByteArray(Fixtures.CIPHERTEXT))
+            .build();
+
+    @Override
+    public DecryptResponse decrypt(DecryptRequest request) {
+        return DECRYPT_RESPONSE;
+    }
+
+    @Override
+    public EncryptResponse encrypt(EncryptRequest request) {
+        return ENCRYPT_RESPONSE;
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,110 @@
+package com.marketplace.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.marketplace.bench.Fixtures;
+import com.marketplace.utils.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shared {@link MarketplaceJson#CODEC} against a plain bean-introspecting {@code ObjectMapper}
+ * for the request and response bodies the handlers read and write on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmarks {
+
+    private static final String PRODUCT_JSON = "{\"name\": \"Test Product\", \"price\": 19.99, "
+            + "\"category\": \"Electronics\", \"stockQuantity\": 10, \"supplierEmail\": \"" + Fixtures.SUPPLIER_EMAIL + "\"}";
+    private static final String ORDER_JSON = "{\"productId\": \"prod-1\", \"quantity\": 1}";
+
+    /**
+     * A catalog of the given size and both codecs.
+     */
+    @State(Scope.Benchmark)
+    public static class Codecs {
+        @Param({"10", "1000"})
+        int catalogSize;
+
+        final ObjectMapper beanMapper = new ObjectMapper();
+        final JsonCodec codec = MarketplaceJson.CODEC;
+        ObjectWriter beanListWriter;
+        List<Product> products;
+
+        @Setup
+        public void setUp() {
+            beanListWriter = beanMapper.writerFor(MarketplaceJson.PRODUCT_LIST);
+            products = new ArrayList<>(catalogSize);
+            for (int i = 0; i < catalogSize; i++) {
+                products.add(new Product("prod-" + i, "Product " + i, 10.0 + i % 100, "Electronics", 1, i % 50,
+                        Fixtures.SUPPLIER_EMAIL));
+            }
+        }
+    }
+
+    /**
+     * Product list response body, bean serializer.
+     */
+    @Benchmark
+    public String writeCatalogBean(Codecs codecs) throws Exception {
+        return codecs.beanListWriter.writeValueAsString(codecs.products);
+    }
+
+    /**
+     * Product list response body, shared codec.
+     */
+    @Benchmark
+    public String writeCatalogCodec(Codecs codecs) throws Exception {
+        return codecs.codec.write(codecs.products, MarketplaceJson.PRODUCT_LIST);
+    }
+
+    /**
+     * {@code POST /products} request body, bean deserializer.
+     */
+    @Benchmark
+    public Product readProductBean(Codecs codecs) throws Exception {
+        return codecs.beanMapper.readValue(PRODUCT_JSON, Product.class);
+    }
+
+    /**
+     * {@code POST /products} request body, shared codec.
+     */
+    @Benchmark
+    public Product readProductCodec(Codecs codecs) throws Exception {
+        return codecs.codec.read(PRODUCT_JSON, Product.class);
+    }
+
+    /**
+     * {@code POST /orders} request body, shared codec.
+     */
+    @Benchmark
+    public Order readOrderCodec(Codecs codecs) throws Exception {
+        return codecs.codec.read(ORDER_JSON, Order.class);
+    }
+
+    /**
+     * Escaped error body with exception details, as returned on a 500.
+     */
+    @Benchmark
+    public String errorBody() {
+        return JsonCodec.errorBody("Could not create product", "details",
+                "java.lang.IllegalStateException: Unrecognized field \"coupon\"");
+    }
+}
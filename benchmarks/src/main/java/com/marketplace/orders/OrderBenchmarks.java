@@ -0,0 +1,91 @@
+package com.marketplace.orders;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.bench.Fixtures;
+import com.marketplace.bench.StubDynamoDbClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the order handlers with a stub DynamoDB client: transaction request building
+ * for a new order and item-to-order mapping plus serialization for the order history.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBenchmarks {
+
+    /**
+     * A user's order history of the given size served by the stub Query.
+     */
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"10", "100", "1000", "10000"})
+        int orderCount;
+
+        GetMyOrdersHandler handler;
+        final APIGatewayProxyRequestEvent request = authorizedRequest(null);
+        final Context context = Fixtures.context();
+
+        @Setup
+        public void setUp() {
+            handler = new GetMyOrdersHandler(new StubDynamoDbClient(null, Fixtures.orderItems(orderCount)), "BenchmarkTable");
+        }
+    }
+
+    /**
+     * A product in stock, so every order reaches the transaction.
+     */
+    @State(Scope.Benchmark)
+    public static class Placement {
+        CreateOrderHandler handler;
+        final APIGatewayProxyRequestEvent request = authorizedRequest("{\"productId\": \"prod-1\", \"quantity\": 1}");
+        final Context context = Fixtures.context();
+
+        @Setup
+        public void setUp() {
+            handler = new CreateOrderHandler(new StubDynamoDbClient(Fixtures.productItem(1), List.of()), "BenchmarkTable");
+        }
+    }
+
+    /**
+     * Full {@code POST /orders} path: body parsing, stock check and transaction request building.
+     */
+    @Benchmark
+    public APIGatewayProxyResponseEvent createOrder(Placement placement) {
+        return placement.handler.handleRequest(placement.request, placement.context);
+    }
+
+    /**
+     * Full {@code GET /orders/my-orders} path: Query result mapping and serialization.
+     */
+    @Benchmark
+    public APIGatewayProxyResponseEvent getMyOrders(History history) {
+        return history.handler.handleRequest(history.request, history.context);
+    }
+
+    private static APIGatewayProxyRequestEvent authorizedRequest(String body) {
+        APIGatewayProxyRequestEvent.ProxyRequestContext requestContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        requestContext.setAuthorizer(Map.of("user_id", "bench-user"));
+        return new APIGatewayProxyRequestEvent()
+                .withRequestContext(requestContext)
+                .withBody(body);
+    }
+}
@@ -0,0 +1,112 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.marketplace.bench.Fixtures;
+import com.marketplace.bench.StubDynamoDbClient;
+import com.marketplace.bench.StubKmsClient;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the product read handlers with stub SDK clients: item-to-{@link Product} mapping,
+ * Base64 decoding of the encrypted supplier email and JSON serialization of the response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductBenchmarks {
+
+    /**
+     * A catalog of the given size served by the stub Scan.
+     */
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"10", "100", "1000", "10000"})
+        int catalogSize;
+
+        GetProductsHandler handler;
+        List<Product> products;
+        final APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent();
+        final Context context = Fixtures.context();
+
+        @Setup
+        public void setUp() {
+            handler = new GetProductsHandler(new StubDynamoDbClient(null, Fixtures.productItems(catalogSize)),
+                    new StubKmsClient(), Fixtures.unusedSsmClient(), "BenchmarkTable");
+            products = new ArrayList<>(catalogSize);
+            for (int i = 0; i < catalogSize; i++) {
+                Product product = new Product();
+                product.setId("prod-" + i);
+                product.setName("Product " + i);
+                product.setPrice(10.0 + i % 100);
+                product.setCategory("Electronics");
+                product.setVersion(1);
+                product.setStockQuantity(i % 50);
+                product.setSupplierEmail(Fixtures.SUPPLIER_EMAIL);
+                products.add(product);
+            }
+        }
+    }
+
+    /**
+     * A single stored product served by the stub GetItem.
+     */
+    @State(Scope.Benchmark)
+    public static class SingleProduct {
+        GetProductByIdHandler handler;
+        final APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withPathParameters(Map.of("id", "prod-1"));
+        final Context context = Fixtures.context();
+
+        @Setup
+        public void setUp() {
+            handler = new GetProductByIdHandler(new StubDynamoDbClient(Fixtures.productItem(1), List.of()),
+                    new StubKmsClient(), "BenchmarkTable");
+        }
+    }
+
+    /**
+     * Full {@code GET /products} path: Scan result mapping, one decrypt per item and serialization.
+     */
+    @Benchmark
+    public APIGatewayProxyResponseEvent listProducts(Catalog catalog) {
+        return catalog.handler.handleRequest(catalog.request, catalog.context);
+    }
+
+    /**
+     * Serialization of an already mapped catalog, to separate JSON cost from mapping cost.
+     */
+    @Benchmark
+    public String serializeCatalog(Catalog catalog) throws JsonProcessingException {
+        return MarketplaceJson.CODEC.write(catalog.products, MarketplaceJson.PRODUCT_LIST);
+    }
+
+    /**
+     * Full {@code GET /products/{id}} path: GetItem mapping, Base64 decode, decrypt and serialization.
+     */
+    @Benchmark
+    public APIGatewayProxyResponseEvent getProductById(SingleProduct single) {
+        return single.handler.handleRequest(single.request, single.context);
+    }
+}
@@ -1,24 +1,58 @@
 package com.marketplace.utils;
 
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsAsyncClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
+import software.amazon.awssdk.core.SdkClient;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
 import com.amazonaws.xray.interceptors.TracingInterceptor;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Utility class for creating AWS SDK clients with X-Ray and custom endpoint support.
+ * Also holds the process-wide registry of shared, pre-tuned SDK clients.
  */
 public class ClientUtils {
 
+    private static final int MAX_CONNECTIONS = 50;
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration CONNECTION_MAX_IDLE_TIME = Duration.ofSeconds(60);
+    private static final Duration CONNECTION_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    /** Profile of the clients built with the default configuration. */
+    public static final String DEFAULT_PROFILE = "default";
+
+    private static final URI ENDPOINT_OVERRIDE = parseEndpoint(System.getenv("AWS_ENDPOINT_URL"));
+    private static final Map<ClientKey, SdkClient> CLIENTS = new ConcurrentHashMap<>();
+    private static volatile SdkHttpClient sharedHttpClient;
+    private static volatile SdkAsyncHttpClient sharedAsyncHttpClient;
+    private static volatile AwsCredentialsProvider sharedCredentialsProvider;
+
     /**
      * Provides a default X-Ray configuration for AWS SDK clients.
-     * Adds the TracingInterceptor to the client configuration.
+     * Adds the TracingInterceptor and the {@link MetricsInterceptor} to the client configuration.
      *
-     * @return A ClientOverrideConfiguration with X-Ray tracing enabled.
+     * @return A ClientOverrideConfiguration with X-Ray tracing and call metrics enabled.
      */
     public static ClientOverrideConfiguration getXRayConfig() {
         return ClientOverrideConfiguration.builder()
                 .addExecutionInterceptor(new TracingInterceptor())
+                .addExecutionInterceptor(new MetricsInterceptor())
                 .build();
     }
 
@@ -31,17 +65,195 @@ public class ClientUtils {
      * @return The (potentially) modified client builder.
      */
     public static <B extends software.amazon.awssdk.awscore.client.builder.AwsClientBuilder<B, ?>> B configureEndpoint(B builder) {
-        String endpoint = System.getenv("AWS_ENDPOINT_URL");
-        if (endpoint != null && !endpoint.isEmpty()) {
-            System.out.println("Configuring client with endpoint: " + endpoint);
-            try {
-                builder.endpointOverride(new URI(endpoint));
-            } catch (URISyntaxException e) {
-                System.err.println("Invalid endpoint URI: " + endpoint);
-            }
-        } else {
-            System.out.println("No AWS_ENDPOINT_URL found, using default.");
+        if (ENDPOINT_OVERRIDE != null) {
+            builder.endpointOverride(ENDPOINT_OVERRIDE);
         }
         return builder;
     }
+
+    /**
+     * Returns the shared client of the given type, creating it on first use with X-Ray tracing.
+     *
+     * @param clientType      The client interface, used as the registry key.
+     * @param builderSupplier Supplies a fresh builder for the client, e.g. {@code DynamoDbClient::builder}.
+     * @param <C>             The client type.
+     * @param <B>             The client builder type.
+     * @return The process-wide client instance.
+     * @see #getClient(Class, Supplier, String, Supplier)
+     */
+    public static <C extends SdkClient, B extends AwsClientBuilder<B, C> & AwsSyncClientBuilder<B, C>> C getClient(
+            Class<C> clientType, Supplier<B> builderSupplier) {
+        return getClient(clientType, builderSupplier, DEFAULT_PROFILE, ClientUtils::getXRayConfig);
+    }
+
+    /**
+     * Returns the shared client of the given type and profile, creating it on first use.
+     * Clients are built once per process with the shared HTTP client, an explicit region and an
+     * explicit credentials provider, so the default provider chains are never walked on cold start.
+     * The registry is keyed by type and profile, so a client with its own override configuration
+     * (such as a retry policy) is never swapped for, or shadowed by, the default client of its type.
+     * Callers sharing a profile name must ask for the same configuration.
+     *
+     * @param clientType            The client interface.
+     * @param builderSupplier       Supplies a fresh builder for the client, e.g. {@code DynamoDbClient::builder}.
+     * @param profile               Names the override configuration; part of the registry key.
+     * @param overrideConfiguration Supplies the override configuration (interceptors, retry policy) on creation.
+     * @param <C>                   The client type.
+     * @param <B>                   The client builder type.
+     * @return The process-wide client instance.
+     */
+    public static <C extends SdkClient, B extends AwsClientBuilder<B, C> & AwsSyncClientBuilder<B, C>> C getClient(
+            Class<C> clientType, Supplier<B> builderSupplier, String profile,
+            Supplier<ClientOverrideConfiguration> overrideConfiguration) {
+        return clientType.cast(CLIENTS.computeIfAbsent(new ClientKey(clientType, profile), key ->
+                configureEndpoint(builderSupplier.get())
+                        .httpClient(getHttpClient())
+                        .region(getRegion())
+                        .credentialsProvider(getCredentialsProvider())
+                        .overrideConfiguration(overrideConfiguration.get())
+                        .build()));
+    }
+
+    /**
+     * Returns the shared async client of the given type, creating it on first use with X-Ray tracing.
+     * Async clients share one Netty HTTP client and the same region and credentials as the sync clients.
+     *
+     * @param clientType      The async client interface, used as the registry key.
+     * @param builderSupplier Supplies a fresh builder for the client, e.g. {@code DynamoDbAsyncClient::builder}.
+     * @param <C>             The client type.
+     * @param <B>             The client builder type.
+     * @return The process-wide async client instance.
+     */
+    public static <C extends SdkClient, B extends AwsClientBuilder<B, C> & AwsAsyncClientBuilder<B, C>> C getAsyncClient(
+            Class<C> clientType, Supplier<B> builderSupplier) {
+        return clientType.cast(CLIENTS.computeIfAbsent(new ClientKey(clientType, DEFAULT_PROFILE), key ->
+                configureEndpoint(builderSupplier.get())
+                        .httpClient(getAsyncHttpClient())
+                        .region(getRegion())
+                        .credentialsProvider(getCredentialsProvider())
+                        .overrideConfiguration(getXRayConfig())
+                        .build()));
+    }
+
+    /**
+     * Returns the HTTP client shared by every registry client.
+     * A small, explicitly sized pool with keep-alive avoids repeated TLS handshakes between invocations.
+     *
+     * @return The shared Apache HTTP client.
+     */
+    public static SdkHttpClient getHttpClient() {
+        SdkHttpClient httpClient = sharedHttpClient;
+        if (httpClient == null) {
+            synchronized (ClientUtils.class) {
+                httpClient = sharedHttpClient;
+                if (httpClient == null) {
+                    httpClient = ApacheHttpClient.builder()
+                            .maxConnections(MAX_CONNECTIONS)
+                            .connectionTimeout(CONNECTION_TIMEOUT)
+                            .socketTimeout(SOCKET_TIMEOUT)
+                            .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                            .connectionTimeToLive(CONNECTION_TIME_TO_LIVE)
+                            .useIdleConnectionReaper(false) // No background thread; idle time is checked on lease
+                            .tcpKeepAlive(true)
+                            .build();
+                    sharedHttpClient = httpClient;
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * Returns the async HTTP client shared by every async registry client, tuned like the sync one.
+     *
+     * @return The shared Netty HTTP client.
+     */
+    public static SdkAsyncHttpClient getAsyncHttpClient() {
+        SdkAsyncHttpClient httpClient = sharedAsyncHttpClient;
+        if (httpClient == null) {
+            synchronized (ClientUtils.class) {
+                httpClient = sharedAsyncHttpClient;
+                if (httpClient == null) {
+                    httpClient = NettyNioAsyncHttpClient.builder()
+                            .maxConcurrency(MAX_CONNECTIONS)
+                            .connectionTimeout(CONNECTION_TIMEOUT)
+                            .readTimeout(SOCKET_TIMEOUT)
+                            .writeTimeout(SOCKET_TIMEOUT)
+                            .connectionMaxIdleTime(CONNECTION_MAX_IDLE_TIME)
+                            .connectionTimeToLive(CONNECTION_TIME_TO_LIVE)
+                            .useIdleConnectionReaper(false)
+                            .tcpKeepAlive(true)
+                            .build();
+                    sharedAsyncHttpClient = httpClient;
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * Resolves the region from AWS_REGION (always set in Lambda), falling back to the
+     * {@code aws.region} system property used by local tests.
+     *
+     * @return The region for all registry clients.
+     */
+    public static Region getRegion() {
+        String region = System.getenv("AWS_REGION");
+        if (region == null || region.isEmpty()) {
+            region = System.getProperty("aws.region", "us-east-1");
+        }
+        return Region.of(region);
+    }
+
+    /**
+     * Returns the credentials provider shared by every registry client, chosen directly instead of
+     * walking the default chain. SnapStart functions receive credentials from the container endpoint,
+     * regular functions from environment variables; anything else (e.g. a developer profile) uses the
+     * default chain.
+     *
+     * @return The shared credentials provider.
+     */
+    public static AwsCredentialsProvider getCredentialsProvider() {
+        AwsCredentialsProvider provider = sharedCredentialsProvider;
+        if (provider == null) {
+            synchronized (ClientUtils.class) {
+                provider = sharedCredentialsProvider;
+                if (provider == null) {
+                    if (System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI") != null) {
+                        provider = ContainerCredentialsProvider.builder().build();
+                    } else if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+                        provider = EnvironmentVariableCredentialsProvider.create();
+                    } else {
+                        provider = DefaultCredentialsProvider.create();
+                    }
+                    sharedCredentialsProvider = provider;
+                }
+            }
+        }
+        return provider;
+    }
+
+    /**
+     * Registry key: the client interface and the name of its override configuration.
+     */
+    private record ClientKey(Class<?> type, String profile) {
+    }
+
+    /**
+     * Parses the custom endpoint once per process.
+     *
+     * @param endpoint The raw AWS_ENDPOINT_URL value.
+     * @return The endpoint URI, or null if unset or invalid.
+     */
+    private static URI parseEndpoint(String endpoint) {
+        if (endpoint == null || endpoint.isEmpty()) {
+            return null;
+        }
+        try {
+            return new URI(endpoint);
+        } catch (URISyntaxException e) {
+            System.err.println("Invalid endpoint URI: " + endpoint);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,318 @@
+package com.marketplace.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Process-wide view of the configuration parameters stored under one path (e.g. {@code /marketplace}).
+ *
+ * <p>All parameters are loaded with a single batched call and kept in memory and in a {@code /tmp} file,
+ * so a new handler instance in the same sandbox, or a SnapStart restore, starts with values already present.
+ * Parameters the loader marks as secret (e.g. decrypted SecureStrings) are kept in memory only.
+ * Stale values are refreshed in the background and subscribers are told about changed values.
+ * If the first load fails, callers get their default values (e.g. the function's environment) and the
+ * load is retried in the background after {@link #FAILED_LOAD_RETRY}, so an SSM outage at cold start
+ * does not fail the invocation.
+ *
+ * <p>The provider does not depend on a service client: handlers pass a {@link ParameterLoader},
+ * typically a lambda around SSM {@code GetParametersByPath}.
+ */
+public final class ConfigProvider {
+
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    /** How long defaults are served after a failed first load before it is retried, at most the refresh interval. */
+    public static final Duration FAILED_LOAD_RETRY = Duration.ofSeconds(30);
+
+    // Shared by all providers: refreshes are rare and must never block an invocation
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "config-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Loads every parameter stored under a path.
+     */
+    @FunctionalInterface
+    public interface ParameterLoader {
+        /**
+         * Loads the parameters.
+         *
+         * @param path The parameter path, e.g. {@code /marketplace}.
+         * @return The parameter values keyed by their full name.
+         * @throws Exception If the parameters cannot be loaded.
+         */
+        Map<String, String> load(String path) throws Exception;
+    }
+
+    private final String path;
+    private final ParameterLoader loader;
+    private final Path cacheFile;
+    private final Predicate<String> persistable;
+    private final long refreshIntervalNanos;
+    private final long failedLoadRetryNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile Map<String, String> values;
+    private volatile long loadedAtNanos;
+    private volatile long retryAtNanos;
+    private volatile boolean loadFailed;
+
+    /**
+     * Creates a provider with the default {@code /tmp} cache file and a five minute refresh interval.
+     *
+     * @param path   The parameter path, e.g. {@code /marketplace}.
+     * @param loader Loads all parameters under the path.
+     */
+    public ConfigProvider(String path, ParameterLoader loader) {
+        this(path, loader, defaultCacheFile(path), DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Creates a provider with the default {@code /tmp} cache file and a five minute refresh interval,
+     * persisting only the parameters the predicate accepts.
+     *
+     * @param path        The parameter path, e.g. {@code /marketplace}.
+     * @param loader      Loads all parameters under the path.
+     * @param persistable Accepts the full names of the parameters that may be written to the cache file.
+     */
+    public ConfigProvider(String path, ParameterLoader loader, Predicate<String> persistable) {
+        this(path, loader, defaultCacheFile(path), DEFAULT_REFRESH_INTERVAL, persistable);
+    }
+
+    /**
+     * Creates a provider, starting from the cache file when one exists.
+     *
+     * @param path            The parameter path, e.g. {@code /marketplace}.
+     * @param loader          Loads all parameters under the path.
+     * @param cacheFile       The file the values are persisted to, or null to keep them in memory only.
+     * @param refreshInterval How long loaded values are served before a background refresh.
+     */
+    public ConfigProvider(String path, ParameterLoader loader, Path cacheFile, Duration refreshInterval) {
+        this(path, loader, cacheFile, refreshInterval, name -> true);
+    }
+
+    /**
+     * Creates a provider, starting from the cache file when one exists, that persists only the
+     * parameters the predicate accepts.
+     *
+     * @param path            The parameter path, e.g. {@code /marketplace}.
+     * @param loader          Loads all parameters under the path.
+     * @param cacheFile       The file the values are persisted to, or null to keep them in memory only.
+     * @param refreshInterval How long loaded values are served before a background refresh.
+     * @param persistable     Accepts the full names of the parameters that may be written to the cache file;
+     *                        asked after each load, so a loader can report what it just read.
+     */
+    public ConfigProvider(String path, ParameterLoader loader, Path cacheFile, Duration refreshInterval,
+                          Predicate<String> persistable) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.cacheFile = cacheFile;
+        this.persistable = Objects.requireNonNull(persistable, "persistable");
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.failedLoadRetryNanos = Math.min(FAILED_LOAD_RETRY.toNanos(), refreshIntervalNanos);
+        readCacheFile();
+    }
+
+    /**
+     * Returns the default cache file for a parameter path in the temporary directory.
+     *
+     * @param path The parameter path.
+     * @return The cache file location.
+     */
+    public static Path defaultCacheFile(String path) {
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                "marketplace-config" + path.replaceAll("[^A-Za-z0-9]", "_") + ".properties");
+    }
+
+    /**
+     * Returns a parameter value.
+     *
+     * @param name The parameter name relative to the path, e.g. {@code table_name}.
+     * @return The value, or null if the parameter does not exist.
+     */
+    public String get(String name) {
+        return get(name, null);
+    }
+
+    /**
+     * Returns a parameter value. Loads the parameters on the caller's thread only if nothing has been
+     * loaded yet; stale values are served while a background refresh runs. Until a first load succeeds,
+     * the default is returned.
+     *
+     * @param name         The parameter name relative to the path, e.g. {@code table_name}.
+     * @param defaultValue The value to return if the parameter does not exist.
+     * @return The value, or the default.
+     */
+    public String get(String name, String defaultValue) {
+        Map<String, String> current = values;
+        if (current == null) {
+            current = loadFirst();
+        } else if (System.nanoTime() - loadedAtNanos >= refreshIntervalNanos) {
+            refreshAsync();
+        }
+        return current.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Loads the values on the caller's thread. After a failed attempt, nothing is loaded on the caller's
+     * thread again; a background refresh is started once {@link #FAILED_LOAD_RETRY} has passed.
+     *
+     * @return The loaded values, or no values if loading failed.
+     */
+    private Map<String, String> loadFirst() {
+        if (loadFailed) {
+            if (System.nanoTime() - retryAtNanos >= 0) {
+                retryAtNanos = System.nanoTime() + failedLoadRetryNanos;
+                refreshAsync();
+            }
+            Map<String, String> current = values;
+            return current != null ? current : Collections.emptyMap();
+        }
+        try {
+            return refresh();
+        } catch (RuntimeException e) {
+            retryAtNanos = System.nanoTime() + failedLoadRetryNanos;
+            loadFailed = true;
+            System.err.println("Could not load configuration under " + path + ", using defaults: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Registers a listener that receives the new value whenever a refresh changes the parameter.
+     *
+     * @param name     The parameter name relative to the path.
+     * @param listener Receives the new value, or null if the parameter was removed.
+     */
+    public void subscribe(String name, Consumer<String> listener) {
+        listeners.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Loads all parameters now, persists those that may be persisted and notifies subscribers of changed values.
+     *
+     * @return The loaded values keyed by relative name.
+     */
+    public synchronized Map<String, String> refresh() {
+        Map<String, String> raw;
+        try {
+            raw = loader.load(path);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load configuration under " + path, e);
+        }
+
+        Map<String, String> loaded = relativize(raw);
+        Map<String, String> previous = values != null ? values : Collections.emptyMap();
+        values = loaded;
+        loadedAtNanos = System.nanoTime();
+        Map<String, String> persisted = new HashMap<>();
+        raw.forEach((name, value) -> {
+            if (persistable.test(name)) {
+                persisted.put(name, value);
+            }
+        });
+        writeCacheFile(relativize(persisted));
+
+        for (Map.Entry<String, List<Consumer<String>>> entry : listeners.entrySet()) {
+            String newValue = loaded.get(entry.getKey());
+            if (!Objects.equals(previous.get(entry.getKey()), newValue)) {
+                entry.getValue().forEach(listener -> listener.accept(newValue));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Starts a background refresh unless one is already running. Failures keep the current values.
+     */
+    public void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                // Keep serving the current values; the next stale read retries
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Strips the path prefix so values are looked up by their short name.
+     */
+    private Map<String, String> relativize(Map<String, String> loaded) {
+        String prefix = path.endsWith("/") ? path : path + "/";
+        Map<String, String> relative = new HashMap<>();
+        loaded.forEach((name, value) ->
+                relative.put(name.startsWith(prefix) ? name.substring(prefix.length()) : name, value));
+        return Collections.unmodifiableMap(relative);
+    }
+
+    /**
+     * Starts from the cache file if present, treating its modification time as the load time.
+     */
+    private void readCacheFile() {
+        if (cacheFile == null || !Files.isReadable(cacheFile)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(cacheFile)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            Map<String, String> cached = new HashMap<>();
+            properties.stringPropertyNames().forEach(name -> cached.put(name, properties.getProperty(name)));
+
+            long ageMillis = System.currentTimeMillis() - Files.getLastModifiedTime(cacheFile).toMillis();
+            loadedAtNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Math.max(0, ageMillis));
+            values = Collections.unmodifiableMap(cached);
+        } catch (IOException | IllegalArgumentException e) {
+            // A corrupt cache file only costs one synchronous load
+        }
+    }
+
+    /**
+     * Persists the values atomically so a concurrent reader never sees a partial file.
+     */
+    private void writeCacheFile(Map<String, String> loaded) {
+        if (cacheFile == null) {
+            return;
+        }
+        try {
+            Path tempFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "config", ".tmp");
+            Properties properties = new Properties();
+            properties.putAll(loaded);
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                properties.store(out, "Configuration under " + path);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The file is only an optimization; the in-memory values stay authoritative
+        }
+    }
+}
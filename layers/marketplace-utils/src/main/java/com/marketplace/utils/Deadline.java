@@ -0,0 +1,76 @@
+package com.marketplace.utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Ties asynchronous SDK calls to the Lambda invocation deadline.
+ * Every tracked future is cancelled when the deadline passes, which aborts the underlying
+ * HTTP request instead of leaving it running into the next (frozen) invocation.
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+    private final List<CompletableFuture<?>> inFlight = new CopyOnWriteArrayList<>();
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a deadline from the remaining invocation time, keeping a margin to build the error response.
+     *
+     * @param remainingMillis     The remaining time, usually {@code context.getRemainingTimeInMillis()}.
+     * @param safetyMarginMillis  Time reserved after the deadline for the handler itself.
+     * @return The deadline.
+     */
+    public static Deadline fromRemainingMillis(long remainingMillis, long safetyMarginMillis) {
+        long budgetMillis = Math.max(0, remainingMillis - safetyMarginMillis);
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis));
+    }
+
+    /**
+     * Registers a future so it is cancelled if the deadline passes.
+     *
+     * @param future The future, typically returned by an async SDK client.
+     * @param <T>    The result type.
+     * @return The same future, for chaining.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        inFlight.add(future);
+        return future;
+    }
+
+    /**
+     * Waits for a future until the deadline, cancelling every tracked future on timeout.
+     *
+     * @param future The future to wait for.
+     * @param <T>    The result type.
+     * @return The result of the future.
+     * @throws TimeoutException     If the deadline passed first.
+     * @throws ExecutionException   If the future completed exceptionally.
+     * @throws InterruptedException If the waiting thread was interrupted.
+     */
+    public <T> T await(CompletableFuture<T> future) throws TimeoutException, ExecutionException, InterruptedException {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancelAll();
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels every tracked future that is still running.
+     */
+    public void cancelAll() {
+        for (CompletableFuture<?> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+}
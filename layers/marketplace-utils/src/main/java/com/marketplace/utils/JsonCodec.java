@@ -0,0 +1,178 @@
+package com.marketplace.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JSON codec meant to be shared by every handler in a function.
+ *
+ * <p>It wraps one configured {@link ObjectMapper} and caches an {@link ObjectReader} and {@link ObjectWriter}
+ * per type, so the serializer lookup happens once per type rather than once per request. Handlers register
+ * {@link Module}s with hand-written serializers for their model classes, so no bean introspection is needed.
+ *
+ * <p>Error bodies are built with {@link #errorBody(String)}, which escapes the message.
+ */
+public final class JsonCodec {
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private final ObjectMapper objectMapper;
+    // Keyed by the Class or TypeReference instance, so a lookup never resolves the type again
+    private final ConcurrentMap<Object, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a codec.
+     *
+     * @param modules Modules with the serializers of the caller's model classes.
+     */
+    public JsonCodec(Module... modules) {
+        this.objectMapper = new ObjectMapper().registerModules(modules);
+    }
+
+    /**
+     * Returns the cached reader for a type.
+     *
+     * @param type The type to read.
+     * @return The reader.
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, key -> objectMapper.readerFor(type));
+    }
+
+    /**
+     * Returns the cached reader for a generic type, such as {@code List<Product>}.
+     *
+     * @param type The type to read.
+     * @return The reader.
+     */
+    public ObjectReader readerFor(TypeReference<?> type) {
+        return readers.computeIfAbsent(type, key -> objectMapper.readerFor(type));
+    }
+
+    /**
+     * Returns the cached writer for a type.
+     *
+     * @param type The type to write.
+     * @return The writer.
+     */
+    public ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type, key -> objectMapper.writerFor(type));
+    }
+
+    /**
+     * Returns the cached writer for a generic type, such as {@code List<Product>}.
+     *
+     * @param type The type to write.
+     * @return The writer.
+     */
+    public ObjectWriter writerFor(TypeReference<?> type) {
+        return writers.computeIfAbsent(type, key -> objectMapper.writerFor(type));
+    }
+
+    /**
+     * Reads a value.
+     *
+     * @param json The JSON text.
+     * @param type The type to read.
+     * @param <T>  The value type.
+     * @return The value.
+     * @throws IOException If the text is not valid JSON for the type.
+     */
+    public <T> T read(String json, Class<T> type) throws IOException {
+        return readerFor(type).readValue(json);
+    }
+
+    /**
+     * Reads a value of a generic type.
+     *
+     * @param json The JSON text.
+     * @param type The type to read.
+     * @param <T>  The value type.
+     * @return The value.
+     * @throws IOException If the text is not valid JSON for the type.
+     */
+    public <T> T read(String json, TypeReference<T> type) throws IOException {
+        return readerFor(type).readValue(json);
+    }
+
+    /**
+     * Reads a JSON tree.
+     *
+     * @param json The JSON text.
+     * @return The root node.
+     * @throws IOException If the text is not valid JSON.
+     */
+    public JsonNode readTree(String json) throws IOException {
+        return objectMapper.readTree(json);
+    }
+
+    /**
+     * Writes a value with the cached writer for its runtime class.
+     *
+     * @param value The value, which must not be null.
+     * @return The JSON text.
+     * @throws JsonProcessingException If the value cannot be serialized.
+     */
+    public String write(Object value) throws JsonProcessingException {
+        return writerFor(value.getClass()).writeValueAsString(value);
+    }
+
+    /**
+     * Writes a value with the cached writer for a declared type, such as {@code List<Product>}.
+     *
+     * @param value The value.
+     * @param type  The declared type of the value.
+     * @return The JSON text.
+     * @throws JsonProcessingException If the value cannot be serialized.
+     */
+    public String write(Object value, TypeReference<?> type) throws JsonProcessingException {
+        return writerFor(type).writeValueAsString(value);
+    }
+
+    /**
+     * Creates an empty object node, for ad-hoc response bodies.
+     *
+     * @return The node.
+     */
+    public ObjectNode createObjectNode() {
+        return objectMapper.createObjectNode();
+    }
+
+    /**
+     * Builds an error body such as {@code {"error": "Product not found"}}.
+     *
+     * @param message The error message; quotes, backslashes and control characters are escaped.
+     * @return The JSON text.
+     */
+    public static String errorBody(String message) {
+        return "{\"error\": " + quote(message) + "}";
+    }
+
+    /**
+     * Builds an error body with one extra field, such as {@code {"error": "...", "details": "..."}}.
+     *
+     * @param message The error message.
+     * @param field   The name of the extra field.
+     * @param value   The value of the extra field.
+     * @return The JSON text.
+     */
+    public static String errorBody(String message, String field, String value) {
+        return "{\"error\": " + quote(message) + ", " + quote(field) + ": " + quote(value) + "}";
+    }
+
+    private static String quote(String value) {
+        return value == null ? "null" : "\"" + new String(ENCODER.quoteAsString(value)) + "\"";
+    }
+}
@@ -0,0 +1,97 @@
+package com.marketplace.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram in microseconds with HDR-style log-linear buckets.
+ * Values below 128 µs are counted exactly; above that, each power of two is split into 64 buckets,
+ * so every recorded value is reported within 1.6% of its true value. The buckets cover up to
+ * 2^40 µs (about 12 days) in a fixed 18 KB array, and recording is two atomic increments.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 7) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Records one value.
+     *
+     * @param micros The latency in microseconds; negative values count as zero and huge values are capped.
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        maxValue.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long count() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return The maximum in microseconds, or 0 if nothing was recorded.
+     */
+    public long max() {
+        return maxValue.get();
+    }
+
+    /**
+     * Returns the value at the given percentile, as the highest value that falls in the same bucket.
+     *
+     * @param percentile The percentile, from 0 to 100, e.g. 99.9.
+     * @return The value in microseconds, or 0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (exponent - 7) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int offset = index - LINEAR_BUCKETS;
+        int exponent = 7 + offset / SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long subBucket = SUB_BUCKETS + offset % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
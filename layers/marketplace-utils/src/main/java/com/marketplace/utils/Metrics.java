@@ -0,0 +1,408 @@
+package com.marketplace.utils;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-invocation dependency metrics written as one CloudWatch Embedded Metric Format (EMF) log line.
+ *
+ * <p>A handler wraps its invocation in {@link #measure(String, Supplier, Function)}, which calls
+ * {@link #begin(String)} when the invocation starts and {@link #flush(String)} when it ends.
+ * In between, dependency latencies ({@link #recordLatency(String, long)}) and cache hits and misses
+ * ({@link #recordCacheAccess(String, boolean)}) are collected; SDK calls are timed by {@link MetricsInterceptor}.
+ * CloudWatch extracts the metrics from the log line, so there are no {@code PutMetricData} calls and
+ * percentiles (p50, p99) are available per metric.
+ *
+ * <p>Metric slots and the line buffer are reused across invocations, so recording does not allocate once
+ * a metric has been seen. Lambda runs one invocation per process at a time, so a single instance
+ * ({@link #get()}) is shared by the handler and the SDK interceptor. Drivers that run invocations
+ * concurrently in one process, such as the load generator, switch to one instance per thread with
+ * {@link #usePerThreadInstances(Consumer)}. Values recorded outside an invocation, e.g. by SnapStart
+ * priming calls, are ignored.
+ *
+ * @see <a href="https://docs.aws.amazon.com/AmazonCloudWatch/latest/monitoring/CloudWatch_Embedded_Metric_Format_Specification.html">EMF specification</a>
+ */
+public final class Metrics {
+
+    /** CloudWatch namespace of all marketplace metrics. */
+    public static final String NAMESPACE = "Marketplace";
+
+    // EMF limits: 100 metrics per directive and 100 values per metric
+    private static final int MAX_METRICS = 100;
+    private static final int MAX_VALUES = 100;
+    private static final String DURATION = "Duration";
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    /** {@code Version} dimension value outside Lambda, and of unpublished code. */
+    public static final String LATEST_VERSION = "$LATEST";
+
+    // VERSION_METRICS_ENABLED is only set on functions deployed through a CodeDeploy canary
+    private static final Metrics INSTANCE = new Metrics(NAMESPACE,
+            System.getenv().getOrDefault("AWS_LAMBDA_FUNCTION_NAME", "local"),
+            Boolean.parseBoolean(System.getenv("VERSION_METRICS_ENABLED"))
+                    ? System.getenv().getOrDefault("AWS_LAMBDA_FUNCTION_VERSION", LATEST_VERSION) : null,
+            line -> System.out.println(line));
+
+    // Set only by in-process drivers; Lambda always uses INSTANCE
+    private static volatile ThreadLocal<Metrics> perThread;
+
+    private final String namespace;
+    private final String functionName;
+    private final String functionVersion;
+    private final Consumer<String> sink;
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Map<String, String[]> cacheMetricNames = new HashMap<>();
+    private final List<Slot> recorded = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder(1024);
+    private boolean active;
+    private String route;
+    private long invocationStartNanos;
+
+    /**
+     * Creates a metrics recorder.
+     *
+     * @param namespace    The CloudWatch namespace.
+     * @param functionName The value of the {@code Function} dimension.
+     * @param sink         Receives each EMF line; Lambda forwards standard output to CloudWatch Logs.
+     */
+    public Metrics(String namespace, String functionName, Consumer<String> sink) {
+        this(namespace, functionName, null, sink);
+    }
+
+    /**
+     * Creates a metrics recorder for a published function version. The invocation {@code Duration} is
+     * also written with the {@code Function, Version, Outcome} dimensions, which let a deployment judge
+     * the new version's error responses apart from the old one's. Every version creates new metrics
+     * under these dimensions, so only the duration carries them, and only canary-deployed functions
+     * pass a version.
+     *
+     * @param namespace       The CloudWatch namespace.
+     * @param functionName    The value of the {@code Function} dimension.
+     * @param functionVersion The value of the {@code Version} dimension, e.g. from {@code AWS_LAMBDA_FUNCTION_VERSION},
+     *                        or null to write no per-version metrics.
+     * @param sink            Receives each EMF line; Lambda forwards standard output to CloudWatch Logs.
+     */
+    public Metrics(String namespace, String functionName, String functionVersion, Consumer<String> sink) {
+        this.namespace = namespace;
+        this.functionName = functionName;
+        this.functionVersion = functionVersion;
+        this.sink = sink;
+    }
+
+    /**
+     * Returns the process-wide recorder, which writes to standard output.
+     *
+     * @return The shared recorder, or the calling thread's after {@link #usePerThreadInstances(Consumer)}.
+     */
+    public static Metrics get() {
+        ThreadLocal<Metrics> local = perThread;
+        return local != null ? local.get() : INSTANCE;
+    }
+
+    /**
+     * Gives every thread its own recorder from now on, so concurrent invocations do not reset or lock
+     * each other's metrics. Not for use in Lambda.
+     *
+     * @param sink Receives the EMF lines of every thread's recorder; must be thread-safe.
+     */
+    public static void usePerThreadInstances(Consumer<String> sink) {
+        perThread = ThreadLocal.withInitial(() -> new Metrics(NAMESPACE, INSTANCE.functionName, INSTANCE.functionVersion, sink));
+    }
+
+    /**
+     * Builds the {@code Route} dimension value from the API Gateway method and resource template,
+     * e.g. {@code GET /products/{id}}. The template keeps the dimension's cardinality bounded.
+     *
+     * @param httpMethod The HTTP method, may be null.
+     * @param resource   The resource template, may be null.
+     * @param fallback   The value to use when the request does not carry a resource, e.g. a handler name.
+     * @return The route.
+     */
+    public static String route(String httpMethod, String resource, String fallback) {
+        if (resource == null) {
+            return fallback;
+        }
+        return httpMethod != null ? httpMethod + " " + resource : resource;
+    }
+
+    /**
+     * Maps an HTTP status code to the {@code Outcome} dimension value, e.g. {@code 2xx}.
+     *
+     * @param statusCode The status code, may be null.
+     * @return The outcome.
+     */
+    public static String outcome(Integer statusCode) {
+        if (statusCode == null) {
+            return "error";
+        }
+        switch (statusCode / 100) {
+            case 2: return "2xx";
+            case 3: return "3xx";
+            case 4: return "4xx";
+            case 5: return "5xx";
+            default: return "other";
+        }
+    }
+
+    /**
+     * Runs an invocation between {@link #begin(String)} and {@link #flush(String)}.
+     * An invocation that throws is flushed with the outcome {@code error}. When the request is traced,
+     * the invocation also runs in an X-Ray subsegment annotated with its route and outcome
+     * (see {@link Tracing}).
+     *
+     * @param route      The value of the {@code Route} dimension.
+     * @param invocation The handler logic.
+     * @param outcome    Maps the result to the {@code Outcome} dimension value.
+     * @param <T>        The handler's result type.
+     * @return The result of the invocation.
+     */
+    public <T> T measure(String route, Supplier<T> invocation, Function<? super T, String> outcome) {
+        begin(route);
+        boolean traced = Tracing.beginInvocation(route);
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            T response = invocation.get();
+            result = outcome.apply(response);
+            return response;
+        } finally {
+            if (traced) {
+                Tracing.endInvocation(result, (System.nanoTime() - start) / 1e6);
+            }
+            flush(result);
+        }
+    }
+
+    /**
+     * Starts collecting metrics for an invocation, discarding anything left from an unflushed one.
+     *
+     * @param route The value of the {@code Route} dimension.
+     */
+    public synchronized void begin(String route) {
+        reset();
+        this.route = route;
+        this.invocationStartNanos = System.nanoTime();
+        this.active = true;
+    }
+
+    /**
+     * Records the latency of a dependency call in milliseconds.
+     *
+     * @param name       The metric name, e.g. {@code DynamoDb.GetItem} or {@code Redis.Get}.
+     * @param startNanos The {@link System#nanoTime()} taken before the call.
+     */
+    public void recordLatency(String name, long startNanos) {
+        recordElapsed(name, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records an already measured latency in milliseconds.
+     *
+     * @param name         The metric name.
+     * @param elapsedNanos The latency in nanoseconds.
+     */
+    public synchronized void recordElapsed(String name, long elapsedNanos) {
+        if (active) {
+            add(name, Unit.MILLISECONDS, elapsedNanos / 1e6);
+        }
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param name The metric name, e.g. {@code DynamoDb.Errors}.
+     */
+    public void increment(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Adds a value to a counter, e.g. consumed capacity units.
+     *
+     * @param name  The metric name.
+     * @param value The amount to add.
+     */
+    public synchronized void count(String name, double value) {
+        if (active) {
+            add(name, Unit.COUNT, value);
+        }
+    }
+
+    /**
+     * Counts a cache access as {@code <cache>.Hit} or {@code <cache>.Miss}.
+     *
+     * @param cache The cache name, e.g. {@code ProductCache}.
+     * @param hit   Whether the value was served from the cache.
+     */
+    public synchronized void recordCacheAccess(String cache, boolean hit) {
+        if (active) {
+            String[] names = cacheMetricNames.computeIfAbsent(cache, c -> new String[] {c + ".Hit", c + ".Miss"});
+            add(hit ? names[0] : names[1], Unit.COUNT, 1);
+        }
+    }
+
+    /**
+     * Writes the invocation's metrics as one EMF line and resets for the next invocation.
+     * The invocation duration is always included, so every route has a {@code Duration} metric.
+     *
+     * @param outcome The value of the {@code Outcome} dimension, e.g. from {@link #outcome(Integer)}.
+     */
+    public synchronized void flush(String outcome) {
+        if (!active) {
+            return;
+        }
+        add(DURATION, Unit.MILLISECONDS, (System.nanoTime() - invocationStartNanos) / 1e6);
+
+        line.setLength(0);
+        line.append("{\"_aws\":{\"Timestamp\":").append(System.currentTimeMillis())
+                .append(",\"CloudWatchMetrics\":[{\"Namespace\":");
+        quote(namespace);
+        line.append(",\"Dimensions\":[[\"Function\",\"Route\",\"Outcome\"],[\"Function\"]],\"Metrics\":[");
+        for (int i = 0; i < recorded.size(); i++) {
+            Slot slot = recorded.get(i);
+            line.append(i > 0 ? ",{\"Name\":" : "{\"Name\":");
+            quote(slot.name);
+            line.append(",\"Unit\":\"").append(slot.unit.emfName).append("\"}");
+        }
+        line.append("]}");
+        if (functionVersion != null) {
+            line.append(",{\"Namespace\":");
+            quote(namespace);
+            line.append(",\"Dimensions\":[[\"Function\",\"Version\",\"Outcome\"]],\"Metrics\":[{\"Name\":\"")
+                    .append(DURATION).append("\",\"Unit\":\"").append(Unit.MILLISECONDS.emfName).append("\"}]}");
+        }
+        line.append("]},\"Function\":");
+        quote(functionName);
+        if (functionVersion != null) {
+            line.append(",\"Version\":");
+            quote(functionVersion);
+        }
+        line.append(",\"Route\":");
+        quote(route);
+        line.append(",\"Outcome\":");
+        quote(outcome);
+        for (Slot slot : recorded) {
+            line.append(',');
+            quote(slot.name);
+            line.append(':');
+            slot.appendValue(line);
+        }
+        line.append('}');
+
+        String emf = line.toString();
+        reset();
+        sink.accept(emf);
+    }
+
+    private void add(String name, Unit unit, double value) {
+        Slot slot = slots.get(name);
+        if (slot == null) {
+            slot = new Slot(name, unit);
+            slots.put(name, slot);
+        }
+        if (!slot.inUse) {
+            if (recorded.size() == MAX_METRICS) {
+                return;
+            }
+            slot.inUse = true;
+            recorded.add(slot);
+        }
+        slot.add(value);
+    }
+
+    private void reset() {
+        for (Slot slot : recorded) {
+            slot.inUse = false;
+            slot.count = 0;
+            slot.sum = 0;
+        }
+        recorded.clear();
+        active = false;
+    }
+
+    private void quote(String value) {
+        if (value == null) {
+            line.append("null");
+        } else {
+            line.append('"');
+            ENCODER.quoteAsString(value, line);
+            line.append('"');
+        }
+    }
+
+    /**
+     * EMF units used by the recorder.
+     */
+    private enum Unit {
+        MILLISECONDS("Milliseconds"),
+        COUNT("Count");
+
+        private final String emfName;
+
+        Unit(String emfName) {
+            this.emfName = emfName;
+        }
+    }
+
+    /**
+     * The values of one metric in the current invocation. Latencies keep every value (up to the EMF limit)
+     * so CloudWatch can compute percentiles; counters keep only their sum.
+     */
+    private static final class Slot {
+        private final String name;
+        private final Unit unit;
+        private double[] values = new double[4];
+        private boolean inUse;
+        private int count;
+        private double sum;
+
+        private Slot(String name, Unit unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        private void add(double value) {
+            sum += value;
+            if (unit == Unit.COUNT || count >= MAX_VALUES) {
+                count++;
+                return;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, MAX_VALUES));
+            }
+            values[count++] = value;
+        }
+
+        private void appendValue(StringBuilder out) {
+            if (unit == Unit.COUNT) {
+                if (sum == (long) sum) {
+                    out.append((long) sum);
+                } else {
+                    out.append(sum);
+                }
+                return;
+            }
+            int size = Math.min(count, MAX_VALUES);
+            if (size == 1) {
+                out.append(values[0]);
+                return;
+            }
+            out.append('[');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(values[i]);
+            }
+            out.append(']');
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.marketplace.utils;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * SDK interceptor that measures every AWS call. Added to every client by {@link ClientUtils#getXRayConfig()}.
+ *
+ * <ul>
+ *   <li>Latency, including retries, goes to {@link Metrics} as {@code <Service>.<Operation>} and to a
+ *       per-operation {@link LatencyHistogram} that lives for the whole process ({@link #histogram(String)}).</li>
+ *   <li>Failed calls add {@code <Service>.Errors}, retried attempts {@code <Service>.Retries} and throttled
+ *       attempts {@code <Service>.Throttles}.</li>
+ *   <li>DynamoDB requests ask for {@code ReturnConsumedCapacity=TOTAL} unless the caller chose a level,
+ *       and the units are added as {@code DynamoDb.<Operation>.RCU} and {@code .WCU}, so capacity is
+ *       attributed to the function and route of the invocation.</li>
+ *   <li>Calls slower than {@code SLOW_CALL_THRESHOLD_MS} (default 1000) are logged with the operation's
+ *       percentiles so far.</li>
+ * </ul>
+ *
+ * <p>The DynamoDB model classes are only touched for DynamoDB calls, so functions without the DynamoDB
+ * client on their class path can use the interceptor too.
+ */
+public class MetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("MetricsStartNanos");
+    private static final ExecutionAttribute<Integer> ATTEMPTS = new ExecutionAttribute<>("MetricsAttempts");
+    private static final ExecutionAttribute<Integer> THROTTLES = new ExecutionAttribute<>("MetricsThrottles");
+
+    private static final String DYNAMODB = "DynamoDb";
+    private static final long DEFAULT_SLOW_CALL_THRESHOLD_MS = 1000;
+
+    // Service -> operation -> metric name, so no strings are built per call
+    private static final Map<String, Map<String, String>> METRIC_NAMES = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private final Supplier<Metrics> metrics;
+    private final long slowCallThresholdNanos;
+    private final Consumer<String> log;
+
+    /**
+     * Creates an interceptor that records into {@link Metrics#get()}, looked up per call, and logs slow
+     * calls to standard output.
+     */
+    public MetricsInterceptor() {
+        this(Metrics::get, slowCallThresholdMillis(System.getenv("SLOW_CALL_THRESHOLD_MS")),
+                line -> System.out.println(line));
+    }
+
+    MetricsInterceptor(Supplier<Metrics> metrics, long slowCallThresholdMillis, Consumer<String> log) {
+        this.metrics = metrics;
+        this.slowCallThresholdNanos = slowCallThresholdMillis * 1_000_000L;
+        this.log = log;
+    }
+
+    /**
+     * Returns the latency histogram of an operation, e.g. {@code DynamoDb.Query}, created on first use.
+     *
+     * @param operation The operation's metric name.
+     * @return The histogram, which covers every call since the process started.
+     */
+    public static LatencyHistogram histogram(String operation) {
+        return HISTOGRAMS.computeIfAbsent(operation, o -> new LatencyHistogram());
+    }
+
+    /**
+     * Returns the histograms of every operation called so far.
+     *
+     * @return A read-only view keyed by operation metric name.
+     */
+    public static Map<String, LatencyHistogram> histograms() {
+        return Collections.unmodifiableMap(HISTOGRAMS);
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+        executionAttributes.putAttribute(ATTEMPTS, 0);
+        executionAttributes.putAttribute(THROTTLES, 0);
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        if (DYNAMODB.equals(executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME))) {
+            return ConsumedCapacityRecorder.requestTotal(context.request());
+        }
+        return context.request();
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        Integer attempts = executionAttributes.getAttribute(ATTEMPTS);
+        executionAttributes.putAttribute(ATTEMPTS, attempts != null ? attempts + 1 : 1);
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        if (isThrottled(context.httpResponse())) {
+            Integer throttles = executionAttributes.getAttribute(THROTTLES);
+            executionAttributes.putAttribute(THROTTLES, throttles != null ? throttles + 1 : 1);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String service = executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME);
+        String operation = metricName(service, executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        complete(service, operation, executionAttributes, null);
+        if (DYNAMODB.equals(service)) {
+            ConsumedCapacityRecorder.record(metrics.get(), operation, context.response());
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        String service = executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME);
+        String operation = metricName(service, executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        complete(service, operation, executionAttributes, context.exception());
+        metrics.get().increment(metricName(service, "Errors"));
+    }
+
+    /**
+     * Records latency, retries and throttles of a finished call and logs it if it was slow.
+     */
+    private void complete(String service, String operation, ExecutionAttributes executionAttributes, Throwable failure) {
+        Long start = executionAttributes.getAttribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        Metrics metrics = this.metrics.get();
+        metrics.recordElapsed(operation, elapsedNanos);
+        LatencyHistogram histogram = histogram(operation);
+        histogram.record(elapsedNanos / 1_000);
+
+        int attempts = valueOf(executionAttributes.getAttribute(ATTEMPTS));
+        int throttles = valueOf(executionAttributes.getAttribute(THROTTLES));
+        if (attempts > 1) {
+            metrics.count(metricName(service, "Retries"), attempts - 1);
+        }
+        if (throttles > 0) {
+            metrics.count(metricName(service, "Throttles"), throttles);
+        }
+
+        if (elapsedNanos >= slowCallThresholdNanos) {
+            log.accept(String.format("Slow AWS call %s took %d ms (attempts: %d, throttled: %d%s); "
+                            + "p50 %.1f ms, p99 %.1f ms, max %.1f ms over %d calls",
+                    operation, elapsedNanos / 1_000_000, attempts, throttles,
+                    failure != null ? ", failed: " + failure.getClass().getSimpleName() : "",
+                    histogram.valueAtPercentile(50) / 1000.0, histogram.valueAtPercentile(99) / 1000.0,
+                    histogram.max() / 1000.0, histogram.count()));
+        }
+    }
+
+    /**
+     * Whether an attempt was rejected by throttling: HTTP 429, or an AWS error type such as DynamoDB's
+     * {@code ProvisionedThroughputExceededException} (returned as a 400).
+     */
+    static boolean isThrottled(SdkHttpResponse response) {
+        if (response.statusCode() == 429) {
+            return true;
+        }
+        if (response.isSuccessful()) {
+            return false;
+        }
+        String errorType = response.firstMatchingHeader("x-amzn-ErrorType").orElse("");
+        return errorType.contains("Throttl")
+                || errorType.contains("ProvisionedThroughputExceeded")
+                || errorType.contains("RequestLimitExceeded")
+                || errorType.contains("TooManyRequests");
+    }
+
+    static long slowCallThresholdMillis(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_SLOW_CALL_THRESHOLD_MS;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid SLOW_CALL_THRESHOLD_MS: " + value);
+            return DEFAULT_SLOW_CALL_THRESHOLD_MS;
+        }
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static String metricName(String service, String operation) {
+        String serviceName = service != null ? service : "Aws";
+        String operationName = operation != null ? operation : "Call";
+        return METRIC_NAMES.computeIfAbsent(serviceName, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operationName, o -> serviceName + "." + o);
+    }
+
+    /**
+     * Requests and records DynamoDB consumed capacity. Kept in its own class so the DynamoDB model is
+     * only loaded by functions that call DynamoDB.
+     */
+    static final class ConsumedCapacityRecorder {
+        // Operation metric name -> {RCU name, WCU name}
+        private static final Map<String, String[]> CAPACITY_NAMES = new ConcurrentHashMap<>();
+        // Request type -> the request with ReturnConsumedCapacity=TOTAL unless it sets a level
+        private static final Map<Class<?>, UnaryOperator<SdkRequest>> REQUEST_TOTAL = new HashMap<>();
+        // Response type -> the capacity it reports
+        private static final Map<Class<?>, Capacity> CAPACITIES = new HashMap<>();
+
+        static {
+            register(GetItemRequest.class, GetItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    GetItemResponse.class, r -> single(r.consumedCapacity()), true);
+            register(QueryRequest.class, QueryRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    QueryResponse.class, r -> single(r.consumedCapacity()), true);
+            register(ScanRequest.class, ScanRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    ScanResponse.class, r -> single(r.consumedCapacity()), true);
+            register(PutItemRequest.class, PutItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    PutItemResponse.class, r -> single(r.consumedCapacity()), false);
+            register(UpdateItemRequest.class, UpdateItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    UpdateItemResponse.class, r -> single(r.consumedCapacity()), false);
+            register(DeleteItemRequest.class, DeleteItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    DeleteItemResponse.class, r -> single(r.consumedCapacity()), false);
+            register(BatchGetItemRequest.class, BatchGetItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    BatchGetItemResponse.class, BatchGetItemResponse::consumedCapacity, true);
+            register(BatchWriteItemRequest.class, BatchWriteItemRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    BatchWriteItemResponse.class, BatchWriteItemResponse::consumedCapacity, false);
+            register(TransactGetItemsRequest.class, TransactGetItemsRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    TransactGetItemsResponse.class, TransactGetItemsResponse::consumedCapacity, true);
+            register(TransactWriteItemsRequest.class, TransactWriteItemsRequest::returnConsumedCapacity,
+                    r -> r.toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build(),
+                    TransactWriteItemsResponse.class, TransactWriteItemsResponse::consumedCapacity, false);
+        }
+
+        private ConsumedCapacityRecorder() {}
+
+        /**
+         * Returns the request with {@code ReturnConsumedCapacity=TOTAL} unless it already sets a level.
+         */
+        static SdkRequest requestTotal(SdkRequest request) {
+            UnaryOperator<SdkRequest> total = REQUEST_TOTAL.get(request.getClass());
+            return total != null ? total.apply(request) : request;
+        }
+
+        /**
+         * Adds the capacity reported by a DynamoDB response to the invocation's metrics.
+         */
+        static void record(Metrics metrics, String operation, SdkResponse response) {
+            Capacity capacity = response != null ? CAPACITIES.get(response.getClass()) : null;
+            if (capacity != null) {
+                record(metrics, operation, capacity.units().apply(response), capacity.read());
+            }
+        }
+
+        /**
+         * Maps one operation's request and response types. The model classes are final, so the maps are
+         * looked up by exact class.
+         */
+        private static <Q extends SdkRequest, R extends SdkResponse> void register(
+                Class<Q> requestType, Function<Q, ReturnConsumedCapacity> level, UnaryOperator<Q> withTotal,
+                Class<R> responseType, Function<R, List<ConsumedCapacity>> units, boolean read) {
+            REQUEST_TOTAL.put(requestType, request -> {
+                Q typed = requestType.cast(request);
+                return level.apply(typed) != null ? typed : withTotal.apply(typed);
+            });
+            CAPACITIES.put(responseType, new Capacity(response -> units.apply(responseType.cast(response)), read));
+        }
+
+        private static List<ConsumedCapacity> single(ConsumedCapacity capacity) {
+            return capacity != null ? List.of(capacity) : List.of();
+        }
+
+        private static void record(Metrics metrics, String operation, List<ConsumedCapacity> capacities, boolean read) {
+            for (ConsumedCapacity capacity : capacities) {
+                record(metrics, operation, capacity, read);
+            }
+        }
+
+        /**
+         * Records the read and write units; with TOTAL, DynamoDB may only report the combined units,
+         * which are then attributed by the kind of operation.
+         */
+        private static void record(Metrics metrics, String operation, ConsumedCapacity capacity, boolean read) {
+            if (capacity == null) {
+                return;
+            }
+            String[] names = CAPACITY_NAMES.computeIfAbsent(operation, o -> new String[] {o + ".RCU", o + ".WCU"});
+            Double readUnits = capacity.readCapacityUnits();
+            Double writeUnits = capacity.writeCapacityUnits();
+            if (readUnits == null && writeUnits == null && capacity.capacityUnits() != null) {
+                if (read) {
+                    readUnits = capacity.capacityUnits();
+                } else {
+                    writeUnits = capacity.capacityUnits();
+                }
+            }
+            if (readUnits != null && readUnits > 0) {
+                metrics.count(names[0], readUnits);
+            }
+            if (writeUnits != null && writeUnits > 0) {
+                metrics.count(names[1], writeUnits);
+            }
+        }
+
+        /**
+         * How to read the capacity of one response type, and whether combined units count as reads.
+         */
+        private record Capacity(Function<SdkResponse, List<ConsumedCapacity>> units, boolean read) {}
+    }
+}
@@ -0,0 +1,172 @@
+package com.marketplace.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory cache for secret values with a TTL and refresh-ahead.
+ * A hit is a map lookup; once an entry is past the refresh point it is reloaded in the background
+ * while the current value keeps being served, and only an expired entry is reloaded on the caller's thread.
+ *
+ * <p>The cache does not depend on a service client: handlers pass a {@link SecretLoader},
+ * typically a lambda around {@code SecretsManagerClient.getSecretValue}. Hits and misses are counted
+ * in {@link Metrics} as {@code SecretCache.Hit} and {@code SecretCache.Miss}.
+ */
+public final class SecretCache {
+
+    /** The version stage Secrets Manager returns when none is requested. */
+    public static final String CURRENT = "AWSCURRENT";
+    /** The version stage holding the previous value during a rotation. */
+    public static final String PREVIOUS = "AWSPREVIOUS";
+
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+    // Entries are refreshed in the background once this share of the TTL has passed
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+    private static final String METRIC_NAME = "SecretCache";
+
+    // Shared by all caches: refreshes are rare and must never block an invocation
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "secret-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Loads the value of a secret at a version stage.
+     */
+    @FunctionalInterface
+    public interface SecretLoader {
+        /**
+         * Loads the secret value.
+         *
+         * @param secretId     The secret name or ARN.
+         * @param versionStage The version stage, e.g. {@link #CURRENT}.
+         * @return The secret value.
+         * @throws Exception If the secret cannot be loaded.
+         */
+        String load(String secretId, String versionStage) throws Exception;
+    }
+
+    private final SecretLoader loader;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache with the default five minute TTL.
+     *
+     * @param loader Loads secrets on a miss or refresh.
+     */
+    public SecretCache(SecretLoader loader) {
+        this(loader, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a cache with a custom TTL.
+     *
+     * @param loader Loads secrets on a miss or refresh.
+     * @param ttl    How long a loaded value may be served.
+     */
+    public SecretCache(SecretLoader loader, Duration ttl) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = (long) (ttlNanos * REFRESH_AHEAD_RATIO);
+    }
+
+    /**
+     * Returns the current version of a secret.
+     *
+     * @param secretId The secret name or ARN.
+     * @return The secret value.
+     */
+    public String get(String secretId) {
+        return get(secretId, CURRENT);
+    }
+
+    /**
+     * Returns a secret at the given version stage, loading it only on a miss or after expiry.
+     *
+     * @param secretId     The secret name or ARN.
+     * @param versionStage The version stage, e.g. {@link #CURRENT} or {@link #PREVIOUS}.
+     * @return The secret value.
+     */
+    public String get(String secretId, String versionStage) {
+        String key = cacheKey(secretId, versionStage);
+        Entry entry = entries.get(key);
+        long now = System.nanoTime();
+        if (entry == null || now - entry.loadedAtNanos >= ttlNanos) {
+            Metrics.get().recordCacheAccess(METRIC_NAME, false);
+            return load(key, secretId, versionStage);
+        }
+        Metrics.get().recordCacheAccess(METRIC_NAME, true);
+        if (now - entry.loadedAtNanos >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, secretId, versionStage);
+                } catch (RuntimeException e) {
+                    // Keep serving the current value; the caller reloads once it expires
+                    entry.refreshing.set(false);
+                }
+            });
+        }
+        return entry.value;
+    }
+
+    /**
+     * Reloads a secret immediately, e.g. after the downstream API rejected the cached credentials
+     * because the secret was rotated.
+     *
+     * @param secretId     The secret name or ARN.
+     * @param versionStage The version stage.
+     * @return The freshly loaded value.
+     */
+    public String forceRefresh(String secretId, String versionStage) {
+        return load(cacheKey(secretId, versionStage), secretId, versionStage);
+    }
+
+    /**
+     * Drops every cached value, e.g. after a SnapStart restore.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Loads a secret and stores it, propagating unchecked loader exceptions unchanged.
+     */
+    private String load(String key, String secretId, String versionStage) {
+        String value;
+        try {
+            value = loader.load(secretId, versionStage);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load secret " + secretId, e);
+        }
+        entries.put(key, new Entry(value, System.nanoTime()));
+        return value;
+    }
+
+    private static String cacheKey(String secretId, String versionStage) {
+        return secretId + '#' + versionStage;
+    }
+
+    /**
+     * A loaded value with its load time and whether a background refresh is running.
+     */
+    private static final class Entry {
+        private final String value;
+        private final long loadedAtNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(String value, long loadedAtNanos) {
+            this.value = value;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.marketplace.utils;
+
+import com.amazonaws.xray.AWSXRay;
+import com.amazonaws.xray.entities.Subsegment;
+
+/**
+ * Named X-Ray subsegments and annotations for the steps between SDK calls (cache access, decryption loops,
+ * serialization, validation), which the SDK's {@code TracingInterceptor} does not see.
+ *
+ * <p>Annotations are indexed by X-Ray, so traces can be filtered with expressions such as
+ * {@code annotation.cache_hit = false} or {@code annotation.slow = true}. Keys may only contain
+ * letters, digits and underscores.
+ *
+ * <p>Outside a trace (unit tests, local runs) every method runs the step untraced and annotations are dropped.
+ * In Lambda, subsegments of requests that were not sampled are discarded by the recorder, so an untraced
+ * request only pays for the context lookup.
+ */
+public final class Tracing {
+
+    /**
+     * A traced step, which may throw a checked exception.
+     *
+     * @param <T> The step's result type.
+     * @param <E> The checked exception the step may throw.
+     */
+    @FunctionalInterface
+    public interface Step<T, E extends Exception> {
+        /**
+         * Runs the step.
+         *
+         * @return The result.
+         * @throws E If the step fails.
+         */
+        T run() throws E;
+    }
+
+    private static final long SLOW_REQUEST_THRESHOLD_MS = thresholdMillis(System.getenv("SLOW_REQUEST_THRESHOLD_MS"));
+
+    private Tracing() {}
+
+    /**
+     * Runs a step in a subsegment of the current trace. A failure is recorded on the subsegment and rethrown.
+     *
+     * @param name The subsegment name, e.g. {@code Redis.Get}.
+     * @param step The step; {@link #annotate} calls inside it annotate this subsegment.
+     * @param <T>  The step's result type.
+     * @param <E>  The checked exception the step may throw.
+     * @return The step's result.
+     * @throws E If the step fails.
+     */
+    public static <T, E extends Exception> T trace(String name, Step<T, E> step) throws E {
+        if (!isTracing()) {
+            return step.run();
+        }
+        Subsegment subsegment = AWSXRay.beginSubsegment(name);
+        try {
+            return step.run();
+        } catch (Exception | Error e) {
+            subsegment.addException(e);
+            throw e;
+        } finally {
+            AWSXRay.endSubsegment();
+        }
+    }
+
+    /**
+     * Annotates the current subsegment.
+     *
+     * @param key   The annotation key, e.g. {@code key_prefix}.
+     * @param value The value.
+     */
+    public static void annotate(String key, String value) {
+        if (isTracing()) {
+            AWSXRay.getCurrentSubsegmentOptional().ifPresent(subsegment -> subsegment.putAnnotation(key, value));
+        }
+    }
+
+    /**
+     * Annotates the current subsegment.
+     *
+     * @param key   The annotation key, e.g. {@code item_count}.
+     * @param value The value.
+     */
+    public static void annotate(String key, Number value) {
+        if (isTracing()) {
+            AWSXRay.getCurrentSubsegmentOptional().ifPresent(subsegment -> subsegment.putAnnotation(key, value));
+        }
+    }
+
+    /**
+     * Annotates the current subsegment.
+     *
+     * @param key   The annotation key, e.g. {@code cache_hit}.
+     * @param value The value.
+     */
+    public static void annotate(String key, boolean value) {
+        if (isTracing()) {
+            AWSXRay.getCurrentSubsegmentOptional().ifPresent(subsegment -> subsegment.putAnnotation(key, value));
+        }
+    }
+
+    /**
+     * Opens the subsegment that wraps a whole invocation, annotated with its route.
+     * The Lambda function segment itself cannot be annotated.
+     *
+     * @param route The route, e.g. {@code GET /products}.
+     * @return Whether a subsegment was opened and must be closed with {@link #endInvocation}.
+     */
+    static boolean beginInvocation(String route) {
+        if (!isTracing()) {
+            return false;
+        }
+        AWSXRay.beginSubsegment("Invocation").putAnnotation("route", route);
+        return true;
+    }
+
+    /**
+     * Annotates the invocation subsegment with its outcome, flags it as slow past
+     * {@code SLOW_REQUEST_THRESHOLD_MS} (default 1000) and closes it.
+     *
+     * @param outcome        The outcome, e.g. {@code 5xx}.
+     * @param durationMillis The invocation's duration.
+     */
+    static void endInvocation(String outcome, double durationMillis) {
+        AWSXRay.getCurrentSubsegmentOptional().ifPresent(subsegment -> {
+            subsegment.putAnnotation("outcome", outcome);
+            subsegment.putAnnotation("slow", durationMillis >= SLOW_REQUEST_THRESHOLD_MS);
+        });
+        AWSXRay.endSubsegment();
+    }
+
+    private static boolean isTracing() {
+        return AWSXRay.getTraceEntity() != null;
+    }
+
+    private static long thresholdMillis(String value) {
+        if (value == null || value.isBlank()) {
+            return 1000;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid SLOW_REQUEST_THRESHOLD_MS: " + value);
+            return 1000;
+        }
+    }
+}
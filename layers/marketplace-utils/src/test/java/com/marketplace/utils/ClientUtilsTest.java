@@ -0,0 +1,42 @@
+package com.marketplace.utils;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the ClientUtils registry.
+ */
+public class ClientUtilsTest {
+
+    /**
+     * Tests that a client with its own configuration is built even when the default client of its
+     * type already exists, and that each profile is built once.
+     */
+    @Test
+    public void shouldKeepProfilesApart() {
+        // Given
+        DynamoDbClient defaultClient = ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder);
+        AtomicInteger builds = new AtomicInteger();
+
+        // When
+        DynamoDbClient retrying = ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder, "test-retries", () -> {
+            builds.incrementAndGet();
+            return ClientOverrideConfiguration.builder().build();
+        });
+        DynamoDbClient again = ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder, "test-retries", () -> {
+            builds.incrementAndGet();
+            return ClientOverrideConfiguration.builder().build();
+        });
+
+        // Then
+        assertThat(retrying).isNotSameAs(defaultClient);
+        assertThat(again).isSameAs(retrying);
+        assertThat(builds).hasValue(1);
+        assertThat(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder)).isSameAs(defaultClient);
+    }
+}
@@ -0,0 +1,95 @@
+package com.marketplace.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ConfigProvider.
+ */
+public class ConfigProviderTest {
+
+    /**
+     * Tests that a failed first load serves the defaults without blocking later calls, and that the
+     * load is retried in the background until it succeeds.
+     */
+    @Test
+    public void shouldServeDefaultsUntilFirstLoadSucceeds() throws Exception {
+        // Given: SSM is down for the first two attempts
+        AtomicInteger attempts = new AtomicInteger();
+        ConfigProvider config = new ConfigProvider("/test", path -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("SSM unavailable");
+            }
+            return Map.of("/test/table_name", "ConfiguredTable");
+        }, null, Duration.ZERO);
+
+        // When / Then: the first call falls back to the default
+        assertThat(config.get("table_name", "EnvTable")).isEqualTo("EnvTable");
+        assertThat(attempts).hasValue(1);
+
+        // Then: later calls keep the default while the background retries run, until one succeeds
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String tableName = config.get("table_name", "EnvTable");
+        while (!"ConfiguredTable".equals(tableName) && System.nanoTime() < deadline) {
+            assertThat(tableName).isEqualTo("EnvTable");
+            Thread.sleep(10);
+            tableName = config.get("table_name", "EnvTable");
+        }
+        assertThat(tableName).isEqualTo("ConfiguredTable");
+        assertThat(attempts.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    /**
+     * Tests that a failed first load is not retried on the caller's thread before the retry interval.
+     */
+    @Test
+    public void shouldNotRetryOnCallerThreadAfterFailedLoad() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+        ConfigProvider config = new ConfigProvider("/test", path -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("SSM unavailable");
+        }, null, Duration.ofMinutes(5));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(config.get("table_name", "EnvTable")).isEqualTo("EnvTable");
+        }
+
+        // Then
+        assertThat(attempts).hasValue(1);
+    }
+
+    /**
+     * Tests that parameters the predicate rejects are served from memory but not written to the cache file.
+     */
+    @Test
+    public void shouldNotPersistSecretParameters(@TempDir Path dir) throws Exception {
+        // Given
+        Path cacheFile = dir.resolve("config.properties");
+        ConfigProvider config = new ConfigProvider("/test", path -> Map.of(
+                "/test/table_name", "ConfiguredTable",
+                "/test/api_key", "plaintext-secret"), cacheFile, Duration.ofMinutes(5),
+                name -> !name.equals("/test/api_key"));
+
+        // When
+        String apiKey = config.get("api_key");
+
+        // Then
+        assertThat(apiKey).isEqualTo("plaintext-secret");
+        assertThat(Files.readString(cacheFile)).contains("table_name=ConfiguredTable").doesNotContain("plaintext-secret");
+        ConfigProvider restarted = new ConfigProvider("/test", path -> {
+            throw new IllegalStateException("SSM unavailable");
+        }, cacheFile, Duration.ofMinutes(5));
+        assertThat(restarted.get("table_name")).isEqualTo("ConfiguredTable");
+        assertThat(restarted.get("api_key")).isNull();
+    }
+}
@@ -0,0 +1,74 @@
+package com.marketplace.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the LatencyHistogram bucket and percentile math.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that small values get a bucket each and larger values land in a bucket whose upper
+     * bound is within 1/64 of them, across the whole range.
+     */
+    @Test
+    public void shouldBoundBucketError() {
+        // Then: exact below 128 µs
+        for (long value = 0; value < 128; value++) {
+            assertThat(LatencyHistogram.indexOf(value)).isEqualTo((int) value);
+            assertThat(LatencyHistogram.highestValueAt((int) value)).isEqualTo(value);
+        }
+
+        // Then: each value is at most its bucket's upper bound, and the previous bucket ends below it
+        long[] values = {128, 129, 191, 192, 255, 256, 1_000, 65_535, 65_536, 1_234_567, (1L << 40) - 1};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.highestValueAt(index);
+            assertThat(upper).isGreaterThanOrEqualTo(value);
+            assertThat(LatencyHistogram.highestValueAt(index - 1)).isLessThan(value);
+            assertThat((double) (upper - value) / value).isLessThanOrEqualTo(1.0 / 64);
+        }
+    }
+
+    /**
+     * Tests percentiles over a uniform spread, capped at the largest recorded value.
+     */
+    @Test
+    public void shouldReportPercentiles() {
+        // Given: 1..1000 ms in microseconds
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1000);
+        }
+
+        // Then
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.max()).isEqualTo(1_000_000);
+        assertThat(histogram.valueAtPercentile(50)).isBetween(500_000L, 500_000L + 500_000L / 64);
+        assertThat(histogram.valueAtPercentile(99)).isBetween(990_000L, 990_000L + 990_000L / 64);
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(1_000_000);
+        assertThat(histogram.valueAtPercentile(0)).isBetween(1_000L, 1_000L + 1_000L / 64);
+    }
+
+    /**
+     * Tests that an empty histogram reports zero and out-of-range values are clamped.
+     */
+    @Test
+    public void shouldClampValues() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.valueAtPercentile(99)).isZero();
+
+        // When
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        // Then
+        assertThat(histogram.count()).isEqualTo(2);
+        assertThat(histogram.valueAtPercentile(50)).isZero();
+        assertThat(histogram.max()).isEqualTo((1L << 40) - 1);
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo((1L << 40) - 1);
+    }
+}
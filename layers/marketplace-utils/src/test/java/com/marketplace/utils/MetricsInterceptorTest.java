@@ -0,0 +1,81 @@
+package com.marketplace.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the consumed capacity handling of MetricsInterceptor.
+ */
+public class MetricsInterceptorTest {
+
+    /**
+     * Tests that DynamoDB requests ask for the total capacity unless they chose a level, and that
+     * requests without capacity pass through.
+     */
+    @Test
+    public void shouldRequestTotalCapacity() {
+        // Given
+        GetItemRequest get = GetItemRequest.builder().tableName("T").build();
+        QueryRequest indexes = QueryRequest.builder().returnConsumedCapacity(ReturnConsumedCapacity.INDEXES).build();
+        TransactWriteItemsRequest transaction = TransactWriteItemsRequest.builder().build();
+        SdkRequest other = DescribeTableRequest.builder().tableName("T").build();
+
+        // Then
+        assertThat(((GetItemRequest) MetricsInterceptor.ConsumedCapacityRecorder.requestTotal(get)).returnConsumedCapacity())
+                .isEqualTo(ReturnConsumedCapacity.TOTAL);
+        assertThat(MetricsInterceptor.ConsumedCapacityRecorder.requestTotal(indexes)).isSameAs(indexes);
+        assertThat(((TransactWriteItemsRequest) MetricsInterceptor.ConsumedCapacityRecorder.requestTotal(transaction))
+                .returnConsumedCapacity()).isEqualTo(ReturnConsumedCapacity.TOTAL);
+        assertThat(MetricsInterceptor.ConsumedCapacityRecorder.requestTotal(other)).isSameAs(other);
+    }
+
+    /**
+     * Tests that the units of single and per-table responses are summed per operation, with combined
+     * units attributed by the kind of operation.
+     */
+    @Test
+    public void shouldTotalConsumedCapacityPerInvocation() throws Exception {
+        // Given
+        List<String> lines = new ArrayList<>();
+        Metrics metrics = new Metrics("Test", "fn", lines::add);
+        metrics.begin("POST /orders");
+
+        // When
+        MetricsInterceptor.ConsumedCapacityRecorder.record(metrics, "DynamoDb.GetItem", GetItemResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(0.5).build()).build());
+        MetricsInterceptor.ConsumedCapacityRecorder.record(metrics, "DynamoDb.GetItem", GetItemResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(1.0).build()).build());
+        MetricsInterceptor.ConsumedCapacityRecorder.record(metrics, "DynamoDb.UpdateItem", UpdateItemResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().capacityUnits(2.0).build()).build());
+        MetricsInterceptor.ConsumedCapacityRecorder.record(metrics, "DynamoDb.BatchWriteItem", BatchWriteItemResponse.builder()
+                .consumedCapacity(ConsumedCapacity.builder().tableName("A").capacityUnits(3.0).build(),
+                        ConsumedCapacity.builder().tableName("B").readCapacityUnits(1.0).writeCapacityUnits(4.0).build())
+                .build());
+        MetricsInterceptor.ConsumedCapacityRecorder.record(metrics, "DynamoDb.GetItem", GetItemResponse.builder().build());
+        metrics.flush("2xx");
+
+        // Then
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertThat(line.path("DynamoDb.GetItem.RCU").asDouble()).isEqualTo(1.5);
+        assertThat(line.has("DynamoDb.GetItem.WCU")).isFalse();
+        assertThat(line.path("DynamoDb.UpdateItem.WCU").asDouble()).isEqualTo(2.0);
+        assertThat(line.path("DynamoDb.BatchWriteItem.WCU").asDouble()).isEqualTo(7.0);
+        assertThat(line.path("DynamoDb.BatchWriteItem.RCU").asDouble()).isEqualTo(1.0);
+    }
+}
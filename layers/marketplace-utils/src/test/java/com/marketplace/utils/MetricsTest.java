@@ -0,0 +1,64 @@
+package com.marketplace.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the EMF lines written by Metrics.
+ */
+public class MetricsTest {
+
+    /**
+     * Tests that each line carries the function version, with a dimension set that counts outcomes
+     * per version for the duration only, so a deployment can read the new version's 5xx responses.
+     */
+    @Test
+    public void shouldWriteVersionDimension() throws Exception {
+        // Given
+        List<String> lines = new ArrayList<>();
+        Metrics metrics = new Metrics("Test", "CreateOrderFunction", "7", lines::add);
+
+        // When
+        metrics.measure("POST /orders", () -> {
+            metrics.recordLatency("Redis.Get", System.nanoTime());
+            return 500;
+        }, Metrics::outcome);
+
+        // Then
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertThat(line.path("Function").asText()).isEqualTo("CreateOrderFunction");
+        assertThat(line.path("Version").asText()).isEqualTo("7");
+        assertThat(line.path("Outcome").asText()).isEqualTo("5xx");
+        JsonNode directives = line.path("_aws").path("CloudWatchMetrics");
+        assertThat(directives).hasSize(2);
+        assertThat(directives.get(0).path("Dimensions").toString()).doesNotContain("Version");
+        assertThat(directives.get(1).path("Dimensions").toString()).isEqualTo("[[\"Function\",\"Version\",\"Outcome\"]]");
+        assertThat(directives.get(1).path("Metrics").toString()).isEqualTo("[{\"Name\":\"Duration\",\"Unit\":\"Milliseconds\"}]");
+    }
+
+    /**
+     * Tests that no per-version metrics are written without a version, so functions outside a canary
+     * deployment do not create new metrics on every publish.
+     */
+    @Test
+    public void shouldNotWriteVersionDimensionWithoutVersion() throws Exception {
+        // Given
+        List<String> lines = new ArrayList<>();
+        Metrics metrics = new Metrics("Test", "CatalogCacheWarmerFunction", lines::add);
+
+        // When
+        metrics.measure("warm", () -> 200, Metrics::outcome);
+
+        // Then
+        JsonNode line = new ObjectMapper().readTree(lines.get(0));
+        assertThat(line.has("Version")).isFalse();
+        assertThat(line.path("_aws").path("CloudWatchMetrics")).hasSize(1);
+        assertThat(line.path("_aws").path("CloudWatchMetrics").toString()).doesNotContain("Version");
+    }
+}
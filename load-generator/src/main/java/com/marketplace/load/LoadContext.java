@@ -0,0 +1,34 @@
+package com.marketplace.load;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+
+/**
+ * Lambda context for in-process invocations. Handler log lines are dropped so logging does not
+ * become the bottleneck being measured.
+ */
+final class LoadContext implements Context {
+
+    static final LoadContext INSTANCE = new LoadContext();
+
+    private static final LambdaLogger NO_OP_LOGGER = new LambdaLogger() {
+        @Override public void log(String message) {}
+        @Override public void log(byte[] message) {}
+    };
+
+    private LoadContext() {}
+
+    @Override public String getAwsRequestId() { return "load"; }
+    @Override public String getLogGroupName() { return "load"; }
+    @Override public String getLogStreamName() { return "load"; }
+    @Override public String getFunctionName() { return "load"; }
+    @Override public String getFunctionVersion() { return "$LATEST"; }
+    @Override public String getInvokedFunctionArn() { return "arn:aws:lambda:us-east-1:000000000000:function:load"; }
+    @Override public CognitoIdentity getIdentity() { return null; }
+    @Override public ClientContext getClientContext() { return null; }
+    @Override public int getRemainingTimeInMillis() { return 30_000; }
+    @Override public int getMemoryLimitInMB() { return 512; }
+    @Override public LambdaLogger getLogger() { return NO_OP_LOGGER; }
+}
@@ -0,0 +1,112 @@
+package com.marketplace.load;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.utils.Metrics;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives the handler classes in-process against LocalStack and Redis, without SAM local or API Gateway
+ * in the path, and reports throughput and latency percentiles per operation with a pass/fail gate.
+ *
+ * <p>Each worker thread invokes handlers back to back (a closed model), so {@code --threads} is the
+ * concurrency. Handlers are shared across threads the way one warm Lambda instance would be reused,
+ * except that Lambda runs one invocation per instance at a time. Each thread records the handlers'
+ * metrics into its own {@link Metrics} instance with a no-op sink, so threads neither reset nor wait on
+ * each other's metrics. Invocations during the warm-up are not measured. The handlers' metric lines and
+ * logs are discarded while seeding and while the load runs.
+ *
+ * <p>Usage: {@code java -jar load-generator.jar --scenario browse|hot-sku|history|all [--threads 16]
+ * [--warmup 5] [--duration 30] [--products 50] [--hot-skus 3] [--users 20] [--orders-per-user 5]
+ * [--max-p99-ms 500] [--max-error-rate 0.01] [--min-rps 0]}. The usual function environment
+ * (AWS_ENDPOINT_URL, TABLE_NAME, REDIS_HOST, KMS_KEY_ID, LOGISTICS_SECRET_ARN, credentials) must be set.
+ * Exits with status 1 if any scenario fails its gate.
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {}
+
+    /**
+     * Runs the requested scenarios one after another.
+     *
+     * @param args The options, see the class documentation.
+     * @throws Exception If seeding a scenario fails.
+     */
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        // Handlers run outside a Lambda trace; X-Ray would otherwise log every SDK call
+        System.setProperty("com.amazonaws.xray.strategy.contextMissingStrategy", "IGNORE_ERROR");
+        Metrics.usePerThreadInstances(line -> {});
+
+        PrintStream out = System.out;
+        boolean passed = true;
+        for (Scenario scenario : options.scenarios) {
+            out.printf("Preparing %s%n", scenario.cliName());
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            LoadResult result;
+            try {
+                Scenario.Workload workload = scenario.prepare(options, out);
+                result = run(scenario, workload, options);
+            } finally {
+                System.setOut(out);
+            }
+            result.print(out);
+            passed &= result.passes(options, out);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs one scenario for the warm-up plus the measured duration.
+     */
+    static LoadResult run(Scenario scenario, Scenario.Workload workload, LoadOptions options) throws Exception {
+        LoadResult result = new LoadResult(scenario, options.threads);
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(options.threads);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < options.threads; t++) {
+                running.add(workers.submit(() -> drive(workload, result, measureFrom, end)));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        result.setElapsedSeconds((System.nanoTime() - measureFrom) / 1e9);
+        return result;
+    }
+
+    /**
+     * Invokes handlers until the end time, recording those that started after the warm-up.
+     */
+    private static void drive(Scenario.Workload workload, LoadResult result, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Scenario.Invocation invocation = workload.next(random);
+            int statusCode;
+            try {
+                APIGatewayProxyResponseEvent response = invocation.invoke();
+                statusCode = response.getStatusCode() != null ? response.getStatusCode() : -1;
+            } catch (RuntimeException e) {
+                statusCode = -1;
+            }
+            long elapsed = System.nanoTime() - now;
+            if (now >= measureFrom) {
+                result.record(invocation.operation, elapsed, statusCode);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.marketplace.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line options of the {@link LoadGenerator}, given as {@code --name value} pairs.
+ */
+final class LoadOptions {
+
+    List<Scenario> scenarios = List.of(Scenario.BROWSE);
+    int threads = 16;
+    Duration warmup = Duration.ofSeconds(5);
+    Duration duration = Duration.ofSeconds(30);
+    int products = 50;
+    int hotSkus = 3;
+    int users = 20;
+    int ordersPerUser = 5;
+
+    // Pass/fail gate; p99 and throughput limits of 0 and a negative error rate are not checked
+    double maxP99Millis = 500;
+    double maxErrorRate = 0.01;
+    double minThroughput = 0;
+
+    private LoadOptions() {}
+
+    /**
+     * Parses the arguments.
+     *
+     * @param args The arguments, e.g. {@code --scenario browse,history --threads 32 --duration 60}.
+     * @return The options.
+     * @throws IllegalArgumentException If an option is unknown or has no value.
+     */
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[i + 1];
+            switch (name) {
+                case "--scenario": options.scenarios = scenarios(value); break;
+                case "--threads": options.threads = Integer.parseInt(value); break;
+                case "--warmup": options.warmup = Duration.ofSeconds(Long.parseLong(value)); break;
+                case "--duration": options.duration = Duration.ofSeconds(Long.parseLong(value)); break;
+                case "--products": options.products = Integer.parseInt(value); break;
+                case "--hot-skus": options.hotSkus = Integer.parseInt(value); break;
+                case "--users": options.users = Integer.parseInt(value); break;
+                case "--orders-per-user": options.ordersPerUser = Integer.parseInt(value); break;
+                case "--max-p99-ms": options.maxP99Millis = Double.parseDouble(value); break;
+                case "--max-error-rate": options.maxErrorRate = Double.parseDouble(value); break;
+                case "--min-rps": options.minThroughput = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return options;
+    }
+
+    private static List<Scenario> scenarios(String value) {
+        List<Scenario> scenarios = new ArrayList<>();
+        for (String name : value.split(",")) {
+            if ("all".equals(name.trim())) {
+                return List.of(Scenario.values());
+            }
+            scenarios.add(Scenario.fromName(name.trim()));
+        }
+        return scenarios;
+    }
+}
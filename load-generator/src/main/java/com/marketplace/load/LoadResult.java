@@ -0,0 +1,122 @@
+package com.marketplace.load;
+
+import com.marketplace.utils.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one scenario run, per operation and overall.
+ */
+final class LoadResult {
+
+    private final Scenario scenario;
+    private final int threads;
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final OperationStats total = new OperationStats();
+    private double elapsedSeconds;
+
+    LoadResult(Scenario scenario, int threads) {
+        this.scenario = scenario;
+        this.threads = threads;
+    }
+
+    /**
+     * Records one measured invocation.
+     *
+     * @param operation    The operation name.
+     * @param elapsedNanos The invocation latency.
+     * @param statusCode   The response status, or -1 if the handler threw.
+     */
+    void record(String operation, long elapsedNanos, int statusCode) {
+        operations.computeIfAbsent(operation, o -> new OperationStats()).record(elapsedNanos, statusCode);
+        total.record(elapsedNanos, statusCode);
+    }
+
+    void setElapsedSeconds(double elapsedSeconds) {
+        this.elapsedSeconds = elapsedSeconds;
+    }
+
+    /**
+     * Prints the summary line and the per-operation table.
+     *
+     * @param out Where to print.
+     */
+    void print(PrintStream out) {
+        out.printf("%nscenario=%s threads=%d measured_s=%.1f requests=%d throughput_rps=%.1f errors=%d conflicts=%d%n",
+                scenario.cliName(), threads, elapsedSeconds, total.histogram.count(), throughput(total),
+                total.errors.sum(), total.conflicts.sum());
+        out.printf("%-26s %9s %9s %9s %9s %9s %9s %9s %7s %9s%n",
+                "operation", "count", "rps", "p50_ms", "p95_ms", "p99_ms", "p999_ms", "max_ms", "errors", "conflicts");
+        operations.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> printRow(out, entry.getKey(), entry.getValue()));
+        printRow(out, "all", total);
+    }
+
+    /**
+     * Checks the run against the gate and prints the verdict.
+     *
+     * @param options The gate limits.
+     * @param out     Where to print.
+     * @return Whether every configured limit was met.
+     */
+    boolean passes(LoadOptions options, PrintStream out) {
+        double p99 = total.histogram.valueAtPercentile(99) / 1000.0;
+        long count = total.histogram.count();
+        double errorRate = count == 0 ? 1.0 : (double) total.errors.sum() / count;
+        double rps = throughput(total);
+
+        boolean passed = count > 0;
+        StringBuilder verdict = new StringBuilder();
+        if (options.maxP99Millis > 0) {
+            passed &= p99 <= options.maxP99Millis;
+            verdict.append(String.format("p99 %.1f ms (max %.1f)", p99, options.maxP99Millis));
+        }
+        if (options.maxErrorRate >= 0) {
+            passed &= errorRate <= options.maxErrorRate;
+            verdict.append(String.format("%serror rate %.2f%% (max %.2f%%)",
+                    verdict.length() > 0 ? ", " : "", errorRate * 100, options.maxErrorRate * 100));
+        }
+        if (options.minThroughput > 0) {
+            passed &= rps >= options.minThroughput;
+            verdict.append(String.format("%sthroughput %.1f rps (min %.1f)",
+                    verdict.length() > 0 ? ", " : "", rps, options.minThroughput));
+        }
+        out.printf("gate %s: %s: %s%n", scenario.cliName(), passed ? "PASS" : "FAIL", verdict);
+        return passed;
+    }
+
+    private void printRow(PrintStream out, String name, OperationStats stats) {
+        LatencyHistogram h = stats.histogram;
+        out.printf("%-26s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %9d%n",
+                name, h.count(), throughput(stats),
+                h.valueAtPercentile(50) / 1000.0, h.valueAtPercentile(95) / 1000.0,
+                h.valueAtPercentile(99) / 1000.0, h.valueAtPercentile(99.9) / 1000.0, h.max() / 1000.0,
+                stats.errors.sum(), stats.conflicts.sum());
+    }
+
+    private double throughput(OperationStats stats) {
+        return elapsedSeconds > 0 ? stats.histogram.count() / elapsedSeconds : 0;
+    }
+
+    /**
+     * Counters of one operation. A 409 is an expected optimistic-locking conflict, not an error.
+     */
+    private static final class OperationStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+
+        private void record(long elapsedNanos, int statusCode) {
+            histogram.record(elapsedNanos / 1_000);
+            if (statusCode == 409) {
+                conflicts.increment();
+            } else if (statusCode < 200 || statusCode >= 400) {
+                errors.increment();
+            }
+        }
+    }
+}
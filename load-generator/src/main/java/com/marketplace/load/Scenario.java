@@ -0,0 +1,207 @@
+package com.marketplace.load;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Order;
+import com.marketplace.model.Product;
+import com.marketplace.orders.CreateOrderHandler;
+import com.marketplace.orders.GetMyOrdersHandler;
+import com.marketplace.products.CreateProductHandler;
+import com.marketplace.products.GetProductByIdHandler;
+import com.marketplace.products.GetProductsHandler;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The traffic mixes the load generator can drive. Each scenario seeds the data it needs through the
+ * handlers themselves, then produces one invocation per request.
+ */
+enum Scenario {
+
+    /** Catalog browse: the product list, category lists and product details. */
+    BROWSE("browse") {
+        @Override
+        Workload prepare(LoadOptions options, PrintStream log) throws Exception {
+            String runId = runId();
+            List<String> productIds = seedProducts(runId, options.products, 1_000, log);
+            GetProductsHandler listHandler = new GetProductsHandler();
+            GetProductByIdHandler detailHandler = new GetProductByIdHandler();
+            return random -> {
+                int pick = random.nextInt(10);
+                if (pick < 4) {
+                    return new Invocation("GET /products", listHandler, get("/products"));
+                }
+                if (pick < 7) {
+                    return new Invocation("GET /products?category", listHandler, get("/products")
+                            .withQueryStringParameters(Map.of("category", category(runId, random.nextInt(CATEGORIES)))));
+                }
+                return new Invocation("GET /products/{id}", detailHandler, get("/products/{id}")
+                        .withPathParameters(Map.of("id", productIds.get(random.nextInt(productIds.size())))));
+            };
+        }
+    },
+
+    /** Hot-SKU ordering: every order goes to one of a few products, so optimistic locking conflicts. */
+    HOT_SKU("hot-sku") {
+        @Override
+        Workload prepare(LoadOptions options, PrintStream log) throws Exception {
+            List<String> hotSkus = seedProducts(runId(), options.hotSkus, 1_000_000_000, log);
+            CreateOrderHandler orderHandler = new CreateOrderHandler();
+            return random -> new Invocation("POST /orders", orderHandler,
+                    order(hotSkus.get(random.nextInt(hotSkus.size())), "load-user-" + random.nextInt(options.users)));
+        }
+    },
+
+    /** Order history: users list their own orders. */
+    HISTORY("history") {
+        @Override
+        Workload prepare(LoadOptions options, PrintStream log) throws Exception {
+            String runId = runId();
+            List<String> productIds = seedProducts(runId, Math.max(1, options.products / 10), 1_000_000, log);
+            CreateOrderHandler orderHandler = new CreateOrderHandler();
+            List<String> users = new ArrayList<>();
+            for (int u = 0; u < options.users; u++) {
+                String userId = "load-user-" + runId + "-" + u;
+                for (int o = 0; o < options.ordersPerUser; o++) {
+                    String productId = productIds.get((u + o) % productIds.size());
+                    expect(orderHandler.handleRequest(order(productId, userId), LoadContext.INSTANCE), 201, "seed order");
+                }
+                users.add(userId);
+            }
+            log.printf("Seeded %d orders for %d users%n", options.users * options.ordersPerUser, options.users);
+
+            GetMyOrdersHandler historyHandler = new GetMyOrdersHandler();
+            return random -> new Invocation("GET /orders/my-orders", historyHandler,
+                    withUser(get("/orders/my-orders"), users.get(random.nextInt(users.size()))));
+        }
+    };
+
+    private static final int CATEGORIES = 4;
+
+    private final String cliName;
+
+    Scenario(String cliName) {
+        this.cliName = cliName;
+    }
+
+    /**
+     * Seeds the scenario's data and returns its request generator.
+     *
+     * @param options The load options.
+     * @param log     Where to report seeding progress.
+     * @return The workload.
+     * @throws Exception If seeding fails, e.g. because LocalStack is not reachable.
+     */
+    abstract Workload prepare(LoadOptions options, PrintStream log) throws Exception;
+
+    String cliName() {
+        return cliName;
+    }
+
+    static Scenario fromName(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.cliName.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name + ", expected browse, hot-sku, history or all");
+    }
+
+    /**
+     * Produces the next request of a scenario. Called concurrently by every worker thread.
+     */
+    @FunctionalInterface
+    interface Workload {
+        Invocation next(ThreadLocalRandom random);
+    }
+
+    /**
+     * One request to one handler.
+     */
+    static final class Invocation {
+        final String operation;
+        final RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler;
+        final APIGatewayProxyRequestEvent event;
+
+        Invocation(String operation, RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler,
+                   APIGatewayProxyRequestEvent event) {
+            this.operation = operation;
+            this.handler = handler;
+            this.event = event;
+        }
+
+        APIGatewayProxyResponseEvent invoke() {
+            return handler.handleRequest(event, LoadContext.INSTANCE);
+        }
+    }
+
+    /**
+     * Creates products through {@link CreateProductHandler}. Supplier emails are only set when
+     * KMS_KEY_ID names a real key, so browse reads exercise the decrypt loop when KMS is available.
+     */
+    private static List<String> seedProducts(String runId, int count, int stock, PrintStream log) throws Exception {
+        CreateProductHandler createHandler = new CreateProductHandler();
+        String kmsKeyId = System.getenv("KMS_KEY_ID");
+        boolean encrypt = kmsKeyId != null && !"dummy".equals(kmsKeyId);
+        List<String> productIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(null, "Load product " + i, 10.0 + i % 90, category(runId, i % CATEGORIES),
+                    null, stock, encrypt ? "supplier-" + i + "@example.com" : null);
+            APIGatewayProxyResponseEvent response = createHandler.handleRequest(
+                    post("/products", MarketplaceJson.CODEC.write(product)), LoadContext.INSTANCE);
+            expect(response, 201, "seed product");
+            productIds.add(MarketplaceJson.CODEC.read(response.getBody(), Product.class).getId());
+        }
+        log.printf("Seeded %d products%s%n", count, encrypt ? " with encrypted supplier emails" : "");
+        return productIds;
+    }
+
+    private static APIGatewayProxyRequestEvent order(String productId, String userId) {
+        try {
+            return withUser(post("/orders", MarketplaceJson.CODEC.write(new Order(null, productId, null, 1, 0))), userId);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static APIGatewayProxyRequestEvent get(String resource) {
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withResource(resource)
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext());
+    }
+
+    private static APIGatewayProxyRequestEvent post(String resource, String body) {
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withResource(resource)
+                .withBody(body)
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext());
+    }
+
+    private static APIGatewayProxyRequestEvent withUser(APIGatewayProxyRequestEvent event, String userId) {
+        event.getRequestContext().setAuthorizer(Map.of("user_id", userId));
+        return event;
+    }
+
+    private static void expect(APIGatewayProxyResponseEvent response, int status, String step) {
+        if (response.getStatusCode() == null || response.getStatusCode() != status) {
+            throw new IllegalStateException("Could not " + step + ": " + response.getStatusCode() + " " + response.getBody());
+        }
+    }
+
+    private static String category(String runId, int index) {
+        return "load-" + runId + "-" + index;
+    }
+
+    private static String runId() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,52 @@
+package com.marketplace.load;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.utils.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Smoke test for LoadGenerator with an in-memory handler, so it runs without LocalStack.
+ */
+public class LoadGeneratorTest {
+
+    /**
+     * Tests that concurrent workers are measured and gated, and that each invocation's metrics line
+     * holds only its own values, which a recorder shared by the threads would mix or reset.
+     */
+    @Test
+    public void shouldDriveConcurrentInvocationsWithPerThreadMetrics() throws Exception {
+        // Given
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        Metrics.usePerThreadInstances(lines::add);
+        RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> handler = (event, context) ->
+                Metrics.get().measure("GET /test", () -> {
+                    Metrics.get().recordElapsed("Work", 1_000_000);
+                    return new APIGatewayProxyResponseEvent().withStatusCode(200);
+                }, response -> Metrics.outcome(response.getStatusCode()));
+        Scenario.Workload workload = random -> new Scenario.Invocation("GET /test", handler, new APIGatewayProxyRequestEvent());
+        LoadOptions options = LoadOptions.parse(new String[] {"--threads", "4", "--warmup", "0", "--duration", "1"});
+
+        // When
+        LoadResult result = LoadGenerator.run(Scenario.BROWSE, workload, options);
+
+        // Then
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(result.passes(options, new PrintStream(out, true, StandardCharsets.UTF_8))).isTrue();
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("PASS");
+        assertThat(lines).isNotEmpty();
+        synchronized (lines) {
+            assertThat(lines).allSatisfy(line -> assertThat(line).contains("\"Work\":1.0,"));
+        }
+    }
+}
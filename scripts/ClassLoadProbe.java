@@ -0,0 +1,28 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Used by {@code scripts/artifact_report.sh}: creates one handler through its no-arg constructor, as the
+ * Lambda runtime does during init, and prints the time taken and the number of classes loaded.
+ *
+ * Usage: {@code ClassLoadProbe <handlerClass>}
+ */
+public final class ClassLoadProbe {
+
+    private ClassLoadProbe() {}
+
+    /**
+     * Creates the handler and prints one {@code key=value} result line.
+     *
+     * @param args The handler class name.
+     * @throws Exception If the handler cannot be created, e.g. because a class was minimized away.
+     */
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        Class.forName(args[0]).getDeclaredConstructor().newInstance();
+        long initNanos = System.nanoTime() - start;
+
+        System.out.printf("init_ms=%.1f loaded_classes=%d%n",
+                initNanos / 1e6, ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount());
+        System.exit(0);
+    }
+}
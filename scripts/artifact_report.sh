@@ -0,0 +1,80 @@
+#!/bin/bash
+# Reports the size, class count and handler init cost of every per-function jar.
+#
+# Usage: ./scripts/artifact_report.sh [functionsDir] [reportFile]
+#
+# Runs during `mvn package` (skip with -DskipArtifactReport). Each handler is created in a fresh JVM with only
+# its own jar and the MarketplaceUtils layer on the classpath, so a class missing from a minimized jar shows up
+# here as an init failure. Handlers are taken from the CodeUri/Handler pairs in template.yaml.
+
+cd "$(dirname "$0")/.." || exit 1
+
+FUNCTIONS_DIR=${1:-target/functions}
+REPORT=${2:-target/artifact-report.txt}
+TEMPLATE=template.yaml
+LAYER_ZIP=layers/marketplace-utils/target/marketplace-utils-1.0-SNAPSHOT.zip
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+export AWS_ACCESS_KEY_ID=${AWS_ACCESS_KEY_ID:-test}
+export AWS_SECRET_ACCESS_KEY=${AWS_SECRET_ACCESS_KEY:-test}
+export AWS_REGION=${AWS_REGION:-us-east-1}
+export AWS_ENDPOINT_URL=${AWS_ENDPOINT_URL:-http://localhost:4566}
+export TABLE_NAME=${TABLE_NAME:-Products}
+# Outside EC2 the instance metadata lookups only add timeouts to the measured init
+export AWS_EC2_METADATA_DISABLED=true
+
+if [ ! -d "$FUNCTIONS_DIR" ]; then
+    echo "No function jars in $FUNCTIONS_DIR; run mvn package first"
+    exit 1
+fi
+
+javac -d "$WORK_DIR/probe" scripts/ClassLoadProbe.java || exit 1
+
+# The layer is unpacked like Lambda does under /opt; functions with `Layers: []` run without it
+LAYER_CLASSPATH=""
+if [ -f "$LAYER_ZIP" ]; then
+    unzip -q "$LAYER_ZIP" -d "$WORK_DIR/opt"
+    LAYER_CLASSPATH=$(ls "$WORK_DIR"/opt/java/lib/*.jar | tr '\n' ':')
+else
+    echo "Layer not built ($LAYER_ZIP); handlers that need it will fail to init"
+fi
+
+# Prints "<jar> <handler class> <uses layer>" for every function that deploys a per-function jar
+functions() {
+    awk '
+        /^  [A-Za-z0-9]+:$/ { jar = ""; layers = "yes" }
+        /CodeUri: target\/functions\// { jar = $2 }
+        /Layers: \[\]/ { layers = "no" }
+        /Handler:/ && jar != "" { split($2, parts, "::"); handler[jar] = parts[1] }
+        jar != "" { uses[jar] = layers }
+        END { for (j in handler) print j, handler[j], uses[j] }
+    ' "$TEMPLATE" | sort
+}
+
+set -o pipefail
+{
+    FAILED=0
+    printf "%-40s %10s %8s %10s %14s\n" "function" "size_kb" "classes" "init_ms" "loaded_classes"
+    while read -r jar handler uses_layer; do
+        name=$(basename "$jar" .jar)
+        jar_file="$FUNCTIONS_DIR/$name.jar"
+        size_kb=$(( $(stat -c %s "$jar_file") / 1024 ))
+        classes=$(unzip -l "$jar_file" | grep -c '\.class$')
+        classpath="$jar_file:$WORK_DIR/probe"
+        [ "$uses_layer" = "yes" ] && classpath="$classpath:$LAYER_CLASSPATH"
+
+        result=$(java -cp "$classpath" ClassLoadProbe "$handler" 2>"$WORK_DIR/$name.err")
+        if [ $? -eq 0 ]; then
+            init_ms=$(echo "$result" | sed -n 's/.*init_ms=\([0-9.]*\).*/\1/p')
+            loaded=$(echo "$result" | sed -n 's/.*loaded_classes=\([0-9]*\).*/\1/p')
+        else
+            init_ms=FAILED
+            loaded=-
+            FAILED=1
+            grep -m1 -E 'Error|Exception' "$WORK_DIR/$name.err" >&2
+        fi
+        printf "%-40s %10d %8d %10s %14s\n" "$name" "$size_kb" "$classes" "$init_ms" "$loaded"
+    done < <(functions)
+    exit $FAILED
+} | tee "$REPORT"
@@ -0,0 +1,31 @@
+#!/bin/bash
+# Compares a JMH result file against the checked-in baseline.
+#
+# Usage: ./scripts/compare_benchmarks.sh [results.json] [baseline.json]
+#
+# Produce results with: (cd benchmarks && java -jar target/benchmarks.jar -prof gc -rf json -rff results.json)
+# Prints time per operation and allocation per operation (from the GC profiler) side by side.
+
+RESULTS=${1:-benchmarks/results.json}
+BASELINE=${2:-benchmarks/baseline/jmh-baseline.json}
+
+if [ ! -f "$RESULTS" ] || [ ! -f "$BASELINE" ]; then
+    echo "Missing $RESULTS or $BASELINE"
+    exit 1
+fi
+
+# One line per benchmark and parameter set: key, score, allocated bytes per operation
+summarize() {
+    jq -r '.[] | [
+        (.benchmark | split(".") | .[-1]) + "(" + ((.params // {}) | to_entries | map(.value) | join(",")) + ")",
+        .primaryMetric.score,
+        (.secondaryMetrics["gc.alloc.rate.norm"].score // 0)
+    ] | @tsv' "$1" | sort
+}
+
+printf "%-32s %14s %14s %8s %14s %14s %8s\n" "benchmark" "base us/op" "new us/op" "delta" "base B/op" "new B/op" "delta"
+join -t $'\t' <(summarize "$BASELINE") <(summarize "$RESULTS") | \
+    awk -F'\t' '{
+        printf "%-32s %14.2f %14.2f %+7.1f%% %14.0f %14.0f %+7.1f%%\n",
+            $1, $2, $4, ($4 - $2) / $2 * 100, $3, $5, ($3 > 0 ? ($5 - $3) / $3 * 100 : 0)
+    }'
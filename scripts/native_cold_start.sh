@@ -0,0 +1,67 @@
+#!/bin/bash
+# Compares JVM and native cold starts of one function locally, using the Lambda runtime interface
+# emulator (RIE) that ships in the AWS base images.
+#
+# Usage: ./scripts/native_cold_start.sh [handler] [runs]
+#
+# Build first:
+#   (cd layers/marketplace-utils && mvn install -DskipTests) && mvn package -DskipTests   # JVM jar + layer zip
+#   mvn -Pnative package -DskipTests                                                     # target/function-native.zip
+# Every run starts a fresh container, so each first invocation is a cold start.
+
+HANDLER=${1:-com.marketplace.products.S3PreSignedUrlHandler::handleRequest}
+RUNS=${2:-5}
+PORT=${PORT:-9000}
+JAR=target/secure-serverless-marketplace-1.0-SNAPSHOT.jar
+LAYER_ZIP=layers/marketplace-utils/target/marketplace-utils-1.0-SNAPSHOT.zip
+NATIVE_ZIP=target/function-native.zip
+WORK_DIR=$(mktemp -d)
+
+# Same environment for both modes; LocalStack is reached through the docker host
+ENV_ARGS=(
+    -e AWS_ACCESS_KEY_ID=test -e AWS_SECRET_ACCESS_KEY=test -e AWS_REGION=us-east-1
+    -e AWS_ENDPOINT_URL=${AWS_ENDPOINT_URL:-http://172.17.0.1:4566}
+    -e TABLE_NAME=Products -e ASSETS_BUCKET_NAME=marketplace-assets-000000000000
+    -e AWS_XRAY_CONTEXT_MISSING=IGNORE_ERROR
+)
+EVENT='{"httpMethod":"GET","path":"/products/probe-product/asset","pathParameters":{"id":"probe-product"},"requestContext":{"authorizer":{"user_id":"probe"}},"headers":{"Authorization":"Bearer allow-me"},"authorizationToken":"Bearer allow-me","methodArn":"arn:aws:execute-api:us-east-1:000000000000:api/prod/GET/products"}'
+
+for artifact in "$JAR" "$LAYER_ZIP" "$NATIVE_ZIP"; do
+    if [ ! -f "$artifact" ]; then
+        echo "Missing $artifact; see the build steps at the top of this script"
+        exit 1
+    fi
+done
+
+unzip -q "$LAYER_ZIP" -d "$WORK_DIR/opt"
+unzip -q "$NATIVE_ZIP" -d "$WORK_DIR/native"
+mkdir -p "$WORK_DIR/task/lib" && cp "$JAR" "$WORK_DIR/task/lib/"
+
+# Starts a container, invokes it once and prints the client-side latency and the reported init duration
+cold_start() {
+    local mode=$1; shift
+    local container start end init
+    container=$(docker run -d --rm -p "$PORT:8080" "${ENV_ARGS[@]}" "$@" "$HANDLER")
+    # Wait for the emulator to accept connections, without invoking the function
+    until curl -s -o /dev/null "http://localhost:$PORT/"; do sleep 0.1; done
+
+    start=$(date +%s%N)
+    curl -s -o /dev/null -d "$EVENT" "http://localhost:$PORT/2015-03-31/functions/function/invocations"
+    end=$(date +%s%N)
+
+    init=$(docker logs "$container" 2>&1 | grep -o 'Init Duration: [0-9.]* ms' | head -1)
+    docker stop "$container" > /dev/null
+    echo "mode=$mode first_invoke_ms=$(( (end - start) / 1000000 )) ${init:-Init Duration: n/a}"
+}
+
+echo "--- JVM (java17) cold starts ($RUNS) ---"
+for i in $(seq "$RUNS"); do
+    cold_start jvm -v "$WORK_DIR/task:/var/task:ro" -v "$WORK_DIR/opt:/opt:ro" public.ecr.aws/lambda/java:17
+done
+
+echo "--- Native (provided.al2) cold starts ($RUNS) ---"
+for i in $(seq "$RUNS"); do
+    cold_start native -v "$WORK_DIR/native/bootstrap:/var/runtime/bootstrap:ro" public.ecr.aws/lambda/provided:al2
+done
+
+rm -rf "$WORK_DIR"
@@ -0,0 +1,61 @@
+#!/bin/bash
+# Compares cold, primed and CRaC-restored start-up of a handler outside Lambda.
+#
+# Usage: ./scripts/startup_benchmark.sh [handlerClass] [runs]
+#
+# Cold and primed runs use the default `java`. Restored runs need a CRaC-enabled JDK
+# (e.g. Azul Zulu with CRaC); point CRAC_JAVA at its java binary to enable them.
+# The handler talks to whatever AWS_ENDPOINT_URL / REDIS_HOST point at (LocalStack by default).
+
+HANDLER=${1:-com.marketplace.products.GetProductsHandler}
+RUNS=${2:-5}
+JAR=target/secure-serverless-marketplace-1.0-SNAPSHOT.jar
+LAYER_JAR=layers/marketplace-utils/target/marketplace-utils-1.0-SNAPSHOT.jar
+CLASSPATH="$JAR:$(ls layers/marketplace-utils/target/lib/*.jar 2>/dev/null | tr '\n' ':')$LAYER_JAR"
+PROBE=com.marketplace.snapstart.StartupProbe
+CHECKPOINT_DIR=$(mktemp -d)
+
+export AWS_ACCESS_KEY_ID=${AWS_ACCESS_KEY_ID:-test}
+export AWS_SECRET_ACCESS_KEY=${AWS_SECRET_ACCESS_KEY:-test}
+export AWS_REGION=${AWS_REGION:-us-east-1}
+export AWS_ENDPOINT_URL=${AWS_ENDPOINT_URL:-http://localhost:4566}
+export TABLE_NAME=${TABLE_NAME:-Products}
+
+if [ ! -f "$JAR" ] || [ ! -f "$LAYER_JAR" ]; then
+    echo "Build first: (cd layers/marketplace-utils && mvn install dependency:copy-dependencies -DoutputDirectory=target/lib) && mvn package -DskipTests"
+    exit 1
+fi
+
+# Runs the probe and prints its result line followed by the wall-clock process time
+run_probe() {
+    local java_bin=$1; shift
+    local start end
+    start=$(date +%s%N)
+    local result
+    result=$("$java_bin" "$@" 2>/dev/null | grep '^mode=')
+    end=$(date +%s%N)
+    echo "$result wall_ms=$(( (end - start) / 1000000 ))"
+}
+
+echo "--- Cold runs ($RUNS) ---"
+for i in $(seq "$RUNS"); do
+    run_probe java -cp "$CLASSPATH" $PROBE cold "$HANDLER"
+done
+
+echo "--- Primed runs ($RUNS) ---"
+for i in $(seq "$RUNS"); do
+    run_probe java -cp "$CLASSPATH" $PROBE primed "$HANDLER"
+done
+
+if [ -n "$CRAC_JAVA" ]; then
+    echo "--- Taking checkpoint ---"
+    "$CRAC_JAVA" -XX:CRaCCheckpointTo="$CHECKPOINT_DIR" -cp "$CLASSPATH" $PROBE checkpoint "$HANDLER" > /dev/null 2>&1
+    echo "--- Restored runs ($RUNS) ---"
+    for i in $(seq "$RUNS"); do
+        run_probe "$CRAC_JAVA" -XX:CRaCRestoreFrom="$CHECKPOINT_DIR"
+    done
+else
+    echo "--- Restored runs skipped: set CRAC_JAVA to a CRaC-enabled java binary ---"
+fi
+
+rm -rf "$CHECKPOINT_DIR"
@@ -4,6 +4,8 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
 import com.amazonaws.services.lambda.runtime.events.IamPolicyResponse;
+import org.crac.Core;
+import org.crac.Resource;
 
 import java.util.Collections;
 import java.util.Map;
@@ -12,7 +14,33 @@ import java.util.Map;
  * Lambda Authorizer to validate Bearer tokens.
  * In a real-world scenario, this would validate a JWT against a User Pool (e.g., Cognito).
  */
-public class LambdaAuthorizerHandler implements RequestHandler<APIGatewayCustomAuthorizerEvent, IamPolicyResponse> {
+public class LambdaAuthorizerHandler implements RequestHandler<APIGatewayCustomAuthorizerEvent, IamPolicyResponse>, Resource {
+
+    /**
+     * Creates the authorizer and registers it for SnapStart checkpoint notifications.
+     */
+    public LambdaAuthorizerHandler() {
+        Core.getGlobalContext().register(this);
+    }
+
+    /**
+     * Builds a throwaway policy before the SnapStart snapshot so the event and policy classes are loaded.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        generatePolicy("priming", "Deny", "arn:aws:execute-api:us-east-1:000000000000:priming/*");
+    }
+
+    /**
+     * Nothing to refresh after a restore; the authorizer holds no connections or credentials.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+    }
 
     /**
      * Handles the authorization request from API Gateway.
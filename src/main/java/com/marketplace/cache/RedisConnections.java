@@ -0,0 +1,66 @@
+package com.marketplace.cache;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+/**
+ * Process-wide Redis connection pool shared by the handlers that use the product cache.
+ * The pool can be closed before a SnapStart checkpoint and re-opened after restore,
+ * because open sockets do not survive a snapshot.
+ */
+public final class RedisConnections {
+
+    private static volatile JedisPool jedisPool;
+
+    private RedisConnections() {}
+
+    /**
+     * Returns the shared pool, creating it from REDIS_HOST and REDIS_PORT on first use.
+     *
+     * @return The Redis pool, or null if Redis is not configured.
+     */
+    public static JedisPool getPool() {
+        JedisPool pool = jedisPool;
+        if (pool == null) {
+            synchronized (RedisConnections.class) {
+                pool = jedisPool;
+                if (pool == null) {
+                    String redisHost = System.getenv("REDIS_HOST");
+                    String redisPort = System.getenv("REDIS_PORT");
+                    if (redisHost != null && redisPort != null) {
+                        pool = new JedisPool(new JedisPoolConfig(), redisHost, Integer.parseInt(redisPort));
+                        jedisPool = pool;
+                    }
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Closes the shared pool and drops all connections. The next {@link #getPool()} opens a new one.
+     */
+    public static synchronized void close() {
+        if (jedisPool != null) {
+            jedisPool.close();
+            jedisPool = null;
+        }
+    }
+
+    /**
+     * Re-creates the pool and opens one connection so the first request after a restore
+     * does not pay for the TCP handshake. Failures are ignored; Redis is only a cache.
+     */
+    public static void reconnect() {
+        close();
+        JedisPool pool = getPool();
+        if (pool != null) {
+            try (Jedis jedis = pool.getResource()) {
+                jedis.ping();
+            } catch (Exception e) {
+                // Redis unavailable: handlers fall back to DynamoDB
+            }
+        }
+    }
+}
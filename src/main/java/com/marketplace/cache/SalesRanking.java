@@ -0,0 +1,60 @@
+package com.marketplace.cache;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+/**
+ * Hourly Redis sorted sets of units sold per product, one for the whole catalog and one per
+ * category. {@link com.marketplace.orders.CreateOrderHandler} adds every order to the current
+ * hour's sets; {@code TopProductsHandler} ranks products by a decayed union of the recent hours.
+ */
+public final class SalesRanking {
+
+    /** Prefix of the hourly sales sets. */
+    public static final String KEY_PREFIX = "products:sales:";
+
+    /** Seconds an hourly set is kept, enough for a day of lookback. */
+    public static final int BUCKET_TTL_SECONDS = 25 * 3600;
+
+    private SalesRanking() {}
+
+    /**
+     * @param epochHour Hours since the epoch.
+     * @return The key of that hour's sales across the catalog.
+     */
+    public static String globalKey(long epochHour) {
+        return KEY_PREFIX + epochHour;
+    }
+
+    /**
+     * @param epochHour Hours since the epoch.
+     * @param category  The category.
+     * @return The key of that hour's sales in the category.
+     */
+    public static String categoryKey(long epochHour, String category) {
+        return KEY_PREFIX + epochHour + ":" + category;
+    }
+
+    /**
+     * Adds an order to the current hour's sets in one round trip. Each {@code ZINCRBY} is
+     * O(log n) in the number of products sold that hour.
+     *
+     * @param jedis     The Redis connection.
+     * @param productId The ordered product.
+     * @param category  The product's category, or null to only count it in the catalog set.
+     * @param quantity  The ordered quantity.
+     * @param epochHour Hours since the epoch.
+     */
+    public static void record(Jedis jedis, String productId, String category, int quantity, long epochHour) {
+        Pipeline pipeline = jedis.pipelined();
+        String globalKey = globalKey(epochHour);
+        pipeline.zincrby(globalKey, quantity, productId);
+        pipeline.expire(globalKey, BUCKET_TTL_SECONDS);
+        if (category != null) {
+            String categoryKey = categoryKey(epochHour, category);
+            pipeline.zincrby(categoryKey, quantity, productId);
+            pipeline.expire(categoryKey, BUCKET_TTL_SECONDS);
+        }
+        pipeline.sync();
+    }
+}
@@ -0,0 +1,70 @@
+package com.marketplace.config;
+
+import com.marketplace.utils.ConfigProvider;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.ParameterType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link ConfigProvider}s backed by SSM Parameter Store.
+ * Every parameter under the configured path is read with {@code GetParametersByPath},
+ * one page per call, instead of one {@code GetParameter} per value.
+ * Decrypted SecureString values are kept in memory only, never in the provider's {@code /tmp} file.
+ */
+public final class ParameterStoreConfig {
+
+    /** Name of the products table parameter, relative to the configuration path. */
+    public static final String TABLE_NAME = "table_name";
+
+    private ParameterStoreConfig() {}
+
+    /**
+     * Creates a provider for all parameters under a path.
+     *
+     * @param ssmClient The SSM client.
+     * @param path      The parameter path, e.g. {@code /marketplace}.
+     * @return The configuration provider.
+     */
+    public static ConfigProvider create(SsmClient ssmClient, String path) {
+        // A parameter seen once as a SecureString is never persisted, even if its type changes later
+        Set<String> secureNames = ConcurrentHashMap.newKeySet();
+        return new ConfigProvider(path, configPath -> loadByPath(ssmClient, configPath, secureNames),
+                name -> !secureNames.contains(name));
+    }
+
+    /**
+     * Reads every parameter under a path, following pagination and decrypting SecureStrings.
+     *
+     * @param ssmClient   The SSM client.
+     * @param path        The parameter path.
+     * @param secureNames Receives the full names of the SecureString parameters.
+     * @return The values keyed by full parameter name.
+     */
+    static Map<String, String> loadByPath(SsmClient ssmClient, String path, Set<String> secureNames) {
+        Map<String, String> values = new HashMap<>();
+        String nextToken = null;
+        do {
+            GetParametersByPathResponse response = ssmClient.getParametersByPath(GetParametersByPathRequest.builder()
+                    .path(path)
+                    .recursive(true)
+                    .withDecryption(true)
+                    .nextToken(nextToken)
+                    .build());
+            for (Parameter parameter : response.parameters()) {
+                if (parameter.type() == ParameterType.SECURE_STRING) {
+                    secureNames.add(parameter.name());
+                }
+                values.put(parameter.name(), parameter.value());
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return values;
+    }
+}
@@ -2,25 +2,35 @@ package com.marketplace.deploy;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.codedeploy.CodeDeployClient;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentRequest;
 import software.amazon.awssdk.services.codedeploy.model.PutLifecycleEventHookExecutionStatusRequest;
 
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Lambda function to be used as a PostTraffic hook in CodeDeploy.
- * This function validates the deployment after traffic has been shifted to the new version.
+ * This function validates the deployment after traffic has been shifted to the new version:
+ * it reads the latency, error and throttle metrics of the new version since the deployment started
+ * and fails the deployment, which rolls the alias back, if the function's SLO was breached.
  */
 public class AfterAllowTrafficHandler implements RequestHandler<Map<String, Object>, Void> {
 
     private final CodeDeployClient codeDeployClient;
+    private final MetricSource metricSource;
+    private final ServiceLevelObjectives objectives;
 
     /**
      * Default constructor for AfterAllowTrafficHandler.
      * Initializes the CodeDeploy client with default settings.
      */
     public AfterAllowTrafficHandler() {
-        this.codeDeployClient = CodeDeployClient.builder().build();
+        this(CodeDeployClient.builder().build());
     }
 
     /**
@@ -30,7 +40,21 @@ public class AfterAllowTrafficHandler implements RequestHandler<Map<String, Obje
      * @param codeDeployClient The CodeDeploy client to use.
      */
     public AfterAllowTrafficHandler(CodeDeployClient codeDeployClient) {
+        this(codeDeployClient, metricSourceFromEnvironment(), ServiceLevelObjectives.load());
+    }
+
+    /**
+     * Constructor with all collaborators, used by the unit tests with a fake metric source.
+     *
+     * @param codeDeployClient The CodeDeploy client.
+     * @param metricSource     Supplies the canary metrics.
+     * @param objectives       The SLOs per function.
+     */
+    AfterAllowTrafficHandler(CodeDeployClient codeDeployClient, MetricSource metricSource,
+                             ServiceLevelObjectives objectives) {
         this.codeDeployClient = codeDeployClient;
+        this.metricSource = metricSource;
+        this.objectives = objectives;
     }
 
     /**
@@ -49,8 +73,7 @@ public class AfterAllowTrafficHandler implements RequestHandler<Map<String, Obje
         String lifecycleEventHookExecutionId = (String) event.get("LifecycleEventHookExecutionId");
 
         try {
-            // Perform post-traffic validation logic here
-            validateDeployment(context);
+            validateDeployment(deploymentId, context);
 
             context.getLogger().log("Post-traffic validation succeeded. Reporting Succeeded to CodeDeploy.");
             reportStatus(deploymentId, lifecycleEventHookExecutionId, "Succeeded");
@@ -63,13 +86,47 @@ public class AfterAllowTrafficHandler implements RequestHandler<Map<String, Obje
     }
 
     /**
-     * Validates the deployment after traffic shift.
+     * Validates the deployment after traffic shift. The canary window runs from the creation of the
+     * deployment until now, which covers the canary step and the full shift.
      *
-     * @param context The Lambda execution context.
+     * @param deploymentId The ID of the deployment.
+     * @param context      The Lambda execution context.
+     * @throws IllegalStateException If the SLO was breached.
+     */
+    private void validateDeployment(String deploymentId, Context context) {
+        LambdaDeploymentTarget target = LambdaDeploymentTarget.resolve(codeDeployClient, deploymentId);
+        Optional<ServiceLevelObjectives.Slo> slo = objectives.forTarget(target);
+        if (slo.isEmpty()) {
+            context.getLogger().log("No SLO for " + target.getFunctionName() + ", skipping post-traffic checks");
+            return;
+        }
+
+        Instant start = codeDeployClient.getDeployment(GetDeploymentRequest.builder()
+                .deploymentId(deploymentId)
+                .build()).deploymentInfo().createTime();
+        CanaryMetrics metrics = metricSource.fetch(target, start, Instant.now());
+        context.getLogger().log("Performing post-traffic validation of " + target + " since " + start + ": " + metrics);
+        if (metrics.getInvocations() < slo.get().getMinInvocations()) {
+            context.getLogger().log("Fewer than " + slo.get().getMinInvocations()
+                    + " invocations, latency and error rate are not judged");
+        }
+
+        List<String> breaches = slo.get().breaches(metrics);
+        if (!breaches.isEmpty()) {
+            throw new IllegalStateException("SLO breached by version " + target.getTargetVersion() + ": "
+                    + String.join(", ", breaches));
+        }
+    }
+
+    /**
+     * Reads the canary metrics from CloudWatch, or from the file named by CANARY_METRICS_FILE
+     * when METRIC_SOURCE is {@code file}.
      */
-    private void validateDeployment(Context context) {
-        // Mock validation
-        context.getLogger().log("Performing post-traffic validation checks...");
+    private static MetricSource metricSourceFromEnvironment() {
+        if ("file".equals(System.getenv("METRIC_SOURCE"))) {
+            return new FileMetricSource(Paths.get(System.getenv("CANARY_METRICS_FILE")));
+        }
+        return new CloudWatchMetricSource(CloudWatchClient.builder().build());
     }
 
     /**
@@ -0,0 +1,83 @@
+package com.marketplace.deploy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.ParameterNotFoundException;
+import software.amazon.awssdk.services.ssm.model.ParameterType;
+import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Stores the latency baseline of each function in SSM Parameter Store, one JSON parameter per
+ * function under a path, e.g. {@code /marketplace-deploy/latency-baseline/<function name>}.
+ */
+public class BaselineStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final SsmClient ssmClient;
+    private final String path;
+
+    /**
+     * @param ssmClient The SSM client.
+     * @param path      The parameter path, without a trailing slash.
+     */
+    public BaselineStore(SsmClient ssmClient, String path) {
+        this.ssmClient = ssmClient;
+        this.path = path;
+    }
+
+    /**
+     * Reads the baseline of a function.
+     *
+     * @param functionName The function name.
+     * @return The last stored baseline, or empty if none was stored yet.
+     */
+    public Optional<LatencyBaseline> load(String functionName) {
+        String value;
+        try {
+            value = ssmClient.getParameter(GetParameterRequest.builder()
+                    .name(parameterName(functionName))
+                    .build()).parameter().value();
+        } catch (ParameterNotFoundException e) {
+            return Optional.empty();
+        }
+        try {
+            JsonNode json = MAPPER.readTree(value);
+            return Optional.of(new LatencyBaseline(json.path("version").asText(), json.path("p50Millis").asDouble(),
+                    json.path("p99Millis").asDouble(), json.path("samples").asInt()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed baseline in " + parameterName(functionName), e);
+        }
+    }
+
+    /**
+     * Replaces the baseline of a function.
+     *
+     * @param functionName The function name.
+     * @param baseline     The new baseline.
+     */
+    public void save(String functionName, LatencyBaseline baseline) {
+        ObjectNode json = MAPPER.createObjectNode()
+                .put("version", baseline.getVersion())
+                .put("p50Millis", baseline.getP50Millis())
+                .put("p99Millis", baseline.getP99Millis())
+                .put("samples", baseline.getSamples());
+        ssmClient.putParameter(PutParameterRequest.builder()
+                .name(parameterName(functionName))
+                .type(ParameterType.STRING)
+                .value(json.toString())
+                .overwrite(true)
+                .build());
+    }
+
+    private String parameterName(String functionName) {
+        return path + "/" + functionName;
+    }
+}
@@ -2,25 +2,41 @@ package com.marketplace.deploy;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.codedeploy.CodeDeployClient;
 import software.amazon.awssdk.services.codedeploy.model.PutLifecycleEventHookExecutionStatusRequest;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.ssm.SsmClient;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Lambda function to be used as a PreTraffic hook in CodeDeploy.
- * This function validates the deployment before traffic is shifted to the new version.
+ * This function validates the deployment before traffic is shifted to the new version:
+ * it sends the function's synthetic request suite to the new version, measures its warm p50/p99
+ * and fails the deployment if they regress beyond the budget against the version serving traffic.
+ * Before that it runs the catalog cache warmer, so the new version starts with a hot cache.
  */
 public class BeforeAllowTrafficHandler implements RequestHandler<Map<String, Object>, Void> {
 
+    private static final String DEFAULT_BASELINE_PATH = "/marketplace-deploy/latency-baseline";
+
     private final CodeDeployClient codeDeployClient;
+    private final LatencyGate latencyGate;
+    private final BaselineStore baselineStore;
+    private final SyntheticRequests syntheticRequests;
+    private final Runnable cacheWarmer;
 
     /**
      * Default constructor for BeforeAllowTrafficHandler.
      * Initializes the CodeDeploy client with default settings.
      */
     public BeforeAllowTrafficHandler() {
-        this.codeDeployClient = CodeDeployClient.builder().build();
+        this(CodeDeployClient.builder().build());
     }
 
     /**
@@ -30,7 +46,33 @@ public class BeforeAllowTrafficHandler implements RequestHandler<Map<String, Obj
      * @param codeDeployClient The CodeDeploy client to use.
      */
     public BeforeAllowTrafficHandler(CodeDeployClient codeDeployClient) {
+        this(codeDeployClient, LambdaClient.builder().build());
+    }
+
+    private BeforeAllowTrafficHandler(CodeDeployClient codeDeployClient, LambdaClient lambdaClient) {
+        this(codeDeployClient,
+                LatencyGate.fromEnvironment(new LambdaClientInvoker(lambdaClient)),
+                new BaselineStore(SsmClient.builder().build(), baselinePath()),
+                SyntheticRequests.load(),
+                cacheWarmer(lambdaClient, System.getenv("CACHE_WARMER_FUNCTION")));
+    }
+
+    /**
+     * Constructor with all collaborators, used by the unit tests with a local Lambda invoker.
+     *
+     * @param codeDeployClient  The CodeDeploy client.
+     * @param latencyGate       Measures and compares versions.
+     * @param baselineStore     Stores the baseline of each function.
+     * @param syntheticRequests The request suites.
+     * @param cacheWarmer       Warms the product cache before the new version is measured.
+     */
+    BeforeAllowTrafficHandler(CodeDeployClient codeDeployClient, LatencyGate latencyGate,
+                              BaselineStore baselineStore, SyntheticRequests syntheticRequests, Runnable cacheWarmer) {
         this.codeDeployClient = codeDeployClient;
+        this.latencyGate = latencyGate;
+        this.baselineStore = baselineStore;
+        this.syntheticRequests = syntheticRequests;
+        this.cacheWarmer = cacheWarmer;
     }
 
     /**
@@ -49,9 +91,7 @@ public class BeforeAllowTrafficHandler implements RequestHandler<Map<String, Obj
         String lifecycleEventHookExecutionId = (String) event.get("LifecycleEventHookExecutionId");
 
         try {
-            // Perform validation logic here
-            // For example, calling the new Lambda version via its alias
-            validateDeployment(context);
+            validateDeployment(deploymentId, context);
 
             context.getLogger().log("Validation succeeded. Reporting Succeeded to CodeDeploy.");
             reportStatus(deploymentId, lifecycleEventHookExecutionId, "Succeeded");
@@ -64,14 +104,69 @@ public class BeforeAllowTrafficHandler implements RequestHandler<Map<String, Obj
     }
 
     /**
-     * Validates the deployment before traffic shift.
+     * Validates the deployment before traffic shift. The baseline is the stored measurement of the
+     * version currently behind the alias; if none matches that version (first gated deployment, or a
+     * rollback since), the current version is measured with the same suite instead. A passing
+     * candidate becomes the stored baseline for the next deployment.
      *
-     * @param context The Lambda execution context.
+     * @param deploymentId The ID of the deployment.
+     * @param context      The Lambda execution context.
+     * @throws IllegalStateException If a synthetic request fails or the latency regresses.
+     */
+    private void validateDeployment(String deploymentId, Context context) {
+        LambdaDeploymentTarget target = LambdaDeploymentTarget.resolve(codeDeployClient, deploymentId);
+        try {
+            cacheWarmer.run();
+        } catch (Exception e) {
+            // Redis is only a cache; a cold cache is no reason to hold back a deployment
+            context.getLogger().log("Cache warm-up failed: " + e.getMessage());
+        }
+
+        List<SyntheticRequests.Request> suite = syntheticRequests.forTarget(target);
+        if (suite.isEmpty()) {
+            context.getLogger().log("No synthetic requests for " + target.getFunctionName() + ", skipping the latency gate");
+            return;
+        }
+        context.getLogger().log("Performing pre-traffic validation of " + target);
+
+        LatencyBaseline candidate = latencyGate.measure(target.getFunctionName(), target.getTargetVersion(), suite);
+        context.getLogger().log("Candidate: " + candidate);
+
+        Optional<LatencyBaseline> stored = baselineStore.load(target.getFunctionName())
+                .filter(b -> b.getVersion().equals(target.getCurrentVersion()));
+        LatencyBaseline baseline = stored.isPresent()
+                ? stored.get()
+                : latencyGate.measure(target.getFunctionName(), target.getCurrentVersion(), suite);
+        context.getLogger().log((stored.isPresent() ? "Stored baseline: " : "Measured baseline: ") + baseline);
+
+        String regression = latencyGate.regression(candidate, baseline);
+        if (regression != null) {
+            throw new IllegalStateException("Latency regression of version " + target.getTargetVersion() + ": " + regression);
+        }
+        baselineStore.save(target.getFunctionName(), candidate);
+    }
+
+    /**
+     * Invokes the cache warmer function synchronously, or does nothing if none is configured.
      */
-    private void validateDeployment(Context context) {
-        // Mock validation: In a real scenario, you might invoke the function
-        // or check some resources.
-        context.getLogger().log("Performing pre-traffic validation checks...");
+    private static Runnable cacheWarmer(LambdaClient lambdaClient, String functionName) {
+        if (functionName == null || functionName.isEmpty()) {
+            return () -> { };
+        }
+        return () -> {
+            InvokeResponse response = lambdaClient.invoke(InvokeRequest.builder()
+                    .functionName(functionName)
+                    .payload(SdkBytes.fromUtf8String("{}"))
+                    .build());
+            if (response.functionError() != null) {
+                throw new IllegalStateException(functionName + " failed: " + response.payload().asUtf8String());
+            }
+        };
+    }
+
+    private static String baselinePath() {
+        String path = System.getenv("LATENCY_BASELINE_PATH");
+        return path != null && !path.isEmpty() ? path : DEFAULT_BASELINE_PATH;
     }
 
     /**
@@ -0,0 +1,54 @@
+package com.marketplace.deploy;
+
+/**
+ * What the new version of a function did while the deployment shifted traffic to it.
+ */
+public final class CanaryMetrics {
+
+    private final long invocations;
+    private final long errors;
+    private final long throttles;
+    private final double p99Millis;
+
+    /**
+     * @param invocations The invocations of the new version.
+     * @param errors      The failed invocations.
+     * @param throttles   The throttled invocation attempts.
+     * @param p99Millis   The 99th percentile duration, or 0 without invocations.
+     */
+    public CanaryMetrics(long invocations, long errors, long throttles, double p99Millis) {
+        this.invocations = invocations;
+        this.errors = errors;
+        this.throttles = throttles;
+        this.p99Millis = p99Millis;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getThrottles() {
+        return throttles;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * @return The failed share of invocations, or 0 without invocations.
+     */
+    public double getErrorRate() {
+        return invocations > 0 ? (double) errors / invocations : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d invocations, %d errors (%.2f%%), %d throttles, p99 %.1f ms",
+                invocations, errors, getErrorRate() * 100, throttles, p99Millis);
+    }
+}
@@ -0,0 +1,115 @@
+package com.marketplace.deploy;
+
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.model.MetricStat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link MetricSource} reading the {@code AWS/Lambda} metrics of the alias from CloudWatch.
+ * Invocations, errors and duration are scoped to the executed target version, so the old version's
+ * share of the canary traffic does not mask a regression. Throttled requests never reach a version,
+ * so throttles are counted for the whole alias.
+ *
+ * <p>Lambda only counts invocations that throw or time out as {@code Errors}; the API handlers catch
+ * their failures and return a 500 response. Errors therefore also include the target version's
+ * {@code 5xx} responses, counted from the {@code Duration} samples the handlers write to the
+ * {@code Marketplace} namespace with the {@code Function, Version, Outcome} dimensions. Handlers only
+ * write these per-version samples when {@code VERSION_METRICS_ENABLED} is set, which the template does
+ * for the canary-deployed functions; without them only Lambda's {@code Errors} are counted.
+ */
+public class CloudWatchMetricSource implements MetricSource {
+
+    private static final String LAMBDA_NAMESPACE = "AWS/Lambda";
+    // Metrics.NAMESPACE in the layer, which this function does not load
+    private static final String MARKETPLACE_NAMESPACE = "Marketplace";
+
+    private final CloudWatchClient cloudWatchClient;
+
+    /**
+     * @param cloudWatchClient The CloudWatch client.
+     */
+    public CloudWatchMetricSource(CloudWatchClient cloudWatchClient) {
+        this.cloudWatchClient = cloudWatchClient;
+    }
+
+    @Override
+    public CanaryMetrics fetch(LambdaDeploymentTarget target, Instant start, Instant end) {
+        // One datapoint per query covering the whole window
+        int period = (int) Math.max(60, (Duration.between(start, end).getSeconds() + 59) / 60 * 60);
+        Dimension function = dimension("FunctionName", target.getFunctionName());
+        Dimension alias = dimension("Resource", target.getFunctionName() + ":" + target.getAlias());
+        Dimension version = dimension("ExecutedVersion", target.getTargetVersion());
+
+        List<MetricDataQuery> queries = List.of(
+                query("invocations", LAMBDA_NAMESPACE, "Invocations", "Sum", period, function, alias, version),
+                query("errors", LAMBDA_NAMESPACE, "Errors", "Sum", period, function, alias, version),
+                query("duration", LAMBDA_NAMESPACE, "Duration", "p99", period, function, alias, version),
+                query("throttles", LAMBDA_NAMESPACE, "Throttles", "Sum", period, function, alias),
+                query("responses5xx", MARKETPLACE_NAMESPACE, "Duration", "SampleCount", period,
+                        dimension("Function", target.getFunctionName()),
+                        dimension("Version", target.getTargetVersion()),
+                        dimension("Outcome", "5xx")));
+
+        Map<String, List<Double>> values = new HashMap<>();
+        String nextToken = null;
+        do {
+            GetMetricDataResponse response = cloudWatchClient.getMetricData(GetMetricDataRequest.builder()
+                    .metricDataQueries(queries)
+                    .startTime(start)
+                    .endTime(end)
+                    .nextToken(nextToken)
+                    .build());
+            for (MetricDataResult result : response.metricDataResults()) {
+                values.computeIfAbsent(result.id(), id -> new ArrayList<>()).addAll(result.values());
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+
+        return new CanaryMetrics(
+                (long) sum(values.get("invocations")),
+                (long) (sum(values.get("errors")) + sum(values.get("responses5xx"))),
+                (long) sum(values.get("throttles")),
+                max(values.get("duration")));
+    }
+
+    private static MetricDataQuery query(String id, String namespace, String metricName, String stat, int period,
+                                         Dimension... dimensions) {
+        return MetricDataQuery.builder()
+                .id(id)
+                .metricStat(MetricStat.builder()
+                        .metric(Metric.builder()
+                                .namespace(namespace)
+                                .metricName(metricName)
+                                .dimensions(dimensions)
+                                .build())
+                        .stat(stat)
+                        .period(period)
+                        .build())
+                .returnData(true)
+                .build();
+    }
+
+    private static Dimension dimension(String name, String value) {
+        return Dimension.builder().name(name).value(value).build();
+    }
+
+    private static double sum(List<Double> values) {
+        return values == null ? 0 : values.stream().mapToDouble(Double::doubleValue).sum();
+    }
+
+    private static double max(List<Double> values) {
+        return values == null ? 0 : values.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.marketplace.deploy;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.util.Map;
+
+/**
+ * Recognizes the dry-run requests of the synthetic suites ({@link SyntheticRequests}). A handler that
+ * supports dry runs makes every AWS and Redis call of a real request, but its writes carry a condition
+ * that never holds, so DynamoDB evaluates them and stores nothing; the request returns 200 instead of 201.
+ * Calls with lasting effects outside the table, such as sales rankings or the logistics provider, are skipped.
+ *
+ * <p>The header is only honoured on direct invocations, such as the pre-traffic hook's. API Gateway
+ * always sets the request context's API ID, so callers of the public API cannot ask for a dry run.
+ */
+public final class DryRun {
+
+    /** Header asking for a dry run. */
+    public static final String HEADER = "X-Synthetic-Dry-Run";
+
+    /** A condition expression that never holds, so a write with it is evaluated but never applied. */
+    public static final String NEVER = "attribute_exists(PK) AND attribute_not_exists(PK)";
+
+    private DryRun() {}
+
+    /**
+     * @param event The request.
+     * @return Whether the request is a dry run.
+     */
+    public static boolean isDryRun(APIGatewayProxyRequestEvent event) {
+        Map<String, String> headers = event.getHeaders();
+        if (headers == null || !"true".equals(headers.get(HEADER))) {
+            return false;
+        }
+        return event.getRequestContext() == null || event.getRequestContext().getApiId() == null;
+    }
+}
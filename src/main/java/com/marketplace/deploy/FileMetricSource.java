@@ -0,0 +1,49 @@
+package com.marketplace.deploy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * {@link MetricSource} reading fixed metrics from a JSON file, for LocalStack and SAM local where no
+ * Lambda metrics exist. The file maps logical IDs to
+ * {@code {"invocations": 120, "errors": 0, "throttles": 0, "p99Millis": 85.0}}; the window is ignored.
+ */
+public class FileMetricSource implements MetricSource {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+
+    /**
+     * @param file The JSON file, read on every fetch so it can be edited between deployments.
+     */
+    public FileMetricSource(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public CanaryMetrics fetch(LambdaDeploymentTarget target, Instant start, Instant end) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(file.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (target.isFunction(entry.getKey())) {
+                JsonNode metrics = entry.getValue();
+                return new CanaryMetrics(metrics.path("invocations").asLong(), metrics.path("errors").asLong(),
+                        metrics.path("throttles").asLong(), metrics.path("p99Millis").asDouble());
+            }
+        }
+        return new CanaryMetrics(0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.marketplace.deploy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.lambda.model.LogType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link LambdaInvoker} backed by the Lambda {@code Invoke} API.
+ * The duration is read from the {@code REPORT} line of the log tail rather than timed here,
+ * so it excludes the network and the Invoke API itself.
+ */
+public class LambdaClientInvoker implements LambdaInvoker {
+
+    // "Duration" is the first field after the request ID; "Billed Duration" and "Init Duration" follow it
+    private static final Pattern DURATION = Pattern.compile("REPORT RequestId: \\S+\\s+Duration: ([0-9.]+) ms");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LambdaClient lambdaClient;
+
+    /**
+     * @param lambdaClient The Lambda client.
+     */
+    public LambdaClientInvoker(LambdaClient lambdaClient) {
+        this.lambdaClient = lambdaClient;
+    }
+
+    @Override
+    public Invocation invoke(String functionName, String qualifier, String payload) {
+        InvokeResponse response = lambdaClient.invoke(InvokeRequest.builder()
+                .functionName(functionName)
+                .qualifier(qualifier)
+                .logType(LogType.TAIL)
+                .payload(SdkBytes.fromUtf8String(payload))
+                .build());
+
+        String log = response.logResult() != null
+                ? new String(Base64.getDecoder().decode(response.logResult()), StandardCharsets.UTF_8)
+                : "";
+        Matcher duration = DURATION.matcher(log);
+        if (!duration.find()) {
+            throw new IllegalStateException("No REPORT line in the log of " + functionName + ":" + qualifier);
+        }
+        // SnapStart versions report a restore instead of an init
+        boolean coldStart = log.contains("Init Duration") || log.contains("Restore Duration");
+        int statusCode = response.functionError() != null ? -1 : statusCode(response.payload());
+        return new Invocation(statusCode, Double.parseDouble(duration.group(1)), coldStart);
+    }
+
+    private static int statusCode(SdkBytes payload) {
+        try {
+            JsonNode statusCode = MAPPER.readTree(payload.asUtf8String()).get("statusCode");
+            return statusCode != null ? statusCode.asInt(-1) : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.marketplace.deploy;
+
+import software.amazon.awssdk.services.codedeploy.CodeDeployClient;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentTargetRequest;
+import software.amazon.awssdk.services.codedeploy.model.LambdaFunctionInfo;
+import software.amazon.awssdk.services.codedeploy.model.LambdaTarget;
+import software.amazon.awssdk.services.codedeploy.model.ListDeploymentTargetsRequest;
+
+import java.util.List;
+
+/**
+ * The function, alias and versions a CodeDeploy Lambda deployment shifts traffic between.
+ * The hook event only carries the deployment ID, so both hooks look the target up.
+ */
+public final class LambdaDeploymentTarget {
+
+    private final String functionName;
+    private final String alias;
+    private final String currentVersion;
+    private final String targetVersion;
+
+    /**
+     * @param functionName   The function name.
+     * @param alias          The alias being shifted, e.g. {@code live}.
+     * @param currentVersion The version the alias points to before the deployment.
+     * @param targetVersion  The version being deployed.
+     */
+    public LambdaDeploymentTarget(String functionName, String alias, String currentVersion, String targetVersion) {
+        this.functionName = functionName;
+        this.alias = alias;
+        this.currentVersion = currentVersion;
+        this.targetVersion = targetVersion;
+    }
+
+    /**
+     * Looks up the Lambda target of a deployment.
+     *
+     * @param codeDeployClient The CodeDeploy client.
+     * @param deploymentId     The deployment ID from the hook event.
+     * @return The deployment target.
+     * @throws IllegalStateException If the deployment has no Lambda target.
+     */
+    public static LambdaDeploymentTarget resolve(CodeDeployClient codeDeployClient, String deploymentId) {
+        // SAM creates one deployment group per function, so a deployment has exactly one target
+        List<String> targetIds = codeDeployClient.listDeploymentTargets(ListDeploymentTargetsRequest.builder()
+                .deploymentId(deploymentId)
+                .build()).targetIds();
+        if (targetIds.isEmpty()) {
+            throw new IllegalStateException("Deployment " + deploymentId + " has no targets");
+        }
+        LambdaTarget target = codeDeployClient.getDeploymentTarget(GetDeploymentTargetRequest.builder()
+                .deploymentId(deploymentId)
+                .targetId(targetIds.get(0))
+                .build()).deploymentTarget().lambdaTarget();
+        if (target == null || target.lambdaFunctionInfo() == null) {
+            throw new IllegalStateException("Deployment " + deploymentId + " is not a Lambda deployment");
+        }
+        LambdaFunctionInfo info = target.lambdaFunctionInfo();
+        return new LambdaDeploymentTarget(info.functionName(), info.functionAlias(),
+                info.currentVersion(), info.targetVersion());
+    }
+
+    /**
+     * Checks whether this is the function of a template resource. SAM names functions
+     * {@code <stack>-<LogicalId>-<suffix>}, so per-function settings are keyed by logical ID.
+     *
+     * @param logicalId The logical ID in template.yaml, e.g. {@code CreateOrderFunction}.
+     * @return Whether the function was created from that resource.
+     */
+    public boolean isFunction(String logicalId) {
+        return functionName.equals(logicalId) || functionName.contains("-" + logicalId + "-");
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public String getTargetVersion() {
+        return targetVersion;
+    }
+
+    @Override
+    public String toString() {
+        return functionName + ":" + alias + " " + currentVersion + " -> " + targetVersion;
+    }
+}
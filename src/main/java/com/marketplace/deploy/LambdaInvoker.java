@@ -0,0 +1,51 @@
+package com.marketplace.deploy;
+
+/**
+ * Invokes one version of a Lambda function synchronously. The deployment hooks use it to send
+ * synthetic requests to a new version before it receives traffic; tests use an in-process stand-in.
+ */
+@FunctionalInterface
+public interface LambdaInvoker {
+
+    /**
+     * Invokes a function version with a payload.
+     *
+     * @param functionName The function name.
+     * @param qualifier    The version or alias to invoke.
+     * @param payload      The JSON event.
+     * @return The outcome and duration of the invocation.
+     */
+    Invocation invoke(String functionName, String qualifier, String payload);
+
+    /**
+     * The outcome of one invocation.
+     */
+    final class Invocation {
+        private final int statusCode;
+        private final double durationMillis;
+        private final boolean coldStart;
+
+        /**
+         * @param statusCode     The {@code statusCode} of the API Gateway response, or -1 if the function failed.
+         * @param durationMillis The duration of the invocation as reported by Lambda, excluding initialization.
+         * @param coldStart      Whether the invocation initialized a new execution environment.
+         */
+        public Invocation(int statusCode, double durationMillis, boolean coldStart) {
+            this.statusCode = statusCode;
+            this.durationMillis = durationMillis;
+            this.coldStart = coldStart;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public double getDurationMillis() {
+            return durationMillis;
+        }
+
+        public boolean isColdStart() {
+            return coldStart;
+        }
+    }
+}
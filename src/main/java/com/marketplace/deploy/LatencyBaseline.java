@@ -0,0 +1,46 @@
+package com.marketplace.deploy;
+
+/**
+ * Warm latency percentiles of one function version under the synthetic request suite.
+ */
+public final class LatencyBaseline {
+
+    private final String version;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final int samples;
+
+    /**
+     * @param version   The function version measured.
+     * @param p50Millis The median duration.
+     * @param p99Millis The 99th percentile duration.
+     * @param samples   The number of warm invocations measured.
+     */
+    public LatencyBaseline(String version, double p50Millis, double p99Millis, int samples) {
+        this.version = version;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.samples = samples;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("version %s p50 %.1f ms p99 %.1f ms (%d samples)", version, p50Millis, p99Millis, samples);
+    }
+}
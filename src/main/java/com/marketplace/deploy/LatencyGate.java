@@ -0,0 +1,115 @@
+package com.marketplace.deploy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures the warm latency of a function version with a synthetic request suite and checks it
+ * against a baseline. A version regresses when its p50 or p99 exceeds the baseline by more than the
+ * relative budget plus a fixed tolerance; the tolerance keeps millisecond-scale noise on fast
+ * functions from failing deployments.
+ */
+public class LatencyGate {
+
+    private final LambdaInvoker invoker;
+    private final int warmupInvocations;
+    private final int measuredInvocations;
+    private final double regressionBudget;
+    private final double toleranceMillis;
+
+    /**
+     * @param invoker             Invokes the function versions.
+     * @param warmupInvocations   Invocations sent before measuring, to initialize the execution environment.
+     * @param measuredInvocations Invocations measured, cycling through the suite.
+     * @param regressionBudget    The allowed relative increase, e.g. 0.2 for 20%.
+     * @param toleranceMillis     The allowed absolute increase on top of the budget.
+     */
+    public LatencyGate(LambdaInvoker invoker, int warmupInvocations, int measuredInvocations,
+                       double regressionBudget, double toleranceMillis) {
+        this.invoker = invoker;
+        this.warmupInvocations = warmupInvocations;
+        this.measuredInvocations = measuredInvocations;
+        this.regressionBudget = regressionBudget;
+        this.toleranceMillis = toleranceMillis;
+    }
+
+    /**
+     * Creates a gate configured by SYNTHETIC_WARMUP_INVOCATIONS (default 5), SYNTHETIC_INVOCATIONS
+     * (default 40), LATENCY_REGRESSION_BUDGET (default 0.2) and LATENCY_REGRESSION_TOLERANCE_MS (default 5).
+     *
+     * @param invoker Invokes the function versions.
+     * @return The gate.
+     */
+    public static LatencyGate fromEnvironment(LambdaInvoker invoker) {
+        return new LatencyGate(invoker,
+                Integer.parseInt(env("SYNTHETIC_WARMUP_INVOCATIONS", "5")),
+                Integer.parseInt(env("SYNTHETIC_INVOCATIONS", "40")),
+                Double.parseDouble(env("LATENCY_REGRESSION_BUDGET", "0.2")),
+                Double.parseDouble(env("LATENCY_REGRESSION_TOLERANCE_MS", "5")));
+    }
+
+    /**
+     * Sends the suite to a function version and measures its warm latency. Cold starts are
+     * excluded, so a version that keeps initializing new environments is not judged on its init time.
+     *
+     * @param functionName The function name.
+     * @param version      The version to invoke.
+     * @param suite        The synthetic requests.
+     * @return The measured percentiles.
+     * @throws IllegalStateException If a request returns an unexpected status or no warm invocation was measured.
+     */
+    public LatencyBaseline measure(String functionName, String version, List<SyntheticRequests.Request> suite) {
+        List<Double> durations = new ArrayList<>(measuredInvocations);
+        for (int i = 0; i < warmupInvocations + measuredInvocations; i++) {
+            SyntheticRequests.Request request = suite.get(i % suite.size());
+            LambdaInvoker.Invocation invocation = invoker.invoke(functionName, version, request.getPayload());
+            if (invocation.getStatusCode() != request.getExpectedStatus()) {
+                throw new IllegalStateException(String.format("Version %s returned %d for '%s', expected %d",
+                        version, invocation.getStatusCode(), request.getName(), request.getExpectedStatus()));
+            }
+            if (i >= warmupInvocations && !invocation.isColdStart()) {
+                durations.add(invocation.getDurationMillis());
+            }
+        }
+        if (durations.isEmpty()) {
+            throw new IllegalStateException("No warm invocation of version " + version + " was measured");
+        }
+        Collections.sort(durations);
+        return new LatencyBaseline(version, percentile(durations, 50), percentile(durations, 99), durations.size());
+    }
+
+    /**
+     * Compares a candidate version with the baseline.
+     *
+     * @param candidate The new version.
+     * @param baseline  The version currently serving traffic.
+     * @return A description of the regression, or null if the candidate is within budget.
+     */
+    public String regression(LatencyBaseline candidate, LatencyBaseline baseline) {
+        List<String> breaches = new ArrayList<>();
+        check("p50", candidate.getP50Millis(), baseline.getP50Millis(), breaches);
+        check("p99", candidate.getP99Millis(), baseline.getP99Millis(), breaches);
+        return breaches.isEmpty() ? null : String.join(", ", breaches);
+    }
+
+    private void check(String name, double candidate, double baseline, List<String> breaches) {
+        double allowed = baseline * (1 + regressionBudget) + toleranceMillis;
+        if (candidate > allowed) {
+            breaches.add(String.format("%s %.1f ms exceeds %.1f ms (baseline %.1f ms)", name, candidate, allowed, baseline));
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static double percentile(List<Double> sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
@@ -0,0 +1,21 @@
+package com.marketplace.deploy;
+
+import java.time.Instant;
+
+/**
+ * Supplies the metrics of a deployment's new version for the post-traffic SLO check.
+ * CloudWatch in AWS; a JSON file when running against LocalStack, which has no Lambda metrics.
+ */
+@FunctionalInterface
+public interface MetricSource {
+
+    /**
+     * Reads the metrics of the target version behind the deployment's alias.
+     *
+     * @param target The deployment target.
+     * @param start  The start of the canary window.
+     * @param end    The end of the canary window.
+     * @return The metrics of the window.
+     */
+    CanaryMetrics fetch(LambdaDeploymentTarget target, Instant start, Instant end);
+}
@@ -0,0 +1,126 @@
+package com.marketplace.deploy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The performance SLOs the post-traffic hook enforces, keyed by the function's logical ID in
+ * template.yaml. They are read from {@code deploy/slo.json} on the classpath.
+ */
+public final class ServiceLevelObjectives {
+
+    static final String RESOURCE = "/deploy/slo.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, Slo> objectives;
+
+    /**
+     * @param objectives The SLOs keyed by logical ID.
+     */
+    public ServiceLevelObjectives(Map<String, Slo> objectives) {
+        this.objectives = objectives;
+    }
+
+    /**
+     * Loads the SLOs from the classpath.
+     *
+     * @return The SLOs.
+     * @throws UncheckedIOException If the resource is missing or malformed.
+     */
+    public static ServiceLevelObjectives load() {
+        try (InputStream in = ServiceLevelObjectives.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException(RESOURCE + " not found");
+            }
+            Map<String, Slo> objectives = new HashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = MAPPER.readTree(in).fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                JsonNode slo = entry.getValue();
+                objectives.put(entry.getKey(), new Slo(slo.path("maxP99Millis").asDouble(),
+                        slo.path("maxErrorRate").asDouble(), slo.path("maxThrottles").asLong(),
+                        slo.path("minInvocations").asLong()));
+            }
+            return new ServiceLevelObjectives(objectives);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Returns the SLO of a deployment target.
+     *
+     * @param target The deployment target.
+     * @return The SLO, or empty if the function has none.
+     */
+    public Optional<Slo> forTarget(LambdaDeploymentTarget target) {
+        for (Map.Entry<String, Slo> entry : objectives.entrySet()) {
+            if (target.isFunction(entry.getKey())) {
+                return Optional.of(entry.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Thresholds for one function.
+     */
+    public static final class Slo {
+        private final double maxP99Millis;
+        private final double maxErrorRate;
+        private final long maxThrottles;
+        private final long minInvocations;
+
+        /**
+         * @param maxP99Millis   The highest acceptable p99 duration.
+         * @param maxErrorRate   The highest acceptable share of failed invocations, e.g. 0.01.
+         * @param maxThrottles   The highest acceptable number of throttles in the window.
+         * @param minInvocations The invocations needed before latency and error rate are judged.
+         */
+        public Slo(double maxP99Millis, double maxErrorRate, long maxThrottles, long minInvocations) {
+            this.maxP99Millis = maxP99Millis;
+            this.maxErrorRate = maxErrorRate;
+            this.maxThrottles = maxThrottles;
+            this.minInvocations = minInvocations;
+        }
+
+        /**
+         * Checks the canary metrics against the thresholds. Throttles are always judged; with fewer
+         * invocations than {@code minInvocations} one slow or failed request would decide the deployment,
+         * so latency and error rate are only judged above it.
+         *
+         * @param metrics The canary metrics.
+         * @return The breached thresholds, empty if the SLO was met.
+         */
+        public List<String> breaches(CanaryMetrics metrics) {
+            List<String> breaches = new ArrayList<>();
+            if (metrics.getThrottles() > maxThrottles) {
+                breaches.add(String.format("%d throttles (max %d)", metrics.getThrottles(), maxThrottles));
+            }
+            if (metrics.getInvocations() < minInvocations) {
+                return breaches;
+            }
+            if (metrics.getP99Millis() > maxP99Millis) {
+                breaches.add(String.format("p99 %.1f ms (max %.1f)", metrics.getP99Millis(), maxP99Millis));
+            }
+            if (metrics.getErrorRate() > maxErrorRate) {
+                breaches.add(String.format("error rate %.2f%% (max %.2f%%)", metrics.getErrorRate() * 100, maxErrorRate * 100));
+            }
+            return breaches;
+        }
+
+        public long getMinInvocations() {
+            return minInvocations;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.marketplace.deploy;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The synthetic request suites the pre-traffic hook sends to a new version, keyed by the function's
+ * logical ID in template.yaml. They are read from {@code deploy/synthetic-requests.json} on the classpath.
+ *
+ * <p>Each request names the status it must return. The suites run against the production table, so
+ * they only use requests without side effects: rejected input, and {@link DryRun dry runs} that go
+ * through the whole write path, so a slower write fails the latency gate, but commit nothing.
+ */
+public final class SyntheticRequests {
+
+    static final String RESOURCE = "/deploy/synthetic-requests.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, List<Request>> suites;
+
+    /**
+     * @param suites The requests keyed by logical ID.
+     */
+    public SyntheticRequests(Map<String, List<Request>> suites) {
+        this.suites = suites;
+    }
+
+    /**
+     * Loads the suites from the classpath.
+     *
+     * @return The suites.
+     * @throws UncheckedIOException If the resource is missing or malformed.
+     */
+    public static SyntheticRequests load() {
+        try (InputStream in = SyntheticRequests.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException(RESOURCE + " not found");
+            }
+            Map<String, List<JsonNode>> raw = MAPPER.readValue(in, new TypeReference<Map<String, List<JsonNode>>>() {});
+            Map<String, List<Request>> suites = new HashMap<>();
+            for (Map.Entry<String, List<JsonNode>> suite : raw.entrySet()) {
+                List<Request> requests = new ArrayList<>();
+                for (JsonNode request : suite.getValue()) {
+                    requests.add(new Request(request.path("name").asText(), request.path("expectedStatus").asInt(),
+                            MAPPER.writeValueAsString(request.path("event"))));
+                }
+                suites.put(suite.getKey(), requests);
+            }
+            return new SyntheticRequests(suites);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Returns the suite of a deployment target.
+     *
+     * @param target The deployment target.
+     * @return The requests, or an empty list if the function has no suite.
+     */
+    public List<Request> forTarget(LambdaDeploymentTarget target) {
+        for (Map.Entry<String, List<Request>> suite : suites.entrySet()) {
+            if (target.isFunction(suite.getKey())) {
+                return suite.getValue();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * One synthetic API Gateway request.
+     */
+    public static final class Request {
+        private final String name;
+        private final int expectedStatus;
+        private final String payload;
+
+        /**
+         * @param name           A label for logs.
+         * @param expectedStatus The status the function must return.
+         * @param payload        The API Gateway proxy event as JSON.
+         */
+        public Request(String name, int expectedStatus, String payload) {
+            this.name = name;
+            this.expectedStatus = expectedStatus;
+            this.payload = payload;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getExpectedStatus() {
+            return expectedStatus;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.marketplace.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.marketplace.utils.JsonCodec;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The JSON codec shared by all handlers, with hand-written serializers for {@link Product} and {@link Order}.
+ * Field names and order match the bean serialization the handlers used before, so cached and stored
+ * JSON stays compatible. Unknown properties still fail the read, as with the default {@code ObjectMapper}.
+ */
+public final class MarketplaceJson {
+
+    /** Codec shared by every handler in the function. */
+    public static final JsonCodec CODEC = new JsonCodec(module());
+
+    /** Declared type of product list responses, so they share one cached writer. */
+    public static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {};
+
+    /** Declared type of order list responses, so they share one cached writer. */
+    public static final TypeReference<List<Order>> ORDER_LIST = new TypeReference<>() {};
+
+    private MarketplaceJson() {}
+
+    /**
+     * Returns a module with the model serializers, for callers that need their own {@code ObjectMapper}.
+     *
+     * @return The module.
+     */
+    public static SimpleModule module() {
+        return new SimpleModule("MarketplaceModel")
+                .addSerializer(Product.class, new ProductSerializer())
+                .addDeserializer(Product.class, new ProductDeserializer())
+                .addSerializer(Order.class, new OrderSerializer())
+                .addDeserializer(Order.class, new OrderDeserializer());
+    }
+
+    /**
+     * Writes a {@link Product}.
+     */
+    static final class ProductSerializer extends StdSerializer<Product> {
+        // Pre-encoded names, as the bean serializer uses
+        private static final SerializableString ID = new SerializedString("id");
+        private static final SerializableString NAME = new SerializedString("name");
+        private static final SerializableString PRICE = new SerializedString("price");
+        private static final SerializableString CATEGORY = new SerializedString("category");
+        private static final SerializableString VERSION = new SerializedString("version");
+        private static final SerializableString STOCK_QUANTITY = new SerializedString("stockQuantity");
+        private static final SerializableString SUPPLIER_EMAIL = new SerializedString("supplierEmail");
+
+        ProductSerializer() {
+            super(Product.class);
+        }
+
+        @Override
+        public void serialize(Product product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(product);
+            gen.writeFieldName(ID);
+            gen.writeString(product.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(product.getName());
+            gen.writeFieldName(PRICE);
+            gen.writeNumber(product.getPrice());
+            gen.writeFieldName(CATEGORY);
+            gen.writeString(product.getCategory());
+            gen.writeFieldName(VERSION);
+            if (product.getVersion() != null) {
+                gen.writeNumber(product.getVersion());
+            } else {
+                gen.writeNull();
+            }
+            gen.writeFieldName(STOCK_QUANTITY);
+            gen.writeNumber(product.getStockQuantity());
+            gen.writeFieldName(SUPPLIER_EMAIL);
+            gen.writeString(product.getSupplierEmail());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads a {@link Product}.
+     */
+    static final class ProductDeserializer extends StdDeserializer<Product> {
+        ProductDeserializer() {
+            super(Product.class);
+        }
+
+        @Override
+        public Product deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Product product = new Product();
+            for (String field = firstField(p, ctxt, Product.class); field != null; field = p.nextFieldName()) {
+                JsonToken token = p.nextToken();
+                switch (field) {
+                    case "id": product.setId(text(p, ctxt)); break;
+                    case "name": product.setName(text(p, ctxt)); break;
+                    case "price": product.setPrice(number(p, ctxt).doubleValue()); break;
+                    case "category": product.setCategory(text(p, ctxt)); break;
+                    case "version":
+                        product.setVersion(token == JsonToken.VALUE_NULL ? null : intNumber(p, ctxt));
+                        break;
+                    case "stockQuantity": product.setStockQuantity(intNumber(p, ctxt)); break;
+                    case "supplierEmail": product.setSupplierEmail(text(p, ctxt)); break;
+                    default: ctxt.handleUnknownProperty(p, this, Product.class, field);
+                }
+            }
+            return product;
+        }
+    }
+
+    /**
+     * Writes an {@link Order}.
+     */
+    static final class OrderSerializer extends StdSerializer<Order> {
+        private static final SerializableString ORDER_ID = new SerializedString("orderId");
+        private static final SerializableString PRODUCT_ID = new SerializedString("productId");
+        private static final SerializableString USER_ID = new SerializedString("userId");
+        private static final SerializableString QUANTITY = new SerializedString("quantity");
+        private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+
+        OrderSerializer() {
+            super(Order.class);
+        }
+
+        @Override
+        public void serialize(Order order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(order);
+            gen.writeFieldName(ORDER_ID);
+            gen.writeString(order.getOrderId());
+            gen.writeFieldName(PRODUCT_ID);
+            gen.writeString(order.getProductId());
+            gen.writeFieldName(USER_ID);
+            gen.writeString(order.getUserId());
+            gen.writeFieldName(QUANTITY);
+            gen.writeNumber(order.getQuantity());
+            gen.writeFieldName(TIMESTAMP);
+            gen.writeNumber(order.getTimestamp());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads an {@link Order}.
+     */
+    static final class OrderDeserializer extends StdDeserializer<Order> {
+        OrderDeserializer() {
+            super(Order.class);
+        }
+
+        @Override
+        public Order deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Order order = new Order();
+            for (String field = firstField(p, ctxt, Order.class); field != null; field = p.nextFieldName()) {
+                p.nextToken();
+                switch (field) {
+                    case "orderId": order.setOrderId(text(p, ctxt)); break;
+                    case "productId": order.setProductId(text(p, ctxt)); break;
+                    case "userId": order.setUserId(text(p, ctxt)); break;
+                    case "quantity": order.setQuantity(intNumber(p, ctxt)); break;
+                    case "timestamp": order.setTimestamp(longNumber(p, ctxt)); break;
+                    default: ctxt.handleUnknownProperty(p, this, Order.class, field);
+                }
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Returns the first field name of the object being read, or null if it is empty.
+     */
+    private static String firstField(JsonParser p, DeserializationContext ctxt, Class<?> type) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            return p.nextFieldName();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            return p.currentName();
+        }
+        if (token != JsonToken.END_OBJECT) {
+            ctxt.handleUnexpectedToken(type, p);
+        }
+        return null;
+    }
+
+    /**
+     * Reads a string field; numbers and booleans are accepted as their text, like the bean deserializer does.
+     */
+    private static String text(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            return (String) ctxt.handleUnexpectedToken(String.class, p);
+        }
+        return p.getText();
+    }
+
+    /**
+     * Reads a numeric field; numeric strings are accepted and null reads as zero, like the bean deserializer does.
+     */
+    private static BigDecimal number(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return BigDecimal.ZERO;
+        }
+        if (token.isNumeric()) {
+            return p.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return new BigDecimal(p.getText().trim());
+            } catch (NumberFormatException e) {
+                return (BigDecimal) ctxt.handleWeirdStringValue(BigDecimal.class, p.getText(), "not a valid number");
+            }
+        }
+        return (BigDecimal) ctxt.handleUnexpectedToken(BigDecimal.class, p);
+    }
+
+    /**
+     * Reads an int field, rejecting fractions and values outside the int range instead of truncating them.
+     */
+    private static int intNumber(JsonParser p, DeserializationContext ctxt) throws IOException {
+        BigDecimal value = number(p, ctxt);
+        try {
+            return value.intValueExact();
+        } catch (ArithmeticException e) {
+            return (Integer) ctxt.handleWeirdNumberValue(Integer.class, value, "not a whole number in the int range");
+        }
+    }
+
+    /**
+     * Reads a long field, rejecting fractions and values outside the long range instead of truncating them.
+     */
+    private static long longNumber(JsonParser p, DeserializationContext ctxt) throws IOException {
+        BigDecimal value = number(p, ctxt);
+        try {
+            return value.longValueExact();
+        } catch (ArithmeticException e) {
+            return (Long) ctxt.handleWeirdNumberValue(Long.class, value, "not a whole number in the long range");
+        }
+    }
+}
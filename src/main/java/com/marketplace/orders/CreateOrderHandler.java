@@ -4,36 +4,53 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.model.MarketplaceJson;
 import com.marketplace.model.Order;
 import com.marketplace.model.Product;
-import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import com.amazonaws.xray.interceptors.TracingInterceptor;
 import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.core.retry.backoff.BackoffStrategy;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.cache.SalesRanking;
+import com.marketplace.deploy.DryRun;
 import com.marketplace.utils.ClientUtils;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import org.crac.Core;
+import org.crac.Resource;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Lambda handler for placing an order with optimistic locking.
  */
-public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    // Registry profile of the DynamoDB client with the order retry policy
+    private static final String ORDER_CLIENT_PROFILE = "order-writes";
 
     private final DynamoDbClient dynamoDbClient;
     private final String tableName;
-    private final ObjectMapper objectMapper;
+    private final JsonCodec jsonCodec;
+    private final Supplier<JedisPool> jedisPool;
 
     /**
      * Initializes the DynamoDB client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public CreateOrderHandler() {
         this(null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -43,20 +60,62 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
      * @param tableName      The DynamoDB table name.
      */
     CreateOrderHandler(DynamoDbClient dynamoDbClient, String tableName) {
-        ClientOverrideConfiguration clientConfig = ClientUtils.getXRayConfig().toBuilder()
-                .retryPolicy(RetryPolicy.builder()
-                        .numRetries(3)
-                        .backoffStrategy(BackoffStrategy.defaultStrategy())
-                        .build())
-                .build();
-        
-        this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient : 
-                ClientUtils.configureEndpoint(DynamoDbClient.builder())
-                .overrideConfiguration(clientConfig)
-                .build();
+        this(dynamoDbClient, tableName, RedisConnections::getPool);
+    }
+
+    /**
+     * Constructor for dependency injection of the Redis pool the sales rankings are kept in.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param tableName      The DynamoDB table name.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     */
+    CreateOrderHandler(DynamoDbClient dynamoDbClient, String tableName, Supplier<JedisPool> jedisPool) {
+        this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient :
+                ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder, ORDER_CLIENT_PROFILE,
+                        () -> ClientUtils.getXRayConfig().toBuilder()
+                                .retryPolicy(RetryPolicy.builder()
+                                        .numRetries(3)
+                                        .backoffStrategy(BackoffStrategy.defaultStrategy())
+                                        .build())
+                                .build());
         
         this.tableName = tableName != null ? tableName : System.getenv("TABLE_NAME");
-        this.objectMapper = new ObjectMapper();
+        this.jsonCodec = MarketplaceJson.CODEC;
+        this.jedisPool = jedisPool;
+    }
+
+    /**
+     * Primes Jackson, the SDK request pipeline and the hot-path classes before the SnapStart snapshot,
+     * and drops Redis connections that would not survive it.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.preloadClasses(
+                "software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse",
+                "software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException",
+                "software.amazon.awssdk.services.dynamodb.model.CancellationReason");
+        Priming.run(() -> dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "PK", AttributeValue.builder().s("PROD#priming").build(),
+                        "SK", AttributeValue.builder().s("METADATA").build()))
+                .build()));
+        RedisConnections.close();
+    }
+
+    /**
+     * Re-opens Redis and refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
+        RedisConnections.reconnect();
     }
 
     /**
@@ -69,6 +128,14 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "POST /orders"),
+                () -> createOrder(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Places an order.
+     */
+    private APIGatewayProxyResponseEvent createOrder(APIGatewayProxyRequestEvent input, Context context) {
         try {
             // Retrieve userId from Lambda Authorizer context
             Map<String, Object> authorizerContext = input.getRequestContext().getAuthorizer();
@@ -78,18 +145,18 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
                 userId = "test-user-123"; // Final fallback
             }
 
-            Order orderRequest = objectMapper.readValue(input.getBody(), Order.class);
+            Order orderRequest = jsonCodec.read(input.getBody(), Order.class);
             
             // Validate input
             if (orderRequest.getProductId() == null || orderRequest.getProductId().trim().isEmpty()) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(400)
-                        .withBody("{\"error\": \"Product ID is required\"}");
+                        .withBody(JsonCodec.errorBody("Product ID is required"));
             }
             if (orderRequest.getQuantity() <= 0) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(400)
-                        .withBody("{\"error\": \"Quantity must be greater than zero\"}");
+                        .withBody(JsonCodec.errorBody("Quantity must be greater than zero"));
             }
 
             orderRequest.setUserId(userId);
@@ -104,20 +171,23 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
                     .key(productKey)
                     .build());
 
-            if (!productResponse.hasItem()) {
+            // A dry run goes on to the transaction without a product; it cannot commit either way
+            boolean dryRun = DryRun.isDryRun(input);
+            if (!productResponse.hasItem() && !dryRun) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(404)
-                        .withBody("{\"error\": \"Product not found\"}");
+                        .withBody(JsonCodec.errorBody("Product not found"));
             }
 
-            Map<String, AttributeValue> productItem = productResponse.item();
+            Map<String, AttributeValue> productItem = productResponse.hasItem()
+                    ? productResponse.item() : dryRunProduct(orderRequest.getQuantity());
             int currentStock = Integer.parseInt(productItem.get("stockQuantity").n());
             int currentVersion = Integer.parseInt(productItem.get("version").n());
 
             if (currentStock < orderRequest.getQuantity()) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(400)
-                        .withBody("{\"error\": \"Insufficient stock\"}");
+                        .withBody(JsonCodec.errorBody("Insufficient stock"));
             }
 
             // 2. Prepare Transaction
@@ -154,32 +224,106 @@ public class CreateOrderHandler implements RequestHandler<APIGatewayProxyRequest
                     .item(orderItem)
                     .build();
 
+            List<TransactWriteItem> items = new ArrayList<>();
+            items.add(TransactWriteItem.builder().update(productUpdate).build());
+            items.add(TransactWriteItem.builder().put(orderPut).build());
+            if (dryRun) {
+                items.add(TransactWriteItem.builder().conditionCheck(ConditionCheck.builder()
+                        .tableName(tableName)
+                        .key(Map.of(
+                                "PK", AttributeValue.builder().s("DRYRUN").build(),
+                                "SK", AttributeValue.builder().s("DRYRUN").build()))
+                        .conditionExpression(DryRun.NEVER)
+                        .build()).build());
+            }
             TransactWriteItemsRequest transaction = TransactWriteItemsRequest.builder()
-                    .transactItems(
-                            TransactWriteItem.builder().update(productUpdate).build(),
-                            TransactWriteItem.builder().put(orderPut).build()
-                    )
+                    .transactItems(items)
                     .build();
 
+            if (dryRun) {
+                return dryRunOrder(transaction, orderRequest, orderId, timestamp);
+            }
+
             dynamoDbClient.transactWriteItems(transaction);
 
+            AttributeValue category = productItem.get("category");
+            recordSale(orderRequest, category != null ? category.s() : null, context);
+
             orderRequest.setOrderId(orderId);
             orderRequest.setTimestamp(timestamp);
 
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(201)
-                    .withBody(objectMapper.writeValueAsString(orderRequest));
+                    .withBody(jsonCodec.write(orderRequest));
 
         } catch (TransactionCanceledException e) {
             context.getLogger().log("Transaction cancelled: " + e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(409) // Conflict
-                    .withBody("{\"error\": \"Concurrent update or insufficient stock\"}");
+                    .withBody(JsonCodec.errorBody("Concurrent update or insufficient stock"));
         } catch (Exception e) {
             context.getLogger().log("Error creating order: " + e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not process order\"}");
+                    .withBody(JsonCodec.errorBody("Could not process order"));
+        }
+    }
+
+    /**
+     * Sends a dry run's transaction, which its never-holding condition check cancels, and returns the
+     * order it would have placed. The sales rankings are not touched.
+     *
+     * @param transaction The order transaction with the dry run's condition check.
+     * @param order       The requested order.
+     * @param orderId     The order ID it would have had.
+     * @param timestamp   The order time.
+     * @return The 200 response.
+     * @throws Exception If the order cannot be serialized.
+     */
+    private APIGatewayProxyResponseEvent dryRunOrder(TransactWriteItemsRequest transaction, Order order,
+                                                     String orderId, long timestamp) throws Exception {
+        try {
+            dynamoDbClient.transactWriteItems(transaction);
+            throw new IllegalStateException("Dry-run transaction was not cancelled");
+        } catch (TransactionCanceledException e) {
+            // Expected: nothing was written
+        }
+        order.setOrderId(orderId);
+        order.setTimestamp(timestamp);
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withBody(jsonCodec.write(order));
+    }
+
+    /**
+     * Stands in for an unknown product in a dry run, with just enough stock for the order.
+     */
+    private static Map<String, AttributeValue> dryRunProduct(int quantity) {
+        return Map.of(
+                "stockQuantity", AttributeValue.builder().n(String.valueOf(quantity)).build(),
+                "version", AttributeValue.builder().n("0").build());
+    }
+
+    /**
+     * Adds the committed order to the sales rankings. This is one pipelined round trip; a Redis
+     * failure only costs the ranking this order and never fails the order itself.
+     *
+     * @param order    The committed order.
+     * @param category The product's category, or null if it has none.
+     * @param context  The Lambda execution context.
+     */
+    private void recordSale(Order order, String category, Context context) {
+        JedisPool pool = jedisPool.get();
+        if (pool == null) {
+            return;
+        }
+        try (Jedis jedis = pool.getResource()) {
+            long start = System.nanoTime();
+            SalesRanking.record(jedis, order.getProductId(), category, order.getQuantity(),
+                    System.currentTimeMillis() / 3_600_000);
+            Metrics.get().recordLatency("Redis.ZIncrBy", start);
+        } catch (Exception e) {
+            context.getLogger().log("Sales ranking update failed: " + e.getMessage());
         }
     }
 }
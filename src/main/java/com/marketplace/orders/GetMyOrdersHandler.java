@@ -4,15 +4,18 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.model.MarketplaceJson;
 import com.marketplace.model.Order;
-import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import com.amazonaws.xray.interceptors.TracingInterceptor;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import com.marketplace.utils.ClientUtils;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import org.crac.Core;
+import org.crac.Resource;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -22,17 +25,19 @@ import java.util.Map;
 /**
  * Lambda handler for retrieving orders belonging to the authenticated user.
  */
-public class GetMyOrdersHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class GetMyOrdersHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
 
     private final DynamoDbClient dynamoDbClient;
     private final String tableName;
-    private final ObjectMapper objectMapper;
+    private final JsonCodec jsonCodec;
 
     /**
      * Initializes the DynamoDB client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public GetMyOrdersHandler() {
         this(null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -42,15 +47,39 @@ public class GetMyOrdersHandler implements RequestHandler<APIGatewayProxyRequest
      * @param tableName      The DynamoDB table name.
      */
     GetMyOrdersHandler(DynamoDbClient dynamoDbClient, String tableName) {
-        ClientOverrideConfiguration xRayConfig = ClientUtils.getXRayConfig();
-        
         this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient : 
-                ClientUtils.configureEndpoint(DynamoDbClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder);
         
         this.tableName = tableName != null ? tableName : System.getenv("TABLE_NAME");
-        this.objectMapper = new ObjectMapper();
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Primes Jackson, the SDK request pipeline and the hot-path classes before the SnapStart snapshot.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.run(() -> dynamoDbClient.query(QueryRequest.builder()
+                .tableName(tableName)
+                .indexName("GSI2")
+                .keyConditionExpression("GSI_PK = :u")
+                .expressionAttributeValues(Map.of(
+                        ":u", AttributeValue.builder().s("USER#priming").build()))
+                .limit(1)
+                .build()));
+    }
+
+    /**
+     * Refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
     }
 
     /**
@@ -62,6 +91,14 @@ public class GetMyOrdersHandler implements RequestHandler<APIGatewayProxyRequest
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /orders/my-orders"),
+                () -> getMyOrders(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Lists the caller's orders.
+     */
+    private APIGatewayProxyResponseEvent getMyOrders(APIGatewayProxyRequestEvent input, Context context) {
         try {
             // Retrieve userId from Lambda Authorizer context
             Map<String, Object> authorizerContext = input.getRequestContext().getAuthorizer();
@@ -101,13 +138,13 @@ public class GetMyOrdersHandler implements RequestHandler<APIGatewayProxyRequest
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
                     .withHeaders(headers)
-                    .withBody(objectMapper.writeValueAsString(orders));
+                    .withBody(jsonCodec.write(orders, MarketplaceJson.ORDER_LIST));
 
         } catch (Exception e) {
             context.getLogger().log("Error fetching user orders: " + e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not fetch orders\"}");
+                    .withBody(JsonCodec.errorBody("Could not fetch orders"));
         }
     }
 }
@@ -0,0 +1,106 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Scheduled Lambda function that aborts multipart asset uploads which were started but never completed.
+ * Parts of an abandoned upload are billed as storage until the upload is aborted.
+ */
+public class AbandonedUploadSweeperHandler implements RequestHandler<Map<String, Object>, Integer> {
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(24);
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final Duration maxAge;
+
+    /**
+     * Initializes the S3 client and other dependencies.
+     */
+    public AbandonedUploadSweeperHandler() {
+        this(null, null, null);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Client   The S3 client.
+     * @param bucketName The S3 bucket name.
+     * @param maxAge     How long an upload may stay open before it is aborted.
+     */
+    public AbandonedUploadSweeperHandler(S3Client s3Client, String bucketName, Duration maxAge) {
+        this.s3Client = s3Client != null ? s3Client : AssetStorage.createClient();
+        this.bucketName = bucketName != null ? bucketName : System.getenv("ASSETS_BUCKET_NAME");
+        if (maxAge != null) {
+            this.maxAge = maxAge;
+        } else {
+            String maxAgeHours = System.getenv("UPLOAD_MAX_AGE_HOURS");
+            this.maxAge = maxAgeHours != null ? Duration.ofHours(Long.parseLong(maxAgeHours)) : DEFAULT_MAX_AGE;
+        }
+    }
+
+    /**
+     * Handles the scheduled event by aborting every asset upload older than the configured age.
+     *
+     * @param event   The scheduled event (unused).
+     * @param context The Lambda execution context.
+     * @return The number of aborted uploads.
+     */
+    @Override
+    public Integer handleRequest(Map<String, Object> event, Context context) {
+        return Metrics.get().measure("schedule", () -> sweep(context), aborted -> "ok");
+    }
+
+    /**
+     * Aborts the uploads page by page, logging and skipping those that cannot be aborted.
+     */
+    private Integer sweep(Context context) {
+        Instant cutoff = Instant.now().minus(maxAge);
+        int aborted = 0;
+        String keyMarker = null;
+        String uploadIdMarker = null;
+
+        ListMultipartUploadsResponse page;
+        do {
+            page = s3Client.listMultipartUploads(ListMultipartUploadsRequest.builder()
+                    .bucket(bucketName)
+                    .prefix("assets/")
+                    .keyMarker(keyMarker)
+                    .uploadIdMarker(uploadIdMarker)
+                    .build());
+
+            for (MultipartUpload upload : page.uploads()) {
+                if (upload.initiated() == null || !upload.initiated().isBefore(cutoff)) {
+                    continue;
+                }
+                try {
+                    s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(upload.key())
+                            .uploadId(upload.uploadId())
+                            .build());
+                    aborted++;
+                } catch (Exception e) {
+                    context.getLogger().log("Could not abort upload " + upload.uploadId() + ": " + e.getMessage());
+                }
+            }
+
+            keyMarker = page.nextKeyMarker();
+            uploadIdMarker = page.nextUploadIdMarker();
+        } while (Boolean.TRUE.equals(page.isTruncated()));
+
+        context.getLogger().log("Aborted " + aborted + " abandoned multipart uploads older than " + maxAge);
+        return aborted;
+    }
+}
@@ -0,0 +1,62 @@
+package com.marketplace.products;
+
+import com.marketplace.utils.ClientUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+
+/**
+ * Shared S3 wiring for the digital asset handlers.
+ * Keeps the object key layout and the LocalStack path-style setup in one place.
+ */
+final class AssetStorage {
+
+    private AssetStorage() {}
+
+    /**
+     * Returns the S3 object key of the downloadable asset for a product.
+     *
+     * @param productId The product ID.
+     * @return The object key, e.g. {@code assets/<id>/item.zip}.
+     */
+    static String assetKey(String productId) {
+        return "assets/" + productId + "/item.zip";
+    }
+
+    /**
+     * Builds an S3 presigner, forcing path-style access when a custom endpoint is configured.
+     *
+     * @return A new S3 presigner.
+     */
+    static S3Presigner createPresigner() {
+        S3Presigner.Builder builder = S3Presigner.builder()
+                .region(ClientUtils.getRegion())
+                .credentialsProvider(ClientUtils.getCredentialsProvider());
+        String endpoint = System.getenv("AWS_ENDPOINT_URL");
+        if (endpoint != null && !endpoint.isEmpty()) {
+            try {
+                builder.endpointOverride(new URI(endpoint));
+                // Important for LocalStack: force path style
+                builder.serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(true)
+                        .build());
+            } catch (Exception e) {
+                // Ignore
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the shared S3 client, forcing path-style access when a custom endpoint is configured.
+     *
+     * @return The process-wide S3 client.
+     */
+    static S3Client createClient() {
+        String endpoint = System.getenv("AWS_ENDPOINT_URL");
+        boolean pathStyle = endpoint != null && !endpoint.isEmpty();
+        return ClientUtils.getClient(S3Client.class, () -> S3Client.builder().forcePathStyle(pathStyle));
+    }
+}
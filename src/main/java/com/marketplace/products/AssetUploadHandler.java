@@ -0,0 +1,272 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import com.marketplace.model.MarketplaceJson;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lambda handler for uploading large product assets with S3 multipart uploads.
+ * Clients receive one pre-signed URL per part and upload the parts in parallel,
+ * then ask the handler to complete (or abort) the upload.
+ *
+ * <ul>
+ *   <li>{@code POST /products/{id}/asset/uploads} starts an upload and returns the part URLs.</li>
+ *   <li>{@code POST /products/{id}/asset/uploads/{uploadId}/complete} assembles the uploaded parts.</li>
+ *   <li>{@code DELETE /products/{id}/asset/uploads/{uploadId}} aborts the upload.</li>
+ * </ul>
+ */
+public class AssetUploadHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+    private static final long DEFAULT_PART_SIZE = 64L * 1024 * 1024;
+    private static final Duration PART_URL_DURATION = Duration.ofHours(1);
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final String bucketName;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * Initializes the S3 client, presigner and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
+     */
+    public AssetUploadHandler() {
+        this(null, null, null);
+        Core.getGlobalContext().register(this);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Client    The S3 client.
+     * @param s3Presigner The S3 presigner.
+     * @param bucketName  The S3 bucket name.
+     */
+    public AssetUploadHandler(S3Client s3Client, S3Presigner s3Presigner, String bucketName) {
+        this.bucketName = bucketName != null ? bucketName : System.getenv("ASSETS_BUCKET_NAME");
+        this.s3Client = s3Client != null ? s3Client : AssetStorage.createClient();
+        this.s3Presigner = s3Presigner != null ? s3Presigner : AssetStorage.createPresigner();
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Primes Jackson, the S3 model classes and the part signer before the SnapStart snapshot.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.preloadClasses(
+                "software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse",
+                "software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse");
+        Priming.run(() -> s3Presigner.presignUploadPart(UploadPartPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(1))
+                .uploadPartRequest(UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(AssetStorage.assetKey("priming"))
+                        .uploadId("priming")
+                        .partNumber(1)
+                        .build())
+                .build()));
+    }
+
+    /**
+     * Refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
+    }
+
+    /**
+     * Routes the request to start, complete or abort a multipart upload.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The API Gateway proxy response event.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "POST /products/{id}/asset/uploads"),
+                () -> handleUpload(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Dispatches the upload request.
+     */
+    private APIGatewayProxyResponseEvent handleUpload(APIGatewayProxyRequestEvent input, Context context) {
+        try {
+            Map<String, String> pathParameters = input.getPathParameters();
+            String productId = pathParameters != null ? pathParameters.get("id") : null;
+            if (productId == null || productId.trim().isEmpty()) {
+                return createResponse(400, JsonCodec.errorBody("Product ID is required"));
+            }
+            String uploadId = pathParameters.get("uploadId");
+            String objectKey = AssetStorage.assetKey(productId);
+
+            if ("DELETE".equalsIgnoreCase(input.getHttpMethod()) && uploadId != null) {
+                return abortUpload(objectKey, uploadId, context);
+            }
+            if (uploadId != null) {
+                return completeUpload(objectKey, uploadId, input.getBody(), context);
+            }
+            return startUpload(objectKey, input.getBody(), context);
+
+        } catch (NoSuchUploadException e) {
+            return createResponse(404, JsonCodec.errorBody("Upload not found"));
+        } catch (Exception e) {
+            context.getLogger().log("Error handling asset upload: " + e.getMessage());
+            return createResponse(500, JsonCodec.errorBody("Could not process asset upload"));
+        }
+    }
+
+    /**
+     * Starts a multipart upload and pre-signs a URL for every part.
+     * The body may carry {@code sizeBytes} (preferred) and/or {@code partCount}.
+     */
+    private APIGatewayProxyResponseEvent startUpload(String objectKey, String body, Context context) throws Exception {
+        JsonNode request = body != null ? jsonCodec.readTree(body) : jsonCodec.createObjectNode();
+        long sizeBytes = request.path("sizeBytes").asLong(0);
+        int partCount = request.path("partCount").asInt(0);
+
+        long partSize = DEFAULT_PART_SIZE;
+        if (sizeBytes > 0) {
+            if (partCount <= 0) {
+                partCount = (int) Math.min(MAX_PARTS, Math.max(1, (sizeBytes + DEFAULT_PART_SIZE - 1) / DEFAULT_PART_SIZE));
+            }
+            partSize = Math.max(MIN_PART_SIZE, (sizeBytes + partCount - 1) / partCount);
+            partCount = (int) Math.max(1, (sizeBytes + partSize - 1) / partSize);
+        }
+        if (partCount <= 0 || partCount > MAX_PARTS) {
+            return createResponse(400, JsonCodec.errorBody("sizeBytes or a partCount between 1 and " + MAX_PARTS + " is required"));
+        }
+
+        CreateMultipartUploadResponse created = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .contentType("application/zip")
+                .build());
+        String uploadId = created.uploadId();
+
+        List<Map<String, Object>> parts = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                    .signatureDuration(PART_URL_DURATION)
+                    .uploadPartRequest(UploadPartRequest.builder()
+                            .bucket(bucketName)
+                            .key(objectKey)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .build())
+                    .build();
+            Map<String, Object> part = new LinkedHashMap<>();
+            part.put("partNumber", partNumber);
+            part.put("url", s3Presigner.presignUploadPart(presignRequest).url().toString());
+            parts.add(part);
+        }
+        context.getLogger().log("Started multipart upload " + uploadId + " for " + objectKey + " with " + partCount + " parts");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("uploadId", uploadId);
+        result.put("key", objectKey);
+        result.put("partSize", partSize);
+        result.put("parts", parts);
+        return createResponse(201, jsonCodec.write(result));
+    }
+
+    /**
+     * Completes a multipart upload from the part numbers and ETags reported by the client.
+     */
+    private APIGatewayProxyResponseEvent completeUpload(String objectKey, String uploadId, String body, Context context) throws Exception {
+        JsonNode partsNode = body != null ? jsonCodec.readTree(body).get("parts") : null;
+        if (partsNode == null || !partsNode.isArray() || partsNode.isEmpty()) {
+            return createResponse(400, JsonCodec.errorBody("parts must be a non-empty array"));
+        }
+
+        List<CompletedPart> completedParts = new ArrayList<>(partsNode.size());
+        for (JsonNode partNode : partsNode) {
+            int partNumber = partNode.path("partNumber").asInt(0);
+            String eTag = partNode.path("eTag").asText(null);
+            if (partNumber <= 0 || eTag == null || eTag.isEmpty()) {
+                return createResponse(400, JsonCodec.errorBody("Each part needs a partNumber and an eTag"));
+            }
+            completedParts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+        }
+        // S3 requires the parts in ascending order
+        completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+        CompleteMultipartUploadResponse completed = s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                .build());
+        context.getLogger().log("Completed multipart upload " + uploadId + " for " + objectKey);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("key", objectKey);
+        result.put("eTag", completed.eTag());
+        return createResponse(200, jsonCodec.write(result));
+    }
+
+    /**
+     * Aborts a multipart upload and releases the storage used by its parts.
+     */
+    private APIGatewayProxyResponseEvent abortUpload(String objectKey, String uploadId, Context context) {
+        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .uploadId(uploadId)
+                .build());
+        context.getLogger().log("Aborted multipart upload " + uploadId + " for " + objectKey);
+        return createResponse(204, null);
+    }
+
+    /**
+     * Creates an APIGatewayProxyResponseEvent with the specified status code and body.
+     *
+     * @param statusCode The HTTP status code.
+     * @param body       The response body as a JSON string.
+     * @return The configured response event.
+     */
+    private APIGatewayProxyResponseEvent createResponse(int statusCode, String body) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(body);
+    }
+}
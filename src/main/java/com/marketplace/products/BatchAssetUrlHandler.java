@@ -0,0 +1,249 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import com.marketplace.model.MarketplaceJson;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lambda handler for generating pre-signed asset URLs for many products in one call.
+ * Used by storefront grid pages instead of one {@code GET /products/{id}/asset} per product.
+ */
+public class BatchAssetUrlHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    static final int MAX_BATCH_SIZE = 100;
+    private static final int SIGNING_THREADS = 8;
+    private static final Duration SIGNATURE_DURATION = Duration.ofMinutes(15);
+    private static final long MISSING_ASSET_TTL_NANOS = Duration.ofMinutes(1).toNanos();
+
+    // Shared across warm invocations: one signing pool and one negative cache of missing assets
+    private static final ExecutorService signingExecutor = Executors.newFixedThreadPool(SIGNING_THREADS, r -> {
+        Thread thread = new Thread(r, "asset-url-signer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, Long> missingAssets = new ConcurrentHashMap<>();
+
+    private final S3Presigner s3Presigner;
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * Initializes the S3 presigner, S3 client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
+     */
+    public BatchAssetUrlHandler() {
+        this(null, null, null);
+        Core.getGlobalContext().register(this);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Presigner The S3 presigner.
+     * @param s3Client    The S3 client used for existence checks.
+     * @param bucketName  The S3 bucket name.
+     */
+    public BatchAssetUrlHandler(S3Presigner s3Presigner, S3Client s3Client, String bucketName) {
+        this.bucketName = bucketName != null ? bucketName : System.getenv("ASSETS_BUCKET_NAME");
+        this.s3Presigner = s3Presigner != null ? s3Presigner : AssetStorage.createPresigner();
+        this.s3Client = s3Client != null ? s3Client : AssetStorage.createClient();
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Primes Jackson and signs a throwaway URL before the SnapStart snapshot.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.run(() -> s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(1))
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(AssetStorage.assetKey("priming"))
+                        .build())
+                .build()));
+    }
+
+    /**
+     * Refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
+    }
+
+    /**
+     * Handles the POST request to generate pre-signed URLs for a list of product assets.
+     * Expects a body like {@code {"productIds": ["a", "b"], "checkExists": true}}.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The API Gateway proxy response event containing a map of product ID to URL.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "POST /products/assets/batch"),
+                () -> presignBatch(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Signs the requested asset URLs.
+     */
+    private APIGatewayProxyResponseEvent presignBatch(APIGatewayProxyRequestEvent input, Context context) {
+        try {
+            JsonNode body = input.getBody() != null ? jsonCodec.readTree(input.getBody()) : null;
+            JsonNode idsNode = body != null ? body.get("productIds") : null;
+            if (idsNode == null || !idsNode.isArray() || idsNode.isEmpty()) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(400)
+                        .withBody(JsonCodec.errorBody("productIds must be a non-empty array"));
+            }
+
+            // De-duplicate while keeping the caller's order
+            Set<String> productIds = new LinkedHashSet<>();
+            for (JsonNode idNode : idsNode) {
+                String productId = idNode.asText();
+                if (!productId.trim().isEmpty()) {
+                    productIds.add(productId);
+                }
+            }
+            if (productIds.isEmpty() || productIds.size() > MAX_BATCH_SIZE) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(400)
+                        .withBody(JsonCodec.errorBody("Between 1 and " + MAX_BATCH_SIZE + " product IDs are allowed"));
+            }
+            boolean checkExists = body.path("checkExists").asBoolean(false);
+
+            Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+            for (String productId : productIds) {
+                pending.put(productId, CompletableFuture.supplyAsync(
+                        () -> resolveUrl(productId, checkExists, context), signingExecutor));
+            }
+
+            Map<String, String> urls = new LinkedHashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (Map.Entry<String, CompletableFuture<String>> entry : pending.entrySet()) {
+                String url = entry.getValue().join();
+                if (url != null) {
+                    urls.put(entry.getKey(), url);
+                } else {
+                    missing.add(entry.getKey());
+                }
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("urls", urls);
+            result.put("missing", missing);
+
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Content-Type", "application/json");
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(headers)
+                    .withBody(jsonCodec.write(result));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error generating batch pre-signed URLs: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody(JsonCodec.errorBody("Could not generate download URLs"));
+        }
+    }
+
+    /**
+     * Signs the asset URL for a single product, optionally skipping assets that do not exist.
+     *
+     * @param productId   The product ID.
+     * @param checkExists Whether to verify the object exists with HeadObject first.
+     * @param context     The Lambda execution context.
+     * @return The pre-signed URL, or null if the asset is known to be missing.
+     */
+    private String resolveUrl(String productId, boolean checkExists, Context context) {
+        String objectKey = AssetStorage.assetKey(productId);
+        if (checkExists && !assetExists(objectKey, context)) {
+            return null;
+        }
+
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(SIGNATURE_DURATION)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .build())
+                .build();
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+
+    /**
+     * Checks whether an asset exists, remembering misses for a short time.
+     * Errors other than "not found" are treated as present so a flaky check never hides an asset.
+     *
+     * @param objectKey The S3 object key.
+     * @param context   The Lambda execution context.
+     * @return true if the asset exists or could not be checked.
+     */
+    private boolean assetExists(String objectKey, Context context) {
+        Long missingUntil = missingAssets.get(objectKey);
+        if (missingUntil != null) {
+            if (System.nanoTime() - missingUntil < 0) {
+                Metrics.get().recordCacheAccess("MissingAssetCache", true);
+                return false;
+            }
+            missingAssets.remove(objectKey, missingUntil);
+        }
+        Metrics.get().recordCacheAccess("MissingAssetCache", false);
+
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            missingAssets.put(objectKey, System.nanoTime() + MISSING_ASSET_TTL_NANOS);
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                missingAssets.put(objectKey, System.nanoTime() + MISSING_ASSET_TTL_NANOS);
+                return false;
+            }
+            context.getLogger().log("HeadObject failed for " + objectKey + ": " + e.getMessage());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.resps.Tuple;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kms.KmsClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Lambda function that fills the product cache ahead of traffic. It checks {@code products:all}
+ * and the listings of the most requested categories with one pipelined batch of {@code EXISTS}, rebuilds
+ * only the missing ones in parallel, and writes them with {@code SET NX} and the listing TTL
+ * ({@link ProductCatalog#CACHE_TTL_SECONDS}). A listing changed while it was read is not written
+ * (see {@link ProductCatalog#fillIfUnchanged}). Categories are ranked by the hourly access counters
+ * {@link GetProductsHandler} keeps, summed over the last hours.
+ *
+ * <p>Listings that are cached cost nothing, so a run only scans and decrypts after a Redis restart or
+ * an eviction by a product write. {@code NX} keeps a listing a request cached in the meantime. Runs on a
+ * schedule and from the pre-traffic hook before a new version receives traffic.
+ */
+public class CatalogCacheWarmerHandler implements RequestHandler<Map<String, Object>, Integer> {
+
+    private final ProductCatalog catalog;
+    private final Supplier<JedisPool> jedisPool;
+    private final JsonCodec jsonCodec;
+    private final String tableName;
+    private final int topCategories;
+    private final int lookbackHours;
+    private final int parallelism;
+
+    /**
+     * Initializes the clients and reads WARM_TOP_CATEGORIES (default 20), WARM_LOOKBACK_HOURS (default 6)
+     * and WARM_PARALLELISM (default 8).
+     */
+    public CatalogCacheWarmerHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder),
+                RedisConnections::getPool,
+                System.getenv("TABLE_NAME"),
+                intEnv("WARM_TOP_CATEGORIES", 20),
+                intEnv("WARM_LOOKBACK_HOURS", 6),
+                intEnv("WARM_PARALLELISM", 8));
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param kmsClient      The KMS client.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName      The DynamoDB table name.
+     * @param topCategories  How many categories to warm besides the full list.
+     * @param lookbackHours  How many hourly access buckets to rank categories by.
+     * @param parallelism    How many listings to read from DynamoDB at once.
+     */
+    CatalogCacheWarmerHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, Supplier<JedisPool> jedisPool,
+                              String tableName, int topCategories, int lookbackHours, int parallelism) {
+        this.catalog = new ProductCatalog(dynamoDbClient, kmsClient);
+        this.jedisPool = jedisPool;
+        this.jsonCodec = MarketplaceJson.CODEC;
+        this.tableName = tableName;
+        this.topCategories = topCategories;
+        this.lookbackHours = lookbackHours;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Handles the scheduled event or the invocation from the pre-traffic hook.
+     *
+     * @param event   The event (unused).
+     * @param context The Lambda execution context.
+     * @return The number of listings written to the cache.
+     */
+    @Override
+    public Integer handleRequest(Map<String, Object> event, Context context) {
+        return Metrics.get().measure("schedule", () -> warm(context), warmed -> "ok");
+    }
+
+    /**
+     * Rebuilds and writes the missing listings. A listing that cannot be read is logged and skipped.
+     */
+    private Integer warm(Context context) {
+        JedisPool pool = jedisPool.get();
+        if (pool == null) {
+            context.getLogger().log("Redis is not configured, nothing to warm");
+            return 0;
+        }
+
+        Map<String, String> missing = new LinkedHashMap<>();
+        Map<String, String> versions = new HashMap<>();
+        try (Jedis jedis = pool.getResource()) {
+            missingListings(jedis, topCategories(jedis), missing, versions);
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, String> listings = buildListings(missing, context);
+
+        List<String> warmed = new ArrayList<>();
+        try (Jedis jedis = pool.getResource()) {
+            long start = System.nanoTime();
+            listings.forEach((key, json) -> {
+                if (ProductCatalog.fillIfUnchanged(jedis, key, json, versions.get(key), true)) {
+                    warmed.add(key);
+                }
+            });
+            Metrics.get().recordLatency("Redis.WarmSet", start);
+        }
+        context.getLogger().log("Warmed " + warmed.size() + " missing listings " + warmed);
+        return warmed.size();
+    }
+
+    /**
+     * Checks the full list and the category listings with one pipelined batch of {@code EXISTS},
+     * reading the version counters of the listings in the same round trip.
+     *
+     * @param missing  Receives the category of each missing listing keyed by cache key; null for the full list.
+     * @param versions Receives the version counter of each listing keyed by cache key.
+     */
+    private void missingListings(Jedis jedis, List<String> categories, Map<String, String> missing,
+                                 Map<String, String> versions) {
+        Map<String, String> categoryByKey = new LinkedHashMap<>();
+        categoryByKey.put(ProductCatalog.ALL_KEY, null);
+        for (String category : categories) {
+            categoryByKey.put(ProductCatalog.categoryKey(category), category);
+        }
+
+        Pipeline pipeline = jedis.pipelined();
+        Map<String, Response<Boolean>> exists = new LinkedHashMap<>();
+        Map<String, Response<String>> counters = new HashMap<>();
+        categoryByKey.keySet().forEach(key -> {
+            exists.put(key, pipeline.exists(key));
+            counters.put(key, pipeline.get(ProductCatalog.versionKey(key)));
+        });
+        pipeline.sync();
+
+        exists.forEach((key, cached) -> {
+            if (!Boolean.TRUE.equals(cached.get())) {
+                missing.put(key, categoryByKey.get(key));
+                versions.put(key, counters.get(key).get());
+            }
+        });
+    }
+
+    /**
+     * Ranks categories by their requests over the lookback window, reading the hourly buckets in one round trip.
+     */
+    private List<String> topCategories(Jedis jedis) {
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<List<Tuple>>> buckets = new ArrayList<>(lookbackHours);
+        for (int h = 0; h < lookbackHours; h++) {
+            // Only the top of each hour is read, so the ranking is approximate but costs one round trip
+            buckets.add(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour - h), 0, topCategories - 1));
+        }
+        pipeline.sync();
+
+        Map<String, Double> requests = new HashMap<>();
+        for (Response<List<Tuple>> bucket : buckets) {
+            for (Tuple entry : bucket.get()) {
+                requests.merge(entry.getElement(), entry.getScore(), Double::sum);
+            }
+        }
+        return requests.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(topCategories)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the listings in parallel and serializes them.
+     *
+     * @param categoryByKey The category of each listing keyed by cache key; null for the full list.
+     * @return The listing JSON keyed by cache key, without the listings that failed.
+     */
+    private Map<String, String> buildListings(Map<String, String> categoryByKey, Context context) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, categoryByKey.size())));
+        try {
+            Map<String, Future<String>> pending = new LinkedHashMap<>();
+            categoryByKey.forEach((key, category) -> pending.put(key, executor.submit(() ->
+                    jsonCodec.write(catalog.toProducts(catalog.loadItems(tableName, category)),
+                            MarketplaceJson.PRODUCT_LIST))));
+
+            Map<String, String> listings = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<String>> listing : pending.entrySet()) {
+                try {
+                    listings.put(listing.getKey(), listing.getValue().get());
+                } catch (Exception e) {
+                    context.getLogger().log("Could not warm " + listing.getKey() + ": " + e.getMessage());
+                }
+            }
+            return listings;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? Integer.parseInt(value) : defaultValue;
+    }
+}
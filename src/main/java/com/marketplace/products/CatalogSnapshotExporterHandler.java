@@ -0,0 +1,183 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Scheduled Lambda function that exports the whole catalog to S3 for bulk consumers, such as partner
+ * feeds and the search indexer. It reads the table with a parallel scan, writes the products as one
+ * gzipped NDJSON file and then points the manifest at it; see {@link CatalogSnapshots}.
+ *
+ * <p>Supplier emails are left out, so the export needs no KMS calls and the file holds no PII.
+ */
+public class CatalogSnapshotExporterHandler implements RequestHandler<Map<String, Object>, Integer> {
+
+    private static final int DEFAULT_SEGMENTS = 4;
+
+    private final ProductCatalog catalog;
+    private final S3Client s3Client;
+    private final String tableName;
+    private final String bucketName;
+    private final int segments;
+
+    /**
+     * Initializes the clients and reads SNAPSHOT_SEGMENTS (default 4).
+     */
+    public CatalogSnapshotExporterHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                AssetStorage.createClient(),
+                System.getenv("TABLE_NAME"),
+                System.getenv("ASSETS_BUCKET_NAME"),
+                System.getenv("SNAPSHOT_SEGMENTS") != null
+                        ? Integer.parseInt(System.getenv("SNAPSHOT_SEGMENTS")) : DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param s3Client       The S3 client.
+     * @param tableName      The DynamoDB table name.
+     * @param bucketName     The bucket the snapshots are written to.
+     * @param segments       How many segments the scan is split into, each read on its own thread.
+     */
+    CatalogSnapshotExporterHandler(DynamoDbClient dynamoDbClient, S3Client s3Client, String tableName,
+                                   String bucketName, int segments) {
+        this.catalog = new ProductCatalog(dynamoDbClient, null);
+        this.s3Client = s3Client;
+        this.tableName = tableName;
+        this.bucketName = bucketName;
+        this.segments = segments;
+    }
+
+    /**
+     * Handles the scheduled event.
+     *
+     * @param event   The scheduled event (unused).
+     * @param context The Lambda execution context.
+     * @return The number of products in the snapshot.
+     */
+    @Override
+    public Integer handleRequest(Map<String, Object> event, Context context) {
+        return Metrics.get().measure("schedule", () -> export(context), count -> "ok");
+    }
+
+    /**
+     * Writes the snapshot file, then the manifest.
+     */
+    private Integer export(Context context) {
+        long version = System.currentTimeMillis();
+        List<Product> products = scan();
+        // Sorted, so unchanged catalogs produce identical files and consumers can diff by ID
+        products.sort(Comparator.comparing(Product::getId));
+
+        long start = System.nanoTime();
+        MessageDigest sha256 = sha256();
+        byte[] file = compress(products, sha256);
+        byte[] checksum = sha256.digest();
+        Metrics.get().recordLatency("Snapshot.Compress", start);
+
+        String key = CatalogSnapshots.snapshotKey(version);
+        start = System.nanoTime();
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                // Not Content-Encoding: clients would inflate it on download and the checksum would not match
+                .contentType("application/gzip")
+                .checksumSHA256(Base64.getEncoder().encodeToString(checksum))
+                .build(), RequestBody.fromBytes(file));
+        Metrics.get().recordLatency("S3.PutSnapshot", start);
+
+        CatalogSnapshots.Manifest manifest = new CatalogSnapshots.Manifest(version, key, products.size(), file.length,
+                HexFormat.of().formatHex(checksum));
+        CatalogSnapshots.writeManifest(s3Client, bucketName, manifest);
+
+        context.getLogger().log("Exported " + products.size() + " products to " + key + " (" + file.length + " bytes)");
+        return products.size();
+    }
+
+    /**
+     * Reads the segments of the scan in parallel.
+     */
+    private List<Product> scan() {
+        ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            List<Future<List<Product>>> pending = new ArrayList<>(segments);
+            for (int segment = 0; segment < segments; segment++) {
+                int s = segment;
+                pending.add(executor.submit(() -> {
+                    List<Product> products = new ArrayList<>();
+                    catalog.scanSegment(tableName, s, segments).forEach(item -> products.add(ProductCatalog.toPublicProduct(item)));
+                    return products;
+                }));
+            }
+
+            List<Product> products = new ArrayList<>();
+            for (Future<List<Product>> segment : pending) {
+                products.addAll(segment.get());
+            }
+            return products;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning", e);
+        } catch (ExecutionException e) {
+            // A partial snapshot would look complete to consumers, so one failed segment fails the export
+            throw new IllegalStateException("Scan segment failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the products as gzipped NDJSON, feeding the compressed bytes to the digest as they are written.
+     */
+    private static byte[] compress(List<Product> products, MessageDigest digest) {
+        ObjectWriter writer = MarketplaceJson.CODEC.writerFor(Product.class);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(new DigestOutputStream(file, digest), 64 * 1024)) {
+            for (Product product : products) {
+                out.write(writer.writeValueAsBytes(product));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return file.toByteArray();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
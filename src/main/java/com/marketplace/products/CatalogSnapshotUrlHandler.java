@@ -0,0 +1,106 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lambda handler that returns a pre-signed URL of the latest catalog snapshot, with its manifest.
+ * Bulk consumers download the whole catalog with one S3 GET instead of paging through {@code GET /products}.
+ */
+public class CatalogSnapshotUrlHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final Duration URL_EXPIRY = Duration.ofMinutes(15);
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final String bucketName;
+
+    /**
+     * Initializes the S3 client and presigner.
+     */
+    public CatalogSnapshotUrlHandler() {
+        this(null, null, null);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Client    The S3 client.
+     * @param s3Presigner The S3 presigner.
+     * @param bucketName  The bucket the snapshots are written to.
+     */
+    public CatalogSnapshotUrlHandler(S3Client s3Client, S3Presigner s3Presigner, String bucketName) {
+        this.s3Client = s3Client != null ? s3Client : AssetStorage.createClient();
+        this.s3Presigner = s3Presigner != null ? s3Presigner : AssetStorage.createPresigner();
+        this.bucketName = bucketName != null ? bucketName : System.getenv("ASSETS_BUCKET_NAME");
+    }
+
+    /**
+     * Handles the GET request for the latest snapshot.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The download URL and manifest, or 404 if no snapshot was exported yet.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products/snapshot"),
+                () -> presignSnapshot(context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Reads the manifest and signs the URL of the file it points at.
+     */
+    private APIGatewayProxyResponseEvent presignSnapshot(Context context) {
+        try {
+            Optional<CatalogSnapshots.Manifest> latest = CatalogSnapshots.readManifest(s3Client, bucketName);
+            if (latest.isEmpty()) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(404)
+                        .withBody(JsonCodec.errorBody("No catalog snapshot available yet"));
+            }
+            CatalogSnapshots.Manifest manifest = latest.get();
+
+            String url = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                    .signatureDuration(URL_EXPIRY)
+                    .getObjectRequest(GetObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(manifest.getKey())
+                            .build())
+                    .build()).url().toString();
+
+            String body = MarketplaceJson.CODEC.createObjectNode()
+                    .put("downloadUrl", url)
+                    .put("expiresInSeconds", URL_EXPIRY.toSeconds())
+                    .put("version", manifest.getVersion())
+                    .put("format", "ndjson+gzip")
+                    .put("itemCount", manifest.getItemCount())
+                    .put("sizeBytes", manifest.getSizeBytes())
+                    .put("sha256", manifest.getSha256())
+                    .toString();
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(Map.of("Content-Type", "application/json"))
+                    .withBody(body);
+        } catch (Exception e) {
+            context.getLogger().log("Error generating snapshot URL: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody(JsonCodec.errorBody("Could not generate snapshot URL", "message", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.marketplace.products;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.model.MarketplaceJson;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Object layout of the catalog snapshots in the assets bucket. Each snapshot is a gzipped NDJSON
+ * file with one product per line, sorted by ID, under a key that never changes once written. The
+ * manifest at {@link #MANIFEST_KEY} points at the latest one and is written last, so a reader that
+ * finds a manifest always finds a complete snapshot behind it.
+ */
+final class CatalogSnapshots {
+
+    /** Key of the manifest of the latest snapshot. */
+    static final String MANIFEST_KEY = "catalog/manifest.json";
+
+    /** Prefix of the snapshot files, expired by a lifecycle rule. */
+    static final String SNAPSHOT_PREFIX = "catalog/snapshots/";
+
+    private CatalogSnapshots() {}
+
+    /**
+     * @param version The snapshot version.
+     * @return The object key of the snapshot file.
+     */
+    static String snapshotKey(long version) {
+        return SNAPSHOT_PREFIX + version + ".ndjson.gz";
+    }
+
+    /**
+     * Reads the manifest of the latest snapshot.
+     *
+     * @param s3Client   The S3 client.
+     * @param bucketName The bucket name.
+     * @return The manifest, or empty if no snapshot was exported yet.
+     */
+    static Optional<Manifest> readManifest(S3Client s3Client, String bucketName) {
+        try {
+            String json = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(MANIFEST_KEY)
+                    .build()).asUtf8String();
+            JsonNode node = MarketplaceJson.CODEC.readTree(json);
+            return Optional.of(new Manifest(node.path("version").asLong(), node.path("key").asText(),
+                    node.path("itemCount").asInt(), node.path("sizeBytes").asLong(), node.path("sha256").asText()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed " + MANIFEST_KEY, e);
+        }
+    }
+
+    /**
+     * Points the manifest at a new snapshot.
+     *
+     * @param s3Client   The S3 client.
+     * @param bucketName The bucket name.
+     * @param manifest   The manifest of the snapshot, which must already be written.
+     */
+    static void writeManifest(S3Client s3Client, String bucketName, Manifest manifest) {
+        ObjectNode node = MarketplaceJson.CODEC.createObjectNode()
+                .put("version", manifest.getVersion())
+                .put("key", manifest.getKey())
+                .put("itemCount", manifest.getItemCount())
+                .put("sizeBytes", manifest.getSizeBytes())
+                .put("sha256", manifest.getSha256());
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(MANIFEST_KEY)
+                .contentType("application/json")
+                .cacheControl("no-cache")
+                .build(), RequestBody.fromString(node.toString()));
+    }
+
+    /**
+     * Describes one snapshot file.
+     */
+    static final class Manifest {
+        private final long version;
+        private final String key;
+        private final int itemCount;
+        private final long sizeBytes;
+        private final String sha256;
+
+        /**
+         * @param version   The snapshot version, the export time in epoch milliseconds.
+         * @param key       The object key of the snapshot file.
+         * @param itemCount The number of products in the file.
+         * @param sizeBytes The size of the compressed file.
+         * @param sha256    The hex SHA-256 of the compressed file.
+         */
+        Manifest(long version, String key, int itemCount, long sizeBytes, String sha256) {
+            this.version = version;
+            this.key = key;
+            this.itemCount = itemCount;
+            this.sizeBytes = sizeBytes;
+            this.sha256 = sha256;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        int getItemCount() {
+            return itemCount;
+        }
+
+        long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        String getSha256() {
+            return sha256;
+        }
+    }
+}
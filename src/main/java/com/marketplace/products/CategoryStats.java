@@ -0,0 +1,132 @@
+package com.marketplace.products;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.model.MarketplaceJson;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Layout of the per-category aggregate items ({@code PK = CAT#<category>}, {@code SK = STATS}).
+ * They hold the number of products, the total stock and the price range of a category, so
+ * facet counts are one {@code GetItem} instead of a read of the whole category.
+ *
+ * <p>The items deliberately have no {@code category} or {@code price} attribute, which would
+ * put them into GSI1 next to the products.
+ */
+final class CategoryStats {
+
+    static final String PK_PREFIX = "CAT#";
+    static final String SK = "STATS";
+
+    static final String PRODUCT_COUNT = "productCount";
+    static final String TOTAL_STOCK = "totalStock";
+    static final String MIN_PRICE = "minPrice";
+    static final String MAX_PRICE = "maxPrice";
+    static final String UPDATED_AT = "updatedAt";
+    static final String RECONCILED_AT = "reconciledAt";
+
+    private CategoryStats() {}
+
+    /**
+     * @param category The category.
+     * @return The key of the category's aggregate item.
+     */
+    static Map<String, AttributeValue> key(String category) {
+        return Map.of(
+                "PK", AttributeValue.builder().s(PK_PREFIX + category).build(),
+                "SK", AttributeValue.builder().s(SK).build());
+    }
+
+    /**
+     * Writes an aggregate item as the JSON returned by the API.
+     *
+     * @param category The category.
+     * @param item     The aggregate item.
+     * @return The JSON.
+     */
+    static String toJson(String category, Map<String, AttributeValue> item) {
+        ObjectNode node = MarketplaceJson.CODEC.createObjectNode()
+                .put("category", category)
+                .put(PRODUCT_COUNT, number(item, PRODUCT_COUNT).longValue())
+                .put(TOTAL_STOCK, number(item, TOTAL_STOCK).longValue());
+        node.set(MIN_PRICE, item.containsKey(MIN_PRICE)
+                ? node.numberNode(number(item, MIN_PRICE).doubleValue()) : node.nullNode());
+        node.set(MAX_PRICE, item.containsKey(MAX_PRICE)
+                ? node.numberNode(number(item, MAX_PRICE).doubleValue()) : node.nullNode());
+        node.set(RECONCILED_AT, item.containsKey(RECONCILED_AT)
+                ? node.numberNode(number(item, RECONCILED_AT).longValue()) : node.nullNode());
+        return node.toString();
+    }
+
+    private static Number number(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null ? Double.valueOf(value.n()) : 0;
+    }
+
+    /**
+     * Accumulated changes to one category's aggregates.
+     */
+    static final class Delta {
+        private long products;
+        private long stock;
+        private Double minPrice;
+        private Double maxPrice;
+
+        /**
+         * Counts a product into the category.
+         *
+         * @param stock The product's stock.
+         * @param price The product's price.
+         */
+        void add(long stock, double price) {
+            this.products++;
+            this.stock += stock;
+            this.minPrice = minPrice == null ? price : Math.min(minPrice, price);
+            this.maxPrice = maxPrice == null ? price : Math.max(maxPrice, price);
+        }
+
+        /**
+         * Counts a product out of the category. The price range is not narrowed; that needs the
+         * other products, so it is left to the reconciliation.
+         *
+         * @param stock The product's stock.
+         */
+        void remove(long stock) {
+            this.products--;
+            this.stock -= stock;
+        }
+
+        /**
+         * Adds another delta, e.g. the totals of another scan segment.
+         *
+         * @param other The other delta.
+         * @return This delta.
+         */
+        Delta merge(Delta other) {
+            this.products += other.products;
+            this.stock += other.stock;
+            if (other.minPrice != null) {
+                this.minPrice = minPrice == null ? other.minPrice : Math.min(minPrice, other.minPrice);
+                this.maxPrice = maxPrice == null ? other.maxPrice : Math.max(maxPrice, other.maxPrice);
+            }
+            return this;
+        }
+
+        long getProducts() {
+            return products;
+        }
+
+        long getStock() {
+            return stock;
+        }
+
+        Double getMinPrice() {
+            return minPrice;
+        }
+
+        Double getMaxPrice() {
+            return maxPrice;
+        }
+    }
+}
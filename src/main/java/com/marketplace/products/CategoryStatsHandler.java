@@ -0,0 +1,89 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Map;
+
+/**
+ * Lambda handler that returns the aggregates of one category (product count, total stock and
+ * price range) with a single {@code GetItem} of its {@link CategoryStats} item.
+ */
+public class CategoryStatsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    /**
+     * Initializes the DynamoDB client.
+     */
+    public CategoryStatsHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder), System.getenv("TABLE_NAME"));
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param tableName      The DynamoDB table name.
+     */
+    CategoryStatsHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Handles the GET request for a category's aggregates.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The aggregates, or 404 if the category has none.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /categories/{category}/stats"),
+                () -> getStats(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Reads the aggregate item.
+     */
+    private APIGatewayProxyResponseEvent getStats(APIGatewayProxyRequestEvent input, Context context) {
+        try {
+            String category = input.getPathParameters() != null ? input.getPathParameters().get("category") : null;
+            if (category == null || category.isEmpty()) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(400)
+                        .withBody(JsonCodec.errorBody("Category is required"));
+            }
+
+            GetItemResponse response = dynamoDbClient.getItem(GetItemRequest.builder()
+                    .tableName(tableName)
+                    .key(CategoryStats.key(category))
+                    .build());
+            if (!response.hasItem()) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(404)
+                        .withBody(JsonCodec.errorBody("Category not found"));
+            }
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withHeaders(Map.of("Content-Type", "application/json"))
+                    .withBody(CategoryStats.toJson(category, response.item()));
+        } catch (Exception e) {
+            context.getLogger().log("Error reading category stats: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody(JsonCodec.errorBody("Could not read category stats"));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scheduled Lambda function that rebuilds the per-category aggregates ({@link CategoryStats}) from
+ * the products, with a parallel scan. It corrects what the incremental updates of
+ * {@link CategoryStatsStreamHandler} cannot: a price range that is wider than the products in it,
+ * and counts that drifted because a batch was applied twice or not at all. The same scan reads the
+ * existing aggregate items, so a category whose last product is gone is written back as empty rather
+ * than keeping a stale count.
+ *
+ * <p>Each aggregate is only overwritten if no stream update of a product change made after the scan
+ * started has reached it ({@code updatedAt} is the change time of the last applied record); otherwise
+ * the scan may have missed that change. Such a category is totalled again from GSI1 and written
+ * under the same condition, a few times at most; a category that keeps changing is left to the next run.
+ */
+public class CategoryStatsReconcilerHandler implements RequestHandler<Map<String, Object>, Integer> {
+
+    private static final int DEFAULT_SEGMENTS = 4;
+    private static final int MAX_RETRIES = 3;
+    // Stream record times are approximate, so changes just before a scan started also count as during it
+    private static final long CHANGE_TIME_MARGIN_MILLIS = 5_000;
+
+    private final ProductCatalog catalog;
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final int segments;
+
+    /**
+     * Initializes the DynamoDB client and reads RECONCILE_SEGMENTS (default 4).
+     */
+    public CategoryStatsReconcilerHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                System.getenv("TABLE_NAME"),
+                System.getenv("RECONCILE_SEGMENTS") != null
+                        ? Integer.parseInt(System.getenv("RECONCILE_SEGMENTS")) : DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param tableName      The DynamoDB table name.
+     * @param segments       How many segments the scan is split into, each read on its own thread.
+     */
+    CategoryStatsReconcilerHandler(DynamoDbClient dynamoDbClient, String tableName, int segments) {
+        this.catalog = new ProductCatalog(dynamoDbClient, null);
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.segments = segments;
+    }
+
+    /**
+     * Handles the scheduled event.
+     *
+     * @param event   The scheduled event (unused).
+     * @param context The Lambda execution context.
+     * @return The number of categories written.
+     */
+    @Override
+    public Integer handleRequest(Map<String, Object> event, Context context) {
+        return Metrics.get().measure("schedule", () -> reconcile(context), count -> "ok");
+    }
+
+    /**
+     * Totals every category, then overwrites its aggregate item unless it changed during the scan.
+     * Aggregates of categories without products are zeroed.
+     */
+    private Integer reconcile(Context context) {
+        long scanStartedAt = System.currentTimeMillis();
+        Totals totals = scan();
+        Set<String> empty = new HashSet<>(totals.existing);
+        empty.removeAll(totals.categories.keySet());
+        empty.forEach(category -> totals.categories.put(category, new CategoryStats.Delta()));
+        int written = 0;
+        int retried = 0;
+        for (Map.Entry<String, CategoryStats.Delta> entry : totals.categories.entrySet()) {
+            if (write(entry.getKey(), entry.getValue(), scanStartedAt)) {
+                written++;
+                continue;
+            }
+            retried++;
+            if (retry(entry.getKey())) {
+                written++;
+            } else {
+                context.getLogger().log("Category " + entry.getKey() + " kept changing; left to the next run");
+            }
+        }
+        context.getLogger().log("Reconciled " + written + " categories, " + empty.size() + " without products, "
+                + retried + " totalled again after a concurrent change");
+        return written;
+    }
+
+    /**
+     * Totals a category that changed during the scan again from GSI1 and writes it.
+     *
+     * @return Whether it could be written before running out of retries.
+     */
+    private boolean retry(String category) {
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            long startedAt = System.currentTimeMillis();
+            CategoryStats.Delta total = new CategoryStats.Delta();
+            catalog.queryCategory(tableName, category).forEach(item -> count(total, item));
+            if (write(category, total, startedAt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Overwrites a category's aggregate item, on the condition that no product change made after
+     * {@code startedAt} has been applied to it since.
+     *
+     * @return Whether the item was written.
+     */
+    private boolean write(String category, CategoryStats.Delta total, long startedAt) {
+        String now = String.valueOf(System.currentTimeMillis());
+        Map<String, AttributeValue> item = new HashMap<>(CategoryStats.key(category));
+        item.put(CategoryStats.PRODUCT_COUNT, AttributeValue.builder().n(String.valueOf(total.getProducts())).build());
+        item.put(CategoryStats.TOTAL_STOCK, AttributeValue.builder().n(String.valueOf(total.getStock())).build());
+        if (total.getMinPrice() != null) {
+            item.put(CategoryStats.MIN_PRICE, AttributeValue.builder().n(String.valueOf(total.getMinPrice())).build());
+            item.put(CategoryStats.MAX_PRICE, AttributeValue.builder().n(String.valueOf(total.getMaxPrice())).build());
+        }
+        item.put(CategoryStats.UPDATED_AT, AttributeValue.builder().n(now).build());
+        item.put(CategoryStats.RECONCILED_AT, AttributeValue.builder().n(now).build());
+        try {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(#updated) OR #updated < :startedAt")
+                    .expressionAttributeNames(Map.of("#updated", CategoryStats.UPDATED_AT))
+                    .expressionAttributeValues(Map.of(":startedAt", AttributeValue.builder()
+                            .n(String.valueOf(startedAt - CHANGE_TIME_MARGIN_MILLIS)).build()))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Counts a product item into its category's totals.
+     */
+    private static void count(CategoryStats.Delta total, Map<String, AttributeValue> item) {
+        AttributeValue stock = item.get("stockQuantity");
+        total.add(stock != null ? Long.parseLong(stock.n()) : 0, Double.parseDouble(item.get("price").n()));
+    }
+
+    /**
+     * Totals the segments in parallel, each into its own map, and merges them.
+     */
+    private Totals scan() {
+        ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            List<Future<Totals>> pending = new ArrayList<>(segments);
+            for (int segment = 0; segment < segments; segment++) {
+                int s = segment;
+                pending.add(executor.submit(() -> {
+                    Totals totals = new Totals();
+                    for (Map<String, AttributeValue> item : catalog.scanSegment(productsAndStats(), s, segments)) {
+                        String pk = item.get("PK").s();
+                        if (pk.startsWith(CategoryStats.PK_PREFIX)) {
+                            totals.existing.add(pk.substring(CategoryStats.PK_PREFIX.length()));
+                            continue;
+                        }
+                        count(totals.categories.computeIfAbsent(item.get("category").s(), c -> new CategoryStats.Delta()), item);
+                    }
+                    return totals;
+                }));
+            }
+
+            Totals totals = new Totals();
+            for (Future<Totals> segment : pending) {
+                Totals part = segment.get();
+                part.categories.forEach((category, total) -> totals.categories.merge(category, total, CategoryStats.Delta::merge));
+                totals.existing.addAll(part.existing);
+            }
+            return totals;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning", e);
+        } catch (ExecutionException e) {
+            // Totals of a partial scan would be wrong, so nothing is written
+            throw new IllegalStateException("Scan segment failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A scan of the product items and the aggregate items, so both are read in one pass over the table.
+     */
+    private ScanRequest.Builder productsAndStats() {
+        return ScanRequest.builder()
+                .tableName(tableName)
+                .filterExpression("(begins_with(PK, :prodPrefix) AND SK = :metadata) OR (begins_with(PK, :catPrefix) AND SK = :stats)")
+                .expressionAttributeValues(Map.of(
+                        ":prodPrefix", AttributeValue.builder().s("PROD#").build(),
+                        ":metadata", AttributeValue.builder().s("METADATA").build(),
+                        ":catPrefix", AttributeValue.builder().s(CategoryStats.PK_PREFIX).build(),
+                        ":stats", AttributeValue.builder().s(CategoryStats.SK).build()));
+    }
+
+    /**
+     * The product totals per category and the categories that have an aggregate item.
+     */
+    private static final class Totals {
+        private final Map<String, CategoryStats.Delta> categories = new HashMap<>();
+        private final Set<String> existing = new HashSet<>();
+    }
+}
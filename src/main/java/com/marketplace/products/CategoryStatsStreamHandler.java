@@ -0,0 +1,304 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lambda function triggered by the Products table stream that keeps the per-category aggregates
+ * ({@link CategoryStats}) current. A batch is summed per category first, so a burst of orders in
+ * one category costs one update of its aggregate item rather than one per order.
+ *
+ * <p>Counts and stock are applied with {@code ADD} in transactions of consecutive records. Each
+ * transaction also puts a marker item per record ({@code PK = STREAM#<item key>}, {@code SK = <sequence
+ * number>}) on the condition that it does not exist yet. A record delivered again, whether in a retried,
+ * split or later batch, fails its marker's condition; it is dropped and the rest of its transaction is
+ * written without it, so no record is counted twice. Markers expire after {@link #MARKER_TTL_SECONDS},
+ * well beyond the stream's 24-hour retention. The price range is only ever widened, which is idempotent;
+ * narrowing it is left to {@link CategoryStatsReconcilerHandler}.
+ *
+ * <p>The aggregates are fed from the stream rather than from the order transaction, because every
+ * order of a category would update the same item and concurrent transactions on it would cancel
+ * each other.
+ */
+public class CategoryStatsStreamHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+
+    /** Prefix of the applied-record markers. */
+    static final String MARKER_PREFIX = "STREAM#";
+
+    /** How long a marker is kept, in seconds. */
+    static final long MARKER_TTL_SECONDS = 3 * 24 * 3600;
+
+    /** The most items one TransactWriteItems call accepts. */
+    private static final int MAX_TRANSACTION_ITEMS = 100;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    /**
+     * Initializes the DynamoDB client.
+     */
+    public CategoryStatsStreamHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder), System.getenv("TABLE_NAME"));
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param tableName      The DynamoDB table name.
+     */
+    CategoryStatsStreamHandler(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Handles a batch of stream records.
+     *
+     * @param event   The stream event.
+     * @param context The Lambda execution context.
+     * @return The first record whose counts could not be applied, if any.
+     */
+    @Override
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        return Metrics.get().measure("stream", () -> apply(event, context),
+                response -> response.getBatchItemFailures().isEmpty() ? "ok" : "partial");
+    }
+
+    /**
+     * Applies the batch in runs of records that fit one transaction. When a run fails, its first record
+     * is reported, so Lambda retries from there; the runs before it are already applied.
+     */
+    private StreamsEventResponse apply(DynamodbEvent event, Context context) {
+        List<Change> changes = new ArrayList<>();
+        for (DynamodbEvent.DynamodbStreamRecord record : event.getRecords()) {
+            changes.add(Change.of(record));
+        }
+
+        Set<String> categories = new HashSet<>();
+        for (int from = 0; from < changes.size(); ) {
+            int to = runEnd(changes, from);
+            List<Change> run = changes.subList(from, to);
+            try {
+                applyCounts(run);
+            } catch (Exception e) {
+                context.getLogger().log("Could not apply category counts: " + e.getMessage());
+                List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+                failures.add(new StreamsEventResponse.BatchItemFailure(run.get(0).sequenceNumber));
+                return new StreamsEventResponse(failures);
+            }
+
+            Map<String, CategoryStats.Delta> prices = new LinkedHashMap<>();
+            run.forEach(change -> change.prices.forEach((category, delta) ->
+                    prices.computeIfAbsent(category, c -> new CategoryStats.Delta()).merge(delta)));
+            String changedAt = String.valueOf(run.get(run.size() - 1).updatedAt);
+            prices.forEach((category, delta) -> widenPriceRange(category, delta, changedAt, context));
+            run.forEach(change -> categories.addAll(change.counted.keySet()));
+            categories.addAll(prices.keySet());
+            from = to;
+        }
+        if (!categories.isEmpty()) {
+            context.getLogger().log("Applied " + changes.size() + " records to " + categories.size() + " categories");
+        }
+        return new StreamsEventResponse(new ArrayList<>());
+    }
+
+    /**
+     * Finds the end of the run starting at {@code from}: as many records as fit one transaction with
+     * their markers and the categories they touch.
+     */
+    private static int runEnd(List<Change> changes, int from) {
+        Set<String> categories = new HashSet<>();
+        int markers = 0;
+        int to = from;
+        while (to < changes.size()) {
+            Change change = changes.get(to);
+            Set<String> added = new HashSet<>(change.counted.keySet());
+            added.removeAll(categories);
+            int marker = change.counts() ? 1 : 0;
+            if (markers + marker + categories.size() + added.size() > MAX_TRANSACTION_ITEMS && to > from) {
+                break;
+            }
+            categories.addAll(added);
+            markers += marker;
+            to++;
+        }
+        return to;
+    }
+
+    /**
+     * Writes the markers of the run's counting records and the summed count and stock deltas in one
+     * transaction. Records whose marker already exists were applied before; they are dropped and the
+     * rest is written again.
+     */
+    private void applyCounts(List<Change> run) {
+        List<Change> pending = new ArrayList<>();
+        run.stream().filter(Change::counts).forEach(pending::add);
+        while (!pending.isEmpty()) {
+            List<TransactWriteItem> items = new ArrayList<>();
+            long expiresAt = System.currentTimeMillis() / 1000 + MARKER_TTL_SECONDS;
+            for (Change change : pending) {
+                items.add(TransactWriteItem.builder().put(Put.builder()
+                        .tableName(tableName)
+                        .item(Map.of(
+                                "PK", AttributeValue.builder().s(MARKER_PREFIX + change.itemKey).build(),
+                                "SK", AttributeValue.builder().s(change.sequenceNumber).build(),
+                                "expiresAt", AttributeValue.builder().n(String.valueOf(expiresAt)).build()))
+                        .conditionExpression("attribute_not_exists(PK)")
+                        .build()).build());
+            }
+            Map<String, CategoryStats.Delta> deltas = new LinkedHashMap<>();
+            pending.forEach(change -> change.counted.forEach((category, delta) ->
+                    deltas.computeIfAbsent(category, c -> new CategoryStats.Delta()).merge(delta)));
+            String now = String.valueOf(pending.get(pending.size() - 1).updatedAt);
+            deltas.forEach((category, delta) -> {
+                if (delta.getProducts() == 0 && delta.getStock() == 0) {
+                    return; // Cancelled out within the run
+                }
+                items.add(TransactWriteItem.builder().update(Update.builder()
+                        .tableName(tableName)
+                        .key(CategoryStats.key(category))
+                        .updateExpression("ADD #count :products, #stock :stock SET #updated = :now")
+                        .expressionAttributeNames(Map.of(
+                                "#count", CategoryStats.PRODUCT_COUNT,
+                                "#stock", CategoryStats.TOTAL_STOCK,
+                                "#updated", CategoryStats.UPDATED_AT))
+                        .expressionAttributeValues(Map.of(
+                                ":products", AttributeValue.builder().n(String.valueOf(delta.getProducts())).build(),
+                                ":stock", AttributeValue.builder().n(String.valueOf(delta.getStock())).build(),
+                                ":now", AttributeValue.builder().n(now).build()))
+                        .build()).build());
+            });
+
+            try {
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(items).build());
+                return;
+            } catch (TransactionCanceledException e) {
+                // Reasons are in item order, and only the markers have a condition
+                List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+                List<Change> unapplied = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    if (i >= reasons.size() || !"ConditionalCheckFailed".equals(reasons.get(i).code())) {
+                        unapplied.add(pending.get(i));
+                    }
+                }
+                if (unapplied.size() == pending.size()) {
+                    throw e;
+                }
+                pending = unapplied;
+            }
+        }
+    }
+
+    /**
+     * Lowers the minimum and raises the maximum price where the batch went beyond them. Failures are
+     * only logged; the next reconciliation corrects the range. A widened range also sets
+     * {@code updatedAt}, so a reconciliation running meanwhile does not overwrite it.
+     */
+    private void widenPriceRange(String category, CategoryStats.Delta delta, String changedAt, Context context) {
+        if (delta.getMinPrice() == null) {
+            return;
+        }
+        try {
+            widen(category, CategoryStats.MIN_PRICE, "<", delta.getMinPrice(), changedAt);
+            widen(category, CategoryStats.MAX_PRICE, ">", delta.getMaxPrice(), changedAt);
+        } catch (Exception e) {
+            context.getLogger().log("Could not widen the price range of " + category + ": " + e.getMessage());
+        }
+    }
+
+    private void widen(String category, String attribute, String comparison, double price, String changedAt) {
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(CategoryStats.key(category))
+                    .updateExpression("SET #price = :price, #updated = :now")
+                    .conditionExpression("attribute_not_exists(#price) OR :price " + comparison + " #price")
+                    .expressionAttributeNames(Map.of("#price", attribute, "#updated", CategoryStats.UPDATED_AT))
+                    .expressionAttributeValues(Map.of(
+                            ":price", AttributeValue.builder().n(String.valueOf(price)).build(),
+                            ":now", AttributeValue.builder().n(changedAt).build()))
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            // Already within the range
+        }
+    }
+
+    private static long stock(Map<String, AttributeValue> item) {
+        AttributeValue stock = item.get("stockQuantity");
+        return stock != null ? Long.parseLong(stock.n()) : 0;
+    }
+
+    /**
+     * What one stream record changes: the count and stock deltas per category, and the prices it adds.
+     */
+    private static final class Change {
+        private final String sequenceNumber;
+        private final String itemKey;
+        private final long updatedAt;
+        private final Map<String, CategoryStats.Delta> counted = new LinkedHashMap<>();
+        private final Map<String, CategoryStats.Delta> prices = new LinkedHashMap<>();
+
+        private Change(String sequenceNumber, String itemKey, long updatedAt) {
+            this.sequenceNumber = sequenceNumber;
+            this.itemKey = itemKey;
+            this.updatedAt = updatedAt;
+        }
+
+        static Change of(DynamodbEvent.DynamodbStreamRecord record) {
+            StreamRecord stream = record.getDynamodb();
+            Map<String, AttributeValue> oldItem = ProductCatalog.fromStreamImage(stream.getOldImage());
+            Map<String, AttributeValue> newItem = "REMOVE".equals(record.getEventName())
+                    ? null : ProductCatalog.fromStreamImage(stream.getNewImage());
+            Map<String, AttributeValue> keys = ProductCatalog.fromStreamImage(stream.getKeys());
+            Map<String, AttributeValue> keyed = keys != null ? keys : newItem != null ? newItem : oldItem;
+            Change change = new Change(stream.getSequenceNumber(),
+                    keyed != null && keyed.containsKey("PK") ? keyed.get("PK").s() : "",
+                    stream.getApproximateCreationDateTime() != null ? stream.getApproximateCreationDateTime().getTime() : 0);
+
+            Map<String, CategoryStats.Delta> deltas = new LinkedHashMap<>();
+            if (oldItem != null && ProductCatalog.isProduct(oldItem) && oldItem.containsKey("category")) {
+                deltas.computeIfAbsent(oldItem.get("category").s(), c -> new CategoryStats.Delta())
+                        .remove(stock(oldItem));
+            }
+            if (newItem != null && ProductCatalog.isProduct(newItem) && newItem.containsKey("category")) {
+                CategoryStats.Delta added = new CategoryStats.Delta();
+                added.add(stock(newItem), Double.parseDouble(newItem.get("price").n()));
+                deltas.computeIfAbsent(newItem.get("category").s(), c -> new CategoryStats.Delta()).merge(added);
+                change.prices.put(newItem.get("category").s(), added);
+            }
+            deltas.forEach((category, delta) -> {
+                if (delta.getProducts() != 0 || delta.getStock() != 0) {
+                    change.counted.put(category, delta);
+                }
+            });
+            return change;
+        }
+
+        boolean counts() {
+            return !counted.isEmpty();
+        }
+    }
+}
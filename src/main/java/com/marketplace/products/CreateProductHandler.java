@@ -4,49 +4,75 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.model.MarketplaceJson;
 import com.marketplace.model.Product;
-import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import com.amazonaws.xray.interceptors.TracingInterceptor;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.kms.model.EncryptRequest;
 import software.amazon.awssdk.services.kms.model.EncryptResponse;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.deploy.DryRun;
+import com.marketplace.snapstart.Priming;
 import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.Deadline;
+import com.marketplace.utils.SecretCache;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import com.marketplace.utils.Tracing;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
+import org.crac.Core;
+import org.crac.Resource;
 
+import java.net.http.HttpClient;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Lambda handler for creating a new product in the marketplace.
+ * With LOGISTICS_API_URL set, each created product is registered with the logistics provider
+ * through {@link LogisticsClient}; a failed registration is logged and does not fail the request.
  */
-public class CreateProductHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class CreateProductHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    // Time kept back from the Lambda deadline to build the timeout response
+    private static final long DEADLINE_MARGIN_MILLIS = 500;
 
     private final DynamoDbClient dynamoDbClient;
     private final KmsClient kmsClient;
     private final SecretsManagerClient secretsManagerClient;
+    private final SecretCache secretCache;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final KmsAsyncClient kmsAsyncClient;
+    private final boolean asyncEnabled;
+    private final Supplier<JedisPool> jedisPool;
     private final String tableName;
     private final String kmsKeyId;
     private final String logisticsSecretArn;
-    private final ObjectMapper objectMapper;
-    private static JedisPool jedisPool;
+    private final LogisticsClient logisticsClient;
+    private final JsonCodec jsonCodec;
 
     /**
      * Initializes the DynamoDB client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public CreateProductHandler() {
         this(null, null, null, null, null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -62,63 +88,143 @@ public class CreateProductHandler implements RequestHandler<APIGatewayProxyReque
     public CreateProductHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, 
                          SecretsManagerClient secretsManagerClient, String tableName, 
                          String kmsKeyId, String logisticsSecretArn) {
-        ClientOverrideConfiguration xRayConfig = ClientUtils.getXRayConfig();
-        
+        this(dynamoDbClient, kmsClient, secretsManagerClient, null, null,
+                tableName, kmsKeyId, logisticsSecretArn, Boolean.parseBoolean(System.getenv("ASYNC_SDK_ENABLED")));
+    }
+
+    /**
+     * Constructor for dependency injection of both the blocking and the asynchronous clients.
+     * The async clients are only created when the async mode is enabled.
+     *
+     * @param dynamoDbClient            The DynamoDB client.
+     * @param kmsClient                 The KMS client.
+     * @param secretsManagerClient      The Secrets Manager client.
+     * @param dynamoDbAsyncClient       The async DynamoDB client.
+     * @param kmsAsyncClient            The async KMS client.
+     * @param tableName                 The DynamoDB table name.
+     * @param kmsKeyId                  The KMS Key ID.
+     * @param logisticsSecretArn        The logistics secret ARN.
+     * @param asyncEnabled              Whether to run the AWS calls concurrently on the async clients.
+     */
+    CreateProductHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient,
+                         SecretsManagerClient secretsManagerClient, DynamoDbAsyncClient dynamoDbAsyncClient,
+                         KmsAsyncClient kmsAsyncClient, String tableName, String kmsKeyId, String logisticsSecretArn, boolean asyncEnabled) {
+        this(dynamoDbClient, kmsClient, secretsManagerClient, dynamoDbAsyncClient, kmsAsyncClient,
+                RedisConnections::getPool, tableName, kmsKeyId, logisticsSecretArn, asyncEnabled);
+    }
+
+    /**
+     * Constructor for dependency injection of the Redis pool as well.
+     *
+     * @param dynamoDbClient            The DynamoDB client.
+     * @param kmsClient                 The KMS client.
+     * @param secretsManagerClient      The Secrets Manager client.
+     * @param dynamoDbAsyncClient       The async DynamoDB client.
+     * @param kmsAsyncClient            The async KMS client.
+     * @param jedisPool                 Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName                 The DynamoDB table name.
+     * @param kmsKeyId                  The KMS Key ID.
+     * @param logisticsSecretArn        The logistics secret ARN.
+     * @param asyncEnabled              Whether to run the AWS calls concurrently on the async clients.
+     */
+    CreateProductHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient,
+                         SecretsManagerClient secretsManagerClient, DynamoDbAsyncClient dynamoDbAsyncClient,
+                         KmsAsyncClient kmsAsyncClient, Supplier<JedisPool> jedisPool, String tableName,
+                         String kmsKeyId, String logisticsSecretArn, boolean asyncEnabled) {
+        this(dynamoDbClient, kmsClient, secretsManagerClient, dynamoDbAsyncClient, kmsAsyncClient, jedisPool,
+                tableName, kmsKeyId, logisticsSecretArn, null, asyncEnabled);
+    }
+
+    /**
+     * Constructor for dependency injection of the logistics provider's URL as well.
+     *
+     * @param dynamoDbClient            The DynamoDB client.
+     * @param kmsClient                 The KMS client.
+     * @param secretsManagerClient      The Secrets Manager client.
+     * @param dynamoDbAsyncClient       The async DynamoDB client.
+     * @param kmsAsyncClient            The async KMS client.
+     * @param jedisPool                 Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName                 The DynamoDB table name.
+     * @param kmsKeyId                  The KMS Key ID.
+     * @param logisticsSecretArn        The logistics secret ARN.
+     * @param logisticsApiUrl           The logistics provider's base URL, or null to read LOGISTICS_API_URL.
+     * @param asyncEnabled              Whether to run the AWS calls concurrently on the async clients.
+     */
+    CreateProductHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient,
+                         SecretsManagerClient secretsManagerClient, DynamoDbAsyncClient dynamoDbAsyncClient,
+                         KmsAsyncClient kmsAsyncClient, Supplier<JedisPool> jedisPool, String tableName,
+                         String kmsKeyId, String logisticsSecretArn, String logisticsApiUrl, boolean asyncEnabled) {
+        this.jedisPool = jedisPool;
         this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient : 
-                ClientUtils.configureEndpoint(DynamoDbClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder);
         
         this.kmsClient = kmsClient != null ? kmsClient : 
-                ClientUtils.configureEndpoint(KmsClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder);
 
         this.secretsManagerClient = secretsManagerClient != null ? secretsManagerClient : 
-                ClientUtils.configureEndpoint(SecretsManagerClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(SecretsManagerClient.class, SecretsManagerClient::builder);
+        this.secretCache = new SecretCache((secretId, versionStage) -> this.secretsManagerClient.getSecretValue(
+                GetSecretValueRequest.builder()
+                        .secretId(secretId)
+                        .versionStage(versionStage)
+                        .build()).secretString());
+
+        this.asyncEnabled = asyncEnabled;
+        if (asyncEnabled) {
+            this.dynamoDbAsyncClient = dynamoDbAsyncClient != null ? dynamoDbAsyncClient :
+                    ClientUtils.getAsyncClient(DynamoDbAsyncClient.class, DynamoDbAsyncClient::builder);
+            this.kmsAsyncClient = kmsAsyncClient != null ? kmsAsyncClient :
+                    ClientUtils.getAsyncClient(KmsAsyncClient.class, KmsAsyncClient::builder);
+        } else {
+            this.dynamoDbAsyncClient = null;
+            this.kmsAsyncClient = null;
+        }
 
         this.tableName = tableName != null ? tableName : System.getenv("TABLE_NAME");
         this.kmsKeyId = kmsKeyId != null ? kmsKeyId : System.getenv("KMS_KEY_ID");
         this.logisticsSecretArn = logisticsSecretArn != null ? logisticsSecretArn : System.getenv("LOGISTICS_SECRET_ARN");
-        this.objectMapper = new ObjectMapper();
-        initializeRedisPool();
+        String apiUrl = logisticsApiUrl != null ? logisticsApiUrl : System.getenv("LOGISTICS_API_URL");
+        this.logisticsClient = apiUrl != null && !apiUrl.isEmpty()
+                ? new LogisticsClient(HttpClient.newHttpClient(), apiUrl, secretCache, this.logisticsSecretArn)
+                : null;
+        this.jsonCodec = MarketplaceJson.CODEC;
     }
 
     /**
-     * Validates the product details.
+     * Primes Jackson and the hot-path classes before the SnapStart snapshot, and drops Redis
+     * connections that would not survive it. The Secrets Manager path is primed locally only: a
+     * real GetSecretValue here would capture the secret in the snapshot, where it goes stale after
+     * a rotation. The secret is loaded on first use after the restore.
      *
-     * @param product The product to validate.
-     * @return An error message if validation fails, otherwise null.
+     * @param context The CRaC context.
      */
-    private String validateProduct(Product product) {
-        if (product.getName() == null || product.getName().trim().isEmpty()) {
-            return "Product name is required";
-        }
-        if (product.getPrice() <= 0) {
-            return "Product price must be greater than zero";
-        }
-        if (product.getCategory() == null || product.getCategory().trim().isEmpty()) {
-            return "Product category is required";
-        }
-        if (product.getStockQuantity() < 0) {
-            return "Stock quantity cannot be negative";
-        }
-        return null;
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.preloadClasses(
+                "software.amazon.awssdk.services.dynamodb.model.PutItemResponse",
+                "software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException",
+                "software.amazon.awssdk.services.kms.model.EncryptResponse",
+                "software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse",
+                "software.amazon.awssdk.services.secretsmanager.transform.GetSecretValueRequestMarshaller");
+        Priming.run(() -> GetSecretValueRequest.builder()
+                .secretId(logisticsSecretArn)
+                .versionStage(SecretCache.CURRENT)
+                .build());
+        RedisConnections.close();
     }
 
     /**
-     * Initializes the Redis connection pool using environment variables.
+     * Re-opens Redis, refreshes credentials and drops cached secrets after a restore,
+     * since the secret may have been rotated while the snapshot was stored.
+     *
+     * @param context The CRaC context.
      */
-    private void initializeRedisPool() {
-        if (jedisPool == null) {
-            String redisHost = System.getenv("REDIS_HOST");
-            String redisPort = System.getenv("REDIS_PORT");
-            if (redisHost != null && redisPort != null) {
-                jedisPool = new JedisPool(new JedisPoolConfig(), redisHost, Integer.parseInt(redisPort));
-            }
-        }
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
+        secretCache.invalidateAll();
+        RedisConnections.reconnect();
     }
 
     /**
@@ -130,84 +236,237 @@ public class CreateProductHandler implements RequestHandler<APIGatewayProxyReque
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "POST /products"),
+                () -> createProduct(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Creates the product.
+     */
+    private APIGatewayProxyResponseEvent createProduct(APIGatewayProxyRequestEvent input, Context context) {
         try {
-            // Demonstrate Secrets Manager usage: Fetch logistics API key
-            GetSecretValueRequest getSecretValueRequest = GetSecretValueRequest.builder()
-                    .secretId(logisticsSecretArn)
-                    .build();
-            GetSecretValueResponse secretValueResponse = secretsManagerClient.getSecretValue(getSecretValueRequest);
-            context.getLogger().log("Successfully retrieved logistics secret: " + secretValueResponse.name());
-
-            Product product = objectMapper.readValue(input.getBody(), Product.class);
+            if (asyncEnabled) {
+                return handleRequestAsync(input, context);
+            }
+
+            Product product = jsonCodec.read(input.getBody(), Product.class);
             
             // Validate input
-            String validationError = validateProduct(product);
+            String validationError = Tracing.trace("ValidateProduct", () -> ProductCatalog.validate(product));
             if (validationError != null) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(400)
-                        .withBody("{\"error\": \"" + validationError + "\"}");
+                        .withBody(JsonCodec.errorBody(validationError));
             }
 
-            if (product.getId() == null) {
-                product.setId(UUID.randomUUID().toString());
-            }
-            // Initialize version for new products
-            product.setVersion(1);
-
-            Map<String, AttributeValue> item = new HashMap<>();
-            item.put("PK", AttributeValue.builder().s("PROD#" + product.getId()).build());
-            item.put("SK", AttributeValue.builder().s("METADATA").build());
-            item.put("id", AttributeValue.builder().s(product.getId()).build());
-            item.put("name", AttributeValue.builder().s(product.getName()).build());
-            item.put("price", AttributeValue.builder().n(String.valueOf(product.getPrice())).build());
-            item.put("category", AttributeValue.builder().s(product.getCategory()).build());
-            item.put("version", AttributeValue.builder().n(String.valueOf(product.getVersion())).build());
-            item.put("stockQuantity", AttributeValue.builder().n(String.valueOf(product.getStockQuantity())).build());
+            Map<String, AttributeValue> item = createItem(product);
 
             // KMS Encryption for sensitive supplier email
             if (product.getSupplierEmail() != null) {
-                EncryptRequest encryptRequest = EncryptRequest.builder()
-                        .keyId(kmsKeyId)
-                        .plaintext(SdkBytes.fromUtf8String(product.getSupplierEmail()))
-                        .build();
-                
-                EncryptResponse encryptResponse = kmsClient.encrypt(encryptRequest);
+                EncryptResponse encryptResponse = kmsClient.encrypt(createEncryptRequest(product));
                 String ciphertext = Base64.getEncoder().encodeToString(encryptResponse.ciphertextBlob().asByteArray());
                 item.put("supplierEmail", AttributeValue.builder().s(ciphertext).build());
             }
 
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName(tableName)
-                    .item(item)
-                    .conditionExpression("attribute_not_exists(PK)")
-                    .build();
-
-            dynamoDbClient.putItem(putItemRequest);
-
-            // Invalidate Redis Cache
-            if (jedisPool != null) {
-                try (Jedis jedis = jedisPool.getResource()) {
-                    jedis.flushAll(); // Simple eviction for the prototype
-                    context.getLogger().log("Redis cache invalidated.");
-                } catch (Exception e) {
-                    context.getLogger().log("Redis eviction error: " + e.getMessage());
+            boolean dryRun = DryRun.isDryRun(input);
+            try {
+                dynamoDbClient.putItem(createPutItemRequest(item, dryRun));
+            } catch (ConditionalCheckFailedException e) {
+                if (!dryRun) {
+                    throw e;
                 }
             }
-
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Content-Type", "application/json");
-
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(201)
-                    .withHeaders(headers)
-                    .withBody(objectMapper.writeValueAsString(product));
+            return created(product, dryRun, context);
 
         } catch (Exception e) {
             context.getLogger().log("Error creating product: " + e.getMessage());
             e.printStackTrace(); // Crucial for seeing the error in Maven logs
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not create product\", \"details\": \"" + e.toString() + "\"}");
+                    .withBody(JsonCodec.errorBody("Could not create product", "details", e.toString()));
+        }
+    }
+
+    /**
+     * Creates the product on the async clients. The write is chained onto the KMS encryption, and
+     * every call is cancelled when the Lambda deadline is about to pass.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The API Gateway proxy response event.
+     * @throws Exception If parsing fails or one of the AWS calls fails.
+     */
+    private APIGatewayProxyResponseEvent handleRequestAsync(APIGatewayProxyRequestEvent input, Context context) throws Exception {
+        // Validate before any AWS call so bad requests cost nothing
+        Product product = jsonCodec.read(input.getBody(), Product.class);
+        String validationError = Tracing.trace("ValidateProduct", () -> ProductCatalog.validate(product));
+        if (validationError != null) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withBody(JsonCodec.errorBody(validationError));
+        }
+
+        Map<String, AttributeValue> item = createItem(product);
+        Deadline deadline = Deadline.fromRemainingMillis(context.getRemainingTimeInMillis(), DEADLINE_MARGIN_MILLIS);
+
+        CompletableFuture<String> ciphertextFuture = product.getSupplierEmail() == null
+                ? CompletableFuture.completedFuture(null)
+                : deadline.track(kmsAsyncClient.encrypt(createEncryptRequest(product)))
+                        .thenApply(response -> Base64.getEncoder().encodeToString(response.ciphertextBlob().asByteArray()));
+
+        boolean dryRun = DryRun.isDryRun(input);
+        CompletableFuture<?> putFuture = ciphertextFuture.thenCompose(ciphertext -> {
+            if (ciphertext != null) {
+                item.put("supplierEmail", AttributeValue.builder().s(ciphertext).build());
+            }
+            return deadline.track(dynamoDbAsyncClient.putItem(createPutItemRequest(item, dryRun)));
+        });
+
+        try {
+            deadline.await(putFuture);
+        } catch (TimeoutException e) {
+            context.getLogger().log("Creating product timed out before the Lambda deadline");
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(504)
+                    .withBody(JsonCodec.errorBody("Timed out creating product"));
+        } catch (ExecutionException e) {
+            if (!dryRun || !(e.getCause() instanceof ConditionalCheckFailedException)) {
+                // Surface the SDK exception itself, as the blocking path would
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        return created(product, dryRun, context);
+    }
+
+    /**
+     * Finishes a stored product: evicts the cached listings, registers it with logistics and returns
+     * 201. A dry run only evicts its own category's listing and returns 200.
+     *
+     * @param product The product.
+     * @param dryRun  Whether the write was a dry run.
+     * @param context The Lambda execution context.
+     * @return The API Gateway proxy response event.
+     * @throws Exception If the product cannot be serialized.
+     */
+    private APIGatewayProxyResponseEvent created(Product product, boolean dryRun, Context context) throws Exception {
+        if (dryRun) {
+            invalidateCache(context, ProductCatalog.categoryKey(product.getCategory()));
+            return createCreatedResponse(product).withStatusCode(200);
+        }
+        invalidateCache(context, ProductCatalog.ALL_KEY, ProductCatalog.categoryKey(product.getCategory()));
+        registerWithLogistics(product, context);
+        return createCreatedResponse(product);
+    }
+
+    /**
+     * Registers the created product with the logistics provider, if one is configured. The product
+     * is stored either way, so a failure is logged rather than returned.
+     *
+     * @param product The created product.
+     * @param context The Lambda execution context.
+     */
+    private void registerWithLogistics(Product product, Context context) {
+        if (logisticsClient == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Tracing.trace("Logistics.Register", () -> {
+                logisticsClient.registerProduct(product);
+                return null;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            context.getLogger().log("Interrupted registering product " + product.getId() + " with logistics");
+        } catch (Exception e) {
+            context.getLogger().log("Could not register product " + product.getId() + " with logistics: " + e.getMessage());
+        } finally {
+            Metrics.get().recordLatency("Logistics.Register", start);
+        }
+    }
+
+    /**
+     * Assigns the ID and initial version and maps the product to a DynamoDB item.
+     * The encrypted supplier email is added separately.
+     *
+     * @param product The validated product.
+     * @return The DynamoDB item.
+     */
+    private Map<String, AttributeValue> createItem(Product product) {
+        if (product.getId() == null) {
+            product.setId(UUID.randomUUID().toString());
         }
+        // Initialize version for new products
+        product.setVersion(1);
+
+        return ProductCatalog.toItem(product);
+    }
+
+    /**
+     * Builds the KMS request that encrypts the supplier email.
+     *
+     * @param product The product with a supplier email.
+     * @return The encrypt request.
+     */
+    private EncryptRequest createEncryptRequest(Product product) {
+        return EncryptRequest.builder()
+                .keyId(kmsKeyId)
+                .plaintext(SdkBytes.fromUtf8String(product.getSupplierEmail()))
+                .build();
+    }
+
+    /**
+     * Builds the conditional put that refuses to overwrite an existing product. A dry run's put
+     * carries a condition that never holds, so it is evaluated but never applied.
+     *
+     * @param item   The DynamoDB item.
+     * @param dryRun Whether this is a dry run.
+     * @return The put request.
+     */
+    private PutItemRequest createPutItemRequest(Map<String, AttributeValue> item, boolean dryRun) {
+        return PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .conditionExpression(dryRun ? DryRun.NEVER : "attribute_not_exists(PK)")
+                .build();
+    }
+
+    /**
+     * Evicts cached listings after a write: the full listing and the product's category listing.
+     * Other keys, such as the access counters and the sales rankings, are kept.
+     *
+     * @param context The Lambda execution context.
+     * @param keys    The listing keys to evict.
+     */
+    private void invalidateCache(Context context, String... keys) {
+        JedisPool pool = jedisPool.get();
+        if (pool != null) {
+            try (Jedis jedis = pool.getResource()) {
+                long start = System.nanoTime();
+                Tracing.trace("Redis.Del", () -> jedis.del(keys));
+                Metrics.get().recordLatency("Redis.Del", start);
+                context.getLogger().log("Redis cache invalidated.");
+            } catch (Exception e) {
+                context.getLogger().log("Redis eviction error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Builds the 201 response carrying the created product.
+     *
+     * @param product The created product.
+     * @return The API Gateway proxy response event.
+     * @throws Exception If the product cannot be serialized.
+     */
+    private APIGatewayProxyResponseEvent createCreatedResponse(Product product) throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(201)
+                .withHeaders(headers)
+                .withBody(jsonCodec.write(product));
     }
-}
\ No newline at end of file
+}
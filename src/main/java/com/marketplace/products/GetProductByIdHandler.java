@@ -4,39 +4,56 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.model.MarketplaceJson;
 import com.marketplace.model.Product;
-import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import com.amazonaws.xray.interceptors.TracingInterceptor;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.kms.model.DecryptRequest;
 import software.amazon.awssdk.services.kms.model.DecryptResponse;
 import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.Deadline;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import org.crac.Core;
+import org.crac.Resource;
 
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Lambda handler for retrieving a specific product by its ID.
  */
-public class GetProductByIdHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class GetProductByIdHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
+
+    // Time kept back from the Lambda deadline to build the timeout response
+    private static final long DEADLINE_MARGIN_MILLIS = 500;
 
     private final DynamoDbClient dynamoDbClient;
     private final KmsClient kmsClient;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final KmsAsyncClient kmsAsyncClient;
+    private final boolean asyncEnabled;
     private final String tableName;
-    private final ObjectMapper objectMapper;
+    private final JsonCodec jsonCodec;
 
     /**
      * Initializes the DynamoDB client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public GetProductByIdHandler() {
         this(null, null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -47,20 +64,68 @@ public class GetProductByIdHandler implements RequestHandler<APIGatewayProxyRequ
      * @param tableName      The DynamoDB table name.
      */
     GetProductByIdHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, String tableName) {
-        ClientOverrideConfiguration xRayConfig = ClientUtils.getXRayConfig();
+        this(dynamoDbClient, kmsClient, null, null, tableName, Boolean.parseBoolean(System.getenv("ASYNC_SDK_ENABLED")));
+    }
 
+    /**
+     * Constructor for dependency injection of both the blocking and the asynchronous clients.
+     * The async clients are only created when the async mode is enabled.
+     *
+     * @param dynamoDbClient      The DynamoDB client.
+     * @param kmsClient           The KMS client.
+     * @param dynamoDbAsyncClient The async DynamoDB client.
+     * @param kmsAsyncClient      The async KMS client.
+     * @param tableName           The DynamoDB table name.
+     * @param asyncEnabled        Whether to pipeline the AWS calls on the async clients.
+     */
+    GetProductByIdHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, DynamoDbAsyncClient dynamoDbAsyncClient,
+                          KmsAsyncClient kmsAsyncClient, String tableName, boolean asyncEnabled) {
         this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient : 
-                ClientUtils.configureEndpoint(DynamoDbClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder);
 
         this.kmsClient = kmsClient != null ? kmsClient : 
-                ClientUtils.configureEndpoint(KmsClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder);
+
+        this.asyncEnabled = asyncEnabled;
+        if (asyncEnabled) {
+            this.dynamoDbAsyncClient = dynamoDbAsyncClient != null ? dynamoDbAsyncClient :
+                    ClientUtils.getAsyncClient(DynamoDbAsyncClient.class, DynamoDbAsyncClient::builder);
+            this.kmsAsyncClient = kmsAsyncClient != null ? kmsAsyncClient :
+                    ClientUtils.getAsyncClient(KmsAsyncClient.class, KmsAsyncClient::builder);
+        } else {
+            this.dynamoDbAsyncClient = null;
+            this.kmsAsyncClient = null;
+        }
 
         this.tableName = tableName != null ? tableName : System.getenv("TABLE_NAME");
-        this.objectMapper = new ObjectMapper();
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Primes Jackson, the SDK request pipeline and the hot-path classes before the SnapStart snapshot.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.preloadClasses("software.amazon.awssdk.services.kms.model.DecryptResponse");
+        Priming.run(() -> dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "PK", AttributeValue.builder().s("PROD#priming").build(),
+                        "SK", AttributeValue.builder().s("METADATA").build()))
+                .build()));
+    }
+
+    /**
+     * Refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
     }
 
     /**
@@ -72,48 +137,22 @@ public class GetProductByIdHandler implements RequestHandler<APIGatewayProxyRequ
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products/{id}"),
+                () -> getProduct(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Looks up the product.
+     */
+    private APIGatewayProxyResponseEvent getProduct(APIGatewayProxyRequestEvent input, Context context) {
         try {
             String productId = input.getPathParameters().get("id");
-            
-            Map<String, AttributeValue> key = new HashMap<>();
-            key.put("PK", AttributeValue.builder().s("PROD#" + productId).build());
-            key.put("SK", AttributeValue.builder().s("METADATA").build());
-
-            GetItemRequest getItemRequest = GetItemRequest.builder()
-                    .tableName(tableName)
-                    .key(key)
-                    .build();
 
-            GetItemResponse getItemResponse = dynamoDbClient.getItem(getItemRequest);
-
-            if (!getItemResponse.hasItem()) {
+            Product product = asyncEnabled ? fetchProductAsync(productId, context) : fetchProduct(productId);
+            if (product == null) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(404)
-                        .withBody("{\"error\": \"Product not found\"}");
-            }
-
-            Map<String, AttributeValue> item = getItemResponse.item();
-            Product product = new Product();
-            product.setId(item.get("id").s());
-            product.setName(item.get("name").s());
-            product.setPrice(Double.parseDouble(item.get("price").n()));
-            product.setCategory(item.get("category").s());
-            if (item.containsKey("version")) {
-                product.setVersion(Integer.parseInt(item.get("version").n()));
-            }
-            if (item.containsKey("stockQuantity")) {
-                product.setStockQuantity(Integer.parseInt(item.get("stockQuantity").n()));
-            }
-
-            // KMS Decryption for sensitive supplier email
-            if (item.containsKey("supplierEmail")) {
-                byte[] decodedCiphertext = Base64.getDecoder().decode(item.get("supplierEmail").s());
-                DecryptRequest decryptRequest = DecryptRequest.builder()
-                        .ciphertextBlob(SdkBytes.fromByteArray(decodedCiphertext))
-                        .build();
-                
-                DecryptResponse decryptResponse = kmsClient.decrypt(decryptRequest);
-                product.setSupplierEmail(decryptResponse.plaintext().asUtf8String());
+                        .withBody(JsonCodec.errorBody("Product not found"));
             }
 
             Map<String, String> headers = new HashMap<>();
@@ -122,13 +161,108 @@ public class GetProductByIdHandler implements RequestHandler<APIGatewayProxyRequ
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
                     .withHeaders(headers)
-                    .withBody(objectMapper.writeValueAsString(product));
+                    .withBody(jsonCodec.write(product));
 
+        } catch (TimeoutException e) {
+            context.getLogger().log("Fetching product timed out before the Lambda deadline");
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(504)
+                    .withBody(JsonCodec.errorBody("Timed out fetching product"));
         } catch (Exception e) {
             context.getLogger().log("Error fetching product: " + e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not fetch product\"}");
+                    .withBody(JsonCodec.errorBody("Could not fetch product"));
+        }
+    }
+
+    /**
+     * Reads and decrypts the product with the blocking clients.
+     *
+     * @param productId The product ID.
+     * @return The product, or null if it does not exist.
+     */
+    private Product fetchProduct(String productId) {
+        GetItemResponse getItemResponse = dynamoDbClient.getItem(createGetItemRequest(productId));
+        if (!getItemResponse.hasItem()) {
+            return null;
+        }
+
+        Map<String, AttributeValue> item = getItemResponse.item();
+        Product product = ProductCatalog.toPublicProduct(item);
+
+        // KMS Decryption for sensitive supplier email
+        if (item.containsKey("supplierEmail")) {
+            DecryptResponse decryptResponse = kmsClient.decrypt(createDecryptRequest(item));
+            product.setSupplierEmail(decryptResponse.plaintext().asUtf8String());
+        }
+        return product;
+    }
+
+    /**
+     * Reads the product and pipelines the decryption onto the read with the async clients,
+     * cancelling both calls when the Lambda deadline is about to pass.
+     *
+     * @param productId The product ID.
+     * @param context   The Lambda execution context.
+     * @return The product, or null if it does not exist.
+     * @throws Exception If one of the AWS calls fails or the deadline passes.
+     */
+    private Product fetchProductAsync(String productId, Context context) throws Exception {
+        Deadline deadline = Deadline.fromRemainingMillis(context.getRemainingTimeInMillis(), DEADLINE_MARGIN_MILLIS);
+
+        CompletableFuture<Product> productFuture = deadline.track(dynamoDbAsyncClient.getItem(createGetItemRequest(productId)))
+                .thenCompose(getItemResponse -> {
+                    if (!getItemResponse.hasItem()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    Map<String, AttributeValue> item = getItemResponse.item();
+                    Product product = ProductCatalog.toPublicProduct(item);
+                    if (!item.containsKey("supplierEmail")) {
+                        return CompletableFuture.completedFuture(product);
+                    }
+                    return deadline.track(kmsAsyncClient.decrypt(createDecryptRequest(item)))
+                            .thenApply(decryptResponse -> {
+                                product.setSupplierEmail(decryptResponse.plaintext().asUtf8String());
+                                return product;
+                            });
+                });
+
+        try {
+            return deadline.await(productFuture);
+        } catch (ExecutionException e) {
+            // Surface the SDK exception itself, as the blocking path would
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the key lookup for a product's metadata item.
+     *
+     * @param productId The product ID.
+     * @return The get item request.
+     */
+    private GetItemRequest createGetItemRequest(String productId) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("PK", AttributeValue.builder().s("PROD#" + productId).build());
+        key.put("SK", AttributeValue.builder().s("METADATA").build());
+
+        return GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key)
+                .build();
+    }
+
+    /**
+     * Builds the KMS request that decrypts the stored supplier email.
+     *
+     * @param item The DynamoDB item holding the Base64 ciphertext.
+     * @return The decrypt request.
+     */
+    private DecryptRequest createDecryptRequest(Map<String, AttributeValue> item) {
+        byte[] decodedCiphertext = Base64.getDecoder().decode(item.get("supplierEmail").s());
+        return DecryptRequest.builder()
+                .ciphertextBlob(SdkBytes.fromByteArray(decodedCiphertext))
+                .build();
+    }
+}
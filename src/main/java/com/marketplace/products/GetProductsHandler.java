@@ -4,28 +4,29 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.model.MarketplaceJson;
 import com.marketplace.model.Product;
-import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
-import com.amazonaws.xray.interceptors.TracingInterceptor;
-import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.kms.KmsClient;
-import software.amazon.awssdk.services.kms.model.DecryptRequest;
-import software.amazon.awssdk.services.kms.model.DecryptResponse;
 import software.amazon.awssdk.services.ssm.SsmClient;
-import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.config.ParameterStoreConfig;
+import com.marketplace.snapstart.Priming;
 import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.ConfigProvider;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import com.marketplace.utils.Tracing;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import org.crac.Core;
+import org.crac.Resource;
 
-import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,20 +34,23 @@ import java.util.Map;
 /**
  * Lambda handler for retrieving all products from the marketplace.
  */
-public class GetProductsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class GetProductsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
 
     private final DynamoDbClient dynamoDbClient;
     private final KmsClient kmsClient;
     private final SsmClient ssmClient;
+    private final ConfigProvider config;
     private final String tableName;
-    private final ObjectMapper objectMapper;
-    private static JedisPool jedisPool;
+    private final JsonCodec jsonCodec;
+    private final ProductCatalog catalog;
 
     /**
      * Initializes the DynamoDB client and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public GetProductsHandler() {
         this(null, null, null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -59,51 +63,82 @@ public class GetProductsHandler implements RequestHandler<APIGatewayProxyRequest
      */
     GetProductsHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, 
                        SsmClient ssmClient, String tableName) {
-        ClientOverrideConfiguration xRayConfig = ClientUtils.getXRayConfig();
+        this(dynamoDbClient, kmsClient, ssmClient, tableName, System.getenv("CONFIG_PATH"));
+    }
 
+    /**
+     * Constructor for dependency injection with an explicit configuration path.
+     * Nothing is read from SSM here; the parameters are loaded on first use or before the SnapStart snapshot.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param kmsClient      The KMS client.
+     * @param ssmClient      The SSM client.
+     * @param tableName      The DynamoDB table name, or null to read it from the configuration.
+     * @param configPath     The SSM parameter path, or null to use TABLE_NAME only.
+     */
+    GetProductsHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient,
+                       SsmClient ssmClient, String tableName, String configPath) {
         this.dynamoDbClient = dynamoDbClient != null ? dynamoDbClient :
-                ClientUtils.configureEndpoint(DynamoDbClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder);
 
         this.kmsClient = kmsClient != null ? kmsClient :
-                ClientUtils.configureEndpoint(KmsClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder);
 
         this.ssmClient = ssmClient != null ? ssmClient :
-                ClientUtils.configureEndpoint(SsmClient.builder())
-                .overrideConfiguration(xRayConfig)
-                .build();
-
-        if (tableName != null) {
-            this.tableName = tableName;
-        } else {
-            String ssmParamName = System.getenv("SSM_PARAMETER_NAME");
-            if (ssmParamName != null) {
-                this.tableName = this.ssmClient.getParameter(GetParameterRequest.builder()
-                        .name(ssmParamName)
-                        .build()).parameter().value();
-            } else {
-                this.tableName = System.getenv("TABLE_NAME");
-            }
+                ClientUtils.getClient(SsmClient.class, SsmClient::builder);
+
+        this.config = tableName == null && configPath != null
+                ? ParameterStoreConfig.create(this.ssmClient, configPath)
+                : null;
+        this.tableName = tableName != null ? tableName : System.getenv("TABLE_NAME");
+        this.jsonCodec = MarketplaceJson.CODEC;
+        this.catalog = new ProductCatalog(this.dynamoDbClient, this.kmsClient);
+    }
+
+    /**
+     * Resolves the table name from the configuration if one is used, otherwise from TABLE_NAME.
+     * A configuration hit is a map lookup; stale values are refreshed in the background.
+     *
+     * @return The DynamoDB table name.
+     */
+    private String resolveTableName() {
+        return config != null ? config.get(ParameterStoreConfig.TABLE_NAME, tableName) : tableName;
+    }
+
+    /**
+     * Primes Jackson, the DynamoDB marshallers and the hot-path classes before the SnapStart snapshot,
+     * and drops Redis connections that would not survive it.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.primeJson(jsonCodec);
+        Priming.preloadClasses(
+                "software.amazon.awssdk.services.dynamodb.model.QueryResponse",
+                "software.amazon.awssdk.services.kms.model.DecryptResponse");
+        if (config != null) {
+            Priming.run(config::refresh);
         }
-        
-        this.objectMapper = new ObjectMapper();
-        initializeRedisPool();
+        Priming.run(() -> dynamoDbClient.scan(ScanRequest.builder()
+                .tableName(resolveTableName())
+                .limit(1)
+                .build()));
+        RedisConnections.close();
     }
 
     /**
-     * Initializes the Redis connection pool using environment variables.
+     * Re-opens Redis, refreshes credentials and refreshes the configuration in the background after a restore.
+     *
+     * @param context The CRaC context.
      */
-    private void initializeRedisPool() {
-        if (jedisPool == null) {
-            String redisHost = System.getenv("REDIS_HOST");
-            String redisPort = System.getenv("REDIS_PORT");
-            if (redisHost != null && redisPort != null) {
-                jedisPool = new JedisPool(new JedisPoolConfig(), redisHost, Integer.parseInt(redisPort));
-            }
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
+        if (config != null) {
+            config.refreshAsync();
         }
+        RedisConnections.reconnect();
     }
 
     /**
@@ -115,88 +150,72 @@ public class GetProductsHandler implements RequestHandler<APIGatewayProxyRequest
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products"),
+                () -> listProducts(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Lists the products, from Redis when cached.
+     */
+    private APIGatewayProxyResponseEvent listProducts(APIGatewayProxyRequestEvent input, Context context) {
+        Metrics metrics = Metrics.get();
         try {
             Map<String, String> queryParams = input.getQueryStringParameters();
             String category = (queryParams != null) ? queryParams.get("category") : null;
             
-            String cacheKey = (category != null) ? "products:cat:" + category : "products:all";
+            String cacheKey = (category != null) ? ProductCatalog.categoryKey(category) : ProductCatalog.ALL_KEY;
+            String keyPrefix = (category != null) ? "products:cat" : "products:all";
+            JedisPool jedisPool = RedisConnections.getPool();
+            // Version counter of the listing before the table is read; null (absent) if Redis failed
+            String version = null;
 
             // 1. Try to fetch from Redis Cache
             if (jedisPool != null) {
                 try (Jedis jedis = jedisPool.getResource()) {
-                    String cachedProducts = jedis.get(cacheKey);
-                    if (cachedProducts != null) {
+                    long start = System.nanoTime();
+                    CachedListing cached = Tracing.trace("Redis.Get", () -> {
+                        CachedListing listing = getListing(jedis, cacheKey, category);
+                        Tracing.annotate("key_prefix", keyPrefix);
+                        Tracing.annotate("cache_hit", listing.json != null);
+                        return listing;
+                    });
+                    metrics.recordLatency("Redis.Get", start);
+                    metrics.recordCacheAccess("ProductCache", cached.json != null);
+                    if (cached.json != null) {
                         context.getLogger().log("Cache hit for key: " + cacheKey);
-                        return createResponse(200, cachedProducts);
+                        return createResponse(200, cached.json);
                     }
+                    version = cached.version;
                 } catch (Exception e) {
                     context.getLogger().log("Redis error: " + e.getMessage());
                 }
             }
 
             // 2. Fallback to DynamoDB
-            List<Map<String, AttributeValue>> items;
-
-            if (category != null && !category.isEmpty()) {
-                // Use GSI1 for efficient category filtering
-                QueryRequest queryRequest = QueryRequest.builder()
-                        .tableName(tableName)
-                        .indexName("GSI1")
-                        .keyConditionExpression("category = :cat")
-                        .expressionAttributeValues(Map.of(
-                                ":cat", AttributeValue.builder().s(category).build()
-                        ))
-                        .build();
-                items = dynamoDbClient.query(queryRequest).items();
-            } else {
-                // Fallback to scan if no category is provided (standard behavior)
-                ScanRequest scanRequest = ScanRequest.builder()
-                        .tableName(tableName)
-                        .filterExpression("begins_with(PK, :prodPrefix) AND SK = :metadata")
-                        .expressionAttributeValues(Map.of(
-                                ":prodPrefix", AttributeValue.builder().s("PROD#").build(),
-                                ":metadata", AttributeValue.builder().s("METADATA").build()
-                        ))
-                        .build();
-                items = dynamoDbClient.scan(scanRequest).items();
-            }
-
-            List<Product> products = new ArrayList<>();
-
-            for (Map<String, AttributeValue> item : items) {
-                Product product = new Product();
-                product.setId(item.get("id").s());
-                product.setName(item.get("name").s());
-                product.setPrice(Double.parseDouble(item.get("price").n()));
-                product.setCategory(item.get("category").s());
-                if (item.containsKey("version")) {
-                    product.setVersion(Integer.parseInt(item.get("version").n()));
-                }
-                if (item.containsKey("stockQuantity")) {
-                    product.setStockQuantity(Integer.parseInt(item.get("stockQuantity").n()));
-                }
-
-                // KMS Decryption for sensitive supplier email
-                if (item.containsKey("supplierEmail")) {
-                    byte[] decodedCiphertext = Base64.getDecoder().decode(item.get("supplierEmail").s());
-                    DecryptRequest decryptRequest = DecryptRequest.builder()
-                            .ciphertextBlob(SdkBytes.fromByteArray(decodedCiphertext))
-                            .build();
-                    
-                    DecryptResponse decryptResponse = kmsClient.decrypt(decryptRequest);
-                    product.setSupplierEmail(decryptResponse.plaintext().asUtf8String());
-                }
+            List<Map<String, AttributeValue>> items = catalog.loadItems(resolveTableName(), category);
 
-                products.add(product);
-            }
+            List<Product> products = Tracing.trace("DecryptItems", () -> {
+                Tracing.annotate("item_count", items.size());
+                return catalog.toProducts(items);
+            });
 
-            String productsJson = objectMapper.writeValueAsString(products);
+            String productsJson = Tracing.trace("SerializeProducts", () -> {
+                Tracing.annotate("item_count", products.size());
+                return jsonCodec.write(products, MarketplaceJson.PRODUCT_LIST);
+            });
 
-            // 3. Save to Redis Cache (with 60s TTL)
+            // 3. Save to Redis Cache (CACHE_TTL_SECONDS; the table stream keeps it current meanwhile),
+            // unless a change was streamed while the table was read
             if (jedisPool != null) {
+                String readVersion = version;
                 try (Jedis jedis = jedisPool.getResource()) {
-                    jedis.setex(cacheKey, 60, productsJson);
-                    context.getLogger().log("Cache updated for key: " + cacheKey);
+                    long start = System.nanoTime();
+                    boolean filled = Tracing.trace("Redis.SetEx", () -> {
+                        Tracing.annotate("key_prefix", keyPrefix);
+                        return ProductCatalog.fillIfUnchanged(jedis, cacheKey, productsJson, readVersion, false);
+                    });
+                    metrics.recordLatency("Redis.SetEx", start);
+                    context.getLogger().log((filled ? "Cache updated for key: " : "Listing changed while read, not cached: ") + cacheKey);
                 } catch (Exception e) {
                     context.getLogger().log("Redis save error: " + e.getMessage());
                 }
@@ -208,7 +227,43 @@ public class GetProductsHandler implements RequestHandler<APIGatewayProxyRequest
             context.getLogger().log("Error fetching products: " + e.getMessage());
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not fetch products\"}");
+                    .withBody(JsonCodec.errorBody("Could not fetch products"));
+        }
+    }
+
+    /**
+     * Reads a listing with its version counter and, for a category, counts the request in the current
+     * hour's access bucket, in one round trip. {@link CatalogCacheWarmerHandler} warms the most
+     * requested categories from these counts.
+     *
+     * @param jedis    The Redis connection.
+     * @param cacheKey The listing's cache key.
+     * @param category The requested category, or null for the full list.
+     * @return The cached listing, null on a miss, and the version counter.
+     */
+    private static CachedListing getListing(Jedis jedis, String cacheKey, String category) {
+        Pipeline pipeline = jedis.pipelined();
+        Response<String> cached = pipeline.get(cacheKey);
+        Response<String> version = pipeline.get(ProductCatalog.versionKey(cacheKey));
+        if (category != null) {
+            String accessKey = ProductCatalog.accessKey(System.currentTimeMillis() / 3_600_000);
+            pipeline.zincrby(accessKey, 1, category);
+            pipeline.expire(accessKey, ProductCatalog.ACCESS_BUCKET_TTL_SECONDS);
+        }
+        pipeline.sync();
+        return new CachedListing(cached.get(), version.get());
+    }
+
+    /**
+     * A cached listing, null on a miss, and the listing's version counter, null if absent.
+     */
+    private static final class CachedListing {
+        private final String json;
+        private final String version;
+
+        private CachedListing(String json, String version) {
+            this.json = json;
+            this.version = version;
         }
     }
 
@@ -0,0 +1,204 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Lambda handler for importing many products at once, from an NDJSON body or from an NDJSON object
+ * under {@code imports/} in the assets bucket. It replaces one {@code POST /products} per product
+ * when a seller is onboarded. The products are written by a {@link ProductImporter}.
+ *
+ * <p>A body is imported while the request waits, and the response has the outcome of every line.
+ * An object can hold far more products than fit in API Gateway's 29 second limit, so it is imported
+ * by {@link ImportProductsWorkerHandler} instead: the request only checks that the object exists,
+ * invokes the worker asynchronously and returns 202 with the key of the results object the worker
+ * writes, and a presigned URL to read it.
+ */
+public class ImportProductsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    /** Prefix of the objects an import may read. */
+    static final String IMPORT_PREFIX = "imports/";
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final Duration RESULTS_URL_EXPIRY = Duration.ofHours(1);
+
+    private final ProductImporter importer;
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final LambdaClient lambdaClient;
+    private final String bucketName;
+    private final String workerFunctionName;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * Initializes the clients and reads IMPORT_PARALLELISM (default 8) and IMPORT_WORKER_FUNCTION.
+     */
+    public ImportProductsHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder),
+                AssetStorage.createClient(),
+                AssetStorage.createPresigner(),
+                ClientUtils.getClient(LambdaClient.class, LambdaClient::builder),
+                RedisConnections::getPool,
+                System.getenv("TABLE_NAME"),
+                System.getenv("KMS_KEY_ID"),
+                System.getenv("ASSETS_BUCKET_NAME"),
+                System.getenv("IMPORT_WORKER_FUNCTION"),
+                importParallelism());
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient     The DynamoDB client.
+     * @param kmsClient          The KMS client.
+     * @param s3Client           The S3 client.
+     * @param s3Presigner        The S3 presigner.
+     * @param lambdaClient       The Lambda client.
+     * @param jedisPool          Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName          The DynamoDB table name.
+     * @param kmsKeyId           The KMS Key ID.
+     * @param bucketName         The bucket the import files are read from.
+     * @param workerFunctionName The function that imports files from the bucket.
+     * @param parallelism        How many chunks are written at a time.
+     */
+    ImportProductsHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, S3Client s3Client,
+                          S3Presigner s3Presigner, LambdaClient lambdaClient, Supplier<JedisPool> jedisPool,
+                          String tableName, String kmsKeyId, String bucketName, String workerFunctionName,
+                          int parallelism) {
+        this.importer = new ProductImporter(dynamoDbClient, kmsClient, jedisPool, tableName, kmsKeyId, parallelism);
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
+        this.lambdaClient = lambdaClient;
+        this.bucketName = bucketName;
+        this.workerFunctionName = workerFunctionName;
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Reads IMPORT_PARALLELISM, shared with the worker.
+     */
+    static int importParallelism() {
+        return System.getenv("IMPORT_PARALLELISM") != null
+                ? Integer.parseInt(System.getenv("IMPORT_PARALLELISM")) : DEFAULT_PARALLELISM;
+    }
+
+    /**
+     * Handles the POST request to import products.
+     *
+     * @param input   The API Gateway proxy request event, with NDJSON in the body or an {@code s3Key} query parameter.
+     * @param context The Lambda execution context.
+     * @return The counts and the outcome of every line, or for an object, where its results will be written.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "POST /products/import"),
+                () -> importProducts(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Imports the body, or hands the S3 object to the worker.
+     */
+    private APIGatewayProxyResponseEvent importProducts(APIGatewayProxyRequestEvent input, Context context) {
+        Map<String, String> queryParams = input.getQueryStringParameters();
+        String s3Key = queryParams != null ? queryParams.get("s3Key") : null;
+        if (s3Key != null && (!s3Key.startsWith(IMPORT_PREFIX) || s3Key.contains(".."))) {
+            return createResponse(400, JsonCodec.errorBody("s3Key must be under " + IMPORT_PREFIX, "s3Key", s3Key));
+        }
+        if (s3Key != null) {
+            return startImport(s3Key, context);
+        }
+        if (input.getBody() == null || input.getBody().isBlank()) {
+            return createResponse(400, JsonCodec.errorBody("An NDJSON body or an s3Key is required"));
+        }
+
+        try (BufferedReader lines = new BufferedReader(new StringReader(input.getBody()))) {
+            return createResponse(200, importer.importLines(lines, context));
+        } catch (Exception e) {
+            context.getLogger().log("Error importing products: " + e);
+            return createResponse(500, JsonCodec.errorBody("Could not import products"));
+        }
+    }
+
+    /**
+     * Checks that the file exists and invokes the worker asynchronously. The response names the
+     * results object and has a URL to read it once the worker wrote it.
+     */
+    private APIGatewayProxyResponseEvent startImport(String s3Key, Context context) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return createResponse(404, JsonCodec.errorBody("Import file not found", "s3Key", s3Key));
+        }
+
+        String importId = UUID.randomUUID().toString();
+        String resultsKey = ImportProductsWorkerHandler.resultsKey(importId);
+        try {
+            String payload = jsonCodec.createObjectNode()
+                    .put("importId", importId)
+                    .put("s3Key", s3Key)
+                    .toString();
+            lambdaClient.invoke(InvokeRequest.builder()
+                    .functionName(workerFunctionName)
+                    .invocationType(InvocationType.EVENT)
+                    .payload(SdkBytes.fromUtf8String(payload))
+                    .build());
+            String resultsUrl = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                    .signatureDuration(RESULTS_URL_EXPIRY)
+                    .getObjectRequest(request -> request.bucket(bucketName).key(resultsKey))
+                    .build()).url().toString();
+            context.getLogger().log("Started import " + importId + " of " + s3Key);
+            return createResponse(202, jsonCodec.createObjectNode()
+                    .put("importId", importId)
+                    .put("resultsKey", resultsKey)
+                    .put("resultsUrl", resultsUrl)
+                    .toString());
+        } catch (Exception e) {
+            context.getLogger().log("Error starting import of " + s3Key + ": " + e);
+            return createResponse(500, JsonCodec.errorBody("Could not start import"));
+        }
+    }
+
+    /**
+     * Creates an APIGatewayProxyResponseEvent with the specified status code and body.
+     *
+     * @param statusCode The HTTP status code.
+     * @param body       The response body as a JSON string.
+     * @return The configured response event.
+     */
+    private static APIGatewayProxyResponseEvent createResponse(int statusCode, String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
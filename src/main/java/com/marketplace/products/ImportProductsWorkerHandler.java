@@ -0,0 +1,135 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lambda function that imports an NDJSON object from the assets bucket, invoked asynchronously by
+ * {@link ImportProductsHandler}. It runs with a much longer timeout than API Gateway allows, so a
+ * seller's whole catalog fits in one import.
+ *
+ * <p>The event has the {@code importId} and the {@code s3Key} of the object. The object is streamed
+ * through a {@link ProductImporter}, and its summary, the same JSON that a body import returns, is
+ * written to {@code import-results/<importId>.json}. If the import cannot run, the results object
+ * has an {@code error} instead, so callers never wait for results that will not come.
+ */
+public class ImportProductsWorkerHandler implements RequestHandler<Map<String, Object>, String> {
+
+    /** Prefix of the results objects. */
+    static final String RESULTS_PREFIX = "import-results/";
+
+    private final ProductImporter importer;
+    private final S3Client s3Client;
+    private final String bucketName;
+
+    /**
+     * Initializes the clients and reads IMPORT_PARALLELISM (default 8).
+     */
+    public ImportProductsWorkerHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder),
+                AssetStorage.createClient(),
+                RedisConnections::getPool,
+                System.getenv("TABLE_NAME"),
+                System.getenv("KMS_KEY_ID"),
+                System.getenv("ASSETS_BUCKET_NAME"),
+                ImportProductsHandler.importParallelism());
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param kmsClient      The KMS client.
+     * @param s3Client       The S3 client.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName      The DynamoDB table name.
+     * @param kmsKeyId       The KMS Key ID.
+     * @param bucketName     The bucket the import files are read from and the results written to.
+     * @param parallelism    How many chunks are written at a time.
+     */
+    ImportProductsWorkerHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, S3Client s3Client,
+                                Supplier<JedisPool> jedisPool, String tableName, String kmsKeyId, String bucketName,
+                                int parallelism) {
+        this.importer = new ProductImporter(dynamoDbClient, kmsClient, jedisPool, tableName, kmsKeyId, parallelism);
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * @param importId The ID of an import.
+     * @return The key of the import's results object.
+     */
+    static String resultsKey(String importId) {
+        return RESULTS_PREFIX + importId + ".json";
+    }
+
+    /**
+     * Handles the invocation from {@link ImportProductsHandler}.
+     *
+     * @param event   The event, with {@code importId} and {@code s3Key}.
+     * @param context The Lambda execution context.
+     * @return The key of the results object.
+     */
+    @Override
+    public String handleRequest(Map<String, Object> event, Context context) {
+        return Metrics.get().measure("import", () -> importObject(event, context), key -> "ok");
+    }
+
+    /**
+     * Streams the object through the importer and writes the results.
+     */
+    private String importObject(Map<String, Object> event, Context context) {
+        String importId = (String) event.get("importId");
+        String s3Key = (String) event.get("s3Key");
+        if (importId == null || s3Key == null) {
+            throw new IllegalArgumentException("importId and s3Key are required");
+        }
+
+        String results;
+        // The API handler checked the key, but the worker can be invoked directly
+        if (!s3Key.startsWith(ImportProductsHandler.IMPORT_PREFIX) || s3Key.contains("..")) {
+            results = JsonCodec.errorBody("s3Key must be under " + ImportProductsHandler.IMPORT_PREFIX, "s3Key", s3Key);
+        } else {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build()), StandardCharsets.UTF_8), 64 * 1024)) {
+                results = importer.importLines(lines, context);
+            } catch (NoSuchKeyException e) {
+                results = JsonCodec.errorBody("Import file not found", "s3Key", s3Key);
+            } catch (Exception e) {
+                context.getLogger().log("Error importing " + s3Key + ": " + e);
+                // Products written before the failure stay; importing the file again reports them as conflicts
+                results = JsonCodec.errorBody("Could not import products", "s3Key", s3Key);
+            }
+        }
+
+        String resultsKey = resultsKey(importId);
+        s3Client.putObject(PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(resultsKey)
+                .contentType("application/json")
+                .build(), RequestBody.fromString(results, StandardCharsets.UTF_8));
+        context.getLogger().log("Wrote results of import " + importId + " to " + resultsKey);
+        return resultsKey;
+    }
+}
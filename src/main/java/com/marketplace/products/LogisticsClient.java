@@ -0,0 +1,96 @@
+package com.marketplace.products;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.SecretCache;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Registers new products with the external logistics provider. Requests carry the provider's API
+ * key, read from the {@code api_key} field of the logistics secret through a {@link SecretCache}.
+ *
+ * <p>When the provider rejects the key (401 or 403), the secret is reloaded once with
+ * {@link SecretCache#forceRefresh} and the request is sent again, so a rotated key is used before
+ * the cached value expires.
+ */
+final class LogisticsClient {
+
+    /** Header carrying the API key. */
+    static final String API_KEY_HEADER = "x-api-key";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient httpClient;
+    private final URI productsUri;
+    private final SecretCache secretCache;
+    private final String secretArn;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * @param httpClient  The HTTP client.
+     * @param baseUrl     The provider's base URL; products are posted to {@code <baseUrl>/products}.
+     * @param secretCache Caches the logistics secret.
+     * @param secretArn   The ARN of the logistics secret.
+     */
+    LogisticsClient(HttpClient httpClient, String baseUrl, SecretCache secretCache, String secretArn) {
+        this.httpClient = httpClient;
+        this.productsUri = URI.create(baseUrl.endsWith("/") ? baseUrl + "products" : baseUrl + "/products");
+        this.secretCache = secretCache;
+        this.secretArn = secretArn;
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Registers a product, retrying once with a reloaded key if the cached one is rejected.
+     *
+     * @param product The created product.
+     * @throws IOException          If the provider cannot be reached or refuses the product.
+     * @throws InterruptedException If interrupted while waiting for the provider.
+     */
+    void registerProduct(Product product) throws IOException, InterruptedException {
+        String body = jsonCodec.createObjectNode()
+                .put("productId", product.getId())
+                .put("name", product.getName())
+                .put("category", product.getCategory())
+                .put("stockQuantity", product.getStockQuantity())
+                .toString();
+
+        int status = send(body, apiKey(secretCache.get(secretArn)));
+        if (status == 401 || status == 403) {
+            // The key may have been rotated since it was cached
+            status = send(body, apiKey(secretCache.forceRefresh(secretArn, SecretCache.CURRENT)));
+        }
+        if (status < 200 || status >= 300) {
+            throw new IOException("Logistics provider returned " + status + " for product " + product.getId());
+        }
+    }
+
+    private int send(String body, String apiKey) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(productsUri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header(API_KEY_HEADER, apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Reads the API key from the secret's JSON.
+     */
+    private String apiKey(String secret) throws IOException {
+        JsonNode apiKey = secret != null ? jsonCodec.readTree(secret).path("api_key") : null;
+        if (apiKey == null || !apiKey.isTextual()) {
+            throw new IOException("Logistics secret " + secretArn + " has no api_key");
+        }
+        return apiKey.asText();
+    }
+}
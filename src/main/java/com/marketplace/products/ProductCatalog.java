@@ -0,0 +1,328 @@
+package com.marketplace.products;
+
+import com.marketplace.model.Product;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.SetParams;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads product listings from DynamoDB and names the Redis keys they are cached under.
+ * Shared by {@link GetProductsHandler}, which fills the cache on a miss, and
+ * {@link CatalogCacheWarmerHandler}, which fills it ahead of traffic.
+ *
+ * <p>{@link ProductStreamHandler} only patches listings that are cached, so a fill that read the
+ * table before a change and writes after its stream record was applied would cache stale data for
+ * the whole TTL. Every listing therefore has a version counter the stream handler increments for
+ * each change, cached or not. A fill reads the counter before it reads the table and writes with
+ * {@link #fillIfUnchanged} only if the counter has not moved.
+ */
+final class ProductCatalog {
+
+    /** Cache key of the full product list. */
+    static final String ALL_KEY = "products:all";
+
+    /**
+     * Seconds a listing stays cached after a miss. Changes are applied by {@link ProductStreamHandler}
+     * meanwhile, and a fill that raced a change is refused by {@link #fillIfUnchanged}.
+     */
+    static final int CACHE_TTL_SECONDS = 900;
+
+    /** Prefix of the per-listing counters {@link ProductStreamHandler} increments for every change. */
+    static final String VERSION_KEY_PREFIX = "products:ver:";
+
+    /** Prefix of the hourly sorted sets counting category listing requests. */
+    static final String ACCESS_KEY_PREFIX = "products:access:";
+
+    /** Seconds an hourly access bucket is kept, enough for a day of lookback. */
+    static final int ACCESS_BUCKET_TTL_SECONDS = 25 * 3600;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final KmsClient kmsClient;
+
+    ProductCatalog(DynamoDbClient dynamoDbClient, KmsClient kmsClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.kmsClient = kmsClient;
+    }
+
+    /**
+     * @param category The category.
+     * @return The cache key of the category's product list.
+     */
+    static String categoryKey(String category) {
+        return "products:cat:" + category;
+    }
+
+    /**
+     * @param listingKey The cache key of a listing.
+     * @return The key of the listing's version counter.
+     */
+    static String versionKey(String listingKey) {
+        return VERSION_KEY_PREFIX + listingKey;
+    }
+
+    /**
+     * Caches a listing read from the table unless a change to it was streamed since {@code version}
+     * was read. The counter is watched, so a change applied between the check and the write also
+     * refuses the write.
+     *
+     * @param jedis        The Redis connection.
+     * @param key          The listing's cache key.
+     * @param json         The listing read from the table.
+     * @param version      The value of the listing's version counter before the table was read; null if it was absent.
+     * @param onlyIfAbsent Whether to keep a listing cached in the meantime.
+     * @return Whether the write was attempted; false if the listing changed since it was read.
+     */
+    static boolean fillIfUnchanged(Jedis jedis, String key, String json, String version, boolean onlyIfAbsent) {
+        String versionKey = versionKey(key);
+        jedis.watch(versionKey);
+        if (!Objects.equals(version, jedis.get(versionKey))) {
+            jedis.unwatch();
+            return false;
+        }
+        SetParams params = SetParams.setParams().ex(CACHE_TTL_SECONDS);
+        Transaction transaction = jedis.multi();
+        transaction.set(key, json, onlyIfAbsent ? params.nx() : params);
+        return transaction.exec() != null;
+    }
+
+    /**
+     * @param epochHour Hours since the epoch.
+     * @return The key of the access bucket for that hour.
+     */
+    static String accessKey(long epochHour) {
+        return ACCESS_KEY_PREFIX + epochHour;
+    }
+
+    /**
+     * Reads the product items of a category through GSI1, or of the whole catalog with a scan.
+     *
+     * @param tableName The table name.
+     * @param category  The category, or null for every product.
+     * @return The product items.
+     */
+    List<Map<String, AttributeValue>> loadItems(String tableName, String category) {
+        if (category != null && !category.isEmpty()) {
+            // Use GSI1 for efficient category filtering
+            QueryRequest queryRequest = QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName("GSI1")
+                    .keyConditionExpression("category = :cat")
+                    .expressionAttributeValues(Map.of(
+                            ":cat", AttributeValue.builder().s(category).build()
+                    ))
+                    .build();
+            return dynamoDbClient.query(queryRequest).items();
+        }
+        // Fallback to scan if no category is provided (standard behavior)
+        return dynamoDbClient.scan(productScan(tableName).build()).items();
+    }
+
+    /**
+     * Reads every product item of a category through GSI1, following the pages to the end.
+     *
+     * @param tableName The table name.
+     * @param category  The category.
+     * @return The product items.
+     */
+    List<Map<String, AttributeValue>> queryCategory(String tableName, String category) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryResponse page = dynamoDbClient.query(QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName("GSI1")
+                    .keyConditionExpression("category = :cat")
+                    .expressionAttributeValues(Map.of(":cat", AttributeValue.builder().s(category).build()))
+                    .exclusiveStartKey(startKey)
+                    .build());
+            items.addAll(page.items());
+            startKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+        } while (startKey != null && !startKey.isEmpty());
+        return items;
+    }
+
+    /**
+     * Reads every product item of one segment of a parallel scan, following the pages to the end.
+     *
+     * @param tableName     The table name.
+     * @param segment       The segment to read, from 0.
+     * @param totalSegments The number of segments the scan is split into.
+     * @return The product items of the segment.
+     */
+    List<Map<String, AttributeValue>> scanSegment(String tableName, int segment, int totalSegments) {
+        return scanSegment(productScan(tableName), segment, totalSegments);
+    }
+
+    /**
+     * Reads every item of one segment of a parallel scan with another filter, following the pages to the end.
+     *
+     * @param scan          The scan request with the table name and filter.
+     * @param segment       The segment to read, from 0.
+     * @param totalSegments The number of segments the scan is split into.
+     * @return The items of the segment.
+     */
+    List<Map<String, AttributeValue>> scanSegment(ScanRequest.Builder scan, int segment, int totalSegments) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanResponse page = dynamoDbClient.scan(scan
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .exclusiveStartKey(startKey)
+                    .build());
+            items.addAll(page.items());
+            startKey = page.hasLastEvaluatedKey() ? page.lastEvaluatedKey() : null;
+        } while (startKey != null && !startKey.isEmpty());
+        return items;
+    }
+
+    private static ScanRequest.Builder productScan(String tableName) {
+        return ScanRequest.builder()
+                .tableName(tableName)
+                .filterExpression("begins_with(PK, :prodPrefix) AND SK = :metadata")
+                .expressionAttributeValues(Map.of(
+                        ":prodPrefix", AttributeValue.builder().s("PROD#").build(),
+                        ":metadata", AttributeValue.builder().s("METADATA").build()
+                ));
+    }
+
+    /**
+     * Maps DynamoDB items to products, decrypting each supplier email with KMS.
+     *
+     * @param items The product items.
+     * @return The products, in item order.
+     */
+    List<Product> toProducts(List<Map<String, AttributeValue>> items) {
+        List<Product> products = new ArrayList<>(items.size());
+
+        for (Map<String, AttributeValue> item : items) {
+            Product product = toPublicProduct(item);
+
+            // KMS Decryption for sensitive supplier email
+            if (item.containsKey("supplierEmail")) {
+                byte[] decodedCiphertext = Base64.getDecoder().decode(item.get("supplierEmail").s());
+                DecryptRequest decryptRequest = DecryptRequest.builder()
+                        .ciphertextBlob(SdkBytes.fromByteArray(decodedCiphertext))
+                        .build();
+
+                DecryptResponse decryptResponse = kmsClient.decrypt(decryptRequest);
+                product.setSupplierEmail(decryptResponse.plaintext().asUtf8String());
+            }
+
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * @param item A table item.
+     * @return Whether the item is a product's metadata, rather than an order or an aggregate.
+     */
+    static boolean isProduct(Map<String, AttributeValue> item) {
+        AttributeValue pk = item.get("PK");
+        AttributeValue sk = item.get("SK");
+        return pk != null && pk.s() != null && pk.s().startsWith("PROD#") && sk != null && "METADATA".equals(sk.s());
+    }
+
+    /**
+     * Converts a stream record image to an SDK item. Product attributes are only strings and numbers.
+     *
+     * @param image The image, may be null.
+     * @return The item, or null without an image.
+     */
+    static Map<String, AttributeValue> fromStreamImage(
+            Map<String, com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue> image) {
+        if (image == null) {
+            return null;
+        }
+        Map<String, AttributeValue> item = new HashMap<>();
+        image.forEach((name, value) -> {
+            if (value.getS() != null) {
+                item.put(name, AttributeValue.builder().s(value.getS()).build());
+            } else if (value.getN() != null) {
+                item.put(name, AttributeValue.builder().n(value.getN()).build());
+            }
+        });
+        return item;
+    }
+
+    /**
+     * Maps a DynamoDB item to a product without the encrypted supplier email.
+     *
+     * @param item The product item.
+     * @return The product.
+     */
+    static Product toPublicProduct(Map<String, AttributeValue> item) {
+        Product product = new Product();
+        product.setId(item.get("id").s());
+        product.setName(item.get("name").s());
+        product.setPrice(Double.parseDouble(item.get("price").n()));
+        product.setCategory(item.get("category").s());
+        if (item.containsKey("version")) {
+            product.setVersion(Integer.parseInt(item.get("version").n()));
+        }
+        if (item.containsKey("stockQuantity")) {
+            product.setStockQuantity(Integer.parseInt(item.get("stockQuantity").n()));
+        }
+        return product;
+    }
+
+    /**
+     * Validates the product details of a create or import.
+     *
+     * @param product The product to validate.
+     * @return An error message if validation fails, otherwise null.
+     */
+    static String validate(Product product) {
+        if (product.getName() == null || product.getName().trim().isEmpty()) {
+            return "Product name is required";
+        }
+        if (product.getPrice() <= 0) {
+            return "Product price must be greater than zero";
+        }
+        if (product.getCategory() == null || product.getCategory().trim().isEmpty()) {
+            return "Product category is required";
+        }
+        if (product.getStockQuantity() < 0) {
+            return "Stock quantity cannot be negative";
+        }
+        return null;
+    }
+
+    /**
+     * Maps a product with its ID and version assigned to a DynamoDB item.
+     * The encrypted supplier email is added separately.
+     *
+     * @param product The validated product.
+     * @return The DynamoDB item.
+     */
+    static Map<String, AttributeValue> toItem(Product product) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("PK", AttributeValue.builder().s("PROD#" + product.getId()).build());
+        item.put("SK", AttributeValue.builder().s("METADATA").build());
+        item.put("id", AttributeValue.builder().s(product.getId()).build());
+        item.put("name", AttributeValue.builder().s(product.getName()).build());
+        item.put("price", AttributeValue.builder().n(String.valueOf(product.getPrice())).build());
+        item.put("category", AttributeValue.builder().s(product.getCategory()).build());
+        item.put("version", AttributeValue.builder().n(String.valueOf(product.getVersion())).build());
+        item.put("stockQuantity", AttributeValue.builder().n(String.valueOf(product.getStockQuantity())).build());
+        return item;
+    }
+}
@@ -0,0 +1,465 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Imports NDJSON products for {@link ImportProductsHandler} and {@link ImportProductsWorkerHandler}.
+ *
+ * <p>Lines are parsed and validated as they are read. Valid products are written in chunks of 25,
+ * several chunks at a time, while the following lines are still being read. Each distinct supplier
+ * email is encrypted once per import. As soon as a chunk is written, the full listing and the
+ * listings of the chunk's categories are evicted, so products show up while a long import runs.
+ *
+ * <p>Like {@code POST /products}, an import only creates products. Products whose IDs the import
+ * generated are written with {@code BatchWriteItem}, retrying unprocessed items with exponential
+ * backoff. Products with IDs from the file are written with {@code TransactWriteItems}, each put
+ * conditioned on {@code attribute_not_exists(PK)}, so a product created meanwhile by anyone else is
+ * reported as a conflict instead of being replaced; products are changed with {@code PATCH}, which
+ * keeps their versions.
+ */
+final class ProductImporter {
+
+    private static final int BATCH_SIZE = 25;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 2_000;
+    private static final String CONDITIONAL_CHECK_FAILED = "ConditionalCheckFailed";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final KmsClient kmsClient;
+    private final Supplier<JedisPool> jedisPool;
+    private final String tableName;
+    private final String kmsKeyId;
+    private final int parallelism;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * @param dynamoDbClient The DynamoDB client.
+     * @param kmsClient      The KMS client.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName      The DynamoDB table name.
+     * @param kmsKeyId       The KMS Key ID.
+     * @param parallelism    How many chunks are written at a time.
+     */
+    ProductImporter(DynamoDbClient dynamoDbClient, KmsClient kmsClient, Supplier<JedisPool> jedisPool,
+                    String tableName, String kmsKeyId, int parallelism) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.kmsClient = kmsClient;
+        this.jedisPool = jedisPool;
+        this.tableName = tableName;
+        this.kmsKeyId = kmsKeyId;
+        this.parallelism = parallelism;
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Reads, validates and writes the products.
+     *
+     * @param lines   The NDJSON lines.
+     * @param context The Lambda execution context.
+     * @return The counts and the outcome of every non-blank line, in file order, as JSON.
+     * @throws IOException          If the lines cannot be read.
+     * @throws InterruptedException If interrupted while waiting for the writers.
+     */
+    String importLines(BufferedReader lines, Context context) throws IOException, InterruptedException {
+        ObjectReader reader = jsonCodec.readerFor(Product.class);
+        List<Outcome> outcomes = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        Map<String, String> ciphertexts = new HashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        // Bounds the chunks read ahead of the writers, so a large file is never held in memory
+        Semaphore queued = new Semaphore(parallelism * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        try {
+            List<Outcome> chunk = new ArrayList<>(BATCH_SIZE);
+            String line;
+            int lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Outcome outcome = new Outcome(lineNumber);
+                outcomes.add(outcome);
+                if (!prepare(outcome, line, reader, ids, ciphertexts)) {
+                    continue;
+                }
+                chunk.add(outcome);
+                if (chunk.size() == BATCH_SIZE) {
+                    pending.add(submit(executor, queued, chunk, context));
+                    chunk = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(submit(executor, queued, chunk, context));
+            }
+            for (Future<?> write : pending) {
+                write.get();
+            }
+        } catch (ExecutionException e) {
+            // write() records its own failures, so this is a bug rather than a failed write
+            throw new IllegalStateException("Import chunk failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        context.getLogger().log("Imported " + outcomes.stream().filter(o -> o.status == Status.IMPORTED).count()
+                + " of " + outcomes.size() + " products, " + ciphertexts.size() + " supplier emails encrypted");
+        return summarize(outcomes);
+    }
+
+    /**
+     * Parses and validates one line and builds its item. Rejected lines get their reason.
+     *
+     * @return Whether the line is to be written.
+     */
+    private boolean prepare(Outcome outcome, String line, ObjectReader reader, Set<String> ids,
+                            Map<String, String> ciphertexts) {
+        Product product;
+        try {
+            product = reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            outcome.reject("Malformed product: " + e.getOriginalMessage());
+            return false;
+        }
+        outcome.id = product.getId();
+        String validationError = ProductCatalog.validate(product);
+        if (validationError != null) {
+            outcome.reject(validationError);
+            return false;
+        }
+        if (product.getId() == null) {
+            product.setId(UUID.randomUUID().toString());
+            outcome.id = product.getId();
+        } else {
+            outcome.mayExist = true;
+        }
+        // A batch or transaction with the same key twice is rejected as a whole
+        if (!ids.add(product.getId())) {
+            outcome.reject("Duplicate product ID in import");
+            return false;
+        }
+        product.setVersion(1);
+
+        outcome.item = ProductCatalog.toItem(product);
+        outcome.category = product.getCategory();
+        if (product.getSupplierEmail() != null) {
+            String ciphertext = ciphertexts.get(product.getSupplierEmail());
+            if (ciphertext == null) {
+                try {
+                    ciphertext = encrypt(product.getSupplierEmail());
+                } catch (Exception e) {
+                    outcome.fail("Could not encrypt supplier email: " + e.getMessage());
+                    return false;
+                }
+                ciphertexts.put(product.getSupplierEmail(), ciphertext);
+            }
+            outcome.item.put("supplierEmail", AttributeValue.builder().s(ciphertext).build());
+        }
+        return true;
+    }
+
+    /**
+     * Encrypts a supplier email. A seller's products mostly share one email, so an import makes one
+     * KMS call per distinct email rather than per product.
+     */
+    private String encrypt(String email) {
+        return Base64.getEncoder().encodeToString(kmsClient.encrypt(EncryptRequest.builder()
+                .keyId(kmsKeyId)
+                .plaintext(SdkBytes.fromUtf8String(email))
+                .build()).ciphertextBlob().asByteArray());
+    }
+
+    /**
+     * Queues a chunk for writing, waiting while too many chunks are queued.
+     */
+    private Future<?> submit(ExecutorService executor, Semaphore queued, List<Outcome> chunk, Context context)
+            throws InterruptedException {
+        queued.acquire();
+        return executor.submit(() -> {
+            try {
+                write(chunk, context);
+            } finally {
+                queued.release();
+            }
+        });
+    }
+
+    /**
+     * Writes one chunk, then evicts the listings it changed.
+     */
+    private void write(List<Outcome> chunk, Context context) {
+        List<Outcome> generated = new ArrayList<>(chunk.size());
+        List<Outcome> given = new ArrayList<>(chunk.size());
+        chunk.forEach(outcome -> (outcome.mayExist ? given : generated).add(outcome));
+        if (!generated.isEmpty()) {
+            writeBatch(generated);
+        }
+        if (!given.isEmpty()) {
+            writeTransaction(given);
+        }
+
+        Set<String> categories = new LinkedHashSet<>();
+        for (Outcome outcome : chunk) {
+            if (outcome.status == Status.IMPORTED) {
+                categories.add(outcome.category);
+            }
+            // The item is not needed any more; only the outcome is reported
+            outcome.item = null;
+        }
+        if (!categories.isEmpty()) {
+            invalidateListings(categories, context);
+        }
+    }
+
+    /**
+     * Writes products with generated IDs, retrying the unprocessed items with exponential backoff and
+     * full jitter. Items still unprocessed after the last attempt, or in a request that failed, are
+     * marked failed.
+     */
+    private void writeBatch(List<Outcome> outcomes) {
+        List<WriteRequest> requests = new ArrayList<>(outcomes.size());
+        for (Outcome outcome : outcomes) {
+            requests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(outcome.item).build()).build());
+        }
+
+        String error = null;
+        for (int attempt = 0; !requests.isEmpty(); attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                error = "Not written after " + MAX_ATTEMPTS + " attempts";
+                break;
+            }
+            if (attempt > 0 && !backOff(attempt)) {
+                error = "Interrupted";
+                break;
+            }
+            try {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, requests))
+                        .build());
+                requests = response.unprocessedItems().getOrDefault(tableName, List.of());
+            } catch (Exception e) {
+                error = e.getMessage();
+                break;
+            }
+        }
+
+        Set<String> unwritten = new HashSet<>();
+        requests.forEach(request -> unwritten.add(request.putRequest().item().get("PK").s()));
+        for (Outcome outcome : outcomes) {
+            if (unwritten.contains(outcome.item.get("PK").s())) {
+                outcome.fail(error);
+            } else {
+                outcome.status = Status.IMPORTED;
+            }
+        }
+    }
+
+    /**
+     * Writes products with IDs from the file in one transaction, each only if no product has its ID.
+     * When the transaction is cancelled, the products that already exist become conflicts and the
+     * rest are written again at once; a transaction cancelled for another reason, such as a
+     * concurrent write to the same item, is retried with backoff. Whatever is still unwritten after
+     * the last attempt, or when a request fails, is marked failed.
+     */
+    private void writeTransaction(List<Outcome> outcomes) {
+        List<Outcome> remaining = outcomes;
+        String error = null;
+        boolean wait = false;
+        for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+            if (attempt == MAX_ATTEMPTS) {
+                error = "Not written after " + MAX_ATTEMPTS + " attempts";
+                break;
+            }
+            if (wait && !backOff(attempt)) {
+                error = "Interrupted";
+                break;
+            }
+            List<TransactWriteItem> puts = new ArrayList<>(remaining.size());
+            for (Outcome outcome : remaining) {
+                puts.add(TransactWriteItem.builder().put(Put.builder()
+                        .tableName(tableName)
+                        .item(outcome.item)
+                        .conditionExpression("attribute_not_exists(PK)")
+                        .build()).build());
+            }
+            try {
+                dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                        .transactItems(puts)
+                        // SDK retries of a request that did commit must not turn its products into conflicts
+                        .clientRequestToken(UUID.randomUUID().toString())
+                        .build());
+                remaining.forEach(outcome -> outcome.status = Status.IMPORTED);
+                remaining = List.of();
+            } catch (TransactionCanceledException e) {
+                List<CancellationReason> reasons = e.hasCancellationReasons() ? e.cancellationReasons() : List.of();
+                List<Outcome> retry = new ArrayList<>(remaining.size());
+                for (int i = 0; i < remaining.size(); i++) {
+                    if (i < reasons.size() && CONDITIONAL_CHECK_FAILED.equals(reasons.get(i).code())) {
+                        remaining.get(i).conflict();
+                    } else {
+                        retry.add(remaining.get(i));
+                    }
+                }
+                wait = retry.size() == remaining.size();
+                error = e.getMessage();
+                remaining = retry;
+            } catch (Exception e) {
+                error = e.getMessage();
+                break;
+            }
+        }
+        for (Outcome outcome : remaining) {
+            outcome.fail(error);
+        }
+    }
+
+    /**
+     * Sleeps before a retry.
+     *
+     * @return False if interrupted.
+     */
+    private static boolean backOff(int attempt) {
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the full listing and the listings of the given categories in one call. Unlike a
+     * flush, this keeps every other cached key, such as the access counters.
+     */
+    private void invalidateListings(Set<String> categories, Context context) {
+        JedisPool pool = jedisPool.get();
+        if (pool == null) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(categories.size() + 1);
+        keys.add(ProductCatalog.ALL_KEY);
+        categories.forEach(category -> keys.add(ProductCatalog.categoryKey(category)));
+        try (Jedis jedis = pool.getResource()) {
+            long start = System.nanoTime();
+            jedis.del(keys.toArray(new String[0]));
+            Metrics.get().recordLatency("Redis.Del", start);
+        } catch (Exception e) {
+            context.getLogger().log("Redis eviction error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the counts and the outcome of every line.
+     */
+    private String summarize(List<Outcome> outcomes) {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        outcomes.forEach(outcome -> counts.merge(outcome.status, 1, Integer::sum));
+        ObjectNode body = jsonCodec.createObjectNode()
+                .put("received", outcomes.size())
+                .put("imported", counts.getOrDefault(Status.IMPORTED, 0))
+                .put("rejected", counts.getOrDefault(Status.REJECTED, 0))
+                .put("conflicts", counts.getOrDefault(Status.CONFLICT, 0))
+                .put("failed", counts.getOrDefault(Status.FAILED, 0));
+        ArrayNode items = body.putArray("items");
+        for (Outcome outcome : outcomes) {
+            ObjectNode item = items.addObject()
+                    .put("line", outcome.line)
+                    .put("id", outcome.id)
+                    .put("status", outcome.status.name().toLowerCase(Locale.ROOT));
+            if (outcome.error != null) {
+                item.put("error", outcome.error);
+            }
+        }
+        return body.toString();
+    }
+
+    /**
+     * What happened to a line. Rejected lines need fixing; conflicting lines name a product that
+     * already exists; failed lines can be imported again as they are.
+     */
+    private enum Status {
+        PENDING, IMPORTED, REJECTED, CONFLICT, FAILED
+    }
+
+    /**
+     * The state of one line. Written by the reading thread until the line is queued, then only by
+     * the chunk's writer; the results are read after every writer finished.
+     */
+    private static final class Outcome {
+        private final int line;
+        private String id;
+        private String category;
+        private Map<String, AttributeValue> item;
+        private boolean mayExist;
+        private Status status = Status.PENDING;
+        private String error;
+
+        Outcome(int line) {
+            this.line = line;
+        }
+
+        void reject(String error) {
+            this.status = Status.REJECTED;
+            this.error = error;
+        }
+
+        void conflict() {
+            this.status = Status.CONFLICT;
+            this.error = "Product already exists";
+        }
+
+        void fail(String error) {
+            this.status = Status.FAILED;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.marketplace.products;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Immutable inverted index over the {@code name} and {@code category} of the products in one
+ * catalog snapshot. Terms are kept in a sorted array, so the terms starting with a prefix are one
+ * binary search and a short scan, and each term's postings are a sorted {@code int[]} of document
+ * numbers. Every query token is matched as a prefix and the results are the documents matching all
+ * tokens, those with more exact token matches first.
+ *
+ * <p>The documents are kept as the JSON lines of the snapshot, so a search writes its response
+ * without serializing products.
+ */
+final class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private final long version;
+    private final String[] documents;
+    private final String[] terms;
+    private final int[][] postings;
+
+    private ProductSearchIndex(long version, String[] documents, String[] terms, int[][] postings) {
+        this.version = version;
+        this.documents = documents;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index from a gzipped NDJSON snapshot, as written by {@link CatalogSnapshotExporterHandler}.
+     *
+     * @param version  The snapshot version.
+     * @param snapshot The compressed snapshot file.
+     * @return The index.
+     */
+    static ProductSearchIndex fromSnapshot(long version, byte[] snapshot) {
+        ObjectReader reader = MarketplaceJson.CODEC.readerFor(Product.class);
+        List<String> documents = new ArrayList<>();
+        Map<String, IntList> index = new TreeMap<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(snapshot), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Product product = reader.readValue(line);
+                int document = documents.size();
+                documents.add(line);
+                for (String token : tokenize(Objects.toString(product.getName(), "") + " " + Objects.toString(product.getCategory(), ""))) {
+                    index.computeIfAbsent(token, t -> new IntList()).addOnce(document);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed catalog snapshot", e);
+        }
+
+        String[] terms = new String[index.size()];
+        int[][] postings = new int[index.size()][];
+        int i = 0;
+        for (Map.Entry<String, IntList> entry : index.entrySet()) {
+            terms[i] = entry.getKey();
+            postings[i++] = entry.getValue().toArray();
+        }
+        return new ProductSearchIndex(version, documents.toArray(new String[0]), terms, postings);
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text The text.
+     * @return The distinct tokens, in order of appearance.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !tokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return The version of the snapshot the index was built from.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The number of indexed products.
+     */
+    int size() {
+        return documents.length;
+    }
+
+    /**
+     * Finds the products whose name or category has a token starting with each query token.
+     *
+     * @param query The query text.
+     * @param limit The maximum number of results.
+     * @return The matches, best first.
+     */
+    Result search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new Result(0, List.of());
+        }
+
+        int[] matches = null;
+        for (String token : tokens) {
+            int[] tokenMatches = prefixPostings(token);
+            matches = matches == null ? tokenMatches : intersect(matches, tokenMatches);
+            if (matches.length == 0) {
+                return new Result(0, List.of());
+            }
+        }
+
+        // Rank by the number of tokens that are whole terms of the document; the sort is stable, so
+        // equally ranked products stay in ID order
+        int[] exactMatches = new int[matches.length];
+        for (String token : tokens) {
+            int term = Arrays.binarySearch(terms, token);
+            if (term >= 0) {
+                int[] exact = postings[term];
+                for (int i = 0; i < matches.length; i++) {
+                    if (Arrays.binarySearch(exact, matches[i]) >= 0) {
+                        exactMatches[i]++;
+                    }
+                }
+            }
+        }
+        Integer[] order = new Integer[matches.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(exactMatches[b], exactMatches[a]));
+
+        List<String> results = new ArrayList<>(Math.min(limit, matches.length));
+        for (int i = 0; i < order.length && results.size() < limit; i++) {
+            results.add(documents[matches[order[i]]]);
+        }
+        return new Result(matches.length, results);
+    }
+
+    /**
+     * Returns the sorted union of the postings of all terms starting with the prefix.
+     */
+    private int[] prefixPostings(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) {
+            to++;
+        }
+        if (to - from == 0) {
+            return NO_POSTINGS;
+        }
+        if (to - from == 1) {
+            return postings[from];
+        }
+        BitSet union = new BitSet(documents.length);
+        for (int term = from; term < to; term++) {
+            for (int document : postings[term]) {
+                union.set(document);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    /**
+     * Intersects two sorted posting lists.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * The matches of one search.
+     */
+    static final class Result {
+        private final int total;
+        private final List<String> products;
+
+        /**
+         * @param total    The number of matching products.
+         * @param products The JSON of the returned products, at most the requested limit.
+         */
+        Result(int total, List<String> products) {
+            this.total = total;
+            this.products = products;
+        }
+
+        int getTotal() {
+            return total;
+        }
+
+        List<String> getProducts() {
+            return products;
+        }
+    }
+
+    /**
+     * Growable posting list of ascending document numbers.
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        /**
+         * Appends a document unless it is already the last one, which happens when a term occurs
+         * in both the name and the category.
+         */
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.SetParams;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.kms.KmsClient;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Lambda function triggered by the Products table stream that keeps the cached product listings
+ * current. Each product change is applied in place to {@code products:all} and to the listings of
+ * its old and new category, so stock changes by {@link com.marketplace.orders.CreateOrderHandler}
+ * show up without waiting for the TTL.
+ *
+ * <p>Records are collapsed per product first, so a product changed many times in a batch is applied
+ * once, and every listing is rewritten once per batch. A listing is only patched if it is cached;
+ * a missing listing is filled from the table on the next request as before. Listings are updated
+ * with WATCH/MULTI, so a concurrent fill or another shard's update is never overwritten.
+ *
+ * <p>Before patching, the version counter of every affected listing is incremented, cached or not,
+ * so a fill that read the table before the change is refused (see {@link ProductCatalog#fillIfUnchanged}).
+ */
+public class ProductStreamHandler implements RequestHandler<DynamodbEvent, StreamsEventResponse> {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ProductCatalog catalog;
+    private final Supplier<JedisPool> jedisPool;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * Initializes the clients.
+     */
+    public ProductStreamHandler() {
+        this(ClientUtils.getClient(KmsClient.class, KmsClient::builder), RedisConnections::getPool);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param kmsClient The KMS client, to decrypt the supplier emails of new products.
+     * @param jedisPool Supplies the Redis pool, or null if Redis is not configured.
+     */
+    ProductStreamHandler(KmsClient kmsClient, Supplier<JedisPool> jedisPool) {
+        this.catalog = new ProductCatalog(null, kmsClient);
+        this.jedisPool = jedisPool;
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Handles a batch of stream records.
+     *
+     * @param event   The stream event.
+     * @param context The Lambda execution context.
+     * @return The first record to retry from, if a listing could not be updated.
+     */
+    @Override
+    public StreamsEventResponse handleRequest(DynamodbEvent event, Context context) {
+        return Metrics.get().measure("stream", () -> apply(event, context),
+                response -> response.getBatchItemFailures().isEmpty() ? "ok" : "partial");
+    }
+
+    /**
+     * Applies the batch to every affected listing.
+     */
+    private StreamsEventResponse apply(DynamodbEvent event, Context context) {
+        JedisPool pool = jedisPool.get();
+        Map<String, Change> changes = collapse(event.getRecords(), context);
+        if (pool == null || changes.isEmpty()) {
+            return new StreamsEventResponse(new ArrayList<>());
+        }
+
+        Map<String, List<Change>> changesByListing = new LinkedHashMap<>();
+        for (Change change : changes.values()) {
+            for (String key : change.listingKeys()) {
+                changesByListing.computeIfAbsent(key, k -> new ArrayList<>()).add(change);
+            }
+        }
+
+        // Stream retries resume from the reported record, so the earliest record of a failed listing is enough
+        BigInteger retryFrom = null;
+        try (Jedis jedis = pool.getResource()) {
+            bumpVersions(jedis, changesByListing.keySet());
+            for (Map.Entry<String, List<Change>> listing : changesByListing.entrySet()) {
+                try {
+                    patchListing(jedis, listing.getKey(), listing.getValue());
+                } catch (Exception e) {
+                    context.getLogger().log("Could not update " + listing.getKey() + ": " + e.getMessage());
+                    for (Change change : listing.getValue()) {
+                        retryFrom = retryFrom == null ? change.firstSequence : retryFrom.min(change.firstSequence);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // No connection at all: retry the whole batch
+            context.getLogger().log("Redis unavailable: " + e.getMessage());
+            retryFrom = changes.values().stream().map(c -> c.firstSequence).min(Comparator.naturalOrder()).orElse(null);
+        }
+
+        List<StreamsEventResponse.BatchItemFailure> failures = new ArrayList<>();
+        if (retryFrom != null) {
+            failures.add(new StreamsEventResponse.BatchItemFailure(retryFrom.toString()));
+        }
+        context.getLogger().log("Applied " + changes.size() + " product changes to " + changesByListing.size()
+                + " listings" + (retryFrom != null ? ", retrying from " + retryFrom : ""));
+        return new StreamsEventResponse(failures);
+    }
+
+    /**
+     * Increments the version counters of the listings in one round trip. The counters live as long
+     * as a listing, which is far longer than any fill takes.
+     */
+    private static void bumpVersions(Jedis jedis, Iterable<String> listingKeys) {
+        Pipeline pipeline = jedis.pipelined();
+        for (String key : listingKeys) {
+            String versionKey = ProductCatalog.versionKey(key);
+            pipeline.incr(versionKey);
+            pipeline.expire(versionKey, ProductCatalog.CACHE_TTL_SECONDS);
+        }
+        pipeline.sync();
+    }
+
+    /**
+     * Reduces the records to one change per product: the category before the first record and the
+     * item after the last one.
+     */
+    private static Map<String, Change> collapse(List<DynamodbEvent.DynamodbStreamRecord> records, Context context) {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        for (DynamodbEvent.DynamodbStreamRecord record : records) {
+            Map<String, AttributeValue> oldItem = ProductCatalog.fromStreamImage(record.getDynamodb().getOldImage());
+            Map<String, AttributeValue> newItem = "REMOVE".equals(record.getEventName())
+                    ? null : ProductCatalog.fromStreamImage(record.getDynamodb().getNewImage());
+            Map<String, AttributeValue> anyItem = newItem != null ? newItem : oldItem;
+            if (anyItem == null || !ProductCatalog.isProduct(anyItem)) {
+                continue;
+            }
+            if (!anyItem.containsKey("id") || (newItem != null && !newItem.containsKey("category"))) {
+                // Retrying would not help, and would hold back the shard
+                context.getLogger().log("Skipping malformed product record " + record.getEventID());
+                continue;
+            }
+            String pk = anyItem.get("PK").s();
+            Change change = changes.computeIfAbsent(pk,
+                    k -> new Change(oldItem, new BigInteger(record.getDynamodb().getSequenceNumber())));
+            change.newItem = newItem;
+        }
+        return changes;
+    }
+
+    /**
+     * Rewrites one cached listing with the changes, retrying when another writer got there first.
+     */
+    private void patchListing(Jedis jedis, String key, List<Change> changes) throws IOException {
+        String category = key.equals(ProductCatalog.ALL_KEY) ? null : key.substring(ProductCatalog.categoryKey("").length());
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            jedis.watch(key);
+            String json = jedis.get(key);
+            if (json == null) {
+                jedis.unwatch();
+                return;
+            }
+            List<Product> products = new ArrayList<>(jsonCodec.read(json, MarketplaceJson.PRODUCT_LIST));
+            for (Change change : changes) {
+                apply(products, change, category);
+            }
+            if (category != null) {
+                // Category listings come from GSI1, which is sorted by price
+                products.sort(Comparator.comparingDouble(Product::getPrice));
+            }
+
+            Transaction transaction = jedis.multi();
+            transaction.set(key, jsonCodec.write(products, MarketplaceJson.PRODUCT_LIST), SetParams.setParams().keepttl());
+            if (transaction.exec() != null) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Listing kept changing after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Replaces, inserts or removes the product of one change in a listing.
+     */
+    private void apply(List<Product> products, Change change, String category) {
+        String id = change.id();
+        int index = -1;
+        for (int i = 0; i < products.size(); i++) {
+            if (id.equals(products.get(i).getId())) {
+                index = i;
+                break;
+            }
+        }
+
+        boolean belongs = change.newItem != null
+                && (category == null || category.equals(change.newItem.get("category").s()));
+        if (!belongs) {
+            if (index >= 0) {
+                products.remove(index);
+            }
+            return;
+        }
+
+        Product cached = index >= 0 ? products.get(index) : null;
+        Product updated = ProductCatalog.toPublicProduct(change.newItem);
+        if (cached != null && cached.getVersion() != null && updated.getVersion() != null
+                && cached.getVersion() > updated.getVersion()) {
+            return; // Filled from the table after this change
+        }
+        updated.setSupplierEmail(supplierEmail(change, cached));
+        if (index >= 0) {
+            products.set(index, updated);
+        } else {
+            products.add(updated);
+        }
+    }
+
+    /**
+     * Reuses the decrypted email of the cached product unless the ciphertext changed, so stock
+     * updates cost no KMS call. A decrypted email is remembered for the other listings of the batch.
+     */
+    private String supplierEmail(Change change, Product cached) {
+        AttributeValue ciphertext = change.newItem.get("supplierEmail");
+        if (ciphertext == null) {
+            return null;
+        }
+        if (change.supplierEmail == null) {
+            AttributeValue oldCiphertext = change.oldItem != null ? change.oldItem.get("supplierEmail") : null;
+            if (cached != null && Objects.equals(ciphertext, oldCiphertext)) {
+                return cached.getSupplierEmail();
+            }
+            change.supplierEmail = catalog.toProducts(List.of(change.newItem)).get(0).getSupplierEmail();
+        }
+        return change.supplierEmail;
+    }
+
+    /**
+     * The net change of one product within a batch.
+     */
+    private static final class Change {
+        private final Map<String, AttributeValue> oldItem;
+        private final BigInteger firstSequence;
+        private Map<String, AttributeValue> newItem;
+        private String supplierEmail;
+
+        private Change(Map<String, AttributeValue> oldItem, BigInteger firstSequence) {
+            this.oldItem = oldItem;
+            this.firstSequence = firstSequence;
+        }
+
+        private String id() {
+            return (newItem != null ? newItem : oldItem).get("id").s();
+        }
+
+        /**
+         * The full list, and the listings of the category before and after the change.
+         */
+        private List<String> listingKeys() {
+            List<String> keys = new ArrayList<>(3);
+            keys.add(ProductCatalog.ALL_KEY);
+            String oldCategory = category(oldItem);
+            String newCategory = category(newItem);
+            if (oldCategory != null) {
+                keys.add(ProductCatalog.categoryKey(oldCategory));
+            }
+            if (newCategory != null && !newCategory.equals(oldCategory)) {
+                keys.add(ProductCatalog.categoryKey(newCategory));
+            }
+            return keys;
+        }
+
+        private static String category(Map<String, AttributeValue> item) {
+            return item != null && item.containsKey("category") ? item.get("category").s() : null;
+        }
+    }
+}
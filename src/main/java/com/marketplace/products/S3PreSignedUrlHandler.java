@@ -4,11 +4,15 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.marketplace.utils.ClientUtils;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import com.marketplace.snapstart.Priming;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import org.crac.Core;
+import org.crac.Resource;
 
 import java.time.Duration;
 import java.util.HashMap;
@@ -17,16 +21,18 @@ import java.util.Map;
 /**
  * Lambda handler for generating a pre-signed URL to access digital assets in S3.
  */
-public class S3PreSignedUrlHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+public class S3PreSignedUrlHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>, Resource {
 
     private final S3Presigner s3Presigner;
     private final String bucketName;
 
     /**
      * Initializes the S3 presigner and other dependencies.
+     * Registers the handler for SnapStart checkpoint and restore notifications.
      */
     public S3PreSignedUrlHandler() {
         this(null, null);
+        Core.getGlobalContext().register(this);
     }
 
     /**
@@ -38,24 +44,33 @@ public class S3PreSignedUrlHandler implements RequestHandler<APIGatewayProxyRequ
     public S3PreSignedUrlHandler(S3Presigner s3Presigner, String bucketName) {
         this.bucketName = bucketName != null ? bucketName : System.getenv("ASSETS_BUCKET_NAME");
         
-        if (s3Presigner != null) {
-            this.s3Presigner = s3Presigner;
-        } else {
-            S3Presigner.Builder builder = S3Presigner.builder();
-            String endpoint = System.getenv("AWS_ENDPOINT_URL");
-            if (endpoint != null && !endpoint.isEmpty()) {
-                try {
-                    builder.endpointOverride(new java.net.URI(endpoint));
-                    // Important for LocalStack: force path style
-                    builder.serviceConfiguration(software.amazon.awssdk.services.s3.S3Configuration.builder()
-                            .pathStyleAccessEnabled(true)
-                            .build());
-                } catch (Exception e) {
-                    // Ignore
-                }
-            }
-            this.s3Presigner = builder.build();
-        }
+        this.s3Presigner = s3Presigner != null ? s3Presigner : AssetStorage.createPresigner();
+    }
+
+    /**
+     * Signs a throwaway URL before the SnapStart snapshot so the signer and credentials are initialized.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        Priming.run(() -> s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(1))
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(AssetStorage.assetKey("priming"))
+                        .build())
+                .build()));
+    }
+
+    /**
+     * Refreshes credentials after a restore.
+     *
+     * @param context The CRaC context.
+     */
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        Priming.refreshCredentials();
     }
 
     /**
@@ -67,9 +82,17 @@ public class S3PreSignedUrlHandler implements RequestHandler<APIGatewayProxyRequ
      */
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products/{id}/asset"),
+                () -> presignAsset(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Signs the asset URL.
+     */
+    private APIGatewayProxyResponseEvent presignAsset(APIGatewayProxyRequestEvent input, Context context) {
         try {
             String productId = input.getPathParameters().get("id");
-            String objectKey = "assets/" + productId + "/item.zip";
+            String objectKey = AssetStorage.assetKey(productId);
 
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
@@ -97,7 +120,7 @@ public class S3PreSignedUrlHandler implements RequestHandler<APIGatewayProxyRequ
             e.printStackTrace();
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(500)
-                    .withBody("{\"error\": \"Could not generate download URL\", \"message\": \"" + e.getMessage() + "\"}");
+                    .withBody(JsonCodec.errorBody("Could not generate download URL", "message", e.getMessage()));
         }
     }
 }
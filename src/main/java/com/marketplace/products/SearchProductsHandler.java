@@ -0,0 +1,204 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lambda handler for searching products by name and category. The search runs against a
+ * {@link ProductSearchIndex} held in the memory of the warm function, built from the latest catalog
+ * snapshot exported by {@link CatalogSnapshotExporterHandler}.
+ *
+ * <p>At most once per refresh interval a request reads the snapshot manifest. The snapshot is only
+ * downloaded and indexed when the manifest names a newer version; otherwise the manifest read is
+ * the only cost. If a refresh fails, the previous index keeps serving. Until the first snapshot is
+ * indexed, the manifest is checked again after a few seconds rather than a full interval, so a cold
+ * start that races the first export, or fails to load it, recovers quickly.
+ */
+public class SearchProductsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 60_000;
+    private static final long DEFAULT_FIRST_LOAD_RETRY_MILLIS = 5_000;
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final long refreshIntervalMillis;
+    private final long firstLoadRetryMillis;
+
+    private volatile ProductSearchIndex index;
+    private long nextCheckAt;
+
+    /**
+     * Initializes the S3 client and reads SEARCH_REFRESH_SECONDS (default 60).
+     */
+    public SearchProductsHandler() {
+        this(AssetStorage.createClient(), System.getenv("ASSETS_BUCKET_NAME"),
+                System.getenv("SEARCH_REFRESH_SECONDS") != null
+                        ? Long.parseLong(System.getenv("SEARCH_REFRESH_SECONDS")) * 1000 : DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Client              The S3 client.
+     * @param bucketName            The bucket the snapshots are written to.
+     * @param refreshIntervalMillis How long an index is used before the manifest is checked again.
+     */
+    SearchProductsHandler(S3Client s3Client, String bucketName, long refreshIntervalMillis) {
+        this(s3Client, bucketName, refreshIntervalMillis, Math.min(DEFAULT_FIRST_LOAD_RETRY_MILLIS, refreshIntervalMillis));
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param s3Client              The S3 client.
+     * @param bucketName            The bucket the snapshots are written to.
+     * @param refreshIntervalMillis How long an index is used before the manifest is checked again.
+     * @param firstLoadRetryMillis  How long to wait before checking again while no index is loaded.
+     */
+    SearchProductsHandler(S3Client s3Client, String bucketName, long refreshIntervalMillis, long firstLoadRetryMillis) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.firstLoadRetryMillis = firstLoadRetryMillis;
+    }
+
+    /**
+     * Handles the GET request to search products.
+     *
+     * @param input   The API Gateway proxy request event, with the query in {@code q} and an optional {@code limit}.
+     * @param context The Lambda execution context.
+     * @return The matching products, best first.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products/search"),
+                () -> searchProducts(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Validates the query and searches the current index.
+     */
+    private APIGatewayProxyResponseEvent searchProducts(APIGatewayProxyRequestEvent input, Context context) {
+        Map<String, String> queryParams = input.getQueryStringParameters();
+        String query = queryParams != null ? queryParams.get("q") : null;
+        if (query == null || ProductSearchIndex.tokenize(query).isEmpty()) {
+            return createResponse(400, JsonCodec.errorBody("Query parameter q is required"));
+        }
+        int limit;
+        try {
+            String value = queryParams.get("limit");
+            limit = value != null ? Integer.parseInt(value) : DEFAULT_LIMIT;
+        } catch (NumberFormatException e) {
+            return createResponse(400, JsonCodec.errorBody("Invalid limit", "limit", queryParams.get("limit")));
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return createResponse(400, JsonCodec.errorBody("limit must be between 1 and " + MAX_LIMIT));
+        }
+
+        try {
+            ProductSearchIndex current = currentIndex(context);
+            if (current == null) {
+                return createResponse(503, JsonCodec.errorBody("Search index not available yet"));
+            }
+            ProductSearchIndex.Result result = current.search(query, limit);
+
+            // The products are the snapshot's JSON lines, so they are written as they are
+            String body = MarketplaceJson.CODEC.createObjectNode()
+                    .put("query", query)
+                    .put("version", current.getVersion())
+                    .put("total", result.getTotal())
+                    .putRawValue("products", new RawValue("[" + String.join(",", result.getProducts()) + "]"))
+                    .toString();
+            return createResponse(200, body);
+        } catch (Exception e) {
+            context.getLogger().log("Error searching products: " + e.getMessage());
+            return createResponse(500, JsonCodec.errorBody("Could not search products"));
+        }
+    }
+
+    /**
+     * Returns the index, first replacing it if the refresh interval elapsed and a newer snapshot exists.
+     *
+     * @return The index, or null if no snapshot was exported yet.
+     */
+    private ProductSearchIndex currentIndex(Context context) {
+        long now = System.currentTimeMillis();
+        if (now < nextCheckAt) {
+            return index;
+        }
+        // A full interval only once an index is loaded; a failed first load is retried soon
+        nextCheckAt = now + firstLoadRetryMillis;
+        try {
+            Optional<CatalogSnapshots.Manifest> latest = CatalogSnapshots.readManifest(s3Client, bucketName);
+            if (latest.isPresent() && (index == null || latest.get().getVersion() > index.getVersion())) {
+                index = load(latest.get(), context);
+            }
+        } catch (RuntimeException e) {
+            if (index == null) {
+                throw e;
+            }
+            context.getLogger().log("Search index refresh failed, serving version " + index.getVersion() + ": " + e.getMessage());
+        }
+        if (index != null) {
+            nextCheckAt = now + refreshIntervalMillis;
+        }
+        return index;
+    }
+
+    /**
+     * Downloads a snapshot, checks it against its manifest and indexes it.
+     */
+    private ProductSearchIndex load(CatalogSnapshots.Manifest manifest, Context context) {
+        long start = System.nanoTime();
+        byte[] snapshot = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(manifest.getKey())
+                .build()).asByteArray();
+        String checksum = HexFormat.of().formatHex(sha256().digest(snapshot));
+        if (!checksum.equals(manifest.getSha256())) {
+            throw new IllegalStateException("Checksum mismatch for " + manifest.getKey());
+        }
+        ProductSearchIndex loaded = ProductSearchIndex.fromSnapshot(manifest.getVersion(), snapshot);
+        context.getLogger().log("Indexed " + loaded.size() + " products of snapshot " + manifest.getVersion()
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return loaded;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates an APIGatewayProxyResponseEvent with the specified status code and body.
+     *
+     * @param statusCode The HTTP status code.
+     * @param body       The response body as a JSON string.
+     * @return The configured response event.
+     */
+    private static APIGatewayProxyResponseEvent createResponse(int statusCode, String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
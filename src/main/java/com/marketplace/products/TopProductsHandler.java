@@ -0,0 +1,248 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.cache.SalesRanking;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.ZParams;
+import redis.clients.jedis.resps.Tuple;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lambda handler for the best-selling products, overall or in one category. Sales are counted per
+ * hour by {@link com.marketplace.orders.CreateOrderHandler} (see {@link SalesRanking}); a ranking is
+ * the union of the last hours' sets, each weighted by {@code 0.5^(age / half-life)}, so recent sales
+ * count most and a burst fades out within the window.
+ *
+ * <p>The ranked products are taken from the cached listing where possible and read from DynamoDB
+ * otherwise. The finished response is cached for a minute, so the union is computed at most once
+ * a minute per ranking.
+ */
+public class TopProductsHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    /** Prefix of the cached rankings. */
+    static final String TOP_KEY_PREFIX = "products:top:";
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+    private static final int DEFAULT_HOURS = 24;
+    private static final int MAX_HOURS = SalesRanking.BUCKET_TTL_SECONDS / 3600 - 1;
+    private static final double DEFAULT_HALF_LIFE_HOURS = 6;
+    private static final int RESULT_TTL_SECONDS = 60;
+    private static final int MAX_BATCH_GET_ATTEMPTS = 3;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final Supplier<JedisPool> jedisPool;
+    private final String tableName;
+    private final double halfLifeHours;
+    private final JsonCodec jsonCodec;
+
+    /**
+     * Initializes the DynamoDB client and reads TOP_HALF_LIFE_HOURS (default 6).
+     */
+    public TopProductsHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                RedisConnections::getPool,
+                System.getenv("TABLE_NAME"),
+                System.getenv("TOP_HALF_LIFE_HOURS") != null
+                        ? Double.parseDouble(System.getenv("TOP_HALF_LIFE_HOURS")) : DEFAULT_HALF_LIFE_HOURS);
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName      The DynamoDB table name.
+     * @param halfLifeHours  Hours after which an hour's sales count half.
+     */
+    TopProductsHandler(DynamoDbClient dynamoDbClient, Supplier<JedisPool> jedisPool, String tableName,
+                       double halfLifeHours) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.jedisPool = jedisPool;
+        this.tableName = tableName;
+        this.halfLifeHours = halfLifeHours;
+        this.jsonCodec = MarketplaceJson.CODEC;
+    }
+
+    /**
+     * Handles the GET request for the best sellers.
+     *
+     * @param input   The API Gateway proxy request event, with optional {@code category}, {@code limit} and {@code hours}.
+     * @param context The Lambda execution context.
+     * @return The ranked products, best first.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "GET /products/top"),
+                () -> topProducts(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Returns the cached ranking, or computes and caches it.
+     */
+    private APIGatewayProxyResponseEvent topProducts(APIGatewayProxyRequestEvent input, Context context) {
+        Map<String, String> queryParams = input.getQueryStringParameters() != null
+                ? input.getQueryStringParameters() : Map.of();
+        String category = queryParams.get("category");
+        int limit;
+        int hours;
+        try {
+            limit = queryParams.containsKey("limit") ? Integer.parseInt(queryParams.get("limit")) : DEFAULT_LIMIT;
+            hours = queryParams.containsKey("hours") ? Integer.parseInt(queryParams.get("hours")) : DEFAULT_HOURS;
+        } catch (NumberFormatException e) {
+            return createResponse(400, JsonCodec.errorBody("limit and hours must be numbers"));
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return createResponse(400, JsonCodec.errorBody("limit must be between 1 and " + MAX_LIMIT));
+        }
+        if (hours < 1 || hours > MAX_HOURS) {
+            return createResponse(400, JsonCodec.errorBody("hours must be between 1 and " + MAX_HOURS));
+        }
+
+        JedisPool pool = jedisPool.get();
+        if (pool == null) {
+            return createResponse(503, JsonCodec.errorBody("Rankings are not available"));
+        }
+        String resultKey = TOP_KEY_PREFIX + (category != null ? "cat:" + category : "all") + ":" + hours + ":" + limit;
+        try (Jedis jedis = pool.getResource()) {
+            String cached = jedis.get(resultKey);
+            Metrics.get().recordCacheAccess("TopProducts", cached != null);
+            if (cached != null) {
+                return createResponse(200, cached);
+            }
+
+            List<Tuple> ranking = rank(jedis, category, hours, limit);
+            Map<String, Product> products = hydrate(jedis, category, ranking);
+
+            ObjectNode body = jsonCodec.createObjectNode()
+                    .put("category", category)
+                    .put("hours", hours);
+            ArrayNode ranked = body.putArray("products");
+            for (Tuple entry : ranking) {
+                Product product = products.get(entry.getElement());
+                if (product == null) {
+                    continue; // Deleted since it was ordered
+                }
+                product.setSupplierEmail(null);
+                int rank = ranked.size() + 1;
+                ranked.addObject()
+                        .put("rank", rank)
+                        .put("score", entry.getScore())
+                        .putRawValue("product", new RawValue(jsonCodec.write(product)));
+            }
+            String json = body.toString();
+            jedis.setex(resultKey, RESULT_TTL_SECONDS, json);
+            return createResponse(200, json);
+        } catch (Exception e) {
+            context.getLogger().log("Error ranking products: " + e.getMessage());
+            return createResponse(500, JsonCodec.errorBody("Could not rank products"));
+        }
+    }
+
+    /**
+     * Unions the hourly sets of the window with decaying weights and reads the top entries. The
+     * union, read and delete run in one transaction, so concurrent requests share the scratch key.
+     */
+    private List<Tuple> rank(Jedis jedis, String category, int hours, int limit) {
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        String[] keys = new String[hours];
+        double[] weights = new double[hours];
+        for (int age = 0; age < hours; age++) {
+            long hour = currentHour - age;
+            keys[age] = category != null ? SalesRanking.categoryKey(hour, category) : SalesRanking.globalKey(hour);
+            weights[age] = Math.pow(0.5, age / halfLifeHours);
+        }
+        String scratchKey = TOP_KEY_PREFIX + "union:" + (category != null ? "cat:" + category : "all") + ":" + hours;
+
+        Transaction transaction = jedis.multi();
+        transaction.zunionstore(scratchKey, new ZParams().weights(weights), keys);
+        Response<List<Tuple>> top = transaction.zrevrangeWithScores(scratchKey, 0, limit - 1);
+        transaction.del(scratchKey);
+        transaction.exec();
+        return top.get();
+    }
+
+    /**
+     * Finds the ranked products in the cached listing and reads the rest from DynamoDB.
+     */
+    private Map<String, Product> hydrate(Jedis jedis, String category, List<Tuple> ranking) throws Exception {
+        Map<String, Product> products = new HashMap<>();
+        if (ranking.isEmpty()) {
+            return products;
+        }
+        String listing = jedis.get(category != null ? ProductCatalog.categoryKey(category) : ProductCatalog.ALL_KEY);
+        if (listing != null) {
+            Map<String, Product> cached = new HashMap<>();
+            for (Product product : jsonCodec.read(listing, MarketplaceJson.PRODUCT_LIST)) {
+                cached.put(product.getId(), product);
+            }
+            ranking.forEach(entry -> {
+                Product product = cached.get(entry.getElement());
+                if (product != null) {
+                    products.put(product.getId(), product);
+                }
+            });
+        }
+
+        List<Map<String, AttributeValue>> missing = new ArrayList<>();
+        for (Tuple entry : ranking) {
+            if (!products.containsKey(entry.getElement())) {
+                missing.add(Map.of(
+                        "PK", AttributeValue.builder().s("PROD#" + entry.getElement()).build(),
+                        "SK", AttributeValue.builder().s("METADATA").build()));
+            }
+        }
+        Map<String, KeysAndAttributes> request = missing.isEmpty() ? Map.of()
+                : Map.of(tableName, KeysAndAttributes.builder().keys(missing).build());
+        for (int attempt = 0; !request.isEmpty() && attempt < MAX_BATCH_GET_ATTEMPTS; attempt++) {
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(request)
+                    .build());
+            response.responses().getOrDefault(tableName, List.of()).forEach(item -> {
+                Product product = ProductCatalog.toPublicProduct(item);
+                products.put(product.getId(), product);
+            });
+            request = response.unprocessedKeys();
+        }
+        return products;
+    }
+
+    /**
+     * Creates an APIGatewayProxyResponseEvent with the specified status code and body.
+     *
+     * @param statusCode The HTTP status code.
+     * @param body       The response body as a JSON string.
+     * @return The configured response event.
+     */
+    private static APIGatewayProxyResponseEvent createResponse(int statusCode, String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
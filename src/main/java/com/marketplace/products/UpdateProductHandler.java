@@ -0,0 +1,343 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marketplace.cache.RedisConnections;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+import com.marketplace.utils.Metrics;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Lambda handler for partially updating a product. Only the fields in the request body are written,
+ * with one {@code UpdateItem} conditioned on the version in the {@code If-Match} header, so a client
+ * never overwrites a change it has not seen. The version is incremented with every update and
+ * returned as the {@code ETag}.
+ *
+ * <p>The full listing and, if the category is set, the new category's listing are evicted from
+ * Redis. The listings of an unchanged or previous category are patched from the table stream by
+ * {@link ProductStreamHandler}.
+ */
+public class UpdateProductHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final Set<String> UPDATABLE_FIELDS = Set.of("name", "price", "category", "stockQuantity", "supplierEmail");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final KmsClient kmsClient;
+    private final Supplier<JedisPool> jedisPool;
+    private final String tableName;
+    private final String kmsKeyId;
+
+    /**
+     * Initializes the DynamoDB and KMS clients.
+     */
+    public UpdateProductHandler() {
+        this(ClientUtils.getClient(DynamoDbClient.class, DynamoDbClient::builder),
+                ClientUtils.getClient(KmsClient.class, KmsClient::builder),
+                RedisConnections::getPool,
+                System.getenv("TABLE_NAME"),
+                System.getenv("KMS_KEY_ID"));
+    }
+
+    /**
+     * Constructor for dependency injection, used primarily for testing.
+     *
+     * @param dynamoDbClient The DynamoDB client.
+     * @param kmsClient      The KMS client.
+     * @param jedisPool      Supplies the Redis pool, or null if Redis is not configured.
+     * @param tableName      The DynamoDB table name.
+     * @param kmsKeyId       The KMS Key ID.
+     */
+    UpdateProductHandler(DynamoDbClient dynamoDbClient, KmsClient kmsClient, Supplier<JedisPool> jedisPool,
+                         String tableName, String kmsKeyId) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.kmsClient = kmsClient;
+        this.jedisPool = jedisPool;
+        this.tableName = tableName;
+        this.kmsKeyId = kmsKeyId;
+    }
+
+    /**
+     * Handles the PATCH request to update a product.
+     *
+     * @param input   The API Gateway proxy request event.
+     * @param context The Lambda execution context.
+     * @return The updated fields and the new version.
+     */
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent input, Context context) {
+        return Metrics.get().measure(Metrics.route(input.getHttpMethod(), input.getResource(), "PATCH /products/{id}"),
+                () -> updateProduct(input, context), response -> Metrics.outcome(response.getStatusCode()));
+    }
+
+    /**
+     * Validates the patch and applies it.
+     */
+    private APIGatewayProxyResponseEvent updateProduct(APIGatewayProxyRequestEvent input, Context context) {
+        String productId = input.getPathParameters() != null ? input.getPathParameters().get("id") : null;
+        if (productId == null || productId.isEmpty()) {
+            return createResponse(400, JsonCodec.errorBody("Product ID is required"));
+        }
+
+        String ifMatch = header(input, "If-Match");
+        if (ifMatch == null) {
+            return createResponse(428, JsonCodec.errorBody("If-Match header with the product version is required"));
+        }
+        int expectedVersion;
+        try {
+            expectedVersion = parseVersion(ifMatch);
+        } catch (NumberFormatException e) {
+            return createResponse(400, JsonCodec.errorBody("Invalid If-Match header", "If-Match", ifMatch));
+        }
+
+        JsonNode patch;
+        try {
+            patch = input.getBody() != null ? MarketplaceJson.CODEC.readTree(input.getBody()) : null;
+        } catch (IOException e) {
+            return createResponse(400, JsonCodec.errorBody("Malformed JSON body"));
+        }
+        if (patch == null || !patch.isObject() || patch.isEmpty()) {
+            return createResponse(400, JsonCodec.errorBody("Request body must be a JSON object with the fields to update"));
+        }
+        String validationError = validate(patch);
+        if (validationError != null) {
+            return createResponse(400, JsonCodec.errorBody(validationError));
+        }
+
+        try {
+            UpdateItemResponse response;
+            try {
+                response = dynamoDbClient.updateItem(createUpdateRequest(productId, patch, expectedVersion));
+            } catch (ConditionalCheckFailedException e) {
+                return conflictResponse(productId);
+            }
+
+            Map<String, AttributeValue> updated = response.attributes();
+            int version = Integer.parseInt(updated.get("version").n());
+            evictListings(patch.hasNonNull("category") ? patch.get("category").asText() : null, context);
+
+            ObjectNode body = MarketplaceJson.CODEC.createObjectNode().put("id", productId);
+            // The stored email is ciphertext, so it is left out
+            if (updated.containsKey("name")) {
+                body.put("name", updated.get("name").s());
+            }
+            if (updated.containsKey("price")) {
+                body.put("price", Double.parseDouble(updated.get("price").n()));
+            }
+            if (updated.containsKey("category")) {
+                body.put("category", updated.get("category").s());
+            }
+            if (updated.containsKey("stockQuantity")) {
+                body.put("stockQuantity", Integer.parseInt(updated.get("stockQuantity").n()));
+            }
+            body.put("version", version);
+            return createResponse(200, body.toString()).withHeaders(Map.of(
+                    "Content-Type", "application/json",
+                    "ETag", "\"" + version + "\""));
+        } catch (Exception e) {
+            context.getLogger().log("Error updating product " + productId + ": " + e.getMessage());
+            return createResponse(500, JsonCodec.errorBody("Could not update product"));
+        }
+    }
+
+    /**
+     * Checks that only updatable fields are present, with the same rules as a create.
+     *
+     * @return An error message, or null if the patch is valid.
+     */
+    private static String validate(JsonNode patch) {
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (!UPDATABLE_FIELDS.contains(name)) {
+                return "Field cannot be updated: " + name;
+            }
+        }
+        JsonNode name = patch.get("name");
+        if (name != null && (!name.isTextual() || name.asText().trim().isEmpty())) {
+            return "Product name is required";
+        }
+        JsonNode price = patch.get("price");
+        if (price != null && (!price.isNumber() || price.asDouble() <= 0)) {
+            return "Product price must be greater than zero";
+        }
+        JsonNode category = patch.get("category");
+        if (category != null && (!category.isTextual() || category.asText().trim().isEmpty())) {
+            return "Product category is required";
+        }
+        JsonNode stock = patch.get("stockQuantity");
+        if (stock != null && (!stock.canConvertToInt() || !stock.isIntegralNumber() || stock.asInt() < 0)) {
+            return "Stock quantity cannot be negative";
+        }
+        JsonNode email = patch.get("supplierEmail");
+        if (email != null && !email.isNull() && !email.isTextual()) {
+            return "Supplier email must be a string or null";
+        }
+        return null;
+    }
+
+    /**
+     * Builds an update that sets only the fields in the patch, removes the supplier email if it is
+     * null, and increments the version if it still is the expected one.
+     */
+    private UpdateItemRequest createUpdateRequest(String productId, JsonNode patch, int expectedVersion) {
+        List<String> set = new ArrayList<>();
+        List<String> remove = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+
+        for (Iterator<Map.Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            names.put("#" + name, name);
+            if ("supplierEmail".equals(name) && value.isNull()) {
+                remove.add("#" + name);
+                continue;
+            }
+            set.add("#" + name + " = :" + name);
+            if ("supplierEmail".equals(name)) {
+                values.put(":" + name, AttributeValue.builder().s(encrypt(value.asText())).build());
+            } else if ("price".equals(name)) {
+                // Formatted as a create writes it
+                values.put(":" + name, AttributeValue.builder().n(String.valueOf(value.asDouble())).build());
+            } else if ("stockQuantity".equals(name)) {
+                values.put(":" + name, AttributeValue.builder().n(String.valueOf(value.asInt())).build());
+            } else {
+                values.put(":" + name, AttributeValue.builder().s(value.asText()).build());
+            }
+        }
+        set.add("#version = #version + :one");
+        names.put("#version", "version");
+        values.put(":one", AttributeValue.builder().n("1").build());
+        values.put(":expected", AttributeValue.builder().n(String.valueOf(expectedVersion)).build());
+
+        String updateExpression = "SET " + String.join(", ", set)
+                + (remove.isEmpty() ? "" : " REMOVE " + String.join(", ", remove));
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "PK", AttributeValue.builder().s("PROD#" + productId).build(),
+                        "SK", AttributeValue.builder().s("METADATA").build()))
+                .updateExpression(updateExpression)
+                .conditionExpression("attribute_exists(PK) AND #version = :expected")
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build();
+    }
+
+    private String encrypt(String email) {
+        return Base64.getEncoder().encodeToString(kmsClient.encrypt(EncryptRequest.builder()
+                .keyId(kmsKeyId)
+                .plaintext(SdkBytes.fromUtf8String(email))
+                .build()).ciphertextBlob().asByteArray());
+    }
+
+    /**
+     * Tells a missing product from a stale version after the condition failed. This read only
+     * happens on the failure path.
+     */
+    private APIGatewayProxyResponseEvent conflictResponse(String productId) {
+        Map<String, AttributeValue> item = dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of(
+                        "PK", AttributeValue.builder().s("PROD#" + productId).build(),
+                        "SK", AttributeValue.builder().s("METADATA").build()))
+                .projectionExpression("#version")
+                .expressionAttributeNames(Map.of("#version", "version"))
+                .build()).item();
+        if (item == null || item.isEmpty()) {
+            return createResponse(404, JsonCodec.errorBody("Product not found"));
+        }
+        String current = item.get("version").n();
+        return createResponse(412, JsonCodec.errorBody("Product was modified", "currentVersion", current))
+                .withHeaders(Map.of("Content-Type", "application/json", "ETag", "\"" + current + "\""));
+    }
+
+    /**
+     * Evicts the full listing and the listing of the category the product is now in.
+     */
+    private void evictListings(String newCategory, Context context) {
+        JedisPool pool = jedisPool.get();
+        if (pool == null) {
+            return;
+        }
+        try (Jedis jedis = pool.getResource()) {
+            long start = System.nanoTime();
+            if (newCategory != null) {
+                jedis.del(ProductCatalog.ALL_KEY, ProductCatalog.categoryKey(newCategory));
+            } else {
+                jedis.del(ProductCatalog.ALL_KEY);
+            }
+            Metrics.get().recordLatency("Redis.Del", start);
+        } catch (Exception e) {
+            context.getLogger().log("Redis eviction error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts {@code 3}, {@code "3"} and {@code W/"3"}.
+     */
+    private static int parseVersion(String ifMatch) {
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+            version = version.substring(1, version.length() - 1);
+        }
+        return Integer.parseInt(version);
+    }
+
+    private static String header(APIGatewayProxyRequestEvent input, String name) {
+        if (input.getHeaders() == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> header : input.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates an APIGatewayProxyResponseEvent with the specified status code and body.
+     *
+     * @param statusCode The HTTP status code.
+     * @param body       The response body as a JSON string.
+     * @return The configured response event.
+     */
+    private static APIGatewayProxyResponseEvent createResponse(int statusCode, String body) {
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(Map.of("Content-Type", "application/json"))
+                .withBody(body);
+    }
+}
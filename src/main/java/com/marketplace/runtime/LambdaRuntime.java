@@ -0,0 +1,258 @@
+package com.marketplace.runtime;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.serialization.PojoSerializer;
+import com.amazonaws.services.lambda.runtime.serialization.events.LambdaEventSerializers;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal Lambda Runtime API client used as the {@code bootstrap} entrypoint of the native executables.
+ * It instantiates the handler named by {@code _HANDLER} (the {@code Handler} property in template.yaml)
+ * once, then loops: fetch the next event, invoke the existing {@link RequestHandler}, post the result.
+ *
+ * <p>Events from aws-lambda-java-events are decoded with the managed Java runtime's own serializers,
+ * which know their field names (such as the capitalised {@code NewImage} and {@code S} of a DynamoDB
+ * stream record); any other input type is read with Jackson.
+ *
+ * @see <a href="https://docs.aws.amazon.com/lambda/latest/dg/runtimes-api.html">Lambda Runtime API</a>
+ */
+public final class LambdaRuntime {
+
+    private static final String API_VERSION = "/2018-06-01/runtime";
+
+    private final String runtimeApiBase;
+    private final RequestHandler<Object, Object> handler;
+    private final EventReader eventReader;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates a runtime for one handler.
+     *
+     * @param runtimeApi The Runtime API host and port, from AWS_LAMBDA_RUNTIME_API.
+     * @param handler    The handler to dispatch events to.
+     */
+    @SuppressWarnings("unchecked")
+    LambdaRuntime(String runtimeApi, RequestHandler<?, ?> handler) {
+        this.runtimeApiBase = "http://" + runtimeApi + API_VERSION;
+        this.handler = (RequestHandler<Object, Object>) handler;
+        this.httpClient = HttpClient.newHttpClient();
+        this.objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.eventReader = eventReader(resolveInputType(handler.getClass()), objectMapper);
+    }
+
+    /**
+     * Chooses how events of the handler's input type are decoded.
+     *
+     * @param inputType    The handler's event type.
+     * @param objectMapper The mapper for types that are not Lambda events.
+     * @return The event reader.
+     */
+    @SuppressWarnings("unchecked")
+    static EventReader eventReader(Type inputType, ObjectMapper objectMapper) {
+        if (inputType instanceof Class && LambdaEventSerializers.isLambdaSupportedEvent(((Class<?>) inputType).getName())) {
+            PojoSerializer<Object> serializer = LambdaEventSerializers.serializerFor(
+                    (Class<Object>) inputType, LambdaRuntime.class.getClassLoader());
+            return serializer::fromJson;
+        }
+        JavaType javaType = objectMapper.constructType(inputType);
+        return json -> objectMapper.readValue(json, javaType);
+    }
+
+    /**
+     * Entrypoint of the native executable.
+     *
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        String runtimeApi = System.getenv("AWS_LAMBDA_RUNTIME_API");
+        String handlerName = System.getenv("_HANDLER");
+
+        LambdaRuntime runtime;
+        try {
+            runtime = new LambdaRuntime(runtimeApi, createHandler(handlerName));
+        } catch (Exception e) {
+            reportInitError(runtimeApi, e);
+            System.exit(1);
+            return;
+        }
+
+        while (true) {
+            try {
+                runtime.processNextEvent();
+            } catch (IOException e) {
+                // The Runtime API is unreachable; let Lambda restart the environment
+                System.err.println("Runtime API error: " + e.getMessage());
+                System.exit(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Fetches one event, invokes the handler and reports the result or the error.
+     *
+     * @throws IOException          If the Runtime API cannot be reached.
+     * @throws InterruptedException If the thread is interrupted while waiting for an event.
+     */
+    void processNextEvent() throws IOException, InterruptedException {
+        HttpResponse<String> next = httpClient.send(
+                HttpRequest.newBuilder(URI.create(runtimeApiBase + "/invocation/next")).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+
+        String requestId = next.headers().firstValue("Lambda-Runtime-Aws-Request-Id").orElseThrow(
+                () -> new IOException("Missing Lambda-Runtime-Aws-Request-Id header"));
+        long deadlineMillis = next.headers().firstValue("Lambda-Runtime-Deadline-Ms")
+                .map(Long::parseLong).orElse(System.currentTimeMillis() + 3_000);
+        String functionArn = next.headers().firstValue("Lambda-Runtime-Invoked-Function-Arn").orElse(null);
+        next.headers().firstValue("Lambda-Runtime-Trace-Id")
+                .ifPresentOrElse(traceId -> System.setProperty("com.amazonaws.xray.traceHeader", traceId),
+                        () -> System.clearProperty("com.amazonaws.xray.traceHeader"));
+
+        String path;
+        String body;
+        try {
+            Object input = eventReader.read(next.body());
+            Object output = handler.handleRequest(input, new RuntimeContext(requestId, deadlineMillis, functionArn));
+            path = "/invocation/" + requestId + "/response";
+            body = objectMapper.writeValueAsString(output);
+        } catch (Exception e) {
+            e.printStackTrace();
+            path = "/invocation/" + requestId + "/error";
+            body = errorBody(e);
+        }
+        post(path, body);
+    }
+
+    /**
+     * Instantiates the handler class from a {@code _HANDLER} value such as {@code com.example.Handler::handleRequest}.
+     *
+     * @param handlerName The handler name.
+     * @return The handler instance.
+     * @throws ReflectiveOperationException If the class cannot be created.
+     */
+    static RequestHandler<?, ?> createHandler(String handlerName) throws ReflectiveOperationException {
+        if (handlerName == null || handlerName.isEmpty()) {
+            throw new IllegalArgumentException("_HANDLER is not set");
+        }
+        int separator = handlerName.indexOf("::");
+        String className = separator >= 0 ? handlerName.substring(0, separator) : handlerName;
+        return (RequestHandler<?, ?>) Class.forName(className).getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Finds the event type {@code I} of {@code RequestHandler<I, O>} implemented by the handler class.
+     *
+     * @param handlerClass The handler class.
+     * @return The event type, or {@code Object} if it cannot be determined.
+     */
+    static Type resolveInputType(Class<?> handlerClass) {
+        for (Class<?> type = handlerClass; type != null; type = type.getSuperclass()) {
+            for (Type candidate : type.getGenericInterfaces()) {
+                if (candidate instanceof ParameterizedType
+                        && ((ParameterizedType) candidate).getRawType() == RequestHandler.class) {
+                    return ((ParameterizedType) candidate).getActualTypeArguments()[0];
+                }
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * Reports a failure to create the handler so Lambda shows it as an init error.
+     */
+    private static void reportInitError(String runtimeApi, Exception error) {
+        error.printStackTrace();
+        try {
+            HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://" + runtimeApi + API_VERSION + "/init/error"))
+                            .POST(HttpRequest.BodyPublishers.ofString(errorBody(error)))
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            System.err.println("Could not report init error: " + e.getMessage());
+        }
+    }
+
+    private void post(String path, String body) throws IOException, InterruptedException {
+        httpClient.send(HttpRequest.newBuilder(URI.create(runtimeApiBase + path))
+                        .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static String errorBody(Exception error) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("errorMessage", String.valueOf(error.getMessage()));
+        body.put("errorType", error.getClass().getName());
+        try {
+            return new ObjectMapper().writeValueAsString(body);
+        } catch (IOException e) {
+            return "{\"errorType\": \"" + error.getClass().getName() + "\"}";
+        }
+    }
+
+    /**
+     * Decodes an event body into the handler's input type.
+     */
+    @FunctionalInterface
+    interface EventReader {
+        Object read(String json) throws IOException;
+    }
+
+    /**
+     * Lambda context built from the Runtime API headers and the function's environment variables.
+     */
+    static final class RuntimeContext implements Context {
+        private static final LambdaLogger STDOUT_LOGGER = new LambdaLogger() {
+            @Override public void log(String message) { System.out.println(message); }
+            @Override public void log(byte[] message) { System.out.println(new String(message, StandardCharsets.UTF_8)); }
+        };
+
+        private final String requestId;
+        private final long deadlineMillis;
+        private final String functionArn;
+
+        RuntimeContext(String requestId, long deadlineMillis, String functionArn) {
+            this.requestId = requestId;
+            this.deadlineMillis = deadlineMillis;
+            this.functionArn = functionArn;
+        }
+
+        @Override public String getAwsRequestId() { return requestId; }
+        @Override public String getLogGroupName() { return System.getenv("AWS_LAMBDA_LOG_GROUP_NAME"); }
+        @Override public String getLogStreamName() { return System.getenv("AWS_LAMBDA_LOG_STREAM_NAME"); }
+        @Override public String getFunctionName() { return System.getenv("AWS_LAMBDA_FUNCTION_NAME"); }
+        @Override public String getFunctionVersion() { return System.getenv("AWS_LAMBDA_FUNCTION_VERSION"); }
+        @Override public String getInvokedFunctionArn() { return functionArn; }
+        @Override public CognitoIdentity getIdentity() { return null; }
+        @Override public ClientContext getClientContext() { return null; }
+        @Override public int getRemainingTimeInMillis() { return (int) Math.max(0, deadlineMillis - System.currentTimeMillis()); }
+        @Override public int getMemoryLimitInMB() {
+            String memory = System.getenv("AWS_LAMBDA_FUNCTION_MEMORY_SIZE");
+            return memory != null ? Integer.parseInt(memory) : 0;
+        }
+        @Override public LambdaLogger getLogger() { return STDOUT_LOGGER; }
+    }
+}
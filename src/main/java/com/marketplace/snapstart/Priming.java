@@ -0,0 +1,75 @@
+package com.marketplace.snapstart;
+
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Order;
+import com.marketplace.model.Product;
+import com.marketplace.utils.ClientUtils;
+import com.marketplace.utils.JsonCodec;
+
+import java.util.List;
+
+/**
+ * Helpers used by the handlers' CRaC hooks to warm the JVM before a SnapStart snapshot is taken.
+ * Every step is best effort: a priming failure must never prevent the function from starting.
+ */
+public final class Priming {
+
+    private Priming() {}
+
+    /**
+     * Runs serialization and deserialization for the model classes so the codec's cached readers and writers
+     * are built and captured in the snapshot instead of on the first request.
+     *
+     * @param jsonCodec The handler's JSON codec.
+     */
+    public static void primeJson(JsonCodec jsonCodec) {
+        try {
+            Product product = new Product("priming", "Priming", 1.0, "Priming", 1, 1, "priming@example.com");
+            jsonCodec.read(jsonCodec.write(product), Product.class);
+            jsonCodec.read(jsonCodec.write(List.of(product), MarketplaceJson.PRODUCT_LIST), MarketplaceJson.PRODUCT_LIST);
+
+            Order order = new Order("priming", "priming", "priming", 1, 0L);
+            jsonCodec.read(jsonCodec.write(order), Order.class);
+            jsonCodec.read(jsonCodec.write(List.of(order), MarketplaceJson.ORDER_LIST), MarketplaceJson.ORDER_LIST);
+        } catch (Exception e) {
+            // Best effort
+        }
+    }
+
+    /**
+     * Loads and initializes classes that the first request would otherwise load lazily.
+     *
+     * @param classNames Fully qualified class names; unknown classes are skipped.
+     */
+    public static void preloadClasses(String... classNames) {
+        for (String className : classNames) {
+            try {
+                Class.forName(className, true, Priming.class.getClassLoader());
+            } catch (Throwable e) {
+                // Best effort
+            }
+        }
+    }
+
+    /**
+     * Runs a priming call, typically a cheap SDK request that exercises request marshalling,
+     * signing and response unmarshalling. Service errors are expected and ignored.
+     *
+     * @param call The call to run.
+     */
+    public static void run(Runnable call) {
+        try {
+            call.run();
+        } catch (Exception e) {
+            // Best effort
+        }
+    }
+
+    /**
+     * Resolves credentials again after a restore. Credentials captured in the snapshot may
+     * already be expired; resolving them here keeps the refresh off the first request.
+     */
+    public static void refreshCredentials() {
+        run(() -> ClientUtils.getCredentialsProvider().resolveCredentials());
+    }
+}
@@ -0,0 +1,107 @@
+package com.marketplace.snapstart;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import org.crac.Core;
+import org.crac.Resource;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Command-line probe used by {@code scripts/startup_benchmark.sh} to compare start-up modes of a handler.
+ *
+ * <ul>
+ *   <li>{@code cold}: construct the handler and invoke it, as a plain Lambda cold start would.</li>
+ *   <li>{@code primed}: run the CRaC priming hooks before the first invocation, without a snapshot.</li>
+ *   <li>{@code checkpoint}: prime, take a CRaC checkpoint, and invoke once restored (CRaC JDK only).</li>
+ * </ul>
+ *
+ * Usage: {@code StartupProbe <cold|primed|checkpoint> [handlerClass]}. The handler must accept an
+ * {@link APIGatewayProxyRequestEvent}; PROBE_PRODUCT_ID and PROBE_BODY shape the synthetic request.
+ */
+public final class StartupProbe {
+
+    private StartupProbe() {}
+
+    /**
+     * Runs the probe and prints one {@code key=value} result line.
+     *
+     * @param args The mode and optional handler class name.
+     * @throws Exception If the handler cannot be created.
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "cold";
+        String handlerClass = args.length > 1 ? args[1] : "com.marketplace.products.GetProductsHandler";
+
+        long constructStart = System.nanoTime();
+        Object handler = Class.forName(handlerClass).getDeclaredConstructor().newInstance();
+        long initNanos = System.nanoTime() - constructStart;
+
+        if ("primed".equals(mode) && handler instanceof Resource) {
+            long primeStart = System.nanoTime();
+            ((Resource) handler).beforeCheckpoint(null);
+            ((Resource) handler).afterRestore(null);
+            initNanos += System.nanoTime() - primeStart;
+        } else if ("checkpoint".equals(mode)) {
+            // The process exits here on checkpoint; the restored process continues below
+            Core.checkpointRestore();
+            mode = "restored";
+            initNanos = 0;
+        }
+
+        RequestHandler<APIGatewayProxyRequestEvent, Object> requestHandler = (RequestHandler<APIGatewayProxyRequestEvent, Object>) handler;
+        long firstInvokeNanos = invoke(requestHandler);
+        long warmInvokeNanos = invoke(requestHandler);
+
+        System.out.printf("mode=%s handler=%s init_ms=%.1f first_invoke_ms=%.1f warm_invoke_ms=%.1f jvm_uptime_ms=%d%n",
+                mode, handlerClass, initNanos / 1e6, firstInvokeNanos / 1e6, warmInvokeNanos / 1e6,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    /**
+     * Invokes the handler once with a synthetic API Gateway request.
+     *
+     * @param handler The handler to invoke.
+     * @return The invocation time in nanoseconds.
+     */
+    private static long invoke(RequestHandler<APIGatewayProxyRequestEvent, Object> handler) {
+        String productId = System.getenv().getOrDefault("PROBE_PRODUCT_ID", "probe-product");
+        APIGatewayProxyRequestEvent event = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withPathParameters(Map.of("id", productId))
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext())
+                .withBody(System.getenv("PROBE_BODY"));
+
+        long start = System.nanoTime();
+        handler.handleRequest(event, new ProbeContext());
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Minimal Lambda context for running handlers outside the Lambda runtime.
+     */
+    static final class ProbeContext implements Context {
+        @Override public String getAwsRequestId() { return "probe"; }
+        @Override public String getLogGroupName() { return "probe"; }
+        @Override public String getLogStreamName() { return "probe"; }
+        @Override public String getFunctionName() { return "probe"; }
+        @Override public String getFunctionVersion() { return "$LATEST"; }
+        @Override public String getInvokedFunctionArn() { return "arn:aws:lambda:us-east-1:000000000000:function:probe"; }
+        @Override public CognitoIdentity getIdentity() { return null; }
+        @Override public ClientContext getClientContext() { return null; }
+        @Override public int getRemainingTimeInMillis() { return 30_000; }
+        @Override public int getMemoryLimitInMB() { return 512; }
+        @Override public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override public void log(String message) { System.err.println(message); }
+                @Override public void log(byte[] message) { System.err.println(new String(message)); }
+            };
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.marketplace.deploy;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.codedeploy.CodeDeployClient;
+import software.amazon.awssdk.services.codedeploy.model.DeploymentInfo;
+import software.amazon.awssdk.services.codedeploy.model.DeploymentTarget;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentRequest;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentResponse;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentTargetRequest;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentTargetResponse;
+import software.amazon.awssdk.services.codedeploy.model.LambdaFunctionInfo;
+import software.amazon.awssdk.services.codedeploy.model.LambdaTarget;
+import software.amazon.awssdk.services.codedeploy.model.ListDeploymentTargetsRequest;
+import software.amazon.awssdk.services.codedeploy.model.ListDeploymentTargetsResponse;
+import software.amazon.awssdk.services.codedeploy.model.PutLifecycleEventHookExecutionStatusRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AfterAllowTrafficHandler, with fake metric sources and a mocked CloudWatch client.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AfterAllowTrafficHandlerTest {
+
+    private static final String FUNCTION = "marketplace-CreateOrderFunction-AbC123";
+    private static final Instant DEPLOYMENT_START = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private CodeDeployClient codeDeployClient;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private final ServiceLevelObjectives objectives = new ServiceLevelObjectives(
+            Map.of("CreateOrderFunction", new ServiceLevelObjectives.Slo(500, 0.01, 0, 20)));
+
+    /**
+     * Sets up a deployment of CreateOrderFunction from version 1 to version 2.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(codeDeployClient.listDeploymentTargets(any(ListDeploymentTargetsRequest.class)))
+                .thenReturn(ListDeploymentTargetsResponse.builder().targetIds(FUNCTION + ":live").build());
+        lenient().when(codeDeployClient.getDeploymentTarget(any(GetDeploymentTargetRequest.class)))
+                .thenReturn(GetDeploymentTargetResponse.builder().deploymentTarget(DeploymentTarget.builder()
+                        .lambdaTarget(LambdaTarget.builder().lambdaFunctionInfo(LambdaFunctionInfo.builder()
+                                .functionName(FUNCTION).functionAlias("live").currentVersion("1").targetVersion("2")
+                                .build()).build()).build()).build());
+        lenient().when(codeDeployClient.getDeployment(any(GetDeploymentRequest.class)))
+                .thenReturn(GetDeploymentResponse.builder()
+                        .deploymentInfo(DeploymentInfo.builder().createTime(DEPLOYMENT_START).build()).build());
+    }
+
+    /**
+     * Tests that a p99 above the SLO reports Failed so CodeDeploy rolls the alias back.
+     */
+    @Test
+    public void shouldFailDeploymentWhenLatencySloIsBreached() {
+        // Given
+        MetricSource metrics = (target, start, end) -> new CanaryMetrics(200, 0, 0, 900);
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, metrics, objectives).handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+    }
+
+    /**
+     * Tests that an error rate above the SLO reports Failed.
+     */
+    @Test
+    public void shouldFailDeploymentWhenErrorRateSloIsBreached() {
+        // Given
+        MetricSource metrics = (target, start, end) -> new CanaryMetrics(200, 5, 0, 100);
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, metrics, objectives).handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+    }
+
+    /**
+     * Tests that metrics within the SLO succeed and are read for the target version since the deployment started.
+     */
+    @Test
+    public void shouldSucceedWithinSlo() {
+        // Given
+        LambdaDeploymentTarget[] seen = new LambdaDeploymentTarget[1];
+        Instant[] windowStart = new Instant[1];
+        MetricSource metrics = (target, start, end) -> {
+            seen[0] = target;
+            windowStart[0] = start;
+            return new CanaryMetrics(200, 1, 0, 120);
+        };
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, metrics, objectives).handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Succeeded");
+        assertThat(seen[0].getTargetVersion()).isEqualTo("2");
+        assertThat(seen[0].getAlias()).isEqualTo("live");
+        assertThat(windowStart[0]).isEqualTo(DEPLOYMENT_START);
+    }
+
+    /**
+     * Tests that latency is not judged on too few invocations, but throttles always are.
+     */
+    @Test
+    public void shouldOnlyJudgeThrottlesBelowMinimumInvocations() {
+        // Given
+        MetricSource slowButRare = (target, start, end) -> new CanaryMetrics(3, 1, 0, 2_000);
+        MetricSource throttled = (target, start, end) -> new CanaryMetrics(3, 0, 4, 100);
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, slowButRare, objectives).handleRequest(hookEvent(), context);
+        new AfterAllowTrafficHandler(codeDeployClient, throttled, objectives).handleRequest(hookEvent(), context);
+
+        // Then
+        ArgumentCaptor<PutLifecycleEventHookExecutionStatusRequest> captor =
+                ArgumentCaptor.forClass(PutLifecycleEventHookExecutionStatusRequest.class);
+        verify(codeDeployClient, times(2)).putLifecycleEventHookExecutionStatus(captor.capture());
+        assertThat(captor.getAllValues()).extracting(PutLifecycleEventHookExecutionStatusRequest::statusAsString)
+                .containsExactly("Succeeded", "Failed");
+    }
+
+    /**
+     * Tests the file metric source used with LocalStack.
+     */
+    @Test
+    public void shouldReadMetricsFromFile(@TempDir Path dir) throws Exception {
+        // Given
+        Path file = dir.resolve("canary.json");
+        Files.writeString(file, "{\"CreateOrderFunction\": {\"invocations\": 50, \"errors\": 0, \"throttles\": 0, \"p99Millis\": 750.5}}");
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, new FileMetricSource(file), objectives)
+                .handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+    }
+
+    /**
+     * Tests that the CloudWatch source counts the target version's 500 responses as errors, since the
+     * handlers return them instead of failing the invocation.
+     */
+    @Test
+    public void shouldCountServerErrorResponsesOfTargetVersion() {
+        // Given
+        CloudWatchClient cloudWatchClient = mock(CloudWatchClient.class);
+        when(cloudWatchClient.getMetricData(any(GetMetricDataRequest.class))).thenReturn(GetMetricDataResponse.builder()
+                .metricDataResults(
+                        MetricDataResult.builder().id("invocations").values(200.0).build(),
+                        MetricDataResult.builder().id("errors").values(1.0).build(),
+                        MetricDataResult.builder().id("duration").values(120.0).build(),
+                        MetricDataResult.builder().id("responses5xx").values(4.0).build())
+                .build());
+
+        // When
+        new AfterAllowTrafficHandler(codeDeployClient, new CloudWatchMetricSource(cloudWatchClient), objectives)
+                .handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+        ArgumentCaptor<GetMetricDataRequest> captor = ArgumentCaptor.forClass(GetMetricDataRequest.class);
+        verify(cloudWatchClient).getMetricData(captor.capture());
+        Metric responses = captor.getValue().metricDataQueries().stream()
+                .filter(query -> query.id().equals("responses5xx"))
+                .findFirst().orElseThrow().metricStat().metric();
+        assertThat(responses.namespace()).isEqualTo("Marketplace");
+        assertThat(responses.dimensions()).extracting(Dimension::name, Dimension::value).containsExactly(
+                tuple("Function", FUNCTION), tuple("Version", "2"), tuple("Outcome", "5xx"));
+    }
+
+    /**
+     * Tests that the bundled SLOs cover both functions deployed with the hooks.
+     */
+    @Test
+    public void shouldLoadBundledObjectives() {
+        // When
+        ServiceLevelObjectives bundled = ServiceLevelObjectives.load();
+
+        // Then
+        assertThat(bundled.forTarget(new LambdaDeploymentTarget(FUNCTION, "live", "1", "2"))).isPresent();
+        assertThat(bundled.forTarget(new LambdaDeploymentTarget("marketplace-CreateProductFunction-x", "live", "1", "2")))
+                .isPresent();
+    }
+
+    private Map<String, Object> hookEvent() {
+        return Map.of("DeploymentId", "d-123", "LifecycleEventHookExecutionId", "hook-1");
+    }
+
+    private String reportedStatus() {
+        ArgumentCaptor<PutLifecycleEventHookExecutionStatusRequest> captor =
+                ArgumentCaptor.forClass(PutLifecycleEventHookExecutionStatusRequest.class);
+        verify(codeDeployClient).putLifecycleEventHookExecutionStatus(captor.capture());
+        return captor.getValue().statusAsString();
+    }
+}
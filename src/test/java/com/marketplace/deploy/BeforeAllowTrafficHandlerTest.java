@@ -0,0 +1,243 @@
+package com.marketplace.deploy;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.codedeploy.CodeDeployClient;
+import software.amazon.awssdk.services.codedeploy.model.DeploymentTarget;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentTargetRequest;
+import software.amazon.awssdk.services.codedeploy.model.GetDeploymentTargetResponse;
+import software.amazon.awssdk.services.codedeploy.model.LambdaFunctionInfo;
+import software.amazon.awssdk.services.codedeploy.model.LambdaTarget;
+import software.amazon.awssdk.services.codedeploy.model.ListDeploymentTargetsRequest;
+import software.amazon.awssdk.services.codedeploy.model.ListDeploymentTargetsResponse;
+import software.amazon.awssdk.services.codedeploy.model.PutLifecycleEventHookExecutionStatusRequest;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParameterRequest;
+import software.amazon.awssdk.services.ssm.model.GetParameterResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.model.ParameterNotFoundException;
+import software.amazon.awssdk.services.ssm.model.PutParameterRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BeforeAllowTrafficHandler, with a local stand-in for the Lambda invoker.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BeforeAllowTrafficHandlerTest {
+
+    private static final String FUNCTION = "marketplace-CreateOrderFunction-AbC123";
+
+    @Mock
+    private CodeDeployClient codeDeployClient;
+
+    @Mock
+    private SsmClient ssmClient;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private final List<String> invokedVersions = new ArrayList<>();
+    private double currentMillis = 10;
+    private double candidateMillis = 10;
+    private int candidateStatus = 404;
+    private String storedBaseline;
+    private Runnable cacheWarmer = () -> invokedVersions.add("warmer");
+
+    /**
+     * Sets up a deployment of CreateOrderFunction from version 1 to version 2.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(codeDeployClient.listDeploymentTargets(any(ListDeploymentTargetsRequest.class)))
+                .thenReturn(ListDeploymentTargetsResponse.builder().targetIds(FUNCTION + ":live").build());
+        lenient().when(codeDeployClient.getDeploymentTarget(any(GetDeploymentTargetRequest.class)))
+                .thenReturn(GetDeploymentTargetResponse.builder().deploymentTarget(DeploymentTarget.builder()
+                        .lambdaTarget(LambdaTarget.builder().lambdaFunctionInfo(LambdaFunctionInfo.builder()
+                                .functionName(FUNCTION).functionAlias("live").currentVersion("1").targetVersion("2")
+                                .build()).build()).build()).build());
+    }
+
+    /**
+     * Tests that a version slower than the stored baseline beyond the budget fails the deployment.
+     */
+    @Test
+    public void shouldFailDeploymentWhenLatencyRegresses() {
+        // Given
+        storedBaseline("1", 10, 12);
+        candidateMillis = 30;
+
+        // When
+        handler().handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+        assertThat(invokedVersions).first().isEqualTo("warmer");
+        assertThat(invokedVersions).containsOnly("warmer", "2");
+        verify(ssmClient, never()).putParameter(any(PutParameterRequest.class));
+    }
+
+    /**
+     * Tests that a version within budget succeeds and becomes the baseline of the next deployment.
+     */
+    @Test
+    public void shouldSucceedAndStoreBaselineWithinBudget() {
+        // Given
+        storedBaseline("1", 10, 12);
+        candidateMillis = 11;
+
+        // When
+        handler().handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Succeeded");
+        ArgumentCaptor<PutParameterRequest> captor = ArgumentCaptor.forClass(PutParameterRequest.class);
+        verify(ssmClient).putParameter(captor.capture());
+        assertThat(captor.getValue().name()).isEqualTo("/baselines/" + FUNCTION);
+        assertThat(captor.getValue().value()).contains("\"version\":\"2\"").contains("\"p50Millis\":11.0");
+    }
+
+    /**
+     * Tests that the current version is measured when the stored baseline belongs to another version.
+     */
+    @Test
+    public void shouldMeasureCurrentVersionWithoutMatchingBaseline() {
+        // Given
+        storedBaseline("0", 1, 1);
+        currentMillis = 20;
+        candidateMillis = 22;
+
+        // When
+        handler().handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Succeeded");
+        assertThat(invokedVersions).contains("1", "2");
+    }
+
+    /**
+     * Tests that a failing cache warm-up is logged but does not hold back the deployment.
+     */
+    @Test
+    public void shouldSucceedWhenCacheWarmUpFails() {
+        // Given
+        storedBaseline("1", 10, 12);
+        cacheWarmer = () -> {
+            throw new IllegalStateException("Redis unavailable");
+        };
+
+        // When
+        handler().handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Succeeded");
+        assertThat(invokedVersions).containsOnly("2");
+    }
+
+    /**
+     * Tests that a synthetic request returning an unexpected status fails the deployment.
+     */
+    @Test
+    public void shouldFailDeploymentOnUnexpectedStatus() {
+        // Given
+        candidateStatus = 500;
+
+        // When
+        handler().handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Failed");
+    }
+
+    /**
+     * Tests that functions without a synthetic suite are not gated.
+     */
+    @Test
+    public void shouldSucceedWithoutSuite() {
+        // Given
+        SyntheticRequests noSuites = new SyntheticRequests(Map.of());
+
+        // When
+        new BeforeAllowTrafficHandler(codeDeployClient, gate(), new BaselineStore(ssmClient, "/baselines"), noSuites,
+                cacheWarmer).handleRequest(hookEvent(), context);
+
+        // Then
+        assertThat(reportedStatus()).isEqualTo("Succeeded");
+        assertThat(invokedVersions).containsExactly("warmer");
+    }
+
+    /**
+     * Tests that the bundled suites cover the functions deployed with the hooks.
+     */
+    @Test
+    public void shouldLoadBundledSuites() {
+        // When
+        SyntheticRequests suites = SyntheticRequests.load();
+
+        // Then
+        assertThat(suites.forTarget(new LambdaDeploymentTarget(FUNCTION, "live", "1", "2"))).isNotEmpty();
+        assertThat(suites.forTarget(new LambdaDeploymentTarget("marketplace-CreateProductFunction-x", "live", "1", "2")))
+                .allSatisfy(request -> assertThat(request.getPayload()).contains("\"httpMethod\":\"POST\""));
+        assertThat(suites.forTarget(new LambdaDeploymentTarget("marketplace-GetMyOrdersFunction-x", "live", "1", "2")))
+                .isEmpty();
+    }
+
+    private BeforeAllowTrafficHandler handler() {
+        if (storedBaseline != null) {
+            when(ssmClient.getParameter(any(GetParameterRequest.class))).thenReturn(GetParameterResponse.builder()
+                    .parameter(Parameter.builder().value(storedBaseline).build()).build());
+        } else {
+            lenient().when(ssmClient.getParameter(any(GetParameterRequest.class)))
+                    .thenThrow(ParameterNotFoundException.builder().message("not found").build());
+        }
+        return new BeforeAllowTrafficHandler(codeDeployClient, gate(), new BaselineStore(ssmClient, "/baselines"),
+                new SyntheticRequests(Map.of("CreateOrderFunction",
+                        List.of(new SyntheticRequests.Request("unknown product", 404, "{}")))),
+                cacheWarmer);
+    }
+
+    private LatencyGate gate() {
+        LambdaInvoker invoker = (functionName, qualifier, payload) -> {
+            invokedVersions.add(qualifier);
+            boolean candidate = "2".equals(qualifier);
+            return new LambdaInvoker.Invocation(candidate ? candidateStatus : 404,
+                    candidate ? candidateMillis : currentMillis, false);
+        };
+        return new LatencyGate(invoker, 1, 10, 0.2, 2);
+    }
+
+    private void storedBaseline(String version, double p50, double p99) {
+        storedBaseline = String.format("{\"version\":\"%s\",\"p50Millis\":%s,\"p99Millis\":%s,\"samples\":10}",
+                version, p50, p99);
+    }
+
+    private Map<String, Object> hookEvent() {
+        return Map.of("DeploymentId", "d-123", "LifecycleEventHookExecutionId", "hook-1");
+    }
+
+    private String reportedStatus() {
+        ArgumentCaptor<PutLifecycleEventHookExecutionStatusRequest> captor =
+                ArgumentCaptor.forClass(PutLifecycleEventHookExecutionStatusRequest.class);
+        verify(codeDeployClient).putLifecycleEventHookExecutionStatus(captor.capture());
+        return captor.getValue().statusAsString();
+    }
+}
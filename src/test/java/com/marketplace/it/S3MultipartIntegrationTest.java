@@ -0,0 +1,130 @@
+package com.marketplace.it;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.marketplace.products.AssetUploadHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import com.marketplace.utils.ClientUtils;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration test for multipart asset uploads through pre-signed part URLs.
+ */
+public class S3MultipartIntegrationTest {
+
+    private static AssetUploadHandler handler;
+    private static S3Client s3Client;
+    private static String bucketName;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    /**
+     * Sets up the global environment before all integration tests.
+     */
+    @BeforeAll
+    public static void setup() {
+        System.setProperty("aws.region", "us-east-1");
+        bucketName = System.getenv("ASSETS_BUCKET_NAME");
+        if (bucketName == null) bucketName = "marketplace-assets-000000000000";
+
+        handler = new AssetUploadHandler(null, null, bucketName);
+        s3Client = ClientUtils.configureEndpoint(S3Client.builder())
+                .forcePathStyle(true)
+                .build();
+        try {
+            s3Client.createBucket(software.amazon.awssdk.services.s3.model.CreateBucketRequest.builder().bucket(bucketName).build());
+        } catch (software.amazon.awssdk.services.s3.model.BucketAlreadyExistsException | software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Initializes mocks before each test execution.
+     */
+    @BeforeEach
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        when(context.getLogger()).thenReturn(logger);
+    }
+
+    /**
+     * Verifies that parts uploaded to the pre-signed URLs can be assembled into the asset object.
+     */
+    @Test
+    public void shouldUploadAndCompleteMultipartAsset() throws Exception {
+        String productId = "test-prod-multipart";
+        int firstPartSize = 5 * 1024 * 1024;
+
+        // 1. Start the upload with two parts
+        APIGatewayProxyResponseEvent started = handler.handleRequest(new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPathParameters(Map.of("id", productId))
+                .withBody("{\"partCount\": 2}"), context);
+        assertThat(started.getStatusCode()).isEqualTo(201);
+
+        JSONObject startBody = new JSONObject(started.getBody());
+        String uploadId = startBody.getString("uploadId");
+        JSONArray parts = startBody.getJSONArray("parts");
+        assertThat(parts.length()).isEqualTo(2);
+
+        // 2. Upload both parts directly to S3 (all but the last part must be at least 5 MiB)
+        byte[] firstPart = new byte[firstPartSize];
+        Arrays.fill(firstPart, (byte) 'a');
+        String firstETag = putPart(parts.getJSONObject(0).getString("url"), firstPart);
+        String secondETag = putPart(parts.getJSONObject(1).getString("url"), "tail".getBytes());
+
+        // 3. Complete the upload through the handler
+        JSONArray completedParts = new JSONArray()
+                .put(new JSONObject().put("partNumber", 1).put("eTag", firstETag))
+                .put(new JSONObject().put("partNumber", 2).put("eTag", secondETag));
+        APIGatewayProxyResponseEvent completed = handler.handleRequest(new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPathParameters(Map.of("id", productId, "uploadId", uploadId))
+                .withBody(new JSONObject().put("parts", completedParts).toString()), context);
+        assertThat(completed.getStatusCode()).isEqualTo(200);
+
+        // 4. The assembled object is available under the usual asset key
+        long contentLength = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key("assets/" + productId + "/item.zip")
+                .build()).contentLength();
+        assertThat(contentLength).isEqualTo(firstPartSize + 4L);
+    }
+
+    /**
+     * Uploads one part to its pre-signed URL and returns the ETag reported by S3.
+     */
+    private String putPart(String url, byte[] content) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("PUT");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(content.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(content);
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        return connection.getHeaderField("ETag");
+    }
+}
@@ -0,0 +1,120 @@
+package com.marketplace.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.marketplace.utils.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the hand-written model serializers in MarketplaceJson.
+ */
+public class MarketplaceJsonTest {
+
+    private final JsonCodec codec = MarketplaceJson.CODEC;
+    private final ObjectMapper beanMapper = new ObjectMapper();
+
+    /**
+     * Tests that products are written exactly as the reflection-based bean serializer wrote them.
+     */
+    @Test
+    public void shouldWriteProductsLikeBeanSerializer() throws Exception {
+        // Given
+        List<Product> products = List.of(
+                new Product("prod-1", "Test \"Quoted\" Product", 19.99, "Electronics", 3, 7, "supplier@example.com"),
+                new Product(null, "No Version", 5.0, null, null, 0, null));
+
+        // When
+        String json = codec.write(products, MarketplaceJson.PRODUCT_LIST);
+
+        // Then
+        assertThat(json).isEqualTo(beanMapper.writeValueAsString(products));
+    }
+
+    /**
+     * Tests that orders are written exactly as the reflection-based bean serializer wrote them.
+     */
+    @Test
+    public void shouldWriteOrdersLikeBeanSerializer() throws Exception {
+        // Given
+        Order order = new Order("ord-1", "prod-1", "user-1", 2, 1700000000000L);
+
+        // When
+        String json = codec.write(order);
+
+        // Then
+        assertThat(json).isEqualTo(beanMapper.writeValueAsString(order));
+    }
+
+    /**
+     * Tests that products round-trip, including nulls and numbers sent as strings.
+     */
+    @Test
+    public void shouldReadProducts() throws Exception {
+        // Given
+        String json = "{\"name\": \"Test Product\", \"price\": \"12.5\", \"category\": \"Books\", "
+                + "\"version\": null, \"stockQuantity\": 4, \"supplierEmail\": \"supplier@example.com\"}";
+
+        // When
+        Product product = codec.read(json, Product.class);
+
+        // Then
+        assertThat(product.getId()).isNull();
+        assertThat(product.getName()).isEqualTo("Test Product");
+        assertThat(product.getPrice()).isEqualTo(12.5);
+        assertThat(product.getCategory()).isEqualTo("Books");
+        assertThat(product.getVersion()).isNull();
+        assertThat(product.getStockQuantity()).isEqualTo(4);
+        assertThat(product.getSupplierEmail()).isEqualTo("supplier@example.com");
+    }
+
+    /**
+     * Tests that unknown properties are still rejected.
+     */
+    @Test
+    public void shouldRejectUnknownProperties() {
+        assertThatThrownBy(() -> codec.read("{\"productId\": \"prod-1\", \"coupon\": \"FREE\"}", Order.class))
+                .isInstanceOf(UnrecognizedPropertyException.class)
+                .hasMessageContaining("coupon");
+    }
+
+    /**
+     * Tests that integer fields reject out-of-range and fractional values instead of silently narrowing them.
+     */
+    @Test
+    public void shouldRejectNumbersOutsideTheFieldRange() throws Exception {
+        assertThatThrownBy(() -> codec.read("{\"quantity\": 4294967297}", Order.class))
+                .isInstanceOf(InvalidFormatException.class)
+                .hasMessageContaining("int range");
+        assertThatThrownBy(() -> codec.read("{\"stockQuantity\": \"1e10\"}", Product.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> codec.read("{\"quantity\": 1.5}", Order.class))
+                .isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> codec.read("{\"timestamp\": 9223372036854775808}", Order.class))
+                .isInstanceOf(InvalidFormatException.class)
+                .hasMessageContaining("long range");
+
+        // Whole numbers written as decimals or strings are still accepted
+        Order order = codec.read("{\"quantity\": 2.0, \"timestamp\": \"1700000000000\"}", Order.class);
+        assertThat(order.getQuantity()).isEqualTo(2);
+        assertThat(order.getTimestamp()).isEqualTo(1700000000000L);
+    }
+
+    /**
+     * Tests that error bodies escape quotes and control characters.
+     */
+    @Test
+    public void shouldEscapeErrorBodies() throws Exception {
+        // When
+        String body = JsonCodec.errorBody("Could not create product", "details", "bad \"value\"\n");
+
+        // Then
+        assertThat(beanMapper.readTree(body).get("details").asText()).isEqualTo("bad \"value\"\n");
+        assertThat(JsonCodec.errorBody("Product not found")).isEqualTo("{\"error\": \"Product not found\"}");
+    }
+}
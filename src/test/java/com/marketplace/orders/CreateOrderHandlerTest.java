@@ -7,16 +7,26 @@ import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import com.marketplace.deploy.DryRun;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 /**
@@ -186,4 +196,102 @@ public class CreateOrderHandlerTest {
         assertThat(response.getStatusCode()).isEqualTo(400);
         assertThat(response.getBody()).contains("Insufficient stock");
     }
+
+    /**
+     * Tests that a placed order is counted in the hourly sales rankings, and that a Redis failure
+     * does not fail the order.
+     */
+    @Test
+    public void shouldRecordSaleWithoutFailingOnRedisErrors() {
+        // Given
+        JedisPool jedisPool = mock(JedisPool.class);
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        CreateOrderHandler rankingHandler = new CreateOrderHandler(dynamoDbClient, "TestTable", () -> jedisPool);
+
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext())
+                .withBody("{\"productId\": \"prod-1\", \"quantity\": 2}");
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder()
+                .item(Map.of(
+                        "stockQuantity", AttributeValue.builder().n("10").build(),
+                        "version", AttributeValue.builder().n("1").build(),
+                        "category", AttributeValue.builder().s("Books").build()))
+                .build());
+
+        // When
+        APIGatewayProxyResponseEvent recorded = rankingHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(recorded.getStatusCode()).isEqualTo(201);
+        verify(pipeline).zincrby(endsWith(":Books"), eq(2.0), eq("prod-1"));
+        verify(pipeline, times(2)).zincrby(any(String.class), eq(2.0), eq("prod-1"));
+        verify(pipeline, times(2)).expire(any(String.class), anyLong());
+        verify(pipeline).sync();
+
+        // Given
+        when(jedisPool.getResource()).thenThrow(new JedisConnectionException("connection refused"));
+
+        // When
+        APIGatewayProxyResponseEvent unrecorded = rankingHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(unrecorded.getStatusCode()).isEqualTo(201);
+        verify(logger).log(startsWith("Sales ranking update failed"));
+    }
+
+    /**
+     * Tests that a dry run of an unknown product reaches the order transaction, which its
+     * never-holding condition check cancels, and skips the sales rankings.
+     */
+    @Test
+    public void shouldDryRunOrderWithoutCommitting() {
+        // Given
+        JedisPool jedisPool = mock(JedisPool.class);
+        CreateOrderHandler rankingHandler = new CreateOrderHandler(dynamoDbClient, "TestTable", () -> jedisPool);
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext())
+                .withHeaders(Map.of(DryRun.HEADER, "true"))
+                .withBody("{\"productId\": \"synthetic-canary\", \"quantity\": 1}");
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder().message("ConditionalCheckFailed").build());
+
+        // When
+        APIGatewayProxyResponseEvent response = rankingHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).contains("synthetic-canary");
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(captor.capture());
+        List<TransactWriteItem> items = captor.getValue().transactItems();
+        assertThat(items).hasSize(3);
+        assertThat(items.get(2).conditionCheck().conditionExpression()).isEqualTo(DryRun.NEVER);
+        verifyNoInteractions(jedisPool);
+    }
+
+    /**
+     * Tests that the dry-run header is ignored on requests through API Gateway.
+     */
+    @Test
+    public void shouldIgnoreDryRunHeaderThroughApiGateway() {
+        // Given
+        APIGatewayProxyRequestEvent.ProxyRequestContext proxyContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        proxyContext.setApiId("abc123");
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withRequestContext(proxyContext)
+                .withHeaders(Map.of(DryRun.HEADER, "true"))
+                .withBody("{\"productId\": \"non-existent\", \"quantity\": 1}");
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(404);
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
 }
@@ -0,0 +1,74 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AbandonedUploadSweeperHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AbandonedUploadSweeperHandlerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private AbandonedUploadSweeperHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new AbandonedUploadSweeperHandler(s3Client, "TestBucket", Duration.ofHours(24));
+    }
+
+    /**
+     * Tests that only uploads older than the maximum age are aborted.
+     */
+    @Test
+    public void shouldAbortOnlyStaleUploads() {
+        // Given
+        MultipartUpload stale = MultipartUpload.builder()
+                .key("assets/old/item.zip").uploadId("stale").initiated(Instant.now().minus(Duration.ofDays(2))).build();
+        MultipartUpload fresh = MultipartUpload.builder()
+                .key("assets/new/item.zip").uploadId("fresh").initiated(Instant.now().minus(Duration.ofMinutes(5))).build();
+
+        when(s3Client.listMultipartUploads(any(ListMultipartUploadsRequest.class)))
+                .thenReturn(ListMultipartUploadsResponse.builder().uploads(stale, fresh).isTruncated(false).build());
+
+        // When
+        Integer aborted = handler.handleRequest(Collections.emptyMap(), context);
+
+        // Then
+        assertThat(aborted).isEqualTo(1);
+        ArgumentCaptor<AbortMultipartUploadRequest> captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(captor.capture());
+        assertThat(captor.getValue().uploadId()).isEqualTo("stale");
+    }
+}
@@ -0,0 +1,152 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+
+import java.net.URL;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AssetUploadHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AssetUploadHandlerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private PresignedUploadPartRequest presignedPart;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private AssetUploadHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new AssetUploadHandler(s3Client, s3Presigner, "TestBucket");
+    }
+
+    /**
+     * Tests that starting an upload returns one pre-signed URL per part.
+     */
+    @Test
+    public void shouldStartUploadWithPresignedPartUrls() throws Exception {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPathParameters(Map.of("id", "prod-1"))
+                .withBody("{\"sizeBytes\": " + (12L * 1024 * 1024) + ", \"partCount\": 3}");
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Presigner.presignUploadPart(any(UploadPartPresignRequest.class))).thenReturn(presignedPart);
+        when(presignedPart.url()).thenReturn(new URL("https://test-bucket.s3.amazonaws.com/assets/prod-1/item.zip?partNumber=1"));
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        // 12 MiB over 3 parts would undercut the 5 MiB minimum, so the handler settles on 3 parts of 5 MiB
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        assertThat(response.getBody()).contains("\"uploadId\":\"upload-1\"");
+        assertThat(response.getBody()).contains("\"partSize\":" + AssetUploadHandler.MIN_PART_SIZE);
+        verify(s3Presigner, times(3)).presignUploadPart(any(UploadPartPresignRequest.class));
+    }
+
+    /**
+     * Tests that completing an upload sends the parts sorted by part number.
+     */
+    @Test
+    public void shouldCompleteUploadWithSortedParts() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPathParameters(Map.of("id", "prod-1", "uploadId", "upload-1"))
+                .withBody("{\"parts\": [{\"partNumber\": 2, \"eTag\": \"b\"}, {\"partNumber\": 1, \"eTag\": \"a\"}]}");
+
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().eTag("final").build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(captor.capture());
+        assertThat(captor.getValue().key()).isEqualTo("assets/prod-1/item.zip");
+        assertThat(captor.getValue().multipartUpload().parts())
+                .extracting(part -> part.partNumber())
+                .containsExactly(1, 2);
+    }
+
+    /**
+     * Tests that a DELETE aborts the upload.
+     */
+    @Test
+    public void shouldAbortUpload() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("DELETE")
+                .withPathParameters(Map.of("id", "prod-1", "uploadId", "upload-1"));
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(204);
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    /**
+     * Tests that a 400 error is returned when the parts list is missing on completion.
+     */
+    @Test
+    public void shouldReturn400WhenCompletingWithoutParts() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPathParameters(Map.of("id", "prod-1", "uploadId", "upload-1"))
+                .withBody("{}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(400);
+        verifyNoInteractions(s3Client);
+    }
+}
@@ -0,0 +1,126 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BatchAssetUrlHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BatchAssetUrlHandlerTest {
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private BatchAssetUrlHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenAnswer(invocation -> {
+            GetObjectPresignRequest request = invocation.getArgument(0);
+            PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+            when(presigned.url()).thenReturn(new URL("https://test-bucket.s3.amazonaws.com/"
+                    + request.getObjectRequest().key()));
+            return presigned;
+        });
+        handler = new BatchAssetUrlHandler(s3Presigner, s3Client, "TestBucket");
+    }
+
+    /**
+     * Tests that a URL is signed for every distinct product ID.
+     */
+    @Test
+    public void shouldGenerateUrlsForAllProducts() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"productIds\": [\"batch-1\", \"batch-2\", \"batch-1\"]}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).contains("assets/batch-1/item.zip");
+        assertThat(response.getBody()).contains("assets/batch-2/item.zip");
+        verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+        verifyNoInteractions(s3Client);
+    }
+
+    /**
+     * Tests that missing assets are left out and remembered between calls.
+     */
+    @Test
+    public void shouldSkipAndCacheMissingAssetsWhenCheckingExistence() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"productIds\": [\"exists-1\", \"missing-1\"], \"checkExists\": true}");
+
+        when(s3Client.headObject(argThat((HeadObjectRequest r) -> r != null && r.key().contains("exists-1"))))
+                .thenReturn(HeadObjectResponse.builder().build());
+        when(s3Client.headObject(argThat((HeadObjectRequest r) -> r != null && r.key().contains("missing-1"))))
+                .thenThrow(NoSuchKeyException.builder().message("Not Found").build());
+
+        // When
+        APIGatewayProxyResponseEvent first = handler.handleRequest(request, context);
+        APIGatewayProxyResponseEvent second = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(first.getStatusCode()).isEqualTo(200);
+        assertThat(first.getBody()).contains("assets/exists-1/item.zip");
+        assertThat(first.getBody()).doesNotContain("assets/missing-1/item.zip");
+        assertThat(first.getBody()).contains("\"missing\":[\"missing-1\"]");
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        verify(s3Client, times(1)).headObject(argThat((HeadObjectRequest r) -> r != null && r.key().contains("missing-1")));
+    }
+
+    /**
+     * Tests that a 400 error is returned when no product IDs are supplied.
+     */
+    @Test
+    public void shouldReturn400WhenProductIdsAreMissing() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"productIds\": []}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(400);
+        assertThat(response.getBody()).contains("productIds must be a non-empty array");
+    }
+}
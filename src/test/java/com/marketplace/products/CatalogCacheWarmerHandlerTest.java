@@ -0,0 +1,263 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.resps.Tuple;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.kms.KmsClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CatalogCacheWarmerHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CatalogCacheWarmerHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private KmsClient kmsClient;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Pipeline pipeline;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    /**
+     * Sets up a Redis pool whose connections pipeline every command and whose transactions succeed.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        lenient().when(jedis.pipelined()).thenReturn(pipeline);
+        lenient().when(jedis.multi()).thenReturn(transaction);
+        lenient().when(transaction.exec()).thenReturn(List.of("OK"));
+    }
+
+    /**
+     * Tests that the full list and the categories with the most requests over the lookback are written
+     * with NX and the listing TTL.
+     */
+    @Test
+    public void shouldWarmFullListAndTopCategories() {
+        // Given: toys lead this hour, books lead over both hours
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Response<List<Tuple>> thisHour = response(List.of(new Tuple("toys", 5.0), new Tuple("books", 2.0)));
+        Response<List<Tuple>> lastHour = response(List.of(new Tuple("books", 4.0)));
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour), 0, 0)).thenReturn(thisHour);
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour - 1), 0, 0)).thenReturn(lastHour);
+        cached("products:all", false);
+        cached("products:cat:books", false);
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder().items(List.of(item("p1", "books"))).build());
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().items(List.of(item("p1", "books"))).build());
+
+        // When
+        Integer warmed = handler(1, 2).handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isEqualTo(2);
+        ArgumentCaptor<SetParams> params = ArgumentCaptor.forClass(SetParams.class);
+        verify(transaction).set(eq("products:all"), contains("\"id\":\"p1\""), params.capture());
+        verify(transaction).set(eq("products:cat:books"), contains("\"id\":\"p1\""), any(SetParams.class));
+        verify(transaction, never()).set(eq("products:cat:toys"), anyString(), any(SetParams.class));
+        assertThat(arguments(params.getValue())).containsExactly("NX", "EX", String.valueOf(ProductCatalog.CACHE_TTL_SECONDS));
+    }
+
+    /**
+     * Tests that cached listings are neither read nor written.
+     */
+    @Test
+    public void shouldOnlyWarmMissingListings() {
+        // Given
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Response<List<Tuple>> thisHour = response(List.of(new Tuple("books", 1.0)));
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour), 0, 4)).thenReturn(thisHour);
+        cached("products:all", true);
+        cached("products:cat:books", false);
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().items(List.of(item("p1", "books"))).build());
+
+        // When
+        Integer warmed = handler(5, 1).handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isEqualTo(1);
+        verify(dynamoDbClient, never()).scan(any(ScanRequest.class));
+        verify(transaction, never()).set(eq("products:all"), anyString(), any(SetParams.class));
+        verify(transaction).set(eq("products:cat:books"), contains("\"id\":\"p1\""), any(SetParams.class));
+    }
+
+    /**
+     * Tests that a run with every listing cached reads nothing from DynamoDB.
+     */
+    @Test
+    public void shouldSkipWhenEverythingIsCached() {
+        // Given
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Response<List<Tuple>> thisHour = response(List.of(new Tuple("books", 1.0)));
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour), 0, 4)).thenReturn(thisHour);
+        cached("products:all", true);
+        cached("products:cat:books", true);
+
+        // When
+        Integer warmed = handler(5, 1).handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isZero();
+        verifyNoInteractions(dynamoDbClient, kmsClient);
+    }
+
+    /**
+     * Tests that a listing that cannot be read is skipped while the others are still written.
+     */
+    @Test
+    public void shouldSkipListingsThatFail() {
+        // Given
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Response<List<Tuple>> thisHour = response(List.of(new Tuple("books", 1.0)));
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour), 0, 4)).thenReturn(thisHour);
+        cached("products:all", false);
+        cached("products:cat:books", false);
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder().items(List.of()).build());
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenThrow(new RuntimeException("throttled"));
+
+        // When
+        Integer warmed = handler(5, 1).handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isEqualTo(1);
+        verify(transaction).set(eq("products:all"), eq("[]"), any(SetParams.class));
+        verify(transaction, never()).set(eq("products:cat:books"), anyString(), any(SetParams.class));
+    }
+
+    /**
+     * Tests that a listing changed by the stream while it was read from the table is not written,
+     * while an unchanged one is.
+     */
+    @Test
+    public void shouldNotWarmListingsChangedWhileRead() {
+        // Given: a product of books changed after the counters were read
+        long currentHour = System.currentTimeMillis() / 3_600_000;
+        Response<List<Tuple>> thisHour = response(List.of(new Tuple("books", 1.0)));
+        when(pipeline.zrevrangeWithScores(ProductCatalog.accessKey(currentHour), 0, 4)).thenReturn(thisHour);
+        cached("products:all", false);
+        cached("products:cat:books", false);
+        lenient().when(jedis.get(ProductCatalog.versionKey("products:cat:books"))).thenReturn("1");
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder().items(List.of()).build());
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder().items(List.of(item("p1", "books"))).build());
+
+        // When
+        Integer warmed = handler(5, 1).handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isEqualTo(1);
+        verify(transaction).set(eq("products:all"), eq("[]"), any(SetParams.class));
+        verify(transaction, never()).set(eq("products:cat:books"), anyString(), any(SetParams.class));
+        verify(jedis).unwatch();
+    }
+
+    /**
+     * Tests that nothing is read when Redis is not configured.
+     */
+    @Test
+    public void shouldSkipWithoutRedis() {
+        // When
+        Integer warmed = new CatalogCacheWarmerHandler(dynamoDbClient, kmsClient, () -> null, "TestTable", 5, 1, 4)
+                .handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(warmed).isZero();
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    private CatalogCacheWarmerHandler handler(int topCategories, int lookbackHours) {
+        return new CatalogCacheWarmerHandler(dynamoDbClient, kmsClient, () -> jedisPool, "TestTable",
+                topCategories, lookbackHours, 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void cached(String key, boolean exists) {
+        Response<Boolean> response = mock(Response.class);
+        when(response.get()).thenReturn(exists);
+        when(pipeline.exists(key)).thenReturn(response);
+        // No change streamed yet: the counter is absent
+        Response<String> version = mock(Response.class);
+        lenient().when(version.get()).thenReturn(null);
+        lenient().when(pipeline.get(ProductCatalog.versionKey(key))).thenReturn(version);
+    }
+
+    private static List<String> arguments(SetParams params) {
+        CommandArguments args = new CommandArguments(Protocol.Command.SET);
+        params.addParams(args);
+        List<String> values = new ArrayList<>();
+        for (Rawable arg : args) {
+            values.add(new String(arg.getRaw(), StandardCharsets.UTF_8));
+        }
+        return values.subList(1, values.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Response<List<Tuple>> response(List<Tuple> tuples) {
+        Response<List<Tuple>> response = mock(Response.class);
+        when(response.get()).thenReturn(tuples);
+        return response;
+    }
+
+    private static Map<String, AttributeValue> item(String id, String category) {
+        return Map.of(
+                "id", AttributeValue.builder().s(id).build(),
+                "name", AttributeValue.builder().s("Product " + id).build(),
+                "price", AttributeValue.builder().n("10.0").build(),
+                "category", AttributeValue.builder().s(category).build());
+    }
+}
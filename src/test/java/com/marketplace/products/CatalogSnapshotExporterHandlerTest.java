@@ -0,0 +1,139 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CatalogSnapshotExporterHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CatalogSnapshotExporterHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private CatalogSnapshotExporterHandler handler;
+
+    /**
+     * Sets up a handler that scans in two segments.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new CatalogSnapshotExporterHandler(dynamoDbClient, s3Client, "TestTable", "TestBucket", 2);
+    }
+
+    /**
+     * Tests that every page of every segment ends up in one sorted NDJSON file, and the manifest
+     * records its count and checksum.
+     */
+    @Test
+    public void shouldExportAllSegmentsAndWriteManifest() throws Exception {
+        // Given: segment 0 has two pages, segment 1 one
+        Map<String, AttributeValue> lastKey = Map.of("PK", AttributeValue.builder().s("PROD#p3").build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0 && r.exclusiveStartKey().isEmpty())))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p3"))).lastEvaluatedKey(lastKey).build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0 && !r.exclusiveStartKey().isEmpty())))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1"))).build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p2"))).build());
+
+        // When
+        Integer exported = handler.handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(exported).isEqualTo(3);
+        ArgumentCaptor<PutObjectRequest> requests = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> bodies = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client, times(2)).putObject(requests.capture(), bodies.capture());
+
+        PutObjectRequest snapshot = requests.getAllValues().get(0);
+        byte[] file = bytes(bodies.getAllValues().get(0));
+        assertThat(snapshot.key()).startsWith(CatalogSnapshots.SNAPSHOT_PREFIX).endsWith(".ndjson.gz");
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(file)).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertThat(ndjson.lines()).hasSize(3);
+        assertThat(ndjson.lines().map(line -> line.substring(0, line.indexOf(',')))).containsExactly(
+                "{\"id\":\"p1\"", "{\"id\":\"p2\"", "{\"id\":\"p3\"");
+        assertThat(ndjson).doesNotContain("ciphertext");
+
+        assertThat(requests.getAllValues().get(1).key()).isEqualTo(CatalogSnapshots.MANIFEST_KEY);
+        String manifest = new String(bytes(bodies.getAllValues().get(1)), StandardCharsets.UTF_8);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file));
+        assertThat(manifest).contains("\"key\":\"" + snapshot.key() + "\"", "\"itemCount\":3",
+                "\"sizeBytes\":" + file.length, "\"sha256\":\"" + sha256 + "\"");
+    }
+
+    /**
+     * Tests that a failed segment fails the export before anything is written, so the manifest keeps
+     * pointing at the last complete snapshot.
+     */
+    @Test
+    public void shouldNotWriteAnythingWhenSegmentFails() {
+        // Given
+        lenient().when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1"))).build());
+        lenient().when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenThrow(new RuntimeException("throttled"));
+
+        // When / Then
+        assertThatThrownBy(() -> handler.handleRequest(Map.of(), context))
+                .hasMessageContaining("throttled");
+        verifyNoInteractions(s3Client);
+    }
+
+    private static byte[] bytes(RequestBody body) throws Exception {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Map<String, AttributeValue> item(String id) {
+        return Map.of(
+                "id", AttributeValue.builder().s(id).build(),
+                "name", AttributeValue.builder().s("Product " + id).build(),
+                "price", AttributeValue.builder().n("10.0").build(),
+                "category", AttributeValue.builder().s("books").build(),
+                "supplierEmail", AttributeValue.builder().s("ciphertext").build());
+    }
+}
@@ -0,0 +1,105 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CatalogSnapshotUrlHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CatalogSnapshotUrlHandlerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private PresignedGetObjectRequest presignedRequest;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private CatalogSnapshotUrlHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new CatalogSnapshotUrlHandler(s3Client, s3Presigner, "TestBucket");
+    }
+
+    /**
+     * Tests that the URL of the file named in the manifest is signed and returned with the manifest.
+     */
+    @Test
+    public void shouldPresignLatestSnapshot() throws Exception {
+        // Given
+        String manifest = "{\"version\":1700000000000,\"key\":\"catalog/snapshots/1700000000000.ndjson.gz\","
+                + "\"itemCount\":42,\"sizeBytes\":1234,\"sha256\":\"abc\"}";
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(
+                ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), manifest.getBytes(StandardCharsets.UTF_8)));
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presignedRequest);
+        when(presignedRequest.url()).thenReturn(new URL("https://bucket.s3.amazonaws.com/catalog/snapshots/1700000000000.ndjson.gz"));
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent(), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).contains("\"downloadUrl\":\"https://bucket.s3.amazonaws.com/",
+                "\"itemCount\":42", "\"sha256\":\"abc\"", "\"version\":1700000000000");
+        ArgumentCaptor<GetObjectPresignRequest> captor = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(s3Presigner).presignGetObject(captor.capture());
+        assertThat(captor.getValue().getObjectRequest().key()).isEqualTo("catalog/snapshots/1700000000000.ndjson.gz");
+    }
+
+    /**
+     * Tests that 404 is returned before the first export.
+     */
+    @Test
+    public void shouldReturnNotFoundWithoutSnapshot() {
+        // Given
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("missing").build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent(), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(404);
+        verifyNoInteractions(s3Presigner);
+    }
+}
@@ -0,0 +1,95 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CategoryStatsHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CategoryStatsHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private CategoryStatsHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new CategoryStatsHandler(dynamoDbClient, "TestTable");
+    }
+
+    /**
+     * Tests that the aggregates are read with one GetItem of the category's STATS item.
+     */
+    @Test
+    public void shouldReturnAggregatesFromOneGetItem() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().item(Map.of(
+                "productCount", AttributeValue.builder().n("12").build(),
+                "totalStock", AttributeValue.builder().n("340").build(),
+                "minPrice", AttributeValue.builder().n("4.5").build(),
+                "maxPrice", AttributeValue.builder().n("99.0").build())).build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request("books"), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).isEqualTo("{\"category\":\"books\",\"productCount\":12,\"totalStock\":340,"
+                + "\"minPrice\":4.5,\"maxPrice\":99.0,\"reconciledAt\":null}");
+        ArgumentCaptor<GetItemRequest> captor = ArgumentCaptor.forClass(GetItemRequest.class);
+        verify(dynamoDbClient).getItem(captor.capture());
+        assertThat(captor.getValue().key().get("PK").s()).isEqualTo("CAT#books");
+        assertThat(captor.getValue().key().get("SK").s()).isEqualTo("STATS");
+    }
+
+    /**
+     * Tests that an unknown category returns 404.
+     */
+    @Test
+    public void shouldReturnNotFoundForUnknownCategory() {
+        // Given
+        when(dynamoDbClient.getItem(any(GetItemRequest.class))).thenReturn(GetItemResponse.builder().build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request("unknown"), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(404);
+    }
+
+    private static APIGatewayProxyRequestEvent request(String category) {
+        return new APIGatewayProxyRequestEvent().withPathParameters(Map.of("category", category));
+    }
+}
@@ -0,0 +1,195 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CategoryStatsReconcilerHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CategoryStatsReconcilerHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private CategoryStatsReconcilerHandler handler;
+
+    /**
+     * Sets up a handler that scans in two segments.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new CategoryStatsReconcilerHandler(dynamoDbClient, "TestTable", 2);
+    }
+
+    /**
+     * Tests that the totals of all segments are merged and written as exact aggregates.
+     */
+    @Test
+    public void shouldRebuildAggregatesFromAllSegments() {
+        // Given: books products are spread over both segments
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1", "books", 3, 10.0), item("p2", "toys", 1, 7.5))).build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p3", "books", 5, 4.0))).build());
+
+        // When
+        Integer categories = handler.handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(categories).isEqualTo(2);
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient, times(2)).putItem(captor.capture());
+        Map<String, Map<String, AttributeValue>> written = new HashMap<>();
+        captor.getAllValues().forEach(put -> written.put(put.item().get("PK").s(), put.item()));
+
+        Map<String, AttributeValue> books = written.get("CAT#books");
+        assertThat(books.get("SK").s()).isEqualTo("STATS");
+        assertThat(books.get("productCount").n()).isEqualTo("2");
+        assertThat(books.get("totalStock").n()).isEqualTo("8");
+        assertThat(books.get("minPrice").n()).isEqualTo("4.0");
+        assertThat(books.get("maxPrice").n()).isEqualTo("10.0");
+        assertThat(books).containsKey("reconciledAt").doesNotContainKeys("category", "price");
+        assertThat(written.get("CAT#toys").get("productCount").n()).isEqualTo("1");
+    }
+
+    /**
+     * Tests that an aggregate item whose category has no products left is zeroed, and that the
+     * aggregate items are read in the same scan as the products.
+     */
+    @Test
+    public void shouldZeroCategoriesWithoutProducts() {
+        // Given: games has an aggregate item but no products
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1", "books", 3, 10.0), stats("books"))).build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenReturn(ScanResponse.builder().items(List.of(stats("games"))).build());
+
+        // When
+        Integer categories = handler.handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(categories).isEqualTo(2);
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient, times(2)).putItem(captor.capture());
+        Map<String, Map<String, AttributeValue>> written = new HashMap<>();
+        captor.getAllValues().forEach(put -> written.put(put.item().get("PK").s(), put.item()));
+
+        assertThat(written.get("CAT#books").get("productCount").n()).isEqualTo("1");
+        Map<String, AttributeValue> games = written.get("CAT#games");
+        assertThat(games.get("productCount").n()).isEqualTo("0");
+        assertThat(games.get("totalStock").n()).isEqualTo("0");
+        assertThat(games).doesNotContainKeys("minPrice", "maxPrice");
+
+        ArgumentCaptor<ScanRequest> scans = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(dynamoDbClient, times(2)).scan(scans.capture());
+        assertThat(scans.getValue().expressionAttributeValues().get(":catPrefix").s()).isEqualTo("CAT#");
+    }
+
+    /**
+     * Tests that an aggregate is only overwritten if no change made after the scan started was applied
+     * to it, and that a category that changed during the scan is totalled again from GSI1.
+     */
+    @Test
+    public void shouldTotalCategoryAgainWhenChangedDuringScan() {
+        // Given: a stream update reaches books between the scan and the first write
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1", "books", 3, 10.0))).build());
+        when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenReturn(ScanResponse.builder().items(List.of()).build());
+        when(dynamoDbClient.putItem(any(PutItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("changed").build())
+                .thenReturn(PutItemResponse.builder().build());
+        when(dynamoDbClient.query(any(QueryRequest.class))).thenReturn(QueryResponse.builder()
+                .items(List.of(item("p1", "books", 3, 10.0), item("p4", "books", 2, 6.0))).build());
+
+        // When
+        Integer categories = handler.handleRequest(Map.of(), context);
+
+        // Then
+        assertThat(categories).isEqualTo(1);
+        ArgumentCaptor<PutItemRequest> captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient, times(2)).putItem(captor.capture());
+        PutItemRequest first = captor.getAllValues().get(0);
+        assertThat(first.conditionExpression()).isEqualTo("attribute_not_exists(#updated) OR #updated < :startedAt");
+        assertThat(first.expressionAttributeNames()).containsEntry("#updated", "updatedAt");
+
+        Map<String, AttributeValue> books = captor.getAllValues().get(1).item();
+        assertThat(books.get("productCount").n()).isEqualTo("2");
+        assertThat(books.get("totalStock").n()).isEqualTo("5");
+        assertThat(books.get("minPrice").n()).isEqualTo("6.0");
+
+        ArgumentCaptor<QueryRequest> query = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(dynamoDbClient).query(query.capture());
+        assertThat(query.getValue().indexName()).isEqualTo("GSI1");
+        assertThat(query.getValue().expressionAttributeValues().get(":cat").s()).isEqualTo("books");
+    }
+
+    /**
+     * Tests that nothing is written when a segment fails, since the totals would be wrong.
+     */
+    @Test
+    public void shouldNotWriteWhenSegmentFails() {
+        // Given
+        lenient().when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 0)))
+                .thenReturn(ScanResponse.builder().items(List.of(item("p1", "books", 3, 10.0))).build());
+        lenient().when(dynamoDbClient.scan(argThat((ScanRequest r) -> r != null && r.segment() == 1)))
+                .thenThrow(new RuntimeException("throttled"));
+
+        // When / Then
+        assertThatThrownBy(() -> handler.handleRequest(Map.of(), context)).hasMessageContaining("throttled");
+        verify(dynamoDbClient, never()).putItem(any(PutItemRequest.class));
+    }
+
+    private static Map<String, AttributeValue> stats(String category) {
+        return Map.of(
+                "PK", AttributeValue.builder().s("CAT#" + category).build(),
+                "SK", AttributeValue.builder().s("STATS").build(),
+                "productCount", AttributeValue.builder().n("4").build());
+    }
+
+    private static Map<String, AttributeValue> item(String id, String category, int stock, double price) {
+        return Map.of(
+                "PK", AttributeValue.builder().s("PROD#" + id).build(),
+                "id", AttributeValue.builder().s(id).build(),
+                "category", AttributeValue.builder().s(category).build(),
+                "price", AttributeValue.builder().n(String.valueOf(price)).build(),
+                "stockQuantity", AttributeValue.builder().n(String.valueOf(stock)).build());
+    }
+}
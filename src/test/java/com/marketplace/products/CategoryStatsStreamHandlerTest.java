@@ -0,0 +1,212 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CategoryStatsStreamHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CategoryStatsStreamHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private CategoryStatsStreamHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        handler = new CategoryStatsStreamHandler(dynamoDbClient, "TestTable");
+    }
+
+    /**
+     * Tests that a batch is summed per category into one transaction, with a conditional marker per record.
+     */
+    @Test
+    public void shouldSumBatchPerCategoryWithRecordMarkers() {
+        // Given: two orders of p1, a new product in toys, and p2 moving from books to toys
+        DynamodbEvent event = event(
+                record("100", "MODIFY", image("p1", "books", 10, 5.0), image("p1", "books", 8, 5.0)),
+                record("101", "MODIFY", image("p1", "books", 8, 5.0), image("p1", "books", 7, 5.0)),
+                record("102", "INSERT", null, image("p3", "toys", 4, 20.0)),
+                record("103", "MODIFY", image("p2", "books", 6, 12.0), image("p2", "toys", 6, 12.0)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(captor.capture());
+
+        List<Put> markers = captor.getValue().transactItems().stream()
+                .map(TransactWriteItem::put).filter(Objects::nonNull).collect(Collectors.toList());
+        assertThat(markers).extracting(put -> put.item().get("PK").s() + "/" + put.item().get("SK").s())
+                .containsExactly("STREAM#PROD#p1/100", "STREAM#PROD#p1/101", "STREAM#PROD#p3/102", "STREAM#PROD#p2/103");
+        assertThat(markers).allSatisfy(put -> {
+            assertThat(put.conditionExpression()).isEqualTo("attribute_not_exists(PK)");
+            assertThat(put.item()).containsKey("expiresAt");
+        });
+
+        Map<String, Update> updates = new HashMap<>();
+        captor.getValue().transactItems().stream().map(TransactWriteItem::update).filter(Objects::nonNull)
+                .forEach(update -> updates.put(update.key().get("PK").s(), update));
+        assertThat(updates.get("CAT#books").expressionAttributeValues().get(":products").n()).isEqualTo("-1");
+        assertThat(updates.get("CAT#books").expressionAttributeValues().get(":stock").n()).isEqualTo("-9");
+        assertThat(updates.get("CAT#toys").expressionAttributeValues().get(":products").n()).isEqualTo("2");
+        assertThat(updates.get("CAT#toys").expressionAttributeValues().get(":stock").n()).isEqualTo("10");
+        assertThat(updates.get("CAT#books").updateExpression()).startsWith("ADD ");
+    }
+
+    /**
+     * Tests that records applied before, e.g. in a retried batch that starts elsewhere, are dropped
+     * when their marker exists and only the rest is counted.
+     */
+    @Test
+    public void shouldSkipRecordsAppliedBefore() {
+        // Given: record 100 was applied by an earlier delivery
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder().message("cancelled").cancellationReasons(
+                        CancellationReason.builder().code("ConditionalCheckFailed").build(),
+                        CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("None").build()).build())
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        DynamodbEvent event = event(
+                record("100", "MODIFY", image("p1", "books", 10, 5.0), image("p1", "books", 8, 5.0)),
+                record("101", "MODIFY", image("p1", "books", 8, 5.0), image("p1", "books", 7, 5.0)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(2)).transactWriteItems(captor.capture());
+        TransactWriteItemsRequest retried = captor.getAllValues().get(1);
+        assertThat(retried.transactItems()).hasSize(2);
+        assertThat(retried.transactItems().get(0).put().item().get("SK").s()).isEqualTo("101");
+        assertThat(retried.transactItems().get(1).update().expressionAttributeValues().get(":stock").n()).isEqualTo("-1");
+    }
+
+    /**
+     * Tests that a failed transaction reports the first record of its run, so the batch is retried from there.
+     */
+    @Test
+    public void shouldRetryWholeBatchWhenTransactionFails() {
+        // Given
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder().message("conflict").cancellationReasons(
+                        CancellationReason.builder().code("TransactionConflict").build()).build());
+        DynamodbEvent event = event(
+                record("100", "INSERT", null, image("p1", "books", 10, 5.0)),
+                record("101", "INSERT", null, image("p2", "toys", 10, 5.0)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).extracting(StreamsEventResponse.BatchItemFailure::getItemIdentifier)
+                .containsExactly("100");
+        verify(dynamoDbClient, never()).updateItem(any(UpdateItemRequest.class));
+    }
+
+    /**
+     * Tests that the price range is only widened, and a range that already covers the price is left alone.
+     */
+    @Test
+    public void shouldWidenPriceRangeConditionally() {
+        // Given
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("within range").build());
+        DynamodbEvent event = event(record("100", "MODIFY", image("p1", "books", 10, 5.0), image("p1", "books", 10, 3.0)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then: only the price changed, so no counts are written
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient, times(2)).updateItem(captor.capture());
+        assertThat(captor.getAllValues().get(0).conditionExpression()).contains(":price < #price");
+        assertThat(captor.getAllValues().get(0).expressionAttributeNames()).containsValue("minPrice");
+        assertThat(captor.getAllValues().get(1).expressionAttributeNames()).containsValue("maxPrice");
+    }
+
+    private static Map<String, AttributeValue> image(String id, String category, int stock, double price) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("PK", new AttributeValue().withS("PROD#" + id));
+        image.put("SK", new AttributeValue().withS("METADATA"));
+        image.put("id", new AttributeValue().withS(id));
+        image.put("category", new AttributeValue().withS(category));
+        image.put("price", new AttributeValue().withN(String.valueOf(price)));
+        image.put("stockQuantity", new AttributeValue().withN(String.valueOf(stock)));
+        return image;
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String sequence, String eventName,
+                                                             Map<String, AttributeValue> oldImage,
+                                                             Map<String, AttributeValue> newImage) {
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventName(eventName);
+        Map<String, AttributeValue> image = newImage != null ? newImage : oldImage;
+        record.setDynamodb(new StreamRecord()
+                .withKeys(Map.of("PK", image.get("PK"), "SK", image.get("SK")))
+                .withSequenceNumber(sequence)
+                .withApproximateCreationDateTime(new Date(1_700_000_000_000L + Long.parseLong(sequence)))
+                .withOldImage(oldImage)
+                .withNewImage(newImage));
+        return record;
+    }
+
+    private static DynamodbEvent event(DynamodbEvent.DynamodbStreamRecord... records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(records));
+        return event;
+    }
+}
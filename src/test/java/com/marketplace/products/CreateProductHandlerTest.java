@@ -4,20 +4,41 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marketplace.deploy.DryRun;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
 
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
 
@@ -36,6 +57,12 @@ public class CreateProductHandlerTest {
     @Mock
     private SecretsManagerClient secretsManagerClient;
 
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Mock
+    private KmsAsyncClient kmsAsyncClient;
+
     @Mock
     private Context context;
 
@@ -63,9 +90,6 @@ public class CreateProductHandlerTest {
         APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
                 .withBody("{\"price\": 100.0, \"category\": \"Electronics\"}");
 
-        when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
-                .thenReturn(GetSecretValueResponse.builder().name("LogisticsApiKey").build());
-
         // When
         APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
 
@@ -83,9 +107,6 @@ public class CreateProductHandlerTest {
         APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
                 .withBody("{\"name\": \"Test\", \"price\": -1.0, \"category\": \"Electronics\"}");
 
-        when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
-                .thenReturn(GetSecretValueResponse.builder().name("LogisticsApiKey").build());
-
         // When
         APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
 
@@ -103,9 +124,6 @@ public class CreateProductHandlerTest {
         APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
                 .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
 
-        when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
-                .thenReturn(GetSecretValueResponse.builder().name("LogisticsApiKey").build());
-
         // When
         APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
 
@@ -122,10 +140,10 @@ public class CreateProductHandlerTest {
     public void shouldReturnErrorOnException() {
         // Given
         APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
-                .withBody("{\"name\": \"Test Product\"}");
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
 
-        when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
-                .thenThrow(new RuntimeException("Secrets Manager error"));
+        when(dynamoDbClient.putItem(any(PutItemRequest.class)))
+                .thenThrow(new RuntimeException("DynamoDB error"));
 
         // When
         APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
@@ -133,6 +151,276 @@ public class CreateProductHandlerTest {
         // Then
         assertThat(response.getStatusCode()).isEqualTo(500);
         assertThat(response.getBody()).contains("Could not create product");
-        verify(logger).log(contains("Error creating product: Secrets Manager error"));
+        verify(logger).log(contains("Error creating product: DynamoDB error"));
+    }
+
+    /**
+     * Tests that an error message containing quotes still produces a valid JSON error body.
+     */
+    @Test
+    public void shouldEscapeErrorDetails() throws Exception {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"name\": \"Test Product\", \"unexpected\": 1}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(500);
+        JsonNode body = new ObjectMapper().readTree(response.getBody());
+        assertThat(body.get("error").asText()).isEqualTo("Could not create product");
+        assertThat(body.get("details").asText()).contains("Unrecognized field \"unexpected\"");
+    }
+
+    /**
+     * Tests that without a logistics provider the logistics secret is never read.
+     */
+    @Test
+    public void shouldNotReadSecretWithoutLogisticsProvider() {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        verifyNoInteractions(secretsManagerClient);
+    }
+
+    /**
+     * Tests that created products are registered with the logistics provider using the cached key,
+     * which is read from Secrets Manager once.
+     */
+    @Test
+    public void shouldRegisterProductsWithCachedLogisticsKey() throws Exception {
+        // Given
+        List<String> keys = new CopyOnWriteArrayList<>();
+        HttpServer provider = logisticsProvider("key-1", keys);
+        try {
+            when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
+                    .thenReturn(GetSecretValueResponse.builder().secretString("{\"api_key\": \"key-1\"}").build());
+            CreateProductHandler logisticsHandler = logisticsHandler(provider);
+            APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                    .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
+
+            // When
+            logisticsHandler.handleRequest(request, context);
+            APIGatewayProxyResponseEvent response = logisticsHandler.handleRequest(request, context);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(201);
+            assertThat(keys).containsExactly("key-1", "key-1");
+            verify(secretsManagerClient, times(1)).getSecretValue(any(GetSecretValueRequest.class));
+        } finally {
+            provider.stop(0);
+        }
+    }
+
+    /**
+     * Tests that a key the provider rejects is reloaded once and the registration sent again, so a
+     * rotated key is used before the cache expires.
+     */
+    @Test
+    public void shouldForceRefreshLogisticsKeyWhenRejected() throws Exception {
+        // Given: the key was rotated after it was cached
+        List<String> keys = new CopyOnWriteArrayList<>();
+        HttpServer provider = logisticsProvider("key-2", keys);
+        try {
+            when(secretsManagerClient.getSecretValue(any(GetSecretValueRequest.class)))
+                    .thenReturn(GetSecretValueResponse.builder().secretString("{\"api_key\": \"key-1\"}").build())
+                    .thenReturn(GetSecretValueResponse.builder().secretString("{\"api_key\": \"key-2\"}").build());
+            CreateProductHandler logisticsHandler = logisticsHandler(provider);
+            APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                    .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
+
+            // When
+            APIGatewayProxyResponseEvent response = logisticsHandler.handleRequest(request, context);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(201);
+            assertThat(keys).containsExactly("key-1", "key-2");
+            verify(secretsManagerClient, times(2)).getSecretValue(argThat((GetSecretValueRequest get) ->
+                    "AWSCURRENT".equals(get.versionStage())));
+            verify(logger, never()).log(contains("Could not register product"));
+        } finally {
+            provider.stop(0);
+        }
+    }
+
+    /**
+     * Tests that priming before the SnapStart snapshot reads no secret, so none is captured in it.
+     */
+    @Test
+    public void shouldNotReadSecretWhilePriming() {
+        // When
+        handler.beforeCheckpoint(null);
+
+        // Then
+        verifyNoInteractions(secretsManagerClient);
+    }
+
+    /**
+     * Tests that the async mode encrypts on the async client and writes the ciphertext.
+     */
+    @Test
+    public void shouldCreateProductWithAsyncClients() {
+        // Given
+        CreateProductHandler asyncHandler = new CreateProductHandler(dynamoDbClient, kmsClient, secretsManagerClient,
+                dynamoDbAsyncClient, kmsAsyncClient, "TestTable", "test-key-id", "test-secret-arn", true);
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\", \"supplierEmail\": \"a@b.com\"}");
+
+        when(context.getRemainingTimeInMillis()).thenReturn(10_000);
+        when(kmsAsyncClient.encrypt(any(EncryptRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(EncryptResponse.builder()
+                        .ciphertextBlob(SdkBytes.fromUtf8String("cipher")).build()));
+        when(dynamoDbAsyncClient.putItem(any(PutItemRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutItemResponse.builder().build()));
+
+        // When
+        APIGatewayProxyResponseEvent response = asyncHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        verify(dynamoDbAsyncClient).putItem(argThat((PutItemRequest put) -> put.item().containsKey("supplierEmail")));
+        verifyNoInteractions(kmsClient, dynamoDbClient);
+    }
+
+    /**
+     * Tests that the async mode returns 504 and cancels the pending calls when the deadline passes.
+     */
+    @Test
+    public void shouldReturn504WhenAsyncCallsMissTheDeadline() {
+        // Given
+        CreateProductHandler asyncHandler = new CreateProductHandler(dynamoDbClient, kmsClient, secretsManagerClient,
+                dynamoDbAsyncClient, kmsAsyncClient, "TestTable", "test-key-id", "test-secret-arn", true);
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\", \"supplierEmail\": \"a@b.com\"}");
+
+        CompletableFuture<EncryptResponse> neverCompletes = new CompletableFuture<>();
+        when(context.getRemainingTimeInMillis()).thenReturn(600);
+        when(kmsAsyncClient.encrypt(any(EncryptRequest.class))).thenReturn(neverCompletes);
+
+        // When
+        APIGatewayProxyResponseEvent response = asyncHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(504);
+        assertThat(neverCompletes).isCancelled();
+        verify(dynamoDbAsyncClient, never()).putItem(any(PutItemRequest.class));
+    }
+
+    /**
+     * Tests that creating a product deletes only the full and the category listing, so the sales
+     * rankings and access counters in the same Redis survive.
+     */
+    @Test
+    public void shouldEvictOnlyAffectedListings() {
+        // Given
+        JedisPool jedisPool = mock(JedisPool.class);
+        Jedis jedis = mock(Jedis.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        CreateProductHandler evictingHandler = new CreateProductHandler(dynamoDbClient, kmsClient, secretsManagerClient,
+                null, null, () -> jedisPool, "TestTable", "test-key-id", "test-secret-arn", false);
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
+
+        // When
+        APIGatewayProxyResponseEvent response = evictingHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        verify(jedis).del("products:all", "products:cat:Electronics");
+        verify(jedis, never()).flushAll();
+        verify(jedis, never()).del(anyString());
+    }
+
+    /**
+     * Tests that a dry run encrypts and sends the put, whose condition never holds, evicts only its own
+     * category's listing and returns 200 without registering the product with logistics.
+     */
+    @Test
+    public void shouldDryRunWithoutStoringProduct() throws Exception {
+        // Given
+        List<String> receivedKeys = new CopyOnWriteArrayList<>();
+        HttpServer provider = logisticsProvider("key-1", receivedKeys);
+        JedisPool jedisPool = mock(JedisPool.class);
+        Jedis jedis = mock(Jedis.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        CreateProductHandler dryRunHandler = new CreateProductHandler(dynamoDbClient, kmsClient, secretsManagerClient,
+                null, null, () -> jedisPool, "TestTable", "test-key-id", "test-secret-arn",
+                "http://127.0.0.1:" + provider.getAddress().getPort(), false);
+        when(kmsClient.encrypt(any(EncryptRequest.class)))
+                .thenReturn(EncryptResponse.builder().ciphertextBlob(SdkBytes.fromUtf8String("cipher")).build());
+        when(dynamoDbClient.putItem(any(PutItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHeaders(Map.of(DryRun.HEADER, "true"))
+                .withBody("{\"name\": \"Synthetic canary\", \"price\": 10.0, \"category\": \"synthetic-canary\", "
+                        + "\"supplierEmail\": \"canary@example.com\"}");
+
+        try {
+            // When
+            APIGatewayProxyResponseEvent response = dryRunHandler.handleRequest(request, context);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(200);
+            ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+            verify(dynamoDbClient).putItem(put.capture());
+            assertThat(put.getValue().conditionExpression()).isEqualTo(DryRun.NEVER);
+            verify(kmsClient).encrypt(any(EncryptRequest.class));
+            verify(jedis).del(new String[] {"products:cat:synthetic-canary"});
+            assertThat(receivedKeys).isEmpty();
+        } finally {
+            provider.stop(0);
+        }
+    }
+
+    /**
+     * Tests that the dry-run header is ignored on requests through API Gateway.
+     */
+    @Test
+    public void shouldIgnoreDryRunHeaderThroughApiGateway() {
+        // Given
+        APIGatewayProxyRequestEvent.ProxyRequestContext proxyContext = new APIGatewayProxyRequestEvent.ProxyRequestContext();
+        proxyContext.setApiId("abc123");
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withRequestContext(proxyContext)
+                .withHeaders(Map.of(DryRun.HEADER, "true"))
+                .withBody("{\"name\": \"Test Product\", \"price\": 100.0, \"category\": \"Electronics\"}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(201);
+        ArgumentCaptor<PutItemRequest> put = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(put.capture());
+        assertThat(put.getValue().conditionExpression()).isEqualTo("attribute_not_exists(PK)");
+    }
+
+    private CreateProductHandler logisticsHandler(HttpServer provider) {
+        return new CreateProductHandler(dynamoDbClient, kmsClient, secretsManagerClient, null, null, () -> null,
+                "TestTable", "test-key-id", "test-secret-arn",
+                "http://127.0.0.1:" + provider.getAddress().getPort(), false);
+    }
+
+    /**
+     * Starts a logistics provider that accepts only the given key and records every key it receives.
+     */
+    private static HttpServer logisticsProvider(String validKey, List<String> receivedKeys) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/products", exchange -> {
+            String key = exchange.getRequestHeaders().getFirst(LogisticsClient.API_KEY_HEADER);
+            receivedKeys.add(key);
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(validKey.equals(key) ? 201 : 401, -1);
+            exchange.close();
+        });
+        server.start();
+        return server;
     }
-}
\ No newline at end of file
+}
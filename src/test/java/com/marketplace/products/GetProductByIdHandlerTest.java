@@ -9,18 +9,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.kms.KmsAsyncClient;
 import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.DecryptRequest;
+import software.amazon.awssdk.services.kms.model.DecryptResponse;
 
 import java.util.Collections;
+import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -35,6 +43,12 @@ public class GetProductByIdHandlerTest {
     @Mock
     private KmsClient kmsClient;
 
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Mock
+    private KmsAsyncClient kmsAsyncClient;
+
     @Mock
     private Context context;
 
@@ -102,4 +116,40 @@ public class GetProductByIdHandlerTest {
         assertThat(response.getStatusCode()).isEqualTo(404);
         assertThat(response.getBody()).contains("Product not found");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the async mode pipelines the decryption onto the read.
+     */
+    @Test
+    public void shouldReturnDecryptedProductWithAsyncClients() {
+        // Given
+        GetProductByIdHandler asyncHandler = new GetProductByIdHandler(dynamoDbClient, kmsClient,
+                dynamoDbAsyncClient, kmsAsyncClient, "TestTable", true);
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withRequestContext(new APIGatewayProxyRequestEvent.ProxyRequestContext())
+                .withPathParameters(Map.of("id", "prod-1"));
+
+        Map<String, AttributeValue> item = Map.of(
+                "id", AttributeValue.builder().s("prod-1").build(),
+                "name", AttributeValue.builder().s("Test Product").build(),
+                "price", AttributeValue.builder().n("10.0").build(),
+                "category", AttributeValue.builder().s("Test").build(),
+                "supplierEmail", AttributeValue.builder().s(Base64.getEncoder().encodeToString("cipher".getBytes())).build()
+        );
+
+        when(context.getRemainingTimeInMillis()).thenReturn(10_000);
+        when(dynamoDbAsyncClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(GetItemResponse.builder().item(item).build()));
+        when(kmsAsyncClient.decrypt(any(DecryptRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DecryptResponse.builder()
+                        .plaintext(SdkBytes.fromUtf8String("supplier@example.com")).build()));
+
+        // When
+        APIGatewayProxyResponseEvent response = asyncHandler.handleRequest(request, context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).contains("supplier@example.com");
+        verifyNoInteractions(dynamoDbClient, kmsClient);
+    }
+}
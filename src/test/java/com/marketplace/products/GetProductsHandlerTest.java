@@ -4,6 +4,8 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,14 +17,27 @@ import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.kms.KmsClient;
 import software.amazon.awssdk.services.ssm.SsmClient;
-
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import com.marketplace.utils.ConfigProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -102,4 +117,69 @@ public class GetProductsHandlerTest {
         assertThat(response.getBody()).contains("Test Product");
         assertThat(response.getBody()).contains("123");
     }
+
+    /**
+     * Tests that the table name is loaded from the configuration path once, on first use rather than at construction.
+     */
+    @Test
+    public void shouldLoadTableNameFromConfigurationOnFirstUse() throws Exception {
+        // Given
+        String configPath = "/marketplace-handler-test";
+        Files.deleteIfExists(ConfigProvider.defaultCacheFile(configPath));
+        try {
+            GetProductsHandler configuredHandler = new GetProductsHandler(dynamoDbClient, kmsClient, ssmClient, null, configPath);
+            verifyNoInteractions(ssmClient);
+
+            when(ssmClient.getParametersByPath(any(GetParametersByPathRequest.class)))
+                    .thenReturn(GetParametersByPathResponse.builder()
+                            .parameters(Parameter.builder().name(configPath + "/table_name").value("ConfiguredTable").build())
+                            .build());
+            when(dynamoDbClient.scan(any(ScanRequest.class)))
+                    .thenReturn(ScanResponse.builder().items(Collections.emptyList()).build());
+
+            // When
+            configuredHandler.handleRequest(new APIGatewayProxyRequestEvent(), context);
+            APIGatewayProxyResponseEvent response = configuredHandler.handleRequest(new APIGatewayProxyRequestEvent(), context);
+
+            // Then
+            assertThat(response.getStatusCode()).isEqualTo(200);
+            verify(ssmClient, times(1)).getParametersByPath(any(GetParametersByPathRequest.class));
+            verify(dynamoDbClient, times(2)).scan(argThat((ScanRequest scan) -> "ConfiguredTable".equals(scan.tableName())));
+        } finally {
+            Files.deleteIfExists(ConfigProvider.defaultCacheFile(configPath));
+        }
+    }
+
+    /**
+     * Tests that each invocation writes one Embedded Metric Format line with its route and outcome.
+     */
+    @Test
+    public void shouldWriteOneMetricsLinePerInvocation() throws Exception {
+        // Given
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withResource("/products");
+        when(dynamoDbClient.scan(any(ScanRequest.class)))
+                .thenReturn(ScanResponse.builder().items(Collections.emptyList()).build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            // When
+            handler.handleRequest(request, context);
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        // Then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        assertThat(lines).hasSize(1);
+        JsonNode emf = new ObjectMapper().readTree(lines.get(0));
+        assertThat(emf.at("/_aws/CloudWatchMetrics/0/Namespace").asText()).isEqualTo("Marketplace");
+        assertThat(emf.at("/_aws/CloudWatchMetrics/0/Metrics/0/Name").asText()).isEqualTo("Duration");
+        assertThat(emf.get("Route").asText()).isEqualTo("GET /products");
+        assertThat(emf.get("Outcome").asText()).isEqualTo("2xx");
+        assertThat(emf.get("Duration").isNumber()).isTrue();
+    }
 }
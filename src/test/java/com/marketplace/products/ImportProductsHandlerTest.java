@@ -0,0 +1,314 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.model.MarketplaceJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+import software.amazon.awssdk.services.lambda.model.InvokeResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ImportProductsHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ImportProductsHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private KmsClient kmsClient;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private PresignedGetObjectRequest presignedRequest;
+
+    @Mock
+    private LambdaClient lambdaClient;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private ImportProductsHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        lenient().when(kmsClient.encrypt(any(EncryptRequest.class))).thenReturn(EncryptResponse.builder()
+                .ciphertextBlob(SdkBytes.fromUtf8String("encrypted"))
+                .build());
+        handler = new ImportProductsHandler(dynamoDbClient, kmsClient, s3Client, s3Presigner, lambdaClient,
+                () -> jedisPool, "TestTable", "key-id", "TestBucket", "ImportWorker", 2);
+    }
+
+    /**
+     * Tests that valid lines are written in chunks of 25, products with IDs from the file only if
+     * they do not exist, invalid lines are reported without being written, a shared supplier email
+     * is encrypted once and the listings are evicted after each chunk.
+     */
+    @Test
+    public void shouldImportValidLinesInChunks() throws Exception {
+        // Given: 30 valid products, then a rejected, a malformed and a duplicate line
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            body.append(product("p" + i, i % 2 == 0 ? "Books" : "Toys", 10.0)).append('\n');
+        }
+        body.append(product("bad", "Books", 0)).append('\n');
+        body.append("{not json\n");
+        body.append('\n');
+        body.append(product("p3", "Books", 5.0)).append('\n');
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withBody(body.toString()), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        JsonNode result = MarketplaceJson.CODEC.readTree(response.getBody());
+        assertThat(result.path("received").asInt()).isEqualTo(33);
+        assertThat(result.path("imported").asInt()).isEqualTo(30);
+        assertThat(result.path("rejected").asInt()).isEqualTo(3);
+        assertThat(result.path("failed").asInt()).isEqualTo(0);
+        JsonNode items = result.path("items");
+        assertThat(items.get(30).path("status").asText()).isEqualTo("rejected");
+        assertThat(items.get(30).path("error").asText()).isEqualTo("Product price must be greater than zero");
+        assertThat(items.get(31).path("line").asInt()).isEqualTo(32);
+        assertThat(items.get(31).path("error").asText()).startsWith("Malformed product");
+        assertThat(items.get(32).path("line").asInt()).isEqualTo(34);
+        assertThat(items.get(32).path("error").asText()).isEqualTo("Duplicate product ID in import");
+
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(2)).transactWriteItems(captor.capture());
+        List<Integer> sizes = new ArrayList<>();
+        captor.getAllValues().forEach(request -> sizes.add(request.transactItems().size()));
+        assertThat(sizes).containsExactlyInAnyOrder(25, 5);
+        assertThat(captor.getValue().clientRequestToken()).isNotNull();
+        Put written = captor.getAllValues().get(0).transactItems().get(0).put();
+        assertThat(written.tableName()).isEqualTo("TestTable");
+        assertThat(written.conditionExpression()).isEqualTo("attribute_not_exists(PK)");
+        assertThat(written.item().get("version").n()).isEqualTo("1");
+        assertThat(written.item().get("supplierEmail").s()).isNotEqualTo("seller@example.com");
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+
+        verify(kmsClient, times(1)).encrypt(any(EncryptRequest.class));
+        // Each chunk evicts its own categories once written
+        verify(jedis).del("products:all", "products:cat:Books", "products:cat:Toys");
+        verify(jedis).del("products:all", "products:cat:Toys", "products:cat:Books");
+    }
+
+    /**
+     * Tests that products with generated IDs are written in a batch, unprocessed items are retried
+     * until written, and items of a failed request are reported as failed rather than rejected.
+     */
+    @Test
+    public void shouldRetryUnprocessedItemsAndReportFailures() throws Exception {
+        // Given: the first call leaves p2 unprocessed, the retry writes it
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            List<WriteRequest> requests = invocation.<BatchWriteItemRequest>getArgument(0).requestItems().get("TestTable");
+            List<WriteRequest> unprocessed = requests.size() == 2 ? List.of(requests.get(1)) : List.of();
+            return BatchWriteItemResponse.builder().unprocessedItems(Map.of("TestTable", unprocessed)).build();
+        });
+        String body = product(null, "Books", 10.0) + "\n" + product(null, "Books", 12.0) + "\n";
+
+        // When
+        JsonNode retried = MarketplaceJson.CODEC.readTree(handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withBody(body), context).getBody());
+
+        // Then
+        assertThat(retried.path("imported").asInt()).isEqualTo(2);
+        assertThat(retried.path("items").get(0).path("id").asText()).isNotEmpty();
+        verify(dynamoDbClient, times(2)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+
+        // Given: the table throttles beyond the SDK retries
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenThrow(ProvisionedThroughputExceededException.builder().message("throttled").build());
+
+        // When
+        JsonNode failed = MarketplaceJson.CODEC.readTree(handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withBody(body), context).getBody());
+
+        // Then
+        assertThat(failed.path("failed").asInt()).isEqualTo(2);
+        assertThat(failed.path("items").get(0).path("status").asText()).isEqualTo("failed");
+        assertThat(failed.path("items").get(0).path("error").asText()).isEqualTo("throttled");
+    }
+
+    /**
+     * Tests that products whose IDs already exist are reported as conflicts and not written, so an
+     * import never replaces a product or resets its version, and the rest of the chunk is written.
+     */
+    @Test
+    public void shouldReportExistingProductsAsConflicts() throws Exception {
+        // Given: p1 already exists, so the first transaction is cancelled by its condition
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(TransactionCanceledException.builder()
+                        .message("Transaction cancelled")
+                        .cancellationReasons(
+                                CancellationReason.builder().code("ConditionalCheckFailed").build(),
+                                CancellationReason.builder().code("None").build())
+                        .build())
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+        String body = product("p1", "Books", 10.0) + "\n" + product("p2", "Books", 12.0) + "\n";
+
+        // When
+        JsonNode result = MarketplaceJson.CODEC.readTree(handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withBody(body), context).getBody());
+
+        // Then
+        assertThat(result.path("imported").asInt()).isEqualTo(1);
+        assertThat(result.path("conflicts").asInt()).isEqualTo(1);
+        assertThat(result.path("items").get(0).path("status").asText()).isEqualTo("conflict");
+        ArgumentCaptor<TransactWriteItemsRequest> captor = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(2)).transactWriteItems(captor.capture());
+        TransactWriteItemsRequest retry = captor.getAllValues().get(1);
+        assertThat(retry.transactItems()).hasSize(1);
+        assertThat(retry.transactItems().get(0).put().item().get("PK").s()).isEqualTo("PROD#p2");
+        assertThat(retry.clientRequestToken()).isNotEqualTo(captor.getAllValues().get(0).clientRequestToken());
+        verify(dynamoDbClient, never()).batchWriteItem(any(BatchWriteItemRequest.class));
+    }
+
+    /**
+     * Tests that an import file in S3 is handed to the worker, and the response says where its
+     * results will be written, without reading the file while the request waits.
+     */
+    @Test
+    public void shouldStartImportFromS3Asynchronously() throws Exception {
+        // Given
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(HeadObjectResponse.builder().build());
+        when(lambdaClient.invoke(any(InvokeRequest.class))).thenReturn(InvokeResponse.builder().statusCode(202).build());
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(presignedRequest);
+        when(presignedRequest.url()).thenReturn(new URL("https://bucket.s3.amazonaws.com/import-results/1.json"));
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent()
+                .withQueryStringParameters(Map.of("s3Key", "imports/seller-1.ndjson")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(202);
+        JsonNode result = MarketplaceJson.CODEC.readTree(response.getBody());
+        String importId = result.path("importId").asText();
+        assertThat(result.path("resultsKey").asText()).isEqualTo("import-results/" + importId + ".json");
+        assertThat(result.path("resultsUrl").asText()).isEqualTo("https://bucket.s3.amazonaws.com/import-results/1.json");
+
+        ArgumentCaptor<InvokeRequest> invoke = ArgumentCaptor.forClass(InvokeRequest.class);
+        verify(lambdaClient).invoke(invoke.capture());
+        assertThat(invoke.getValue().functionName()).isEqualTo("ImportWorker");
+        assertThat(invoke.getValue().invocationType()).isEqualTo(InvocationType.EVENT);
+        JsonNode payload = MarketplaceJson.CODEC.readTree(invoke.getValue().payload().asUtf8String());
+        assertThat(payload.path("importId").asText()).isEqualTo(importId);
+        assertThat(payload.path("s3Key").asText()).isEqualTo("imports/seller-1.ndjson");
+        ArgumentCaptor<GetObjectPresignRequest> presign = ArgumentCaptor.forClass(GetObjectPresignRequest.class);
+        verify(s3Presigner).presignGetObject(presign.capture());
+        assertThat(presign.getValue().getObjectRequest().key()).isEqualTo("import-results/" + importId + ".json");
+        verify(s3Client, never()).getObject(any(GetObjectRequest.class));
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    /**
+     * Tests that a missing import file is reported at once rather than by the worker.
+     */
+    @Test
+    public void shouldReturnNotFoundForMissingImportFile() {
+        // Given
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent()
+                .withQueryStringParameters(Map.of("s3Key", "imports/missing.ndjson")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(404);
+        verifyNoInteractions(lambdaClient);
+    }
+
+    /**
+     * Tests that keys outside the imports prefix are refused without reading anything.
+     */
+    @Test
+    public void shouldRejectKeysOutsideImportPrefix() {
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(new APIGatewayProxyRequestEvent()
+                .withQueryStringParameters(Map.of("s3Key", "catalog/manifest.json")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(400);
+        verifyNoInteractions(s3Client, dynamoDbClient, lambdaClient);
+    }
+
+    /**
+     * @param id The product ID, or null to have the import generate one.
+     */
+    static String product(String id, String category, double price) {
+        return "{" + (id != null ? "\"id\":\"" + id + "\"," : "") + "\"name\":\"Product " + id + "\",\"price\":"
+                + price + ",\"category\":\"" + category + "\",\"stockQuantity\":3,\"supplierEmail\":\"seller@example.com\"}";
+    }
+}
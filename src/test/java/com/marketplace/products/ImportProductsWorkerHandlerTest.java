@@ -0,0 +1,145 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.model.MarketplaceJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ImportProductsWorkerHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ImportProductsWorkerHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private KmsClient kmsClient;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private ImportProductsWorkerHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        lenient().when(kmsClient.encrypt(any(EncryptRequest.class))).thenReturn(EncryptResponse.builder()
+                .ciphertextBlob(SdkBytes.fromUtf8String("encrypted"))
+                .build());
+        handler = new ImportProductsWorkerHandler(dynamoDbClient, kmsClient, s3Client, () -> jedisPool,
+                "TestTable", "key-id", "TestBucket", 2);
+    }
+
+    /**
+     * Tests that the import file is streamed from S3, its products are written and the summary is
+     * written to the results object of the import.
+     */
+    @Test
+    public void shouldImportObjectAndWriteResults() throws Exception {
+        // Given
+        when(dynamoDbClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(BatchWriteItemResponse.builder().build());
+        byte[] file = (ImportProductsHandlerTest.product(null, "Books", 10.0) + "\n"
+                + ImportProductsHandlerTest.product(null, "Books", 0) + "\n").getBytes(StandardCharsets.UTF_8);
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(new ResponseInputStream<>(
+                GetObjectResponse.builder().build(), AbortableInputStream.create(new ByteArrayInputStream(file))));
+
+        // When
+        String resultsKey = handler.handleRequest(
+                Map.of("importId", "import-1", "s3Key", "imports/seller-1.ndjson"), context);
+
+        // Then
+        assertThat(resultsKey).isEqualTo("import-results/import-1.json");
+        ArgumentCaptor<GetObjectRequest> read = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObject(read.capture());
+        assertThat(read.getValue().bucket()).isEqualTo("TestBucket");
+        assertThat(read.getValue().key()).isEqualTo("imports/seller-1.ndjson");
+
+        JsonNode results = writtenResults("import-results/import-1.json");
+        assertThat(results.path("imported").asInt()).isEqualTo(1);
+        assertThat(results.path("rejected").asInt()).isEqualTo(1);
+        assertThat(results.path("items")).hasSize(2);
+        verify(jedis).del("products:all", "products:cat:Books");
+    }
+
+    /**
+     * Tests that an import that cannot run still writes a results object, with the error.
+     */
+    @Test
+    public void shouldWriteErrorResultsWhenFileIsMissing() throws Exception {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenThrow(NoSuchKeyException.builder().build());
+
+        // When
+        handler.handleRequest(Map.of("importId", "import-2", "s3Key", "imports/missing.ndjson"), context);
+
+        // Then
+        JsonNode results = writtenResults("import-results/import-2.json");
+        assertThat(results.path("error").asText()).isEqualTo("Import file not found");
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    private JsonNode writtenResults(String key) throws Exception {
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(request.capture(), body.capture());
+        assertThat(request.getValue().bucket()).isEqualTo("TestBucket");
+        assertThat(request.getValue().key()).isEqualTo(key);
+        try (InputStream content = body.getValue().contentStreamProvider().newStream()) {
+            return MarketplaceJson.CODEC.readTree(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
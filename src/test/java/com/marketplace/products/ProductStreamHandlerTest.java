@@ -0,0 +1,226 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.StreamsEventResponse;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.SetParams;
+import software.amazon.awssdk.services.kms.KmsClient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ProductStreamHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ProductStreamHandlerTest {
+
+    @Mock
+    private KmsClient kmsClient;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    @Mock
+    private Pipeline pipeline;
+
+    private ProductStreamHandler handler;
+
+    /**
+     * Sets up a Redis connection whose transactions succeed.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        lenient().when(jedis.multi()).thenReturn(transaction);
+        lenient().when(jedis.pipelined()).thenReturn(pipeline);
+        lenient().when(transaction.exec()).thenReturn(List.of("OK"));
+        handler = new ProductStreamHandler(kmsClient, () -> jedisPool);
+    }
+
+    /**
+     * Tests that several stock changes of a product are applied once per listing, keeping the
+     * decrypted email without calling KMS.
+     */
+    @Test
+    public void shouldApplyLatestStockOncePerListing() {
+        // Given
+        when(jedis.get(ProductCatalog.ALL_KEY)).thenReturn(listing("p1", "books", 5, "supplier@example.com"));
+        when(jedis.get(ProductCatalog.categoryKey("books"))).thenReturn(listing("p1", "books", 5, "supplier@example.com"));
+        List<Map<String, AttributeValue>> images = List.of(
+                image("p1", "books", 5, 1), image("p1", "books", 4, 2), image("p1", "books", 3, 3));
+        images.forEach(image -> image.put("supplierEmail", new AttributeValue().withS("ciphertext")));
+        DynamodbEvent event = event(
+                record("100", "MODIFY", images.get(0), images.get(1)),
+                record("101", "MODIFY", images.get(1), images.get(2)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        assertThat(written(ProductCatalog.ALL_KEY)).contains("\"stockQuantity\":3", "\"supplierEmail\":\"supplier@example.com\"");
+        assertThat(written(ProductCatalog.categoryKey("books"))).contains("\"stockQuantity\":3");
+        verifyNoInteractions(kmsClient);
+    }
+
+    /**
+     * Tests that a category change moves the product from the old category listing to the new one.
+     */
+    @Test
+    public void shouldMoveProductBetweenCategoryListings() {
+        // Given
+        when(jedis.get(ProductCatalog.ALL_KEY)).thenReturn(listing("p1", "books", 5, null));
+        when(jedis.get(ProductCatalog.categoryKey("books"))).thenReturn(listing("p1", "books", 5, null));
+        when(jedis.get(ProductCatalog.categoryKey("toys"))).thenReturn("[]");
+        DynamodbEvent event = event(record("100", "MODIFY", image("p1", "books", 5, 1), image("p1", "toys", 5, 2)));
+
+        // When
+        handler.handleRequest(event, context);
+
+        // Then
+        assertThat(written(ProductCatalog.categoryKey("books"))).isEqualTo("[]");
+        assertThat(written(ProductCatalog.categoryKey("toys"))).contains("\"id\":\"p1\"", "\"category\":\"toys\"");
+    }
+
+    /**
+     * Tests that listings which are not cached are left to be filled on the next request.
+     */
+    @Test
+    public void shouldSkipListingsThatAreNotCached() {
+        // Given
+        DynamodbEvent event = event(record("100", "INSERT", null, image("p1", "books", 5, 1)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then: the counters still move, so a fill that read the table before the change is refused
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        verify(jedis, never()).multi();
+        verify(pipeline).incr(ProductCatalog.versionKey(ProductCatalog.ALL_KEY));
+        verify(pipeline).incr(ProductCatalog.versionKey(ProductCatalog.categoryKey("books")));
+        verify(pipeline).sync();
+    }
+
+    /**
+     * Tests that a listing that cannot be updated reports the earliest record touching it, so the
+     * stream retries from there.
+     */
+    @Test
+    public void shouldReportEarliestRecordOfFailedListing() {
+        // Given: products:all keeps changing under the transaction
+        when(jedis.get(anyString())).thenReturn(listing("p1", "books", 5, null));
+        when(transaction.exec()).thenReturn(List.of("OK"), null, null, null);
+        DynamodbEvent event = event(
+                record("200", "MODIFY", image("p2", "toys", 5, 1), image("p2", "toys", 4, 2)),
+                record("300", "MODIFY", image("p1", "books", 5, 1), image("p1", "books", 4, 2)));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).extracting(StreamsEventResponse.BatchItemFailure::getItemIdentifier)
+                .containsExactly("200");
+    }
+
+    /**
+     * Tests that records of non-product items, such as orders, are ignored.
+     */
+    @Test
+    public void shouldIgnoreOtherItems() {
+        // Given
+        Map<String, AttributeValue> order = new HashMap<>();
+        order.put("PK", new AttributeValue().withS("ORDER#o1"));
+        order.put("SK", new AttributeValue().withS("METADATA"));
+        DynamodbEvent event = event(record("100", "INSERT", null, order));
+
+        // When
+        StreamsEventResponse response = handler.handleRequest(event, context);
+
+        // Then
+        assertThat(response.getBatchItemFailures()).isEmpty();
+        verifyNoInteractions(jedisPool);
+    }
+
+    private String written(String key) {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(transaction, times(1)).set(eq(key), captor.capture(), any(SetParams.class));
+        return captor.getValue();
+    }
+
+    private static String listing(String id, String category, int stock, String email) {
+        return "[{\"id\":\"" + id + "\",\"name\":\"Product " + id + "\",\"price\":10.0,\"category\":\"" + category
+                + "\",\"version\":1,\"stockQuantity\":" + stock + ",\"supplierEmail\":"
+                + (email != null ? "\"" + email + "\"" : "null") + "}]";
+    }
+
+    private static Map<String, AttributeValue> image(String id, String category, int stock, int version) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("PK", new AttributeValue().withS("PROD#" + id));
+        image.put("SK", new AttributeValue().withS("METADATA"));
+        image.put("id", new AttributeValue().withS(id));
+        image.put("name", new AttributeValue().withS("Product " + id));
+        image.put("price", new AttributeValue().withN("10.0"));
+        image.put("category", new AttributeValue().withS(category));
+        image.put("stockQuantity", new AttributeValue().withN(String.valueOf(stock)));
+        image.put("version", new AttributeValue().withN(String.valueOf(version)));
+        return image;
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String sequence, String eventName,
+                                                             Map<String, AttributeValue> oldImage,
+                                                             Map<String, AttributeValue> newImage) {
+        DynamodbEvent.DynamodbStreamRecord record = new DynamodbEvent.DynamodbStreamRecord();
+        record.setEventID("event-" + sequence);
+        record.setEventName(eventName);
+        record.setDynamodb(new StreamRecord()
+                .withSequenceNumber(sequence)
+                .withOldImage(oldImage)
+                .withNewImage(newImage));
+        return record;
+    }
+
+    private static DynamodbEvent event(DynamodbEvent.DynamodbStreamRecord... records) {
+        DynamodbEvent event = new DynamodbEvent();
+        event.setRecords(List.of(records));
+        return event;
+    }
+}
@@ -0,0 +1,273 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.model.MarketplaceJson;
+import com.marketplace.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SearchProductsHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SearchProductsHandlerTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    /** Objects in the mocked bucket, by key. */
+    private final Map<String, byte[]> objects = new HashMap<>();
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            String key = invocation.<GetObjectRequest>getArgument(0).key();
+            if (!objects.containsKey(key)) {
+                throw NoSuchKeyException.builder().message(key).build();
+            }
+            return ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), objects.get(key));
+        });
+    }
+
+    /**
+     * Tests that every query token is matched as a prefix of a name or category token, and that the
+     * index is only loaded once within the refresh interval.
+     */
+    @Test
+    public void shouldMatchAllTokensAsPrefixes() throws Exception {
+        // Given
+        publish(1L, new Product("p1", "Red Running Shoes", 80.0, "Sports", 1, 5, null),
+                new Product("p2", "Running Socks", 9.0, "Sports", 1, 50, null),
+                new Product("p3", "Red Mug", 12.0, "Kitchen", 1, 20, null));
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 60_000);
+
+        // When
+        JsonNode shoes = search(handler, "run sho");
+        JsonNode red = search(handler, "RED");
+        JsonNode redSports = search(handler, "sport red");
+        JsonNode none = search(handler, "red sock");
+
+        // Then
+        assertThat(ids(shoes)).containsExactly("p1");
+        assertThat(shoes.path("version").asLong()).isEqualTo(1L);
+        assertThat(shoes.path("products").get(0).path("name").asText()).isEqualTo("Red Running Shoes");
+        assertThat(ids(red)).containsExactly("p1", "p3");
+        assertThat(red.path("total").asInt()).isEqualTo(2);
+        assertThat(ids(redSports)).containsExactly("p1");
+        assertThat(ids(none)).isEmpty();
+        verify(s3Client, times(2)).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    /**
+     * Tests that exact token matches rank before prefix-only matches, and that the limit caps the
+     * returned products but not the total.
+     */
+    @Test
+    public void shouldRankExactMatchesFirstAndApplyLimit() throws Exception {
+        // Given
+        publish(1L, new Product("p1", "Teapot", 30.0, "Kitchen", 1, 5, null),
+                new Product("p2", "Tea", 8.0, "Groceries", 1, 50, null),
+                new Product("p3", "Teaspoon Set", 6.0, "Kitchen", 1, 20, null));
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 60_000);
+
+        // When
+        JsonNode result = search(handler, "tea", "2");
+
+        // Then
+        assertThat(ids(result)).containsExactly("p2", "p1");
+        assertThat(result.path("total").asInt()).isEqualTo(3);
+    }
+
+    /**
+     * Tests that a newer snapshot replaces the index, and an unchanged version is not downloaded again.
+     */
+    @Test
+    public void shouldReloadOnlyWhenVersionAdvances() throws Exception {
+        // Given
+        publish(1L, new Product("p1", "Desk Lamp", 25.0, "Home", 1, 5, null));
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 0);
+        assertThat(ids(search(handler, "lamp"))).containsExactly("p1");
+
+        // When: the same version is checked again, then a new snapshot is exported
+        assertThat(ids(search(handler, "lamp"))).containsExactly("p1");
+        publish(2L, new Product("p1", "Desk Lamp", 25.0, "Home", 1, 5, null),
+                new Product("p2", "Floor Lamp", 60.0, "Home", 1, 3, null));
+        JsonNode result = search(handler, "lamp");
+
+        // Then: three manifest reads and two snapshot downloads
+        assertThat(ids(result)).containsExactly("p1", "p2");
+        assertThat(result.path("version").asLong()).isEqualTo(2L);
+        verify(s3Client, times(5)).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    /**
+     * Tests that a snapshot that does not match its manifest checksum is rejected and the previous
+     * index keeps serving.
+     */
+    @Test
+    public void shouldKeepServingWhenRefreshFails() throws Exception {
+        // Given
+        publish(1L, new Product("p1", "Desk Lamp", 25.0, "Home", 1, 5, null));
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 0);
+        search(handler, "lamp");
+        publish(2L, new Product("p2", "Floor Lamp", 60.0, "Home", 1, 3, null));
+        objects.put(CatalogSnapshots.snapshotKey(2L), gzip("corrupted"));
+
+        // When
+        JsonNode result = search(handler, "lamp");
+
+        // Then
+        assertThat(ids(result)).containsExactly("p1");
+        assertThat(result.path("version").asLong()).isEqualTo(1L);
+    }
+
+    /**
+     * Tests that a missing query is rejected without touching S3.
+     */
+    @Test
+    public void shouldRejectMissingQuery() {
+        // Given
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 0);
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withQueryStringParameters(Map.of("q", " - ")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(400);
+        verifyNoInteractions(s3Client);
+    }
+
+    /**
+     * Tests that 503 is returned until the first snapshot is exported.
+     */
+    @Test
+    public void shouldReturnServiceUnavailableWithoutSnapshot() {
+        // Given
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 0);
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withQueryStringParameters(Map.of("q", "lamp")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(503);
+    }
+
+    /**
+     * Tests that a failed first load is retried on the next request instead of after the refresh
+     * interval, and that the full interval applies once an index is loaded.
+     */
+    @Test
+    public void shouldRetryFirstLoadBeforeRefreshInterval() throws Exception {
+        // Given: the first snapshot is corrupted
+        publish(1L, new Product("p1", "Desk Lamp", 25.0, "Home", 1, 5, null));
+        objects.put(CatalogSnapshots.snapshotKey(1L), gzip("corrupted"));
+        SearchProductsHandler handler = new SearchProductsHandler(s3Client, "TestBucket", 60_000, 0);
+        APIGatewayProxyResponseEvent failed = handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withQueryStringParameters(Map.of("q", "lamp")), context);
+
+        // When: a valid snapshot is exported
+        publish(2L, new Product("p1", "Desk Lamp", 25.0, "Home", 1, 5, null));
+        JsonNode result = search(handler, "lamp");
+        search(handler, "lamp");
+
+        // Then: two manifest reads and two snapshot downloads, none after the load
+        assertThat(failed.getStatusCode()).isEqualTo(500);
+        assertThat(ids(result)).containsExactly("p1");
+        assertThat(result.path("version").asLong()).isEqualTo(2L);
+        verify(s3Client, times(4)).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    private JsonNode search(SearchProductsHandler handler, String query) throws Exception {
+        return search(handler, query, null);
+    }
+
+    private JsonNode search(SearchProductsHandler handler, String query, String limit) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put("q", query);
+        if (limit != null) {
+            params.put("limit", limit);
+        }
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                new APIGatewayProxyRequestEvent().withQueryStringParameters(params), context);
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        return MarketplaceJson.CODEC.readTree(response.getBody());
+    }
+
+    private static List<String> ids(JsonNode result) {
+        List<String> ids = new ArrayList<>();
+        result.path("products").forEach(product -> ids.add(product.path("id").asText()));
+        return ids;
+    }
+
+    /**
+     * Writes a snapshot as the exporter does and points the manifest at it.
+     */
+    private void publish(long version, Product... products) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (Product product : products) {
+            lines.append(MarketplaceJson.CODEC.write(product)).append('\n');
+        }
+        byte[] file = gzip(lines.toString());
+        String key = CatalogSnapshots.snapshotKey(version);
+        objects.put(key, file);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file));
+        objects.put(CatalogSnapshots.MANIFEST_KEY, MarketplaceJson.CODEC.createObjectNode()
+                .put("version", version)
+                .put("key", key)
+                .put("itemCount", products.length)
+                .put("sizeBytes", file.length)
+                .put("sha256", sha256)
+                .toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gzip(String text) throws Exception {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file.toByteArray();
+    }
+}
@@ -0,0 +1,210 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.marketplace.model.MarketplaceJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.params.ZParams;
+import redis.clients.jedis.resps.Tuple;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for TopProductsHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TopProductsHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Transaction transaction;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private TopProductsHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        lenient().when(jedis.multi()).thenReturn(transaction);
+        handler = new TopProductsHandler(dynamoDbClient, () -> jedisPool, "TestTable", 1);
+    }
+
+    /**
+     * Tests that the window's hourly sets are unioned newest first with halving weights, and that
+     * ranked products come from the cached listing without the supplier email.
+     */
+    @Test
+    public void shouldRankByDecayedUnionFromCachedListing() throws Exception {
+        // Given
+        rankingOf(new Tuple("p2", 9.5), new Tuple("p1", 4.0));
+        when(jedis.get("products:top:cat:Books:3:2")).thenReturn(null);
+        when(jedis.get("products:cat:Books")).thenReturn("[" + product("p1") + "," + product("p2") + "," + product("p3") + "]");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request(Map.of(
+                "category", "Books", "hours", "3", "limit", "2")), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        JsonNode body = MarketplaceJson.CODEC.readTree(response.getBody());
+        assertThat(body.path("category").asText()).isEqualTo("Books");
+        assertThat(body.path("products").get(0).path("rank").asInt()).isEqualTo(1);
+        assertThat(body.path("products").get(0).path("score").asDouble()).isEqualTo(9.5);
+        assertThat(body.path("products").get(0).path("product").path("id").asText()).isEqualTo("p2");
+        assertThat(body.path("products").get(1).path("product").path("id").asText()).isEqualTo("p1");
+        assertThat(response.getBody()).doesNotContain("seller@example.com");
+
+        ArgumentCaptor<ZParams> params = ArgumentCaptor.forClass(ZParams.class);
+        ArgumentCaptor<String[]> keys = ArgumentCaptor.forClass(String[].class);
+        verify(transaction).zunionstore(anyString(), params.capture(), keys.capture());
+        long hour = Long.parseLong(keys.getValue()[0].split(":")[2]);
+        assertThat(keys.getValue()).containsExactly(
+                "products:sales:" + hour + ":Books",
+                "products:sales:" + (hour - 1) + ":Books",
+                "products:sales:" + (hour - 2) + ":Books");
+        assertThat(weights(params.getValue())).containsExactly("1.0", "0.5", "0.25");
+        verify(transaction).zrevrangeWithScores(anyString(), eq(0L), eq(1L));
+        verify(jedis).setex("products:top:cat:Books:3:2", 60, response.getBody());
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    /**
+     * Tests that products missing from the cached listing are read from DynamoDB.
+     */
+    @Test
+    public void shouldReadUncachedProductsFromDynamoDb() throws Exception {
+        // Given: no cached listing
+        rankingOf(new Tuple("p1", 3.0));
+        when(dynamoDbClient.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(BatchGetItemResponse.builder()
+                .responses(Map.of("TestTable", List.of(Map.of(
+                        "id", AttributeValue.builder().s("p1").build(),
+                        "name", AttributeValue.builder().s("Product p1").build(),
+                        "price", AttributeValue.builder().n("10").build(),
+                        "category", AttributeValue.builder().s("Books").build(),
+                        "supplierEmail", AttributeValue.builder().s("ZW5jcnlwdGVk").build()))))
+                .build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request(null), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        JsonNode body = MarketplaceJson.CODEC.readTree(response.getBody());
+        assertThat(body.path("products").get(0).path("product").path("name").asText()).isEqualTo("Product p1");
+        assertThat(body.path("products").get(0).path("rank").asInt()).isEqualTo(1);
+        assertThat(body.path("products").get(0).path("product").path("supplierEmail").isNull()).isTrue();
+        ArgumentCaptor<BatchGetItemRequest> captor = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(dynamoDbClient).batchGetItem(captor.capture());
+        assertThat(captor.getValue().requestItems().get("TestTable").keys().get(0).get("PK").s()).isEqualTo("PROD#p1");
+        verify(jedis).get("products:all");
+        verify(jedis).setex(eq("products:top:all:24:10"), eq(60L), anyString());
+    }
+
+    /**
+     * Tests that a cached ranking is returned without recomputing it.
+     */
+    @Test
+    public void shouldReturnCachedRanking() {
+        // Given
+        when(jedis.get("products:top:all:24:10")).thenReturn("{\"products\":[]}");
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request(null), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).isEqualTo("{\"products\":[]}");
+        verify(jedis, never()).multi();
+        verify(jedis, never()).setex(anyString(), anyLong(), anyString());
+    }
+
+    /**
+     * Tests that limits and windows out of range are refused without touching Redis.
+     */
+    @Test
+    public void shouldRejectInvalidParameters() {
+        // When / Then
+        assertThat(handler.handleRequest(request(Map.of("limit", "0")), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request(Map.of("limit", "51")), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request(Map.of("hours", "25")), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request(Map.of("hours", "day")), context).getStatusCode()).isEqualTo(400);
+        verifyNoInteractions(jedisPool);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rankingOf(Tuple... ranking) {
+        Response<List<Tuple>> top = mock(Response.class);
+        when(top.get()).thenReturn(List.of(ranking));
+        when(transaction.zrevrangeWithScores(anyString(), eq(0L), any(Long.class))).thenReturn(top);
+    }
+
+    private static List<String> weights(ZParams params) {
+        CommandArguments args = new CommandArguments(Protocol.Command.ZUNIONSTORE);
+        params.addParams(args);
+        List<String> values = new ArrayList<>();
+        for (Rawable arg : args) {
+            values.add(new String(arg.getRaw(), StandardCharsets.UTF_8));
+        }
+        return values.subList(values.indexOf("WEIGHTS") + 1, values.size());
+    }
+
+    private static APIGatewayProxyRequestEvent request(Map<String, String> queryParams) {
+        return new APIGatewayProxyRequestEvent().withQueryStringParameters(queryParams);
+    }
+
+    private static String product(String id) {
+        return "{\"id\":\"" + id + "\",\"name\":\"Product " + id + "\",\"price\":10.0,\"category\":\"Books\","
+                + "\"stockQuantity\":3,\"supplierEmail\":\"seller@example.com\"}";
+    }
+}
@@ -0,0 +1,184 @@
+package com.marketplace.products;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+import software.amazon.awssdk.services.kms.KmsClient;
+import software.amazon.awssdk.services.kms.model.EncryptRequest;
+import software.amazon.awssdk.services.kms.model.EncryptResponse;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UpdateProductHandler.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UpdateProductHandlerTest {
+
+    @Mock
+    private DynamoDbClient dynamoDbClient;
+
+    @Mock
+    private KmsClient kmsClient;
+
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private LambdaLogger logger;
+
+    private UpdateProductHandler handler;
+
+    /**
+     * Sets up the test environment before each test.
+     */
+    @BeforeEach
+    public void setUp() {
+        lenient().when(context.getLogger()).thenReturn(logger);
+        lenient().when(jedisPool.getResource()).thenReturn(jedis);
+        handler = new UpdateProductHandler(dynamoDbClient, kmsClient, () -> jedisPool, "TestTable", "key-id");
+    }
+
+    /**
+     * Tests that only the fields in the body are set, conditioned on the If-Match version, and only
+     * the full listing is evicted when the category is unchanged.
+     */
+    @Test
+    public void shouldSetOnlyPatchedFields() {
+        // Given
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(UpdateItemResponse.builder()
+                .attributes(Map.of(
+                        "price", AttributeValue.builder().n("19.99").build(),
+                        "version", AttributeValue.builder().n("4").build()))
+                .build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(request("p1", "\"3\"", "{\"price\": 19.99}"), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getHeaders()).containsEntry("ETag", "\"4\"");
+        assertThat(response.getBody()).isEqualTo("{\"id\":\"p1\",\"price\":19.99,\"version\":4}");
+
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        UpdateItemRequest update = captor.getValue();
+        assertThat(update.key().get("PK").s()).isEqualTo("PROD#p1");
+        assertThat(update.updateExpression()).isEqualTo("SET #price = :price, #version = #version + :one");
+        assertThat(update.conditionExpression()).isEqualTo("attribute_exists(PK) AND #version = :expected");
+        assertThat(update.expressionAttributeValues().get(":expected").n()).isEqualTo("3");
+        assertThat(update.expressionAttributeValues().get(":price").n()).isEqualTo("19.99");
+        assertThat(update.returnValues()).isEqualTo(ReturnValue.UPDATED_NEW);
+        verify(jedis).del("products:all");
+        verifyNoInteractions(kmsClient);
+    }
+
+    /**
+     * Tests that a new supplier email is encrypted, a null email is removed, and a category change
+     * evicts the new category's listing.
+     */
+    @Test
+    public void shouldEncryptEmailAndEvictNewCategory() {
+        // Given
+        when(kmsClient.encrypt(any(EncryptRequest.class))).thenReturn(EncryptResponse.builder()
+                .ciphertextBlob(SdkBytes.fromUtf8String("encrypted"))
+                .build());
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class))).thenReturn(UpdateItemResponse.builder()
+                .attributes(Map.of(
+                        "category", AttributeValue.builder().s("Toys").build(),
+                        "supplierEmail", AttributeValue.builder().s("ZW5jcnlwdGVk").build(),
+                        "version", AttributeValue.builder().n("2").build()))
+                .build());
+
+        // When
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                request("p1", "1", "{\"category\": \"Toys\", \"supplierEmail\": \"new@example.com\"}"), context);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(200);
+        assertThat(response.getBody()).doesNotContain("supplierEmail");
+        ArgumentCaptor<UpdateItemRequest> captor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(dynamoDbClient).updateItem(captor.capture());
+        assertThat(captor.getValue().expressionAttributeValues().get(":supplierEmail").s()).isEqualTo("ZW5jcnlwdGVk");
+        verify(jedis).del("products:all", "products:cat:Toys");
+    }
+
+    /**
+     * Tests that a stale version returns 412 with the current version, and a missing product 404.
+     */
+    @Test
+    public void shouldTellStaleVersionFromMissingProduct() {
+        // Given
+        when(dynamoDbClient.updateItem(any(UpdateItemRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("condition").build());
+        when(dynamoDbClient.getItem(any(GetItemRequest.class)))
+                .thenReturn(GetItemResponse.builder().item(Map.of("version", AttributeValue.builder().n("5").build())).build())
+                .thenReturn(GetItemResponse.builder().build());
+
+        // When
+        APIGatewayProxyResponseEvent stale = handler.handleRequest(request("p1", "\"3\"", "{\"stockQuantity\": 7}"), context);
+        APIGatewayProxyResponseEvent missing = handler.handleRequest(request("p9", "\"3\"", "{\"stockQuantity\": 7}"), context);
+
+        // Then
+        assertThat(stale.getStatusCode()).isEqualTo(412);
+        assertThat(stale.getHeaders()).containsEntry("ETag", "\"5\"");
+        assertThat(missing.getStatusCode()).isEqualTo(404);
+        verifyNoInteractions(jedisPool);
+    }
+
+    /**
+     * Tests that requests without If-Match, with fields that cannot be updated or with invalid values
+     * are refused without a write.
+     */
+    @Test
+    public void shouldRejectInvalidPatches() {
+        // When / Then
+        assertThat(handler.handleRequest(request("p1", null, "{\"price\": 5}"), context).getStatusCode()).isEqualTo(428);
+        assertThat(handler.handleRequest(request("p1", "1", "{\"version\": 9}"), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request("p1", "1", "{\"price\": -1}"), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request("p1", "1", "{\"stockQuantity\": 1.5}"), context).getStatusCode()).isEqualTo(400);
+        assertThat(handler.handleRequest(request("p1", "1", "{}"), context).getStatusCode()).isEqualTo(400);
+        verifyNoInteractions(dynamoDbClient);
+    }
+
+    private static APIGatewayProxyRequestEvent request(String id, String ifMatch, String body) {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withPathParameters(Map.of("id", id))
+                .withBody(body);
+        if (ifMatch != null) {
+            request.setHeaders(Map.of("if-match", ifMatch));
+        }
+        return request;
+    }
+}
@@ -0,0 +1,184 @@
+package com.marketplace.runtime;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LambdaRuntime against a fake Runtime API.
+ */
+public class LambdaRuntimeTest {
+
+    private HttpServer runtimeApi;
+    private final Map<String, String> posted = new ConcurrentHashMap<>();
+    private volatile String nextEvent;
+
+    /**
+     * Starts a fake Runtime API that serves {@link #nextEvent} and records posted results by path.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        runtimeApi = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        runtimeApi.createContext("/2018-06-01/runtime/invocation/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] response = new byte[0];
+            if (path.endsWith("/next")) {
+                exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", "req-1");
+                exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", String.valueOf(System.currentTimeMillis() + 10_000));
+                response = nextEvent.getBytes(StandardCharsets.UTF_8);
+            } else {
+                posted.put(path, new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        runtimeApi.start();
+    }
+
+    /**
+     * Stops the fake Runtime API.
+     */
+    @AfterEach
+    public void tearDown() {
+        runtimeApi.stop(0);
+    }
+
+    /**
+     * Tests that an event is deserialized into the handler's event type and the result is posted back.
+     */
+    @Test
+    public void shouldDispatchEventToHandlerAndPostResponse() throws Exception {
+        // Given
+        nextEvent = "{\"type\": \"TOKEN\", \"authorizationToken\": \"Bearer allow-me\", "
+                + "\"methodArn\": \"arn:aws:execute-api:us-east-1:123456789012:api/prod/GET/products\", \"extra\": 1}";
+        LambdaRuntime runtime = new LambdaRuntime(address(),
+                LambdaRuntime.createHandler("com.marketplace.auth.LambdaAuthorizerHandler::handleRequest"));
+
+        // When
+        runtime.processNextEvent();
+
+        // Then
+        assertThat(LambdaRuntime.resolveInputType(com.marketplace.auth.LambdaAuthorizerHandler.class))
+                .isEqualTo(APIGatewayCustomAuthorizerEvent.class);
+        assertThat(posted.get("/2018-06-01/runtime/invocation/req-1/response"))
+                .contains("\"principalId\":\"authorized-user-123\"")
+                .contains("Allow");
+    }
+
+    /**
+     * Tests that a handler exception is reported on the invocation error endpoint.
+     */
+    @Test
+    public void shouldPostErrorWhenHandlerThrows() throws Exception {
+        // Given
+        nextEvent = "{}";
+        LambdaRuntime runtime = new LambdaRuntime(address(), new FailingHandler());
+
+        // When
+        runtime.processNextEvent();
+
+        // Then
+        assertThat(posted.get("/2018-06-01/runtime/invocation/req-1/error"))
+                .contains("\"errorMessage\":\"boom\"")
+                .contains("IllegalStateException");
+    }
+
+    /**
+     * Tests that a DynamoDB stream event keeps its capitalised images and attribute types, which
+     * plain Jackson drops as unknown properties.
+     */
+    @Test
+    public void shouldDecodeDynamoDbStreamImages() throws Exception {
+        // Given
+        nextEvent = "{\"Records\": [{\"eventID\": \"1\", \"eventName\": \"MODIFY\", \"eventSource\": \"aws:dynamodb\", "
+                + "\"dynamodb\": {\"Keys\": {\"PK\": {\"S\": \"PROD#p1\"}}, "
+                + "\"NewImage\": {\"category\": {\"S\": \"Books\"}, \"price\": {\"N\": \"12.5\"}}, "
+                + "\"OldImage\": {\"category\": {\"S\": \"Toys\"}}, "
+                + "\"SequenceNumber\": \"111\", \"SizeBytes\": 26, \"StreamViewType\": \"NEW_AND_OLD_IMAGES\"}}]}";
+        LambdaRuntime runtime = new LambdaRuntime(address(), new StreamImageHandler());
+
+        // When
+        runtime.processNextEvent();
+
+        // Then
+        assertThat(posted.get("/2018-06-01/runtime/invocation/req-1/response"))
+                .isEqualTo("\"PROD#p1 Toys->Books 12.5 111\"");
+    }
+
+    /**
+     * Tests that every handler deployed in template.yaml can be instantiated reflectively in the
+     * native executable.
+     */
+    @Test
+    public void shouldRegisterEveryTemplateHandlerForReflection() throws Exception {
+        // Given
+        Set<String> deployed = new HashSet<>();
+        Matcher handlers = Pattern.compile("Handler: ([\\w.]+)::").matcher(Files.readString(Path.of("template.yaml")));
+        while (handlers.find()) {
+            deployed.add(handlers.group(1));
+        }
+
+        // When
+        Set<String> registered = new HashSet<>();
+        JsonNode config = new ObjectMapper().readTree(Path.of(
+                "src/main/resources/META-INF/native-image/com.marketplace/secure-serverless-marketplace/reflect-config.json").toFile());
+        config.forEach(entry -> registered.add(entry.path("name").asText()));
+
+        // Then
+        assertThat(deployed).isNotEmpty();
+        assertThat(registered).containsAll(deployed);
+    }
+
+    private String address() {
+        return "127.0.0.1:" + runtimeApi.getAddress().getPort();
+    }
+
+    /**
+     * Handler that describes the first stream record from its keys, images and sequence number.
+     */
+    static final class StreamImageHandler implements RequestHandler<DynamodbEvent, String> {
+        @Override
+        public String handleRequest(DynamodbEvent input, Context context) {
+            DynamodbEvent.DynamodbStreamRecord record = input.getRecords().get(0);
+            Map<String, AttributeValue> newImage = record.getDynamodb().getNewImage();
+            return record.getDynamodb().getKeys().get("PK").getS() + " "
+                    + record.getDynamodb().getOldImage().get("category").getS() + "->" + newImage.get("category").getS() + " "
+                    + newImage.get("price").getN() + " " + record.getDynamodb().getSequenceNumber();
+        }
+    }
+
+    /**
+     * Handler that always fails.
+     */
+    static final class FailingHandler implements RequestHandler<Map<String, Object>, String> {
+        @Override
+        public String handleRequest(Map<String, Object> input, Context context) {
+            throw new IllegalStateException("boom");
+        }
+    }
+}